@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures the cost of compressing configuration cache state files on store and decompressing them on load.
+ *
+ * <p>Runs over the uncompressed state files found in {@code cacheDir}, which defaults to the closest
+ * {@code .gradle/configuration-cache} directory. To produce them, run a build with
+ * {@code --configuration-cache -Dorg.gradle.configuration-cache.internal.compress=false}.
+ * The size of the stored entries is printed during setup, so the time spent here can be weighed against the I/O saved.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class Lz4BlockStreamBenchmark {
+
+    @Param({""})
+    String cacheDir;
+
+    @Param({"none", "lz4"})
+    String compression;
+
+    private List<byte[]> entries;
+    private List<byte[]> storedEntries;
+    private byte[] buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Path dir = cacheDir.isEmpty() ? findCacheDir() : new File(cacheDir).toPath();
+        try (Stream<Path> files = Files.walk(dir)) {
+            entries = new ArrayList<>();
+            for (Path file : files.filter(it -> it.toString().endsWith(".bin")).collect(Collectors.toList())) {
+                entries.add(Files.readAllBytes(file));
+            }
+        }
+        if (entries.isEmpty()) {
+            throw new IllegalStateException("No configuration cache state files found in " + dir);
+        }
+        storedEntries = new ArrayList<>(entries.size());
+        long rawSize = 0;
+        long storedSize = 0;
+        for (byte[] entry : entries) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream outputStream = outputStreamFor(bytes)) {
+                outputStream.write(entry);
+            }
+            storedEntries.add(bytes.toByteArray());
+            rawSize += entry.length;
+            storedSize += bytes.size();
+        }
+        buffer = new byte[8192];
+        System.out.printf("%n%d state files, %d bytes raw, %d bytes stored with '%s'%n", entries.size(), rawSize, storedSize, compression);
+    }
+
+    @Benchmark
+    public void store() throws IOException {
+        for (byte[] entry : entries) {
+            try (OutputStream outputStream = outputStreamFor(NullOutputStream.INSTANCE)) {
+                // Mimic the chunks written by the serializer
+                for (int offset = 0; offset < entry.length; offset += buffer.length) {
+                    outputStream.write(entry, offset, Math.min(buffer.length, entry.length - offset));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void load(Blackhole blackhole) throws IOException {
+        for (byte[] storedEntry : storedEntries) {
+            try (InputStream inputStream = inputStreamFor(new ByteArrayInputStream(storedEntry))) {
+                int n;
+                while ((n = inputStream.read(buffer)) > 0) {
+                    blackhole.consume(buffer[n - 1]);
+                }
+            }
+        }
+    }
+
+    private OutputStream outputStreamFor(OutputStream outputStream) {
+        return compression.equals("lz4") ? new Lz4BlockOutputStream(outputStream) : outputStream;
+    }
+
+    private InputStream inputStreamFor(InputStream inputStream) {
+        return compression.equals("lz4") ? new Lz4BlockInputStream(inputStream) : inputStream;
+    }
+
+    private static Path findCacheDir() {
+        for (File dir = new File(System.getProperty("user.dir")).getAbsoluteFile(); dir != null; dir = dir.getParentFile()) {
+            File candidate = new File(dir, ".gradle/configuration-cache");
+            if (candidate.isDirectory()) {
+                return candidate.toPath();
+            }
+        }
+        throw new IllegalStateException("No .gradle/configuration-cache directory found, set the 'cacheDir' parameter.");
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.io;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compresses and decompresses single blocks using the LZ4 block format.
+ *
+ * <p>This is a simple greedy implementation that favours speed over compression ratio. Instances are not thread-safe.</p>
+ */
+final class Lz4BlockCodec {
+    static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 65535;
+    private static final int HASH_LOG = 12;
+    private static final int RUN_MASK = 15;
+    private static final int ML_MASK = 15;
+    private static final int SKIP_TRIGGER = 6;
+
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses the first {@code length} bytes of {@code src} into {@code dst} starting at {@code dstOffset}.
+     *
+     * @return the number of bytes written to {@code dst}.
+     */
+    int compress(byte[] src, int length, byte[] dst, int dstOffset) {
+        int anchor = 0;
+        int op = dstOffset;
+        if (length > MF_LIMIT) {
+            Arrays.fill(hashTable, -1);
+            int matchLimit = length - LAST_LITERALS;
+            int mfLimit = length - MF_LIMIT;
+            int searchCount = 1 << SKIP_TRIGGER;
+            int ip = 0;
+            while (ip < mfLimit) {
+                int sequence = readInt(src, ip);
+                int hash = hash(sequence);
+                int ref = hashTable[hash];
+                hashTable[hash] = ip;
+                if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    // Skip faster over data that does not compress
+                    ip += searchCount++ >>> SKIP_TRIGGER;
+                    continue;
+                }
+                searchCount = 1 << SKIP_TRIGGER;
+
+                int distance = ip - ref;
+                int start = ip;
+                while (start > anchor && start - distance > 0 && src[start - 1] == src[start - 1 - distance]) {
+                    start--;
+                }
+                int end = ip + MIN_MATCH;
+                while (end < matchLimit && src[end] == src[end - distance]) {
+                    end++;
+                }
+
+                op = writeSequence(src, anchor, start - anchor, distance, end - start, dst, op);
+                ip = end;
+                anchor = end;
+            }
+        }
+        return writeLastLiterals(src, anchor, length - anchor, dst, op) - dstOffset;
+    }
+
+    /**
+     * Decompresses the first {@code length} bytes of {@code src} into {@code dst}.
+     *
+     * @return the number of bytes written to {@code dst}.
+     */
+    static int decompress(byte[] src, int length, byte[] dst) throws IOException {
+        int ip = 0;
+        int op = 0;
+        while (true) {
+            if (ip >= length) {
+                throw corruptBlock();
+            }
+            int token = src[ip++] & 0xFF;
+
+            int literalLength = token >>> 4;
+            if (literalLength == RUN_MASK) {
+                int b;
+                do {
+                    if (ip >= length) {
+                        throw corruptBlock();
+                    }
+                    b = src[ip++] & 0xFF;
+                    literalLength += b;
+                } while (b == 255);
+            }
+            if (literalLength > length - ip || literalLength > dst.length - op) {
+                throw corruptBlock();
+            }
+            System.arraycopy(src, ip, dst, op, literalLength);
+            ip += literalLength;
+            op += literalLength;
+            if (ip == length) {
+                return op;
+            }
+
+            if (ip + 2 > length) {
+                throw corruptBlock();
+            }
+            int distance = (src[ip] & 0xFF) | (src[ip + 1] & 0xFF) << 8;
+            ip += 2;
+
+            int matchLength = token & ML_MASK;
+            if (matchLength == ML_MASK) {
+                int b;
+                do {
+                    if (ip >= length) {
+                        throw corruptBlock();
+                    }
+                    b = src[ip++] & 0xFF;
+                    matchLength += b;
+                } while (b == 255);
+            }
+            matchLength += MIN_MATCH;
+
+            int ref = op - distance;
+            if (distance == 0 || ref < 0 || matchLength > dst.length - op) {
+                throw corruptBlock();
+            }
+            if (distance >= matchLength) {
+                System.arraycopy(dst, ref, dst, op, matchLength);
+                op += matchLength;
+            } else {
+                // Overlapping match, repeats the last `distance` bytes
+                for (int end = op + matchLength; op < end; ) {
+                    dst[op++] = dst[ref++];
+                }
+            }
+        }
+    }
+
+    private static int writeSequence(byte[] src, int anchor, int literalLength, int distance, int matchLength, byte[] dst, int op) {
+        int extraMatchLength = matchLength - MIN_MATCH;
+        dst[op++] = (byte) (Math.min(literalLength, RUN_MASK) << 4 | Math.min(extraMatchLength, ML_MASK));
+        op = writeLength(literalLength, RUN_MASK, dst, op);
+        System.arraycopy(src, anchor, dst, op, literalLength);
+        op += literalLength;
+        dst[op++] = (byte) distance;
+        dst[op++] = (byte) (distance >>> 8);
+        return writeLength(extraMatchLength, ML_MASK, dst, op);
+    }
+
+    private static int writeLastLiterals(byte[] src, int anchor, int literalLength, byte[] dst, int op) {
+        dst[op++] = (byte) (Math.min(literalLength, RUN_MASK) << 4);
+        op = writeLength(literalLength, RUN_MASK, dst, op);
+        System.arraycopy(src, anchor, dst, op, literalLength);
+        return op + literalLength;
+    }
+
+    private static int writeLength(int length, int mask, byte[] dst, int op) {
+        if (length >= mask) {
+            int remaining = length - mask;
+            while (remaining >= 255) {
+                dst[op++] = (byte) 255;
+                remaining -= 255;
+            }
+            dst[op++] = (byte) remaining;
+        }
+        return op;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF)
+            | (bytes[offset + 1] & 0xFF) << 8
+            | (bytes[offset + 2] & 0xFF) << 16
+            | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static IOException corruptBlock() {
+        return new IOException("Corrupt LZ4 block.");
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the blocks written by {@link Lz4BlockOutputStream}.
+ *
+ * <p>Fails when the source stream ends before the end marker, so truncated content is never returned as complete.</p>
+ */
+public class Lz4BlockInputStream extends InputStream {
+    private final InputStream in;
+    private final byte[] buffer = new byte[Lz4BlockCodec.MAX_BLOCK_SIZE];
+    private final byte[] block = new byte[Lz4BlockCodec.maxCompressedLength(Lz4BlockCodec.MAX_BLOCK_SIZE)];
+    private int position;
+    private int limit;
+    private boolean finished;
+
+    public Lz4BlockInputStream(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !nextBlock()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (position == limit && !nextBlock()) {
+            return -1;
+        }
+        int n = Math.min(length, limit - position);
+        System.arraycopy(buffer, position, bytes, offset, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean nextBlock() throws IOException {
+        if (finished) {
+            return false;
+        }
+        readFully(block, 4);
+        int header = (block[0] & 0xFF) << 24 | (block[1] & 0xFF) << 16 | (block[2] & 0xFF) << 8 | (block[3] & 0xFF);
+        if (header == 0) {
+            finished = true;
+            return false;
+        }
+        int length = header & ~Lz4BlockOutputStream.STORED_FLAG;
+        if ((header & Lz4BlockOutputStream.STORED_FLAG) != 0) {
+            if (length > buffer.length) {
+                throw new IOException("Corrupt LZ4 block stream.");
+            }
+            readFully(buffer, length);
+            limit = length;
+        } else {
+            if (length > block.length) {
+                throw new IOException("Corrupt LZ4 block stream.");
+            }
+            readFully(block, length);
+            limit = Lz4BlockCodec.decompress(block, length, buffer);
+        }
+        position = 0;
+        return true;
+    }
+
+    private void readFully(byte[] bytes, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int n = in.read(bytes, offset, length - offset);
+            if (n < 0) {
+                throw new EOFException("Unexpected end of LZ4 block stream.");
+            }
+            offset += n;
+        }
+    }
+}
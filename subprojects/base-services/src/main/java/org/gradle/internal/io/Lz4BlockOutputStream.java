@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses the bytes written to it in LZ4 blocks of up to 64KiB, to be read back using {@link Lz4BlockInputStream}.
+ *
+ * <p>Each block is prefixed with its length, blocks that do not compress are stored as is.
+ * Closing this stream writes an end marker and closes the target stream.</p>
+ */
+public class Lz4BlockOutputStream extends OutputStream {
+    static final int STORED_FLAG = 0x80000000;
+
+    private final OutputStream out;
+    private final Lz4BlockCodec codec = new Lz4BlockCodec();
+    private final byte[] buffer = new byte[Lz4BlockCodec.MAX_BLOCK_SIZE];
+    private final byte[] block = new byte[4 + Lz4BlockCodec.maxCompressedLength(Lz4BlockCodec.MAX_BLOCK_SIZE)];
+    private int count;
+    private boolean closed;
+
+    public Lz4BlockOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == buffer.length) {
+            writeBlock();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (count == buffer.length) {
+                writeBlock();
+            }
+            int n = Math.min(length, buffer.length - count);
+            System.arraycopy(bytes, offset, buffer, count, n);
+            count += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeBlock();
+            writeHeader(0);
+            out.write(block, 0, 4);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        int compressedLength = codec.compress(buffer, count, block, 4);
+        if (compressedLength < count) {
+            writeHeader(compressedLength);
+            out.write(block, 0, 4 + compressedLength);
+        } else {
+            writeHeader(count | STORED_FLAG);
+            out.write(block, 0, 4);
+            out.write(buffer, 0, count);
+        }
+        count = 0;
+    }
+
+    private void writeHeader(int header) {
+        block[0] = (byte) (header >>> 24);
+        block[1] = (byte) (header >>> 16);
+        block[2] = (byte) (header >>> 8);
+        block[3] = (byte) header;
+    }
+}
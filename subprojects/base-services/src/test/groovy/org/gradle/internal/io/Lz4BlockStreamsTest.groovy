@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.io
+
+import spock.lang.Specification
+
+class Lz4BlockStreamsTest extends Specification {
+
+    def "round trips #description"() {
+        when:
+        def compressed = compress(bytes)
+
+        then:
+        decompress(compressed) == bytes
+
+        where:
+        description             | bytes
+        "empty content"         | new byte[0]
+        "short content"         | [1, 2, 3] as byte[]
+        "repetitive content"    | ("org.gradle.api.Task;" * 20000).bytes
+        "content of zeros"      | new byte[200001]
+        "random content"        | randomBytes(300000)
+    }
+
+    def "compresses repetitive content"() {
+        given:
+        def bytes = ("org.gradle.api.Task;" * 20000).bytes
+
+        expect:
+        compress(bytes).length < bytes.length / 10
+    }
+
+    def "stores incompressible blocks as is"() {
+        given:
+        def bytes = randomBytes(100000)
+
+        expect:
+        compress(bytes).length == bytes.length + 3 * 4
+    }
+
+    def "round trips content written byte by byte"() {
+        given:
+        def bytes = ("abcdefgh" * 10000).bytes
+        def output = new ByteArrayOutputStream()
+
+        when:
+        new Lz4BlockOutputStream(output).withCloseable { stream ->
+            bytes.each { stream.write(it) }
+        }
+
+        then:
+        decompress(output.toByteArray()) == bytes
+    }
+
+    def "fails on truncated content"() {
+        given:
+        def compressed = compress(("org.gradle.api.Task;" * 20000).bytes)
+        def truncated = Arrays.copyOf(compressed, compressed.length - 4)
+
+        when:
+        decompress(truncated)
+
+        then:
+        thrown(EOFException)
+    }
+
+    def "fails on corrupt content"() {
+        given:
+        def compressed = compress(("org.gradle.api.Task;" * 20000).bytes)
+        // Point the first match before the start of the block: header, token, literal length, 20 literals, match offset
+        compressed[26] = (byte) 0xFF
+        compressed[27] = (byte) 0xFF
+
+        when:
+        decompress(compressed)
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Corrupt LZ4 block."
+    }
+
+    private static byte[] compress(byte[] bytes) {
+        def output = new ByteArrayOutputStream()
+        new Lz4BlockOutputStream(output).withCloseable {
+            it.write(bytes)
+        }
+        return output.toByteArray()
+    }
+
+    private static byte[] decompress(byte[] bytes) {
+        new Lz4BlockInputStream(new ByteArrayInputStream(bytes)).withCloseable {
+            it.bytes
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        def bytes = new byte[length]
+        new Random(42).nextBytes(bytes)
+        return bytes
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.internal.file.impl.ParallelFileTreeWalker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares walking a directory tree with {@link Files#walkFileTree(Path, Set, int, java.nio.file.FileVisitor)} and {@link ParallelFileTreeWalker}.
+ *
+ * Point {@code tempDir} to a network or overlay file system to measure the effect of file system latency.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class DirectoryWalkingBenchmark {
+    private static final Set<FileVisitOption> FOLLOW_LINKS = EnumSet.of(FileVisitOption.FOLLOW_LINKS);
+
+    @Param({"1", "4", "16"})
+    int parallelism;
+
+    @Param({"4"})
+    int depth;
+
+    @Param({"8"})
+    int directoriesPerDirectory;
+
+    @Param({"10"})
+    int filesPerDirectory;
+
+    @Param({""})
+    String tempDir;
+
+    Path root;
+    ForkJoinPool pool;
+    ParallelFileTreeWalker walker;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        root = tempDir.isEmpty() ? Files.createTempDirectory("directory-walking") : Files.createTempDirectory(Files.createDirectories(Paths.get(tempDir)), "directory-walking");
+        createTree(root, depth);
+        pool = new ForkJoinPool(parallelism);
+        walker = new ParallelFileTreeWalker(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdownNow();
+        FileUtils.forceDelete(root.toFile());
+    }
+
+    private void createTree(Path dir, int depth) throws IOException {
+        for (int i = 0; i < filesPerDirectory; i++) {
+            Files.write(dir.resolve("file" + i + ".txt"), new byte[]{(byte) i});
+        }
+        if (depth > 0) {
+            for (int i = 0; i < directoriesPerDirectory; i++) {
+                createTree(Files.createDirectory(dir.resolve("dir" + i)), depth - 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public void walkFileTree(Blackhole blackhole) throws IOException {
+        Files.walkFileTree(root, FOLLOW_LINKS, Integer.MAX_VALUE, new ConsumingVisitor(blackhole));
+    }
+
+    @Benchmark
+    public void parallelWalk(Blackhole blackhole) throws IOException {
+        walker.walk(root, FOLLOW_LINKS, Integer.MAX_VALUE, new ConsumingVisitor(blackhole));
+    }
+
+    private static class ConsumingVisitor extends SimpleFileVisitor<Path> {
+        private final Blackhole blackhole;
+
+        ConsumingVisitor(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            blackhole.consume(attrs.lastModifiedTime());
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            blackhole.consume(attrs.size());
+            return FileVisitResult.CONTINUE;
+        }
+    }
+}
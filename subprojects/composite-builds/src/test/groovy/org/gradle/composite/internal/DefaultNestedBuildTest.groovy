@@ -77,7 +77,7 @@ class DefaultNestedBuildTest extends Specification {
 
     def "runs action and finishes build when model is not required by root build"() {
         given:
-        services.add(new BuildModelParameters(false, false, false, false, false, false, false))
+        services.add(new BuildModelParameters(false, false, false, false, false, false, false, false, false))
         def build = build()
 
         when:
@@ -99,7 +99,7 @@ class DefaultNestedBuildTest extends Specification {
 
     def "runs action but does not finish build when model is required by root build"() {
         given:
-        services.add(new BuildModelParameters(false, false, false, true, false, false, false))
+        services.add(new BuildModelParameters(false, false, false, true, false, false, false, false, false))
         def build = build()
 
         when:
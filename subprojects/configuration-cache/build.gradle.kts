@@ -1,6 +1,7 @@
 plugins {
     id("gradlebuild.distribution.implementation-kotlin")
     id("gradlebuild.kotlin-dsl-sam-with-receiver")
+    id("gradlebuild.jmh")
 }
 
 description = "Configuration cache implementation"
@@ -80,6 +81,7 @@ dependencies {
     implementation(project(":native"))
     implementation(project(":build-option"))
 
+    implementation(libs.asm)
     implementation(libs.capsule)
     implementation(libs.fastutil)
     implementation(libs.groovy)
@@ -114,4 +114,50 @@ class ConfigurationCacheMultiProjectIntegrationTest extends AbstractConfiguratio
         result.assertTasksExecuted(':ok', ':a:ok', ':b:ok')
         configurationCache.assertStateLoaded()
     }
+
+    def "loads tasks of many projects whose tasks reference tasks of other projects"() {
+        given:
+        def projects = (1..8).collect { "p$it" }
+        settingsFile << """
+            include ${projects.collect { "'$it'" }.join(', ')}
+        """
+        projects.eachWithIndex { name, index ->
+            def previous = index > 0 ? projects[index - 1] : null
+            file("$name/build.gradle") << """
+                def produce = tasks.register('produce') {
+                    def output = layout.buildDirectory.file('out.txt')
+                    outputs.file(output)
+                    doLast { output.get().asFile.text = '$name' }
+                }
+                tasks.register('consume') {
+                    def inputFiles = files(produce)
+                    ${previous ? "inputFiles.from(project(':$previous').tasks.named('produce'))" : ""}
+                    inputs.files(inputFiles)
+                    ${previous ? "mustRunAfter(':$previous:consume')" : ""}
+                    doLast {
+                        println("$name consumes " + inputFiles.files.collect { it.text }.sort())
+                    }
+                }
+            """
+        }
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun 'consume'
+
+        then:
+        configurationCache.assertStateStored()
+
+        when:
+        configurationCacheRun 'consume'
+
+        then:
+        configurationCache.assertStateLoaded()
+        projects.each { name ->
+            result.assertTaskExecuted(":$name:consume")
+        }
+        outputContains("p1 consumes [p1]")
+        outputContains("p5 consumes [p4, p5]")
+        outputContains("p8 consumes [p7, p8]")
+    }
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+class ConfigurationCachePartialReuseIntegrationTest extends AbstractConfigurationCacheIntegrationTest {
+
+    def setup() {
+        settingsFile << """
+            include 'a', 'b'
+        """
+        file('a/build.gradle') << """
+            task ok
+        """
+        file('b/build.gradle') << """
+            task other
+        """
+    }
+
+    def "reuses work graph when only the inputs of projects that do not contribute to it have changed"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+        file('b/greeting.txt').text = 'hello'
+        file('b/build.gradle') << """
+            println 'b reads ' + providers.fileContents(layout.projectDirectory.file('greeting.txt')).asText.get()
+        """
+
+        when:
+        partialReuseRun ':a:ok'
+
+        then:
+        outputContains 'b reads hello'
+        configurationCache.assertStateStored()
+
+        when:
+        file('b/greeting.txt').text = 'changed'
+        partialReuseRun ':a:ok'
+
+        then:
+        outputDoesNotContain 'b reads'
+        configurationCache.assertStateLoaded()
+        result.assertTasksExecuted(':a:ok')
+
+        when:
+        partialReuseRun ':b:other'
+
+        then:
+        outputContains 'b reads changed'
+        configurationCache.assertStateStored()
+    }
+
+    def "recreates work graph when the build script of a project that does not contribute to it has changed"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        partialReuseRun ':a:ok'
+
+        then:
+        configurationCache.assertStateStored()
+
+        when:
+        file('b/build.gradle') << """
+            println 'configuring b'
+        """
+        partialReuseRun ':a:ok'
+
+        then:
+        outputContains 'configuring b'
+        configurationCache.assertStateRecreated {
+            fileChanged('b/build.gradle')
+        }
+
+        when:
+        partialReuseRun ':a:ok'
+
+        then:
+        outputDoesNotContain 'configuring b'
+        configurationCache.assertStateLoaded()
+    }
+
+    def "recreates work graph when a project that does not contribute to it newly accesses a project that does using #access"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        partialReuseRun ':a:ok'
+
+        then:
+        configurationCache.assertStateStored()
+
+        when:
+        file('b/build.gradle') << script
+        partialReuseRun ':a:ok'
+
+        then:
+        configurationCache.assertStateRecreated {
+            fileChanged('b/build.gradle')
+        }
+        outputContains 'configured by b'
+        result.assertTasksExecuted(':a:ok')
+
+        when:
+        partialReuseRun ':a:ok'
+
+        then:
+        configurationCache.assertStateLoaded()
+        outputContains 'configured by b'
+
+        where:
+        access               | script
+        'project(path)'      | "project(':a').tasks.named('ok') { doLast { println 'configured by b' } }"
+        'rootProject'        | "rootProject.project('a').tasks.named('ok') { doLast { println 'configured by b' } }"
+        'gradle.allprojects' | "gradle.allprojects { p -> if (p.path == ':a') { p.tasks.named('ok') { doLast { println 'configured by b' } } } }"
+    }
+
+    def "recreates work graph when a project that contributes to it has changed"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        partialReuseRun ':a:ok'
+
+        then:
+        configurationCache.assertStateStored()
+
+        when:
+        file('a/build.gradle') << """
+            println 'configuring a'
+        """
+        partialReuseRun ':a:ok'
+
+        then:
+        outputContains 'configuring a'
+        configurationCache.assertStateRecreated {
+            fileChanged('a/build.gradle')
+        }
+
+        when:
+        partialReuseRun ':a:ok'
+
+        then:
+        outputDoesNotContain 'configuring a'
+        configurationCache.assertStateLoaded()
+    }
+
+    def "recreates work graph when a project coupled with a project that contributes to it has changed"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+        file('b/build.gradle') << """
+            project(':a').tasks.named('ok') {
+                doLast { println 'configured by b' }
+            }
+        """
+
+        when:
+        partialReuseRun ':a:ok'
+
+        then:
+        outputContains 'configured by b'
+        configurationCache.assertStateStored()
+
+        when:
+        file('b/build.gradle') << """
+            println 'configuring b'
+        """
+        partialReuseRun ':a:ok'
+
+        then:
+        outputContains 'configuring b'
+        configurationCache.assertStateRecreated {
+            fileChanged('b/build.gradle')
+        }
+    }
+
+    def "recreates work graph when only projects that do not contribute to it have changed and partial reuse is disabled"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun ':a:ok'
+
+        then:
+        configurationCache.assertStateStored()
+
+        when:
+        file('b/build.gradle') << """
+            println 'configuring b'
+        """
+        configurationCacheRun ':a:ok'
+
+        then:
+        outputContains 'configuring b'
+        configurationCache.assertStateRecreated {
+            fileChanged('b/build.gradle')
+        }
+    }
+
+    private void partialReuseRun(String... tasks) {
+        configurationCacheRun(*tasks, "-Dorg.gradle.configuration-cache.internal.partial-reuse=true")
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.test.fixtures.server.http.BlockingHttpServer
+import org.junit.Rule
+
+class ParallelProjectConfigurationIntegrationTest extends AbstractIntegrationSpec {
+    @Rule
+    BlockingHttpServer server = new BlockingHttpServer()
+
+    def setup() {
+        server.start()
+        settingsFile << """
+            rootProject.name = 'root'
+            include 'a', 'b', 'c'
+        """
+        buildFile << """
+            ${server.callFromBuild("configure-root")}
+        """
+        ['a', 'b', 'c'].each {
+            file("$it/build.gradle") << """
+                ${server.callFromBuild("configure-$it")}
+                task ok
+            """
+        }
+    }
+
+    def "configures projects one at a time when there is no record of a previous build"() {
+        given:
+        expectSequentialConfiguration()
+
+        when:
+        parallelConfigurationRun 3, ':c:ok'
+
+        then:
+        result.assertTasksExecuted(':c:ok')
+    }
+
+    def "configures decoupled projects in parallel"() {
+        given:
+        expectSequentialConfiguration()
+        parallelConfigurationRun 3, ':c:ok'
+
+        server.expect("configure-root")
+        server.expectConcurrent("configure-a", "configure-b", "configure-c")
+
+        when:
+        parallelConfigurationRun 3, ':a:ok', ':b:ok', ':c:ok'
+
+        then:
+        result.assertTasksExecuted(':a:ok', ':b:ok', ':c:ok')
+        outputDoesNotContain 'one at a time'
+    }
+
+    def "configures projects that were coupled in the previous build one at a time"() {
+        given:
+        file('b/build.gradle') << """
+            println 'root version = ' + project(':').version
+        """
+        expectSequentialConfiguration()
+        parallelConfigurationRun 2, ':c:ok'
+
+        server.expect("configure-root")
+        server.expectConcurrent("configure-a", "configure-c")
+        server.expect("configure-b")
+
+        when:
+        parallelConfigurationRun 2, ':c:ok'
+
+        then:
+        result.assertTasksExecuted(':c:ok')
+        outputDoesNotContain 'while configuring projects in parallel'
+    }
+
+    def "configures projects one at a time when a build script has changed since the previous build"() {
+        given:
+        expectSequentialConfiguration()
+        parallelConfigurationRun 3, ':c:ok'
+
+        file('b/build.gradle') << """
+            println 'root version = ' + project(':').version
+        """
+        expectSequentialConfiguration()
+
+        when:
+        parallelConfigurationRun 3, ':c:ok'
+
+        then:
+        result.assertTasksExecuted(':c:ok')
+        outputDoesNotContain 'while configuring projects in parallel'
+
+        when:
+        server.expect("configure-root")
+        server.expectConcurrent("configure-a", "configure-c")
+        server.expect("configure-b")
+        parallelConfigurationRun 3, ':c:ok'
+
+        then:
+        result.assertTasksExecuted(':c:ok')
+    }
+
+    def "configures the remaining projects one at a time when a project accesses another project while configuring in parallel"() {
+        given:
+        file('b/build.gradle') << """
+            apply from: 'access.gradle'
+        """
+        file('b/access.gradle') << ""
+        ['a', 'c'].each {
+            file("$it/build.gradle") << """
+                ${server.callFromBuild("configured-$it")}
+            """
+        }
+        server.expect("configure-root")
+        server.expect("configure-a")
+        server.expect("configured-a")
+        server.expect("configure-b")
+        server.expect("configure-c")
+        server.expect("configured-c")
+        parallelConfigurationRun 3, ':c:ok'
+
+        // Applied scripts are not part of the record of the previous build
+        file('b/access.gradle').text = """
+            println 'a description = ' + project(':a').description
+            ${server.callFromBuild("accessed-a")}
+        """
+        server.expect("configure-root")
+        server.expectConcurrent("configure-a", "configure-b", "configure-c")
+        server.expectConcurrent("configured-a", "configured-c")
+        server.expect("accessed-a")
+
+        when:
+        parallelConfigurationRun 3, ':c:ok'
+
+        then:
+        result.assertTasksExecuted(':c:ok')
+        outputContains "Found that project ':b' accesses project ':a' while configuring projects in parallel. Configuring the remaining projects one at a time."
+
+        when:
+        server.expect("configure-root")
+        server.expect("configure-c")
+        server.expect("configured-c")
+        server.expect("configure-a")
+        server.expect("configured-a")
+        server.expect("configure-b")
+        server.expect("accessed-a")
+        parallelConfigurationRun 3, ':c:ok'
+
+        then:
+        result.assertTasksExecuted(':c:ok')
+        outputDoesNotContain 'while configuring projects in parallel'
+    }
+
+    def "configures projects one at a time when the build registers actions to run for each project"() {
+        given:
+        buildFile << """
+            gradle.beforeProject { }
+        """
+        expectSequentialConfiguration()
+        parallelConfigurationRun 3, ':c:ok'
+        expectSequentialConfiguration()
+
+        when:
+        parallelConfigurationRun 3, ':c:ok'
+
+        then:
+        result.assertTasksExecuted(':c:ok')
+    }
+
+    def "configures projects one at a time when parallel execution is disabled"() {
+        given:
+        expectSequentialConfiguration()
+        run '-Dorg.gradle.internal.configuration.parallel=true', ':c:ok'
+        expectSequentialConfiguration()
+
+        when:
+        run '-Dorg.gradle.internal.configuration.parallel=true', ':c:ok'
+
+        then:
+        result.assertTasksExecuted(':c:ok')
+    }
+
+    private void expectSequentialConfiguration() {
+        server.expect("configure-root")
+        server.expect("configure-a")
+        server.expect("configure-b")
+        server.expect("configure-c")
+    }
+
+    private void parallelConfigurationRun(int maxWorkers, String... tasks) {
+        run(['--parallel', "--max-workers=$maxWorkers", '-Dorg.gradle.internal.configuration.parallel=true', *tasks] as String[])
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization.beans;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compares reflective and generated field access when storing and loading the state of task-like beans.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BeanFieldAccessorBenchmark {
+
+    @Param({"reflective", "generated"})
+    String accessor;
+
+    private final List<Object> beans = new ArrayList<>();
+    private final List<BeanFieldAccessor> accessors = new ArrayList<>();
+    private final List<Object[]> values = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (Object bean : Arrays.asList(new CompileTask(), new CopyTask(), new TestTask())) {
+            List<Field> fields = fieldsOf(bean.getClass());
+            BeanFieldAccessor fieldAccessor = accessor.equals("generated")
+                ? BeanFieldAccessors.generatedAccessorFor(fields)
+                : BeanFieldAccessors.reflectiveAccessorFor(fields);
+            Object[] fieldValues = new Object[fields.size()];
+            for (int i = 0; i < fieldValues.length; i++) {
+                fieldValues[i] = fieldAccessor.get(bean, i);
+            }
+            beans.add(bean);
+            accessors.add(fieldAccessor);
+            values.add(fieldValues);
+        }
+    }
+
+    @Benchmark
+    public void store(Blackhole blackhole) {
+        for (int b = 0; b < beans.size(); b++) {
+            Object bean = beans.get(b);
+            BeanFieldAccessor fieldAccessor = accessors.get(b);
+            int fieldCount = values.get(b).length;
+            for (int i = 0; i < fieldCount; i++) {
+                blackhole.consume(fieldAccessor.get(bean, i));
+            }
+        }
+    }
+
+    @Benchmark
+    public void load(Blackhole blackhole) {
+        for (int b = 0; b < beans.size(); b++) {
+            Object bean = beans.get(b);
+            BeanFieldAccessor fieldAccessor = accessors.get(b);
+            Object[] fieldValues = values.get(b);
+            for (int i = 0; i < fieldValues.length; i++) {
+                fieldAccessor.set(bean, i, fieldValues[i]);
+            }
+            blackhole.consume(bean);
+        }
+    }
+
+    private static List<Field> fieldsOf(Class<?> type) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+        }
+        fields.sort(Comparator.comparing(Field::getName));
+        return fields;
+    }
+
+    @SuppressWarnings("unused")
+    private static abstract class AbstractTask {
+        private String name = "task";
+        private String description = "A task";
+        private String group = "build";
+        private boolean enabled = true;
+        private final List<Object> dependsOn = new ArrayList<>();
+    }
+
+    @SuppressWarnings("unused")
+    private static class CompileTask extends AbstractTask {
+        private List<File> source = Collections.singletonList(new File("src/main/java"));
+        private List<File> classpath = Arrays.asList(new File("a.jar"), new File("b.jar"));
+        private File destinationDirectory = new File("build/classes");
+        private String sourceCompatibility = "1.8";
+        private String targetCompatibility = "1.8";
+        private final List<String> compilerArgs = new ArrayList<>();
+        private boolean incremental = true;
+        private int maxWarnings = 100;
+        private String encoding = "UTF-8";
+    }
+
+    @SuppressWarnings("unused")
+    private static class CopyTask extends AbstractTask {
+        private List<File> from = Collections.singletonList(new File("src/main/resources"));
+        private File into = new File("build/resources");
+        private boolean includeEmptyDirs = true;
+        private boolean caseSensitive = true;
+        private int fileMode = 0644;
+        private int dirMode = 0755;
+        private String filteringCharset = "UTF-8";
+    }
+
+    @SuppressWarnings("unused")
+    private static class TestTask extends AbstractTask {
+        private List<File> testClassesDirs = Collections.singletonList(new File("build/classes/test"));
+        private List<File> classpath = Arrays.asList(new File("a.jar"), new File("b.jar"));
+        private final List<String> jvmArgs = new ArrayList<>();
+        private long forkEvery = 0;
+        private int maxParallelForks = 4;
+        private boolean failFast = false;
+        private boolean ignoreFailures = false;
+        private File workingDir = new File(".");
+        private String minHeapSize = "64m";
+        private String maxHeapSize = "512m";
+    }
+}
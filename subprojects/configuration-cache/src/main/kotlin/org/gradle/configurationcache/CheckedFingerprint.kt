@@ -30,5 +30,6 @@ sealed class CheckedFingerprint {
     class EntryInvalid(val reason: String) : CheckedFingerprint()
 
     // The entry can be reused, however the values for certain projects cannot be reused and should be recreated
-    class ProjectsInvalid(val reason: String, val invalidProjects: Set<Path>) : CheckedFingerprint()
+    // The build logic of some of the invalid projects may have changed as well, in which case their coupling with other projects is no longer known
+    class ProjectsInvalid(val reason: String, val invalidProjects: Set<Path>, val buildLogicChangedProjects: Set<Path> = emptySet()) : CheckedFingerprint()
 }
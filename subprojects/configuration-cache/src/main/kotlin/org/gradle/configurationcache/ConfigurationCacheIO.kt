@@ -42,6 +42,8 @@ import org.gradle.configurationcache.serialization.writeCollection
 import org.gradle.configurationcache.serialization.writeFile
 import org.gradle.internal.build.BuildStateRegistry
 import org.gradle.internal.buildtree.BuildTreeWorkGraph
+import org.gradle.internal.io.Lz4BlockInputStream
+import org.gradle.internal.io.Lz4BlockOutputStream
 import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder
@@ -71,10 +73,13 @@ class ConfigurationCacheIO internal constructor(
         buildStateRegistry: BuildStateRegistry,
         intermediateModels: Map<ModelKey, BlockAddress>,
         projectMetadata: Map<Path, BlockAddress>,
+        workGraphProjects: Set<Path>?,
         stateFile: ConfigurationCacheStateFile
     ) {
         val rootDirs = collectRootDirs(buildStateRegistry)
-        writeConfigurationCacheState(stateFile) {
+        // Entry details are never compressed as they record whether the other state files are
+        writeConfigurationCacheState(stateFile, compressed = false) {
+            writeBoolean(startParameter.isCompressed)
             writeCollection(rootDirs) { writeFile(it) }
             val addressSerializer = BlockAddressSerializer()
             writeCollection(intermediateModels.entries) { entry ->
@@ -86,6 +91,10 @@ class ConfigurationCacheIO internal constructor(
                 writeString(entry.key.path)
                 addressSerializer.write(this, entry.value)
             }
+            writeBoolean(workGraphProjects != null)
+            if (workGraphProjects != null) {
+                writeCollection(workGraphProjects) { writeString(it.path) }
+            }
         }
     }
 
@@ -94,7 +103,8 @@ class ConfigurationCacheIO internal constructor(
         if (!stateFile.exists) {
             return null
         }
-        return readConfigurationCacheState(stateFile) {
+        return readConfigurationCacheState(stateFile, compressed = false) {
+            val isCompressed = readBoolean()
             val rootDirs = readList { readFile() }
             val addressSerializer = BlockAddressSerializer()
             val intermediateModels = mutableMapOf<ModelKey, BlockAddress>()
@@ -110,7 +120,12 @@ class ConfigurationCacheIO internal constructor(
                 val address = addressSerializer.read(this)
                 metadata[path] = address
             }
-            EntryDetails(rootDirs, intermediateModels, metadata)
+            val workGraphProjects = if (readBoolean()) {
+                readList { Path.path(readString()) }.toSet()
+            } else {
+                null
+            }
+            EntryDetails(rootDirs, intermediateModels, metadata, workGraphProjects, isCompressed)
         }
     }
 
@@ -127,7 +142,7 @@ class ConfigurationCacheIO internal constructor(
      * See [ConfigurationCacheState.writeRootBuildState].
      */
     internal
-    fun writeRootBuildStateTo(stateFile: ConfigurationCacheStateFile) =
+    fun writeRootBuildStateTo(stateFile: ConfigurationCacheStateFile): Set<Path> =
         writeConfigurationCacheState(stateFile) { cacheState ->
             cacheState.run {
                 writeRootBuildState(host.currentBuild)
@@ -163,9 +178,10 @@ class ConfigurationCacheIO internal constructor(
     private
     fun <T> readConfigurationCacheState(
         stateFile: ConfigurationCacheStateFile,
+        compressed: Boolean = startParameter.isCompressed,
         action: suspend DefaultReadContext.(ConfigurationCacheState) -> T
     ): T {
-        return withReadContextFor(stateFile.inputStream()) { codecs ->
+        return withReadContextFor(stateFile.inputStream(), compressed) { codecs ->
             ConfigurationCacheState(codecs, stateFile).run {
                 action(this)
             }
@@ -175,10 +191,11 @@ class ConfigurationCacheIO internal constructor(
     private
     fun <T> writeConfigurationCacheState(
         stateFile: ConfigurationCacheStateFile,
+        compressed: Boolean = startParameter.isCompressed,
         action: suspend DefaultWriteContext.(ConfigurationCacheState) -> T
     ): T {
         val build = host.currentBuild
-        val (context, codecs) = writerContextFor(stateFile.outputStream(), build.gradle.owner.displayName.displayName + " state")
+        val (context, codecs) = writerContextFor(stateFile.outputStream(), build.gradle.owner.displayName.displayName + " state", compressed)
         return context.useToRun {
             runWriteOperation {
                 action(ConfigurationCacheState(codecs, stateFile))
@@ -205,8 +222,12 @@ class ConfigurationCacheIO internal constructor(
     }
 
     internal
-    fun writerContextFor(outputStream: OutputStream, profile: String): Pair<DefaultWriteContext, Codecs> =
-        KryoBackedEncoder(outputStream).let { encoder ->
+    fun writerContextFor(
+        outputStream: OutputStream,
+        profile: String,
+        compressed: Boolean = startParameter.isCompressed
+    ): Pair<DefaultWriteContext, Codecs> =
+        KryoBackedEncoder(if (compressed) Lz4BlockOutputStream(outputStream) else outputStream).let { encoder ->
             writeContextFor(
                 encoder,
                 loggingTracerFor(profile, encoder),
@@ -238,9 +259,10 @@ class ConfigurationCacheIO internal constructor(
     internal
     fun <R> withReadContextFor(
         inputStream: InputStream,
+        compressed: Boolean = startParameter.isCompressed,
         readOperation: suspend DefaultReadContext.(Codecs) -> R
     ): R =
-        readerContextFor(inputStream).let { (context, codecs) ->
+        readerContextFor(if (compressed) Lz4BlockInputStream(inputStream) else inputStream).let { (context, codecs) ->
             context.use {
                 context.run {
                     initClassLoader(javaClass.classLoader)
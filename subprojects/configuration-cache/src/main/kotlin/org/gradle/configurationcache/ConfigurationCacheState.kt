@@ -75,6 +75,7 @@ import org.gradle.internal.operations.RunnableBuildOperation
 import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
 import org.gradle.plugin.management.internal.PluginRequests
+import org.gradle.util.Path
 import org.gradle.vcs.internal.VcsMappingsStore
 import java.io.File
 import java.io.InputStream
@@ -108,10 +109,10 @@ class ConfigurationCacheState(
     private val stateFile: ConfigurationCacheStateFile
 ) {
     /**
-     * Writes the state for the whole build starting from the given root [build] and returns the set
-     * of stored included build directories.
+     * Writes the state for the whole build starting from the given root [build] and returns the identity paths
+     * of the projects the stored work graph depends on.
      */
-    suspend fun DefaultWriteContext.writeRootBuildState(build: VintageGradleBuild) =
+    suspend fun DefaultWriteContext.writeRootBuildState(build: VintageGradleBuild): Set<Path> =
         writeRootBuild(build).also {
             writeInt(0x1ecac8e)
         }
@@ -159,7 +160,7 @@ class ConfigurationCacheState(
     }
 
     private
-    suspend fun DefaultWriteContext.writeRootBuild(build: VintageGradleBuild) {
+    suspend fun DefaultWriteContext.writeRootBuild(build: VintageGradleBuild): Set<Path> {
         require(build.gradle.owner is RootBuildState)
         val gradle = build.gradle
         withDebugFrame({ "Gradle" }) {
@@ -168,16 +169,15 @@ class ConfigurationCacheState(
             writeBuildTreeState(gradle)
         }
         val buildEventListeners = buildEventListenersOf(gradle)
-        writeBuildState(
-            build,
-            StoredBuildTreeState(
-                storedBuilds = storedBuilds(),
-                requiredBuildServicesPerBuild = buildEventListeners
-                    .filterIsInstance<BuildServiceProvider<*, *>>()
-                    .groupBy { it.buildIdentifier }
-            )
+        val buildTreeState = StoredBuildTreeState(
+            storedBuilds = storedBuilds(),
+            requiredBuildServicesPerBuild = buildEventListeners
+                .filterIsInstance<BuildServiceProvider<*, *>>()
+                .groupBy { it.buildIdentifier }
         )
+        writeBuildState(build, buildTreeState)
         writeRootEventListenerSubscriptions(gradle, buildEventListeners)
+        return buildTreeState.relevantProjects
     }
 
     private
@@ -203,6 +203,7 @@ class ConfigurationCacheState(
         withDebugFrame({ "Work Graph" }) {
             val scheduledNodes = build.scheduledWork
             val relevantProjects = getRelevantProjectsFor(scheduledNodes, gradle.serviceOf())
+            relevantProjects.mapTo(buildTreeState.relevantProjects) { it.identityPath }
             writeRelevantProjectRegistrations(relevantProjects)
             writeProjectStates(gradle, relevantProjects)
             writeRequiredBuildServicesOf(gradle, buildTreeState)
@@ -762,7 +763,12 @@ internal
 class StoredBuildTreeState(
     val storedBuilds: StoredBuilds,
     val requiredBuildServicesPerBuild: Map<BuildIdentifier, List<BuildServiceProvider<*, *>>>
-)
+) {
+    /**
+     * Identity paths of the projects, across all stored builds, whose state the stored work graphs depend on.
+     */
+    val relevantProjects = mutableSetOf<Path>()
+}
 
 
 internal
@@ -287,6 +287,9 @@ class CrossProjectConfigurationReportingGradle private constructor(
     override fun getProjectEvaluationBroadcaster(): ProjectEvaluationListener =
         delegate.projectEvaluationBroadcaster
 
+    override fun hasProjectEvaluationListeners(): Boolean =
+        delegate.hasProjectEvaluationListeners()
+
     override fun getSettings(): SettingsInternal =
         delegate.settings
 
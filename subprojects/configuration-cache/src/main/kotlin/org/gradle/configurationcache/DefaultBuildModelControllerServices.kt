@@ -28,6 +28,7 @@ import org.gradle.api.internal.project.DefaultCrossProjectModelAccess
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.project.ProjectRegistry
 import org.gradle.api.internal.project.ProjectStateRegistry
+import org.gradle.cache.scopes.BuildScopedCache
 import org.gradle.configuration.ProjectsPreparer
 import org.gradle.configuration.ScriptPluginFactory
 import org.gradle.configuration.internal.UserCodeApplicationContext
@@ -41,8 +42,11 @@ import org.gradle.configurationcache.extensions.get
 import org.gradle.configurationcache.fingerprint.ConfigurationCacheFingerprintController
 import org.gradle.configurationcache.initialization.ConfigurationCacheBuildEnablement
 import org.gradle.configurationcache.problems.ProblemsListener
+import org.gradle.configurationcache.problems.PropertyProblem
 import org.gradle.configurationcache.services.ConfigurationCacheEnvironment
 import org.gradle.configurationcache.services.DefaultEnvironment
+import org.gradle.execution.ProjectConfigurer
+import org.gradle.execution.TaskPathProjectEvaluator
 import org.gradle.initialization.BuildCancellationToken
 import org.gradle.initialization.SettingsPreparer
 import org.gradle.initialization.TaskExecutionPreparer
@@ -58,10 +62,12 @@ import org.gradle.internal.model.CalculatedValueContainerFactory
 import org.gradle.internal.model.StateTransitionControllerFactory
 import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.reflect.Instantiator
+import org.gradle.internal.resources.ProjectLeaseRegistry
 import org.gradle.internal.service.CachingServiceLocator
 import org.gradle.internal.service.scopes.BuildScopeServices
 import org.gradle.internal.service.scopes.ServiceRegistryFactory
 import org.gradle.invocation.DefaultGradle
+import java.io.File
 
 
 class DefaultBuildModelControllerServices(
@@ -84,14 +90,21 @@ class DefaultBuildModelControllerServices(
             }
             if (buildModelParameters.isIsolatedProjects) {
                 registration.addProvider(ConfigurationCacheIsolatedProjectsProvider())
+            } else if (buildModelParameters.isPartialReuse || buildModelParameters.isParallelProjectConfiguration) {
+                registration.addProvider(CouplingTrackingIsolatedProjectsProvider())
             } else {
                 registration.addProvider(VintageIsolatedProjectsProvider())
             }
             if (buildModelParameters.isIntermediateModelCache) {
                 registration.addProvider(ConfigurationCacheModelProvider())
+            } else if (buildModelParameters.isPartialReuse) {
+                registration.addProvider(PartialReuseModelProvider())
             } else {
                 registration.addProvider(VintageModelProvider())
             }
+            if (buildModelParameters.isParallelProjectConfiguration) {
+                registration.addProvider(ParallelProjectConfigurationProvider())
+            }
         }
     }
 
@@ -153,6 +166,39 @@ class DefaultBuildModelControllerServices(
         }
     }
 
+    private
+    class CouplingTrackingIsolatedProjectsProvider {
+        fun createCrossProjectModelAccess(
+            projectRegistry: ProjectRegistry<ProjectInternal>,
+            userCodeApplicationContext: UserCodeApplicationContext,
+            listenerManager: ListenerManager
+        ): CrossProjectModelAccess {
+            val delegate = VintageIsolatedProjectsProvider().createCrossProjectModelAccess(projectRegistry)
+            // Cross-project access is allowed without isolated projects, only record which projects are coupled
+            val ignoringProblems = object : ProblemsListener {
+                override fun onProblem(problem: PropertyProblem) = Unit
+            }
+            return ProblemReportingCrossProjectModelAccess(delegate, ignoringProblems, listenerManager.getBroadcaster(CoupledProjectsListener::class.java), userCodeApplicationContext)
+        }
+    }
+
+    private
+    class ParallelProjectConfigurationProvider {
+        fun createProjectConfigurer(
+            delegate: TaskPathProjectEvaluator,
+            buildOperationExecutor: BuildOperationExecutor,
+            projectLeaseRegistry: ProjectLeaseRegistry,
+            listenerManager: ListenerManager,
+            gradle: GradleInternal,
+            buildScopedCache: BuildScopedCache
+        ): ProjectConfigurer {
+            val coupledProjectsFile = File(buildScopedCache.baseDirForCache("parallel-configuration"), "coupled-projects.txt")
+            return ParallelProjectConfigurer(delegate, buildOperationExecutor, projectLeaseRegistry, gradle, coupledProjectsFile).also {
+                listenerManager.addListener(it)
+            }
+        }
+    }
+
     private
     class VintageIsolatedProjectsProvider {
         fun createCrossProjectModelAccess(
@@ -189,6 +235,31 @@ class DefaultBuildModelControllerServices(
         }
     }
 
+    private
+    class PartialReuseModelProvider {
+        fun createProjectEvaluator(
+            buildOperationExecutor: BuildOperationExecutor,
+            cachingServiceLocator: CachingServiceLocator,
+            scriptPluginFactory: ScriptPluginFactory,
+            fingerprintController: ConfigurationCacheFingerprintController,
+            cancellationToken: BuildCancellationToken
+        ): ProjectEvaluator {
+            val evaluator = VintageModelProvider().createProjectEvaluator(buildOperationExecutor, cachingServiceLocator, scriptPluginFactory, cancellationToken)
+            return ConfigurationCacheAwareProjectEvaluator(evaluator, fingerprintController)
+        }
+
+        fun createLocalComponentRegistry(
+            currentBuild: BuildState,
+            projectStateRegistry: ProjectStateRegistry,
+            calculatedValueContainerFactory: CalculatedValueContainerFactory,
+            provider: LocalComponentProvider,
+            otherBuildProvider: LocalComponentInAnotherBuildProvider,
+            projectArtifactSetResolver: ProjectArtifactSetResolver
+        ): LocalComponentRegistry {
+            return VintageModelProvider().createLocalComponentRegistry(currentBuild, projectStateRegistry, calculatedValueContainerFactory, provider, otherBuildProvider, projectArtifactSetResolver)
+        }
+    }
+
     private
     class VintageModelProvider {
         fun createProjectEvaluator(
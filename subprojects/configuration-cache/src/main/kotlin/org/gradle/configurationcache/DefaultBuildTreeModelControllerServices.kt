@@ -48,6 +48,12 @@ class DefaultBuildTreeModelControllerServices : BuildTreeModelControllerServices
 
         private
         val invalidateCoupledProjects = InternalFlag("org.gradle.internal.invalidate-coupled-projects", true)
+
+        private
+        val partialReuse = InternalFlag("org.gradle.configuration-cache.internal.partial-reuse", false)
+
+        private
+        val parallelConfiguration = InternalFlag("org.gradle.internal.configuration.parallel", false)
     }
 
     override fun servicesForBuildTree(requirements: BuildActionModelRequirements): BuildTreeModelControllerServices.Supplier {
@@ -63,14 +69,17 @@ class DefaultBuildTreeModelControllerServices : BuildTreeModelControllerServices
         val options = DefaultInternalOptions(startParameter.systemPropertiesArgs)
         val isolatedProjects = startParameter.isolatedProjects.get()
         val parallelToolingActions = (isolatedProjects || requirements.startParameter.isParallelProjectExecutionEnabled) && options.getOption(parallelBuilding).get()
-        val invalidateCoupledProjects = isolatedProjects && options.getOption(invalidateCoupledProjects).get()
         val modelParameters = if (requirements.isCreatesModel) {
             // When creating a model, disable certain features - only enable configure on demand and configuration cache when isolated projects is enabled
-            BuildModelParameters(isolatedProjects, isolatedProjects, isolatedProjects, true, isolatedProjects, parallelToolingActions, invalidateCoupledProjects)
+            val invalidateCoupledProjects = isolatedProjects && options.getOption(invalidateCoupledProjects).get()
+            BuildModelParameters(isolatedProjects, isolatedProjects, isolatedProjects, true, isolatedProjects, parallelToolingActions, invalidateCoupledProjects, false, false)
         } else {
             val configurationCache = startParameter.configurationCache.get() || isolatedProjects
             val configureOnDemand = startParameter.isConfigureOnDemand || isolatedProjects
-            BuildModelParameters(configureOnDemand, configurationCache, isolatedProjects, false, false, parallelToolingActions, invalidateCoupledProjects)
+            val partialReuse = configurationCache && options.getOption(partialReuse).get()
+            val invalidateCoupledProjects = (isolatedProjects || partialReuse) && options.getOption(invalidateCoupledProjects).get()
+            val parallelProjectConfiguration = startParameter.isParallelProjectExecutionEnabled && options.getOption(parallelConfiguration).get()
+            BuildModelParameters(configureOnDemand, configurationCache, isolatedProjects, false, false, parallelToolingActions, invalidateCoupledProjects, partialReuse, parallelProjectConfiguration)
         }
 
         if (!startParameter.isConfigurationCacheQuiet) {
@@ -95,7 +104,7 @@ class DefaultBuildTreeModelControllerServices : BuildTreeModelControllerServices
         return BuildTreeModelControllerServices.Supplier { registration ->
             registration.add(BuildType::class.java, BuildType.TASKS)
             // Configuration cache is not supported for nested build trees
-            val buildModelParameters = BuildModelParameters(startParameter.isConfigureOnDemand, false, false, true, false, false, false)
+            val buildModelParameters = BuildModelParameters(startParameter.isConfigureOnDemand, false, false, true, false, false, false, false, false)
             val requirements = RunTasksRequirements(startParameter)
             registerServices(registration, buildModelParameters, requirements)
         }
@@ -38,6 +38,7 @@ import org.gradle.initialization.GradlePropertiesController
 import org.gradle.internal.Factory
 import org.gradle.internal.build.BuildStateRegistry
 import org.gradle.internal.buildtree.BuildActionModelRequirements
+import org.gradle.internal.buildtree.BuildModelParameters
 import org.gradle.internal.buildtree.BuildTreeWorkGraph
 import org.gradle.internal.classpath.Instrumented
 import org.gradle.internal.component.local.model.LocalComponentMetadata
@@ -60,6 +61,7 @@ class DefaultConfigurationCache internal constructor(
     private val instrumentedInputAccessListener: InstrumentedInputAccessListener,
     private val configurationTimeBarrier: ConfigurationTimeBarrier,
     private val buildActionModelRequirements: BuildActionModelRequirements,
+    private val modelParameters: BuildModelParameters,
     private val buildStateRegistry: BuildStateRegistry,
     private val projectStateRegistry: ProjectStateRegistry,
     private val virtualFileSystem: BuildLifecycleAwareVirtualFileSystem,
@@ -90,6 +92,10 @@ class DefaultConfigurationCache internal constructor(
     private
     var hasSavedValues = false
 
+    // The projects the work graph written to the entry depends on, if any
+    private
+    var workGraphProjects: Set<Path>? = null
+
     private
     lateinit var host: Host
 
@@ -173,7 +179,7 @@ class DefaultConfigurationCache internal constructor(
             projectMetadata.value.visitProjects(reusedProjects::add, { })
             store.useForStore { layout ->
                 writeConfigurationCacheFingerprint(layout, reusedProjects)
-                cacheIO.writeCacheEntryDetailsTo(buildStateRegistry, intermediateModels.value.values, projectMetadata.value.values, layout.fileFor(StateType.Entry))
+                cacheIO.writeCacheEntryDetailsTo(buildStateRegistry, intermediateModels.value.values, projectMetadata.value.values, workGraphProjects, layout.fileFor(StateType.Entry))
             }
             problems.projectStateStats(reusedProjects.size, updatedProjects.size)
             hasSavedValues = false
@@ -240,7 +246,12 @@ class DefaultConfigurationCache internal constructor(
                         buildActionModelRequirements.actionDisplayName.capitalizedDisplayName,
                         checkedFingerprint.reason
                     )
-                    ConfigurationCacheAction.UPDATE
+                    if (modelParameters.isIntermediateModelCache) {
+                        ConfigurationCacheAction.UPDATE
+                    } else {
+                        // The work graph is stored as a whole, so recreate it
+                        ConfigurationCacheAction.STORE
+                    }
                 }
 
                 is CheckedFingerprint.Valid -> {
@@ -309,7 +320,7 @@ class DefaultConfigurationCache internal constructor(
 
     private
     fun saveWorkGraph() {
-        saveToCache(StateType.Work) { layout -> writeConfigurationCacheState(layout) }
+        saveToCache(StateType.Work) { layout -> workGraphProjects = writeConfigurationCacheState(layout) }
     }
 
     private
@@ -381,10 +392,12 @@ class DefaultConfigurationCache internal constructor(
     }
 
     private
-    fun writeConfigurationCacheState(stateFile: ConfigurationCacheStateFile) =
-        host.currentBuild.gradle.owner.projects.withMutableStateOfAllProjects {
-            cacheIO.writeRootBuildStateTo(stateFile)
-        }
+    fun writeConfigurationCacheState(stateFile: ConfigurationCacheStateFile): Set<Path> =
+        host.currentBuild.gradle.owner.projects.withMutableStateOfAllProjects(
+            Factory {
+                cacheIO.writeRootBuildStateTo(stateFile)
+            }
+        )
 
     private
     fun writeConfigurationCacheFingerprint(layout: ConfigurationCacheRepository.Layout, reusedProjects: Set<Path>) {
@@ -416,6 +429,11 @@ class DefaultConfigurationCache internal constructor(
 
     private
     fun checkFingerprint(entryDetails: EntryDetails, layout: ConfigurationCacheRepository.Layout): CheckedFingerprint {
+        if (entryDetails.isCompressed != startParameter.isCompressed) {
+            // State files are read according to the current setting
+            return CheckedFingerprint.EntryInvalid("the configuration cache compression setting has changed")
+        }
+
         // Register all included build root directories as watchable hierarchies,
         // so we can load the fingerprint for build scripts and other files from included builds
         // without violating file system invariants.
@@ -444,6 +462,9 @@ class DefaultConfigurationCache internal constructor(
 
         val projectResult = checkProjectScopedFingerprint(layout.fileFor(StateType.ProjectFingerprint))
         if (projectResult is CheckedFingerprint.ProjectsInvalid) {
+            if (canReuseWorkGraphDespite(projectResult, entryDetails)) {
+                return CheckedFingerprint.Valid
+            }
             intermediateModels.value.restoreFromCacheEntry(entryDetails.intermediateModels, projectResult)
             projectMetadata.value.restoreFromCacheEntry(entryDetails.projectMetadata, projectResult)
         }
@@ -451,6 +472,26 @@ class DefaultConfigurationCache internal constructor(
         return projectResult
     }
 
+    /**
+     * The invalidated projects include the projects coupled with or depending on the changed projects,
+     * so a stored work graph that does not depend on any of them is still up-to-date.
+     *
+     * The recorded coupling only holds while the build logic of the changed projects stays the same, though.
+     * A changed build script can newly reach into the projects of the work graph, for example through
+     * `project(':a').tasks` or `gradle.taskGraph`, so the work graph is not reused in that case.
+     */
+    private
+    fun canReuseWorkGraphDespite(projectResult: CheckedFingerprint.ProjectsInvalid, entryDetails: EntryDetails): Boolean {
+        if (!modelParameters.isPartialReuse) {
+            return false
+        }
+        if (projectResult.buildLogicChangedProjects.isNotEmpty()) {
+            return false
+        }
+        val workGraphProjects = entryDetails.workGraphProjects ?: return false
+        return projectResult.invalidProjects.none { it in workGraphProjects }
+    }
+
     private
     fun checkBuildScopedFingerprint(fingerprintFile: ConfigurationCacheStateFile): CheckedFingerprint {
         return readFingerprintFile(fingerprintFile) { host ->
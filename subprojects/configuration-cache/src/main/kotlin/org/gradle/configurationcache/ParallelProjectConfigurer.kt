@@ -0,0 +1,320 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectState
+import org.gradle.api.logging.Logging
+import org.gradle.execution.ProjectConfigurer
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.Hasher
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.resources.ProjectLeaseRegistry
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+
+/**
+ * A [ProjectConfigurer] that configures the subprojects of a build in parallel when they are known to be decoupled.
+ *
+ * Which projects are decoupled is decided before any subproject is configured, from the projects that were found to access
+ * other projects, or to be accessed by other projects, during the previous build. These coupled projects, and their children,
+ * are configured one at a time after the decoupled ones, in the same order as when parallel configuration is disabled.
+ * All projects are configured one at a time when there is no record of a previous build, when the settings script or a build
+ * script has changed since the previous build, or when the build registers actions or listeners to run before or after each
+ * project is evaluated.
+ *
+ * Each decoupled project is configured while holding the lock of that project only. Build logic that is not part of the
+ * settings and build scripts, such as applied scripts and plugins, can still access another project while configuring in parallel.
+ * When this happens, the access waits until no other project is being configured, and the remaining projects are configured
+ * one at a time.
+ */
+internal
+class ParallelProjectConfigurer(
+    private val delegate: ProjectConfigurer,
+    private val buildOperationExecutor: BuildOperationExecutor,
+    private val projectLeaseRegistry: ProjectLeaseRegistry,
+    private val gradle: GradleInternal,
+    private val coupledProjectsFile: File
+) : ProjectConfigurer, CoupledProjectsListener {
+
+    private
+    val logger = Logging.getLogger(ParallelProjectConfigurer::class.java)
+
+    @Volatile
+    private
+    var recording = false
+
+    @Volatile
+    private
+    var gate: ConfigurationGate? = null
+
+    private
+    val coupledProjects = ConcurrentHashMap.newKeySet<String>()
+
+    override fun configure(project: ProjectInternal) {
+        delegate.configure(project)
+    }
+
+    override fun configureFully(project: ProjectInternal) {
+        delegate.configureFully(project)
+    }
+
+    override fun configureHierarchy(project: ProjectInternal) {
+        val scriptsHash = hashOfScripts(project)
+        recording = true
+        try {
+            delegate.configure(project)
+            val subprojects = project.subprojects.map { it as ProjectInternal }
+            val previouslyCoupled =
+                if (subprojects.size < 2 || !projectLeaseRegistry.allowsParallelExecution || gradle.hasProjectEvaluationListeners()) null
+                else loadPreviouslyCoupledProjects(scriptsHash)
+            if (previouslyCoupled == null) {
+                subprojects.forEach(delegate::configure)
+            } else {
+                val (decoupled, coupled) = subprojects.partition { isDecoupled(it, project, previouslyCoupled) }
+                configureInParallel(project, decoupled)
+                if (coupled.isNotEmpty()) {
+                    logger.info("Configuring {} of {} one at a time, as they were coupled to other projects in the previous build.", coupled.size.counter("project"), project.displayName)
+                    coupled.forEach(delegate::configure)
+                }
+            }
+        } finally {
+            recording = false
+        }
+        storeCoupledProjects(scriptsHash)
+    }
+
+    override fun onProjectReference(referrer: ProjectState, target: ProjectState) {
+        if (!recording) {
+            return
+        }
+        val referrerPath = referrer.identityPath.path
+        val added = coupledProjects.add(referrerPath) or coupledProjects.add(target.identityPath.path)
+        val currentGate = gate ?: return
+        if (added) {
+            logger.lifecycle("Found that {} accesses {} while configuring projects in parallel. Configuring the remaining projects one at a time.", referrer.displayName.displayName, target.displayName.displayName)
+        }
+        currentGate.onAccess(referrer, target)
+    }
+
+    private
+    fun isDecoupled(project: ProjectInternal, root: ProjectInternal, previouslyCoupled: Set<String>): Boolean {
+        var current: ProjectInternal? = project
+        while (current != null && current != root) {
+            if (current.identityPath.path in previouslyCoupled) {
+                return false
+            }
+            current = current.parent
+        }
+        return true
+    }
+
+    private
+    fun configureInParallel(root: ProjectInternal, projects: List<ProjectInternal>) {
+        val gate = ConfigurationGate()
+        this.gate = gate
+        try {
+            // Operations acquire and release project locks, so the operations need to be allowed to change them
+            buildOperationExecutor.runAllWithAccessToProjectState<RunnableBuildOperation> { queue ->
+                for (project in projects) {
+                    queue.add(ConfigureProjectOperation(root, project, gate))
+                }
+            }
+        } finally {
+            this.gate = null
+        }
+    }
+
+    /**
+     * Returns the identity paths of the projects that were coupled in the previous build, or null when there is no usable record of it.
+     *
+     * The record is only used when the settings and build scripts are the same as in the previous build, as a changed script can couple projects.
+     */
+    private
+    fun loadPreviouslyCoupledProjects(scriptsHash: HashCode): Set<String>? {
+        val lines = try {
+            if (coupledProjectsFile.isFile) coupledProjectsFile.readLines() else return null
+        } catch (e: IOException) {
+            logger.debug("Could not read coupled projects from {}.", coupledProjectsFile, e)
+            return null
+        }
+        if (lines.firstOrNull() != scriptsHash.toString()) {
+            logger.info("Configuring projects one at a time, as the settings or build scripts have changed since the previous build.")
+            return null
+        }
+        return lines.drop(1).filter { it.isNotEmpty() }.toSet()
+    }
+
+    private
+    fun storeCoupledProjects(scriptsHash: HashCode) {
+        try {
+            coupledProjectsFile.parentFile.mkdirs()
+            coupledProjectsFile.writeText((listOf(scriptsHash.toString()) + coupledProjects.sorted()).joinToString("\n"))
+        } catch (e: IOException) {
+            logger.debug("Could not write coupled projects to {}.", coupledProjectsFile, e)
+        }
+    }
+
+    private
+    fun hashOfScripts(root: ProjectInternal): HashCode {
+        val hasher = Hashing.newHasher()
+        hasher.putScript(gradle.settings.settingsScript)
+        for (project in root.allprojects.sorted()) {
+            hasher.putString(project.path)
+            hasher.putScript((project as ProjectInternal).buildScriptSource)
+        }
+        return hasher.hash()
+    }
+
+    private
+    fun Hasher.putScript(script: ScriptSource) {
+        val resource = script.resource
+        if (resource.exists) {
+            putHash(resource.contentHash)
+        } else {
+            putNull()
+        }
+    }
+
+    private
+    inner class ConfigureProjectOperation(
+        private val root: ProjectInternal,
+        private val project: ProjectInternal,
+        private val gate: ConfigurationGate
+    ) : RunnableBuildOperation {
+
+        override fun run(context: BuildOperationContext) {
+            configureWithProjectLock(project)
+        }
+
+        /**
+         * Configures the parent projects first, so that each project is configured while holding its own lock rather than the lock of a child.
+         */
+        private
+        fun configureWithProjectLock(project: ProjectInternal) {
+            val parent = project.parent
+            if (parent != null && parent != root) {
+                configureWithProjectLock(parent)
+            }
+            project.owner.applyToMutableState {
+                gate.configuring(project.owner) {
+                    delegate.configure(it)
+                }
+            }
+        }
+
+        override fun description(): BuildOperationDescriptor.Builder =
+            BuildOperationDescriptor.displayName("Configure ${project.displayName} in parallel")
+    }
+}
+
+
+/**
+ * Lets the projects configured in parallel run at the same time, until the build logic of one of them accesses another project.
+ * From then on, only one project is configured at a time.
+ */
+private
+class ConfigurationGate {
+
+    private
+    val lock = ReentrantLock()
+
+    private
+    val changed = lock.newCondition()
+
+    private
+    var oneAtATime = false
+
+    private
+    var running = 0
+
+    // The projects whose configuration has started and not finished, and the thread configuring each of them
+    private
+    val inProgress = HashMap<ProjectState, Thread>()
+
+    fun configuring(project: ProjectState, action: () -> Unit) {
+        lock.withLock {
+            while (oneAtATime && running > 0) {
+                changed.await()
+            }
+            running++
+            inProgress[project] = Thread.currentThread()
+        }
+        try {
+            action()
+        } finally {
+            lock.withLock {
+                running--
+                inProgress.remove(project)
+                changed.signalAll()
+            }
+        }
+    }
+
+    /**
+     * Called when the build logic of [referrer] accesses [target], before the access happens.
+     *
+     * Waits until no other project is being configured. When the target is configured before the referrer, which
+     * means the access configures the target, also waits until the target and its parents are no longer being configured
+     * by other threads that are themselves waiting here. Waiting in the other direction could deadlock.
+     */
+    fun onAccess(referrer: ProjectState, target: ProjectState) {
+        lock.withLock {
+            val currentThread = Thread.currentThread()
+            if (!inProgress.containsValue(currentThread)) {
+                // Not configuring a project in parallel
+                return
+            }
+            oneAtATime = true
+            running--
+            changed.signalAll()
+            val configuresTarget = target.mutableModel < referrer.mutableModel
+            while (running > 0 || (configuresTarget && isInProgressInOtherThread(target, currentThread))) {
+                changed.await()
+            }
+            running++
+        }
+    }
+
+    private
+    fun isInProgressInOtherThread(project: ProjectState, currentThread: Thread): Boolean {
+        var current: ProjectState? = project
+        while (current != null) {
+            val thread = inProgress[current]
+            if (thread != null && thread != currentThread) {
+                return true
+            }
+            current = current.buildParent
+        }
+        return false
+    }
+}
+
+
+private
+fun Int.counter(singular: String): String =
+    if (this == 1) "1 $singular" else "$this ${singular}s"
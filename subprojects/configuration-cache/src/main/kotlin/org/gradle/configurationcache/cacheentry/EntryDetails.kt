@@ -28,5 +28,10 @@ internal
 class EntryDetails(
     val rootDirs: List<File>,
     val intermediateModels: Map<ModelKey, BlockAddress>,
-    val projectMetadata: Map<Path, BlockAddress>
+    val projectMetadata: Map<Path, BlockAddress>,
+    /**
+     * The projects the stored work graph depends on, or `null` when the entry has no work graph.
+     */
+    val workGraphProjects: Set<Path>?,
+    val isCompressed: Boolean
 )
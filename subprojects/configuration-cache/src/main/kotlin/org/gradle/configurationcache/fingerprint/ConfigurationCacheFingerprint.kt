@@ -47,6 +47,14 @@ sealed class ConfigurationCacheFingerprint {
         val hash: HashCode?
     ) : ConfigurationCacheFingerprint()
 
+    /**
+     * A build script or script plugin, whose changes can alter the build logic and not just the values it reads.
+     */
+    data class ScriptFile(
+        val file: File,
+        val hash: HashCode?
+    ) : ConfigurationCacheFingerprint()
+
     data class ValueSource(
         val obtainedValue: ObtainedValue
     ) : ConfigurationCacheFingerprint()
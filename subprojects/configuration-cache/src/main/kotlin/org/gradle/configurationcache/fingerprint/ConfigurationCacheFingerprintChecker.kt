@@ -74,19 +74,25 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
         // TODO: log some debug info
         var firstReason: InvalidationReason? = null
         val projects = mutableMapOf<Path, ProjectInvalidationState>()
+        val buildLogicChanged = mutableSetOf<Path>()
         while (true) {
             when (val input = read()) {
                 null -> break
                 is ProjectSpecificFingerprint.ProjectFingerprint -> input.run {
                     // An input that is specific to a project. If it is out-of-date, then invalidate that project's values and continue checking values
                     // Don't check a value for a project that is already out-of-date
+                    // Always check the build logic of a project, as changes to it can couple the project with projects that are otherwise valid
                     val state = projects.entryFor(input.projectPath)
-                    if (!state.isInvalid) {
+                    val isBuildLogic = input.value is ConfigurationCacheFingerprint.ScriptFile
+                    if (!state.isInvalid || (isBuildLogic && input.projectPath !in buildLogicChanged)) {
                         val reason = check(input.value)
                         if (reason != null) {
                             if (firstReason == null) {
                                 firstReason = reason
                             }
+                            if (isBuildLogic) {
+                                buildLogicChanged.add(input.projectPath)
+                            }
                             state.invalidate()
                         }
                     }
@@ -110,7 +116,7 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
         return if (firstReason == null) {
             CheckedFingerprint.Valid
         } else {
-            CheckedFingerprint.ProjectsInvalid(firstReason!!, projects.entries.filter { it.value.isInvalid }.map { it.key }.toSet())
+            CheckedFingerprint.ProjectsInvalid(firstReason!!, projects.entries.filter { it.value.isInvalid }.map { it.key }.toSet(), buildLogicChanged)
         }
     }
 
@@ -152,6 +158,11 @@ class ConfigurationCacheFingerprintChecker(private val host: Host) {
                     return "file '${displayNameOf(file)}' has changed"
                 }
             }
+            is ConfigurationCacheFingerprint.ScriptFile -> input.run {
+                if (hasFileChanged(file, hash)) {
+                    return "file '${displayNameOf(file)}' has changed"
+                }
+            }
             is ConfigurationCacheFingerprint.ValueSource -> input.run {
                 val reason = checkFingerprintValueIsUpToDate(obtainedValue)
                 if (reason != null) return reason
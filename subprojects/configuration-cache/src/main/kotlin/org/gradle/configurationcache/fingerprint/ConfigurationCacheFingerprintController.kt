@@ -283,8 +283,8 @@ class ConfigurationCacheFingerprintController internal constructor(
         override val buildStartTime: Long
             get() = buildCommencedTimeProvider.currentTime
 
-        override val cacheIntermediateModels: Boolean
-            get() = modelParameters.isIntermediateModelCache
+        override val collectProjectDependencies: Boolean
+            get() = modelParameters.isIntermediateModelCache || modelParameters.isPartialReuse
 
         override fun hashCodeOf(file: File) =
             fileSystemAccess.hashCodeOf(file)
@@ -99,7 +99,7 @@ class ConfigurationCacheFingerprintWriter(
         val allInitScripts: List<File>
         val startParameterProperties: Map<String, Any?>
         val buildStartTime: Long
-        val cacheIntermediateModels: Boolean
+        val collectProjectDependencies: Boolean
         fun fingerprintOf(fileCollection: FileCollectionInternal): HashCode
         fun hashCodeOf(file: File): HashCode?
         fun displayNameOf(file: File): String
@@ -328,7 +328,7 @@ class ConfigurationCacheFingerprintWriter(
 
     override fun onScriptClassLoaded(source: ScriptSource, scriptClass: Class<*>) {
         source.resource.file?.let {
-            captureFile(it)
+            sink().captureScript(it)
         }
     }
 
@@ -387,7 +387,7 @@ class ConfigurationCacheFingerprintWriter(
     }
 
     override fun dependencyObserved(consumingProject: ProjectState?, targetProject: ProjectState, requestedState: ConfigurationInternal.InternalState, target: ResolvedProjectConfiguration) {
-        if (host.cacheIntermediateModels && consumingProject != null) {
+        if (host.collectProjectDependencies && consumingProject != null) {
             val dependency = ProjectSpecificFingerprint.ProjectDependency(consumingProject.identityPath, targetProject.identityPath)
             if (projectDependencies.add(dependency)) {
                 projectScopedWriter.write(dependency)
@@ -396,7 +396,7 @@ class ConfigurationCacheFingerprintWriter(
     }
 
     override fun onProjectReference(referrer: ProjectState, target: ProjectState) {
-        if (host.cacheIntermediateModels) {
+        if (host.collectProjectDependencies) {
             val dependency = ProjectSpecificFingerprint.CoupledProjects(referrer.identityPath, target.identityPath)
             if (projectDependencies.add(dependency)) {
                 projectScopedWriter.write(dependency)
@@ -589,6 +589,13 @@ class ConfigurationCacheFingerprintWriter(
             write(inputFile(file))
         }
 
+        fun captureScript(file: File) {
+            if (!capturedFiles.add(file)) {
+                return
+            }
+            write(ConfigurationCacheFingerprint.ScriptFile(file, host.hashCodeOf(file)))
+        }
+
         fun systemPropertyRead(key: String, value: Any?) {
             if (undeclaredSystemProperties.add(key)) {
                 write(ConfigurationCacheFingerprint.UndeclaredSystemProperty(key, value))
@@ -21,6 +21,8 @@ import org.gradle.api.internal.StartParameterInternal
 import org.gradle.configurationcache.extensions.unsafeLazy
 import org.gradle.initialization.StartParameterBuildOptions.ConfigurationCacheProblemsOption
 import org.gradle.initialization.layout.BuildLayout
+import org.gradle.internal.buildoption.DefaultInternalOptions
+import org.gradle.internal.buildoption.InternalFlag
 import org.gradle.internal.service.scopes.Scopes
 import org.gradle.internal.service.scopes.ServiceScope
 import java.io.File
@@ -32,9 +34,17 @@ class ConfigurationCacheStartParameter(
     startParameter: StartParameter
 ) {
 
+    companion object {
+        private
+        val compressStateFiles = InternalFlag("org.gradle.configuration-cache.internal.compress", true)
+    }
+
     private
     val startParameter = startParameter as StartParameterInternal
 
+    private
+    val options = DefaultInternalOptions(startParameter.systemPropertiesArgs)
+
     val gradleProperties: Map<String, Any?>
         get() = startParameter.projectProperties
 
@@ -53,6 +63,12 @@ class ConfigurationCacheStartParameter(
     val recreateCache: Boolean
         get() = startParameter.isConfigurationCacheRecreateCache
 
+    /**
+     * Whether state files are compressed, recorded in the cache entry details.
+     */
+    val isCompressed: Boolean
+        get() = options.getOption(compressStateFiles).get()
+
     /**
      * See [StartParameter.getProjectDir].
      */
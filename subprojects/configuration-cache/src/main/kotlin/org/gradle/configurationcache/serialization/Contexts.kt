@@ -53,11 +53,12 @@ class DefaultWriteContext(
 
     override val tracer: Tracer?,
 
-    problemsListener: ProblemsListener
+    private
+    val problemsListener: ProblemsListener,
 
-) : AbstractIsolateContext<WriteIsolate>(codec, problemsListener), WriteContext, Encoder by encoder, AutoCloseable {
+    override val sharedIdentities: WriteIdentities = WriteIdentities()
 
-    override val sharedIdentities = WriteIdentities()
+) : AbstractIsolateContext<WriteIsolate>(codec, problemsListener), WriteContext, Encoder by encoder, AutoCloseable {
 
     override val circularReferences = CircularReferences()
 
@@ -77,6 +78,15 @@ class DefaultWriteContext(
     override fun beanStateWriterFor(beanType: Class<*>): BeanStateWriter =
         beanStateWriterLookup.beanStateWriterFor(beanType)
 
+    /**
+     * Creates a context writing to the given [encoder] that shares identities with this one.
+     *
+     * Class and scope tables are not shared so the output can be read independently, see [DefaultReadContext.forkFor].
+     */
+    internal
+    fun forkFor(encoder: Encoder) =
+        DefaultWriteContext(getCodec(), encoder, scopeLookup, beanStateWriterLookup, logger, null, problemsListener, sharedIdentities)
+
     override val isolate: WriteIsolate
         get() = getIsolate()
 
@@ -207,11 +217,12 @@ class DefaultReadContext(
 
     override val logger: Logger,
 
-    problemsListener: ProblemsListener
+    private
+    val problemsListener: ProblemsListener,
 
-) : AbstractIsolateContext<ReadIsolate>(codec, problemsListener), ReadContext, Decoder by decoder, AutoCloseable {
+    override val sharedIdentities: SharedReadIdentities = SharedReadIdentities()
 
-    override val sharedIdentities = ReadIdentities()
+) : AbstractIsolateContext<ReadIsolate>(codec, problemsListener), ReadContext, Decoder by decoder, AutoCloseable {
 
     private
     val classes = ReadIdentities()
@@ -265,6 +276,18 @@ class DefaultReadContext(
     override fun beanStateReaderFor(beanType: Class<*>): BeanStateReader =
         beanStateReaderLookup.beanStateReaderFor(beanType)
 
+    /**
+     * Creates a context reading from the given [decoder], the counterpart of [DefaultWriteContext.forkFor].
+     *
+     * Shared identities below [firstOwnSharedId] are awaited from the contexts reading them.
+     */
+    internal
+    fun forkFor(decoder: Decoder, firstOwnSharedId: Int) =
+        DefaultReadContext(getCodec(), decoder, beanStateReaderLookup, logger, problemsListener, sharedIdentities.forShard(firstOwnSharedId)).also {
+            it.initClassLoader(classLoader)
+            it.initProjectProvider(projectProvider)
+        }
+
     override fun readClass(): Class<*> {
         val id = readSmallInt()
         val type = classes.getInstance(id)
@@ -18,6 +18,8 @@ package org.gradle.configurationcache.serialization
 
 import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet
 import java.util.IdentityHashMap
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
 
 
 class WriteIdentities {
@@ -25,6 +27,9 @@ class WriteIdentities {
     private
     val instanceIds = IdentityHashMap<Any, Int>()
 
+    val size: Int
+        get() = instanceIds.size
+
     fun getId(instance: Any) = instanceIds[instance]
 
     fun putInstance(instance: Any): Int {
@@ -35,19 +40,59 @@ class WriteIdentities {
 }
 
 
-class ReadIdentities {
+open class ReadIdentities {
 
     private
     val instanceIds = HashMap<Int, Any>()
 
-    fun getInstance(id: Int) = instanceIds[id]
+    open fun getInstance(id: Int): Any? = instanceIds[id]
 
-    fun putInstance(id: Int, instance: Any) {
+    open fun putInstance(id: Int, instance: Any) {
         instanceIds[id] = instance
     }
 }
 
 
+/**
+ * Shared identities that can be read concurrently by several shards of the same state file.
+ *
+ * Each shard gets a view via [forShard]. Identities below the shard's own range were assigned while
+ * writing an earlier shard (or the main stream) and lookups for them block until they have been read.
+ */
+internal
+class SharedReadIdentities private constructor(
+    private val instances: ConcurrentHashMap<Int, CompletableFuture<Any>>,
+    private val firstOwnId: Int
+) : ReadIdentities() {
+
+    constructor() : this(ConcurrentHashMap(), 0)
+
+    override fun getInstance(id: Int): Any? =
+        if (id < firstOwnId) instanceFuture(id).join()
+        else instances[id]?.getNow(null)
+
+    override fun putInstance(id: Int, instance: Any) {
+        instanceFuture(id).complete(instance)
+    }
+
+    fun forShard(firstOwnId: Int) =
+        SharedReadIdentities(instances, firstOwnId)
+
+    /**
+     * Fails the identities in [ids] that were not read yet so shards waiting on them don't hang.
+     */
+    fun fail(ids: IntRange, failure: Throwable) {
+        for (id in ids) {
+            instanceFuture(id).completeExceptionally(failure)
+        }
+    }
+
+    private
+    fun instanceFuture(id: Int) =
+        instances.computeIfAbsent(id) { CompletableFuture() }
+}
+
+
 class CircularReferences {
 
     private
@@ -0,0 +1,492 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization.beans
+
+import org.gradle.cache.internal.CrossBuildInMemoryCache
+import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes.ACC_FINAL
+import org.objectweb.asm.Opcodes.ACC_PRIVATE
+import org.objectweb.asm.Opcodes.ACC_PUBLIC
+import org.objectweb.asm.Opcodes.ACC_STATIC
+import org.objectweb.asm.Opcodes.ACC_SYNTHETIC
+import org.objectweb.asm.Opcodes.AALOAD
+import org.objectweb.asm.Opcodes.ALOAD
+import org.objectweb.asm.Opcodes.ARETURN
+import org.objectweb.asm.Opcodes.ASTORE
+import org.objectweb.asm.Opcodes.ATHROW
+import org.objectweb.asm.Opcodes.DUP
+import org.objectweb.asm.Opcodes.GETSTATIC
+import org.objectweb.asm.Opcodes.ILOAD
+import org.objectweb.asm.Opcodes.INVOKESPECIAL
+import org.objectweb.asm.Opcodes.INVOKESTATIC
+import org.objectweb.asm.Opcodes.INVOKEVIRTUAL
+import org.objectweb.asm.Opcodes.IRETURN
+import org.objectweb.asm.Opcodes.NEW
+import org.objectweb.asm.Opcodes.PUTSTATIC
+import org.objectweb.asm.Opcodes.RETURN
+import org.objectweb.asm.Opcodes.V1_8
+import org.objectweb.asm.Type
+import java.lang.invoke.MethodHandle
+import java.lang.invoke.MethodHandles
+import java.lang.invoke.MethodType.methodType
+import java.lang.reflect.Field
+import java.util.concurrent.atomic.AtomicInteger
+
+
+/**
+ * Reads and writes the fields of a bean by their index in the list of fields the accessor was created for.
+ *
+ * Primitive fields can also be accessed without boxing, through the method for their [access type][primitiveAccessTypeOf].
+ */
+interface BeanFieldAccessor {
+
+    fun get(bean: Any, index: Int): Any?
+
+    fun set(bean: Any, index: Int, value: Any?)
+
+    fun getBoolean(bean: Any, index: Int): Boolean
+
+    fun setBoolean(bean: Any, index: Int, value: Boolean)
+
+    fun getInt(bean: Any, index: Int): Int
+
+    fun setInt(bean: Any, index: Int, value: Int)
+
+    fun getLong(bean: Any, index: Int): Long
+
+    fun setLong(bean: Any, index: Int, value: Long)
+
+    fun getFloat(bean: Any, index: Int): Float
+
+    fun setFloat(bean: Any, index: Int, value: Float)
+
+    fun getDouble(bean: Any, index: Int): Double
+
+    fun setDouble(bean: Any, index: Int, value: Double)
+}
+
+
+/**
+ * Returns the type through which a field of the given primitive type is accessed without boxing.
+ * `byte`, `short` and `char` fields are accessed as `int`.
+ */
+internal
+fun primitiveAccessTypeOf(fieldType: Class<*>): Class<*> =
+    when (fieldType) {
+        java.lang.Byte.TYPE, java.lang.Short.TYPE, java.lang.Character.TYPE -> Integer.TYPE
+        else -> fieldType
+    }
+
+
+private
+val primitiveAccessTypes = listOf<Class<*>>(
+    java.lang.Boolean.TYPE,
+    Integer.TYPE,
+    java.lang.Long.TYPE,
+    java.lang.Float.TYPE,
+    java.lang.Double.TYPE
+)
+
+
+/**
+ * A global service that caches the [field accessors][BeanFieldAccessor] for bean types.
+ *
+ * Accessors are generated classes that hold a constant [MethodHandle] per field, which the JIT compiles down
+ * to plain field accesses. Primitive fields get an additional pair of handles of their unboxed type.
+ * Falls back to reflection when a class cannot be generated.
+ */
+class BeanFieldAccessors(
+    cacheFactory: CrossBuildInMemoryCacheFactory
+) {
+    private
+    val cache: CrossBuildInMemoryCache<Class<*>, BeanFieldAccessor> = cacheFactory.newClassMap()
+
+    /**
+     * Returns the accessor for the given [relevant fields][relevantStateOf] of [beanType].
+     */
+    internal
+    fun accessorFor(beanType: Class<*>, relevantFields: List<RelevantField>): BeanFieldAccessor =
+        cache.get(beanType) { ->
+            generatedAccessorFor(relevantFields.map { it.field })
+        }
+
+    companion object {
+
+        private
+        val pendingHandles = ThreadLocal<Array<MethodHandle>>()
+
+        private
+        val generatedClassCounter = AtomicInteger()
+
+        private
+        val generatedAccessorType: Type = Type.getType(BeanFieldAccessor::class.java)
+
+        private
+        val generatedClassNamePrefix = BeanFieldAccessor::class.java.name + "\$Generated"
+
+        private
+        val methodHandleType: Type = Type.getType(MethodHandle::class.java)
+
+        private
+        val fieldSet: MethodHandle by lazy {
+            MethodHandles.publicLookup().findVirtual(Field::class.java, "set", methodType(Void.TYPE, Any::class.java, Any::class.java))
+        }
+
+        /**
+         * Creates an accessor for the given accessible [fields], falling back to [reflectiveAccessorFor] when the accessor class cannot be generated.
+         */
+        @JvmStatic
+        fun generatedAccessorFor(fields: List<Field>): BeanFieldAccessor =
+            try {
+                defineAccessorClass(fields)
+            } catch (e: Exception) {
+                reflectiveAccessorFor(fields)
+            } catch (e: LinkageError) {
+                reflectiveAccessorFor(fields)
+            }
+
+        @JvmStatic
+        fun reflectiveAccessorFor(fields: List<Field>): BeanFieldAccessor =
+            ReflectiveBeanFieldAccessor(fields)
+
+        /**
+         * Hands the method handles of the accessor being defined over to its static initializer.
+         */
+        @JvmStatic
+        fun takePendingHandles(): Array<MethodHandle> =
+            pendingHandles.get().also {
+                pendingHandles.remove()
+            }
+
+        private
+        fun getterFor(field: Field): MethodHandle =
+            MethodHandles.lookup().unreflectGetter(field)
+                .asType(methodType(Any::class.java, Any::class.java))
+
+        private
+        fun setterFor(field: Field): MethodHandle =
+            try {
+                MethodHandles.lookup().unreflectSetter(field)
+                    .asType(methodType(Void.TYPE, Any::class.java, Any::class.java))
+            } catch (e: IllegalAccessException) {
+                // Final fields can only be set reflectively
+                fieldSet.bindTo(field)
+            }
+
+        private
+        fun primitiveGetterFor(field: Field): MethodHandle =
+            MethodHandles.explicitCastArguments(
+                MethodHandles.lookup().unreflectGetter(field),
+                methodType(primitiveAccessTypeOf(field.type), Any::class.java)
+            )
+
+        private
+        fun primitiveSetterFor(field: Field): MethodHandle =
+            MethodHandles.explicitCastArguments(
+                try {
+                    MethodHandles.lookup().unreflectSetter(field)
+                } catch (e: IllegalAccessException) {
+                    // Final fields can only be set reflectively
+                    reflectivePrimitiveSetterFor(field)
+                },
+                methodType(Void.TYPE, Any::class.java, primitiveAccessTypeOf(field.type))
+            )
+
+        private
+        fun reflectivePrimitiveSetterFor(field: Field): MethodHandle {
+            val setterName = "set" + accessorSuffixOf(field.type)
+            return MethodHandles.publicLookup()
+                .findVirtual(Field::class.java, setterName, methodType(Void.TYPE, Any::class.java, field.type))
+                .bindTo(field)
+        }
+
+        private
+        fun defineAccessorClass(fields: List<Field>): BeanFieldAccessor {
+            // The static fields of the generated class, in the order of their handles
+            val handleFields = mutableListOf<String>()
+            val handles = mutableListOf<MethodHandle>()
+            fields.forEachIndexed { index, field ->
+                handleFields.add(getterName(index))
+                handles.add(getterFor(field))
+                handleFields.add(setterName(index))
+                handles.add(setterFor(field))
+                if (field.type.isPrimitive) {
+                    handleFields.add(primitiveGetterName(index))
+                    handles.add(primitiveGetterFor(field))
+                    handleFields.add(primitiveSetterName(index))
+                    handles.add(primitiveSetterFor(field))
+                }
+            }
+            val className = generatedClassNamePrefix + generatedClassCounter.incrementAndGet()
+            val bytes = generateAccessorClass(Type.getObjectType(className.replace('.', '/')), fields.map { it.type }, handleFields)
+            // Each accessor has its own class loader, so it can be collected along with the bean type it references
+            val type = AccessorClassLoader(BeanFieldAccessor::class.java.classLoader).define(className, bytes)
+            pendingHandles.set(handles.toTypedArray())
+            try {
+                Class.forName(className, true, type.classLoader)
+            } finally {
+                pendingHandles.remove()
+            }
+            return type.getConstructor().newInstance() as BeanFieldAccessor
+        }
+
+        private
+        fun generateAccessorClass(type: Type, fieldTypes: List<Class<*>>, handleFields: List<String>): ByteArray {
+            val classWriter = ClassWriter(ClassWriter.COMPUTE_MAXS or ClassWriter.COMPUTE_FRAMES)
+            classWriter.visit(V1_8, ACC_PUBLIC or ACC_FINAL or ACC_SYNTHETIC, type.internalName, null, "java/lang/Object", arrayOf(generatedAccessorType.internalName))
+            for (handleField in handleFields) {
+                classWriter.visitField(ACC_PRIVATE or ACC_STATIC or ACC_FINAL, handleField, methodHandleType.descriptor, null, null).visitEnd()
+            }
+            classWriter.generateStaticInitializer(type, handleFields)
+            classWriter.generateConstructor()
+            classWriter.generateGet(type, fieldTypes.size)
+            classWriter.generateSet(type, fieldTypes.size)
+            for (accessType in primitiveAccessTypes) {
+                val indices = fieldTypes.indices.filter { fieldTypes[it].isPrimitive && primitiveAccessTypeOf(fieldTypes[it]) == accessType }
+                classWriter.generatePrimitiveGet(type, fieldTypes.size, indices, accessType)
+                classWriter.generatePrimitiveSet(type, fieldTypes.size, indices, accessType)
+            }
+            classWriter.visitEnd()
+            return classWriter.toByteArray()
+        }
+
+        private
+        fun ClassWriter.generateStaticInitializer(type: Type, handleFields: List<String>) {
+            visitMethod(ACC_STATIC, "<clinit>", "()V", null, null).run {
+                visitCode()
+                visitMethodInsn(INVOKESTATIC, Type.getInternalName(BeanFieldAccessors::class.java), "takePendingHandles", "()[${methodHandleType.descriptor}", false)
+                visitVarInsn(ASTORE, 0)
+                handleFields.forEachIndexed { handleIndex, handleField ->
+                    initializeHandle(type, handleField, handleIndex)
+                }
+                visitInsn(RETURN)
+                visitMaxs(0, 0)
+                visitEnd()
+            }
+        }
+
+        private
+        fun MethodVisitor.initializeHandle(type: Type, fieldName: String, handleIndex: Int) {
+            visitVarInsn(ALOAD, 0)
+            visitLdcInsn(handleIndex)
+            visitInsn(AALOAD)
+            visitFieldInsn(PUTSTATIC, type.internalName, fieldName, methodHandleType.descriptor)
+        }
+
+        private
+        fun ClassWriter.generateConstructor() {
+            visitMethod(ACC_PUBLIC, "<init>", "()V", null, null).run {
+                visitCode()
+                visitVarInsn(ALOAD, 0)
+                visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false)
+                visitInsn(RETURN)
+                visitMaxs(0, 0)
+                visitEnd()
+            }
+        }
+
+        private
+        fun ClassWriter.generateGet(type: Type, fieldCount: Int) {
+            visitMethod(ACC_PUBLIC, "get", "(Ljava/lang/Object;I)Ljava/lang/Object;", null, null).run {
+                visitCode()
+                switchOnIndex(fieldCount, 0 until fieldCount) { index ->
+                    visitFieldInsn(GETSTATIC, type.internalName, getterName(index), methodHandleType.descriptor)
+                    visitVarInsn(ALOAD, 1)
+                    visitMethodInsn(INVOKEVIRTUAL, methodHandleType.internalName, "invokeExact", "(Ljava/lang/Object;)Ljava/lang/Object;", false)
+                    visitInsn(ARETURN)
+                }
+                visitMaxs(0, 0)
+                visitEnd()
+            }
+        }
+
+        private
+        fun ClassWriter.generateSet(type: Type, fieldCount: Int) {
+            visitMethod(ACC_PUBLIC, "set", "(Ljava/lang/Object;ILjava/lang/Object;)V", null, null).run {
+                visitCode()
+                switchOnIndex(fieldCount, 0 until fieldCount) { index ->
+                    visitFieldInsn(GETSTATIC, type.internalName, setterName(index), methodHandleType.descriptor)
+                    visitVarInsn(ALOAD, 1)
+                    visitVarInsn(ALOAD, 3)
+                    visitMethodInsn(INVOKEVIRTUAL, methodHandleType.internalName, "invokeExact", "(Ljava/lang/Object;Ljava/lang/Object;)V", false)
+                    visitInsn(RETURN)
+                }
+                visitMaxs(0, 0)
+                visitEnd()
+            }
+        }
+
+        /**
+         * Generates `get<Type>(bean, index)` for the primitive fields at [indices], which are accessed as [accessType].
+         */
+        private
+        fun ClassWriter.generatePrimitiveGet(type: Type, fieldCount: Int, indices: List<Int>, accessClass: Class<*>) {
+            val accessType = Type.getType(accessClass)
+            visitMethod(ACC_PUBLIC, "get" + accessorSuffixOf(accessClass), "(Ljava/lang/Object;I)${accessType.descriptor}", null, null).run {
+                visitCode()
+                switchOnIndex(fieldCount, indices) { index ->
+                    visitFieldInsn(GETSTATIC, type.internalName, primitiveGetterName(index), methodHandleType.descriptor)
+                    visitVarInsn(ALOAD, 1)
+                    visitMethodInsn(INVOKEVIRTUAL, methodHandleType.internalName, "invokeExact", "(Ljava/lang/Object;)${accessType.descriptor}", false)
+                    visitInsn(accessType.getOpcode(IRETURN))
+                }
+                visitMaxs(0, 0)
+                visitEnd()
+            }
+        }
+
+        /**
+         * Generates `set<Type>(bean, index, value)` for the primitive fields at [indices], which are accessed as [accessType].
+         */
+        private
+        fun ClassWriter.generatePrimitiveSet(type: Type, fieldCount: Int, indices: List<Int>, accessClass: Class<*>) {
+            val accessType = Type.getType(accessClass)
+            visitMethod(ACC_PUBLIC, "set" + accessorSuffixOf(accessClass), "(Ljava/lang/Object;I${accessType.descriptor})V", null, null).run {
+                visitCode()
+                switchOnIndex(fieldCount, indices) { index ->
+                    visitFieldInsn(GETSTATIC, type.internalName, primitiveSetterName(index), methodHandleType.descriptor)
+                    visitVarInsn(ALOAD, 1)
+                    visitVarInsn(accessType.getOpcode(ILOAD), 3)
+                    visitMethodInsn(INVOKEVIRTUAL, methodHandleType.internalName, "invokeExact", "(Ljava/lang/Object;${accessType.descriptor})V", false)
+                    visitInsn(RETURN)
+                }
+                visitMaxs(0, 0)
+                visitEnd()
+            }
+        }
+
+        /**
+         * Generates a `tableswitch` on the index argument with a case for each of the given [indices],
+         * throwing [IndexOutOfBoundsException] for all other indices.
+         */
+        private
+        inline fun MethodVisitor.switchOnIndex(fieldCount: Int, indices: Iterable<Int>, case: (Int) -> Unit) {
+            val default = Label()
+            if (fieldCount > 0) {
+                val labels = Array(fieldCount) { default }
+                for (index in indices) {
+                    labels[index] = Label()
+                }
+                visitVarInsn(ILOAD, 2)
+                visitTableSwitchInsn(0, fieldCount - 1, default, *labels)
+                for (index in indices) {
+                    visitLabel(labels[index])
+                    case(index)
+                }
+            }
+            visitLabel(default)
+            val exceptionType = Type.getInternalName(IndexOutOfBoundsException::class.java)
+            visitTypeInsn(NEW, exceptionType)
+            visitInsn(DUP)
+            visitMethodInsn(INVOKESPECIAL, exceptionType, "<init>", "()V", false)
+            visitInsn(ATHROW)
+        }
+
+        private
+        fun getterName(index: Int) = "get$index"
+
+        private
+        fun setterName(index: Int) = "set$index"
+
+        /**
+         * Returns the suffix of the `Field` and [BeanFieldAccessor] methods that access values of the given primitive type.
+         */
+        private
+        fun accessorSuffixOf(primitiveType: Class<*>) =
+            when (primitiveType) {
+                java.lang.Boolean.TYPE -> "Boolean"
+                java.lang.Byte.TYPE -> "Byte"
+                java.lang.Short.TYPE -> "Short"
+                java.lang.Character.TYPE -> "Char"
+                Integer.TYPE -> "Int"
+                java.lang.Long.TYPE -> "Long"
+                java.lang.Float.TYPE -> "Float"
+                java.lang.Double.TYPE -> "Double"
+                else -> throw IllegalArgumentException("Not a primitive type: $primitiveType")
+            }
+
+        private
+        fun primitiveGetterName(index: Int) = "getPrimitive$index"
+
+        private
+        fun primitiveSetterName(index: Int) = "setPrimitive$index"
+    }
+
+    private
+    class AccessorClassLoader(parent: ClassLoader) : ClassLoader(parent) {
+        fun define(className: String, bytes: ByteArray): Class<*> =
+            defineClass(className, bytes, 0, bytes.size)
+    }
+}
+
+
+private
+class ReflectiveBeanFieldAccessor(
+    private val fields: List<Field>
+) : BeanFieldAccessor {
+
+    override fun get(bean: Any, index: Int): Any? =
+        fields[index].get(bean)
+
+    override fun set(bean: Any, index: Int, value: Any?) {
+        fields[index].set(bean, value)
+    }
+
+    override fun getBoolean(bean: Any, index: Int): Boolean =
+        fields[index].getBoolean(bean)
+
+    override fun setBoolean(bean: Any, index: Int, value: Boolean) {
+        fields[index].setBoolean(bean, value)
+    }
+
+    override fun getInt(bean: Any, index: Int): Int =
+        fields[index].getInt(bean)
+
+    override fun setInt(bean: Any, index: Int, value: Int) {
+        val field = fields[index]
+        when (field.type) {
+            java.lang.Byte.TYPE -> field.setByte(bean, value.toByte())
+            java.lang.Short.TYPE -> field.setShort(bean, value.toShort())
+            java.lang.Character.TYPE -> field.setChar(bean, value.toChar())
+            else -> field.setInt(bean, value)
+        }
+    }
+
+    override fun getLong(bean: Any, index: Int): Long =
+        fields[index].getLong(bean)
+
+    override fun setLong(bean: Any, index: Int, value: Long) {
+        fields[index].setLong(bean, value)
+    }
+
+    override fun getFloat(bean: Any, index: Int): Float =
+        fields[index].getFloat(bean)
+
+    override fun setFloat(bean: Any, index: Int, value: Float) {
+        fields[index].setFloat(bean, value)
+    }
+
+    override fun getDouble(bean: Any, index: Int): Double =
+        fields[index].getDouble(bean)
+
+    override fun setDouble(bean: Any, index: Int, value: Double) {
+        fields[index].setDouble(bean, value)
+    }
+}
@@ -24,6 +24,9 @@ import org.gradle.configurationcache.serialization.MutableIsolateContext
 import org.gradle.configurationcache.serialization.ReadContext
 import org.gradle.configurationcache.serialization.logPropertyProblem
 import org.gradle.configurationcache.serialization.ownerService
+import org.gradle.configurationcache.serialization.readDouble
+import org.gradle.configurationcache.serialization.readFloat
+import org.gradle.configurationcache.serialization.readShort
 import org.gradle.configurationcache.serialization.withPropertyTrace
 import org.gradle.internal.instantiation.InstantiationScheme
 import org.gradle.internal.instantiation.InstantiatorFactory
@@ -36,7 +39,8 @@ import java.lang.reflect.Field
 class BeanPropertyReader(
     private val beanType: Class<*>,
     private val constructors: BeanConstructors,
-    instantiatorFactory: InstantiatorFactory
+    instantiatorFactory: InstantiatorFactory,
+    fieldAccessors: BeanFieldAccessors
 ) : BeanStateReader {
     // TODO should use the same scheme as the original bean
     private
@@ -45,6 +49,12 @@ class BeanPropertyReader(
     private
     val relevantFields = relevantStateOf(beanType)
 
+    private
+    val fieldAccessor = fieldAccessors.accessorFor(beanType, relevantFields)
+
+    private
+    val primitiveTypes = relevantFields.map { it.primitiveType }
+
     private
     val constructorForSerialization by unsafeLazy {
         constructors.constructorForSerialization(beanType)
@@ -58,23 +68,42 @@ class BeanPropertyReader(
     }
 
     override suspend fun ReadContext.readStateOf(bean: Any) {
-        for (relevantField in relevantFields) {
-            val field = relevantField.field
+        for (index in relevantFields.indices) {
+            val primitiveType = primitiveTypes[index]
+            if (primitiveType != null) {
+                readPrimitiveField(bean, index, primitiveType)
+                continue
+            }
+            val field = relevantFields[index].field
             val fieldName = field.name
-            relevantField.unsupportedFieldType?.let {
+            relevantFields[index].unsupportedFieldType?.let {
                 reportUnsupportedFieldType(it, "deserialize", fieldName)
             }
             readPropertyValue(PropertyKind.Field, fieldName) { fieldValue ->
-                set(bean, field, fieldValue)
+                set(bean, index, field, fieldValue)
             }
         }
     }
 
     private
-    fun ReadContext.set(bean: Any, field: Field, value: Any?) {
+    fun ReadContext.readPrimitiveField(bean: Any, index: Int, type: Class<*>) {
+        when (type) {
+            java.lang.Boolean.TYPE -> fieldAccessor.setBoolean(bean, index, readBoolean())
+            java.lang.Byte.TYPE -> fieldAccessor.setInt(bean, index, readByte().toInt())
+            java.lang.Short.TYPE -> fieldAccessor.setInt(bean, index, readShort().toInt())
+            java.lang.Character.TYPE, Integer.TYPE -> fieldAccessor.setInt(bean, index, readSmallInt())
+            java.lang.Long.TYPE -> fieldAccessor.setLong(bean, index, readLong())
+            java.lang.Float.TYPE -> fieldAccessor.setFloat(bean, index, readFloat())
+            java.lang.Double.TYPE -> fieldAccessor.setDouble(bean, index, readDouble())
+            else -> throw IllegalArgumentException("Unexpected primitive type: $type")
+        }
+    }
+
+    private
+    fun ReadContext.set(bean: Any, index: Int, field: Field, value: Any?) {
         val type = field.type
         if (isAssignableTo(type, value)) {
-            field.set(bean, value)
+            fieldAccessor.set(bean, index, value)
         } else if (value != null) {
             logPropertyProblem("deserialize") {
                 text("value ")
@@ -25,28 +25,46 @@ import org.gradle.configurationcache.problems.PropertyKind
 import org.gradle.configurationcache.serialization.Codec
 import org.gradle.configurationcache.serialization.WriteContext
 import org.gradle.configurationcache.serialization.withDebugFrame
+import org.gradle.configurationcache.serialization.writeDouble
+import org.gradle.configurationcache.serialization.writeFloat
+import org.gradle.configurationcache.serialization.writeShort
 import java.io.IOException
 import java.lang.reflect.Field
 
 
 class BeanPropertyWriter(
-    beanType: Class<*>
+    beanType: Class<*>,
+    fieldAccessors: BeanFieldAccessors
 ) : BeanStateWriter {
 
     private
     val relevantFields = relevantStateOf(beanType)
 
+    private
+    val fieldAccessor = fieldAccessors.accessorFor(beanType, relevantFields)
+
+    private
+    val primitiveTypes = relevantFields.map { it.primitiveType }
+
     /**
      * Serializes a bean by serializing the value of each of its fields.
      */
     override suspend fun WriteContext.writeStateOf(bean: Any) {
-        for (relevantField in relevantFields) {
+        for (index in relevantFields.indices) {
+            val relevantField = relevantFields[index]
             val field = relevantField.field
+            val primitiveType = primitiveTypes[index]
+            if (primitiveType != null) {
+                withDebugFrame({ field.debugFrameName() }) {
+                    writePrimitiveField(bean, index, primitiveType)
+                }
+                continue
+            }
             val fieldName = field.name
             val fieldValue =
                 when (val isExplicitValue = relevantField.isExplicitValueField) {
-                    null -> field.get(bean)
-                    else -> conventionValueOf(bean, field, isExplicitValue)
+                    null -> fieldAccessor.get(bean, index)
+                    else -> conventionValueOf(bean, field, fieldAccessor.get(bean, index), isExplicitValue)
                 }
             relevantField.unsupportedFieldType?.let {
                 reportUnsupportedFieldType(it, "serialize", fieldName, fieldValue)
@@ -58,18 +76,30 @@ class BeanPropertyWriter(
     }
 
     private
-    fun conventionValueOf(bean: Any, field: Field, isExplicitValue: Field) =
-        field.get(bean).let { fieldValue ->
-            if (isExplicitValue.get(bean).uncheckedCast()) {
-                fieldValue
-            } else {
-                getConventionValue(bean, field, fieldValue)
-                    ?.takeIf { conventionValue ->
-                        // Prevent convention value to be assigned to a field of incompatible type
-                        // A common cause is a regular field type being promoted to a Property/Provider type.
-                        conventionValue.isAssignableTo(field.type)
-                    } ?: fieldValue
-            }
+    fun WriteContext.writePrimitiveField(bean: Any, index: Int, type: Class<*>) {
+        when (type) {
+            java.lang.Boolean.TYPE -> writeBoolean(fieldAccessor.getBoolean(bean, index))
+            java.lang.Byte.TYPE -> writeByte(fieldAccessor.getInt(bean, index).toByte())
+            java.lang.Short.TYPE -> writeShort(fieldAccessor.getInt(bean, index).toShort())
+            java.lang.Character.TYPE, Integer.TYPE -> writeSmallInt(fieldAccessor.getInt(bean, index))
+            java.lang.Long.TYPE -> writeLong(fieldAccessor.getLong(bean, index))
+            java.lang.Float.TYPE -> writeFloat(fieldAccessor.getFloat(bean, index))
+            java.lang.Double.TYPE -> writeDouble(fieldAccessor.getDouble(bean, index))
+            else -> throw IllegalArgumentException("Unexpected primitive type: $type")
+        }
+    }
+
+    private
+    fun conventionValueOf(bean: Any, field: Field, fieldValue: Any?, isExplicitValue: Field) =
+        if (isExplicitValue.get(bean).uncheckedCast()) {
+            fieldValue
+        } else {
+            getConventionValue(bean, field, fieldValue)
+                ?.takeIf { conventionValue ->
+                    // Prevent convention value to be assigned to a field of incompatible type
+                    // A common cause is a regular field type being promoted to a Property/Provider type.
+                    conventionValue.isAssignableTo(field.type)
+                } ?: fieldValue
         }
 
     private
@@ -110,6 +110,16 @@ data class RelevantField(
 )
 
 
+/**
+ * The type of the field when its value is written without boxing, or `null` when the value is written as an object.
+ *
+ * The values of convention mapped fields are always written as objects, as they may come from the convention.
+ */
+internal
+val RelevantField.primitiveType: Class<*>?
+    get() = field.type.takeIf { it.isPrimitive && isExplicitValueField == null }
+
+
 internal
 fun MutableIsolateContext.reportUnsupportedFieldType(
     unsupportedType: KClass<*>,
@@ -98,7 +98,7 @@ class Codecs(
     val taskNodeFactory: TaskNodeFactory,
     val ordinalGroupFactory: OrdinalGroupFactory,
     inputFingerprinter: InputFingerprinter,
-    buildOperationExecutor: BuildOperationExecutor,
+    private val buildOperationExecutor: BuildOperationExecutor,
     classLoaderHierarchyHasher: ClassLoaderHierarchyHasher,
     isolatableFactory: IsolatableFactory,
     managedFactoryRegistry: ManagedFactoryRegistry,
@@ -325,5 +325,5 @@ class Codecs(
     }
 
     fun workNodeCodecFor(gradle: GradleInternal) =
-        WorkNodeCodec(gradle, internalTypesCodec(), ordinalGroupFactory)
+        WorkNodeCodec(gradle, internalTypesCodec(), TaskNodeCodec(userTypesCodec(), taskNodeFactory), ordinalGroupFactory, buildOperationExecutor)
 }
@@ -72,14 +72,22 @@ class TaskNodeCodec(
         writeTask(task)
     }
 
-    override suspend fun ReadContext.decode(): LocalTaskNode {
-        val task = readTask()
+    override suspend fun ReadContext.decode(): LocalTaskNode =
+        nodeFor(readTask())
+
+    /**
+     * Returns the node of a task read by [readTask].
+     *
+     * Must be called from a single thread as the underlying [TaskNodeFactory] is not thread-safe.
+     */
+    internal
+    fun nodeFor(task: Task): LocalTaskNode {
         val node = taskNodeFactory.getOrCreateNode(task) as LocalTaskNode
         node.isolated()
         return node
     }
 
-    private
+    internal
     suspend fun WriteContext.writeTask(task: TaskInternal) {
         withDebugFrame({ task.path }) {
             val taskType = GeneratedSubclasses.unpackType(task)
@@ -111,7 +119,7 @@ class TaskNodeCodec(
         }
     }
 
-    private
+    internal
     suspend fun ReadContext.readTask(): Task {
         val taskType = readClassOf<Task>()
         val projectPath = readString()
@@ -16,10 +16,13 @@
 
 package org.gradle.configurationcache.serialization.codecs
 
+import org.gradle.api.Task
 import org.gradle.api.internal.GradleInternal
 import org.gradle.api.internal.artifacts.transform.DefaultTransformUpstreamDependenciesResolver
 import org.gradle.api.internal.tasks.NodeExecutionContext
 import org.gradle.configurationcache.serialization.Codec
+import org.gradle.configurationcache.serialization.DefaultReadContext
+import org.gradle.configurationcache.serialization.DefaultWriteContext
 import org.gradle.configurationcache.serialization.ReadContext
 import org.gradle.configurationcache.serialization.WriteContext
 import org.gradle.configurationcache.serialization.decodePreservingIdentity
@@ -27,6 +30,7 @@ import org.gradle.configurationcache.serialization.encodePreservingIdentityOf
 import org.gradle.configurationcache.serialization.ownerService
 import org.gradle.configurationcache.serialization.readCollectionInto
 import org.gradle.configurationcache.serialization.readNonNull
+import org.gradle.configurationcache.serialization.runReadOperation
 import org.gradle.configurationcache.serialization.withGradleIsolate
 import org.gradle.configurationcache.serialization.writeCollection
 import org.gradle.execution.plan.ActionNode
@@ -38,39 +42,65 @@ import org.gradle.execution.plan.NodeGroup
 import org.gradle.execution.plan.OrdinalGroup
 import org.gradle.execution.plan.OrdinalGroupFactory
 import org.gradle.execution.plan.TaskNode
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import org.gradle.util.Path
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
 
 
+/**
+ * Writes the scheduled work graph.
+ *
+ * Local tasks are written in one shard per owning project, after the other nodes. Shards are
+ * self-contained apart from shared identities so they can be read concurrently, see [readTaskShards].
+ */
 internal
 class WorkNodeCodec(
     private val owner: GradleInternal,
     private val internalTypesCodec: Codec<Any?>,
-    private val ordinalGroups: OrdinalGroupFactory
+    private val taskNodeCodec: TaskNodeCodec,
+    private val ordinalGroups: OrdinalGroupFactory,
+    private val buildOperationExecutor: BuildOperationExecutor
 ) {
 
-    suspend fun WriteContext.writeWork(nodes: List<Node>) {
+    suspend fun DefaultWriteContext.writeWork(nodes: List<Node>) {
         // Share bean instances across all nodes (except tasks, which have their own isolate)
         withGradleIsolate(owner, internalTypesCodec) {
             writeNodes(nodes)
         }
     }
 
-    suspend fun ReadContext.readWork(): List<Node> =
+    suspend fun DefaultReadContext.readWork(): List<Node> =
         withGradleIsolate(owner, internalTypesCodec) {
             readNodes()
         }
 
     private
-    suspend fun WriteContext.writeNodes(nodes: List<Node>) {
+    suspend fun DefaultWriteContext.writeNodes(nodes: List<Node>) {
         val nodeCount = nodes.size
         writeSmallInt(nodeCount)
         val scheduledNodeIds = HashMap<Node, Int>(nodeCount)
+        val shards = LinkedHashMap<String, TaskShard>()
         nodes.forEach { node ->
-            write(node)
+            if (node is LocalTaskNode) {
+                val shard = shards.getOrPut(node.task.project.path) { TaskShard(shards.size) }
+                shard.tasks.add(node)
+                writeSmallInt(shard.index)
+            } else {
+                writeSmallInt(INLINE_NODE)
+                write(node)
+            }
             scheduledNodeIds[node] = scheduledNodeIds.size
             if (node is LocalTaskNode) {
                 scheduledNodeIds[node.prepareNode] = scheduledNodeIds.size
             }
         }
+        writeTaskShards(shards)
         nodes.forEach { node ->
             writeSuccessorReferencesOf(node, scheduledNodeIds)
             writeNodeGroup(node.group, scheduledNodeIds)
@@ -78,12 +108,28 @@ class WorkNodeCodec(
     }
 
     private
-    suspend fun ReadContext.readNodes(): List<Node> {
+    suspend fun DefaultReadContext.readNodes(): List<Node> {
         val nodeCount = readSmallInt()
+        val shardIndices = IntArray(nodeCount)
+        val inlineNodes = arrayOfNulls<Node>(nodeCount)
+        for (i in 0 until nodeCount) {
+            val shardIndex = readSmallInt()
+            shardIndices[i] = shardIndex
+            if (shardIndex == INLINE_NODE) {
+                inlineNodes[i] = readNode()
+            }
+        }
+        val shardTasks = readTaskShards()
+        val shardPositions = IntArray(shardTasks.size)
         val nodes = ArrayList<Node>(nodeCount)
         val nodesById = HashMap<Int, Node>(nodeCount)
         for (i in 0 until nodeCount) {
-            val node = readNode()
+            val shardIndex = shardIndices[i]
+            val node = if (shardIndex == INLINE_NODE) {
+                inlineNodes[i]!!
+            } else {
+                taskNodeFor(shardTasks[shardIndex][shardPositions[shardIndex]++])
+            }
             nodesById[nodesById.size] = node
             if (node is LocalTaskNode) {
                 node.prepareNode.require()
@@ -106,6 +152,118 @@ class WorkNodeCodec(
         return node
     }
 
+    private
+    fun taskNodeFor(task: Task): Node {
+        val node = taskNodeCodec.nodeFor(task)
+        node.require()
+        node.dependenciesProcessed()
+        return node
+    }
+
+    /**
+     * Writes each shard as a separate binary blob, prefixed by its project path, task count and
+     * the range of shared identities it assigns.
+     *
+     * Shards are encoded one after the other on the calling thread as encoding reads the live, non thread-safe, model.
+     */
+    private
+    suspend fun DefaultWriteContext.writeTaskShards(shards: Map<String, TaskShard>) {
+        writeSmallInt(shards.size)
+        for ((projectPath, shard) in shards) {
+            val firstSharedId = sharedIdentities.size
+            val bytes = ByteArrayOutputStream()
+            KryoBackedEncoder(bytes).use { encoder ->
+                forkFor(encoder).withGradleIsolate(owner, internalTypesCodec) {
+                    for (node in shard.tasks) {
+                        taskNodeCodec.run {
+                            writeTask(node.task)
+                        }
+                    }
+                }
+            }
+            writeString(projectPath)
+            writeSmallInt(shard.tasks.size)
+            writeSmallInt(firstSharedId)
+            writeSmallInt(sharedIdentities.size)
+            writeBinary(bytes.toByteArray())
+        }
+    }
+
+    /**
+     * Reads the tasks of each shard, one build operation per shard. Each operation holds the lock of the shard's project
+     * while it creates the tasks, so that no two threads mutate the same project at the same time.
+     *
+     * A shard can reference shared identities assigned by earlier shards and waits for them to be read.
+     * Shards are queued in the order they were written and the queue is FIFO, so the shard a waiting one
+     * depends on is always already running.
+     */
+    private
+    fun DefaultReadContext.readTaskShards(): List<List<Task>> {
+        val shardCount = readSmallInt()
+        val shards = ArrayList<TaskShardReader>(shardCount)
+        for (i in 0 until shardCount) {
+            val projectPath = readString()
+            val taskCount = readSmallInt()
+            val firstSharedId = readSmallInt()
+            val endSharedId = readSmallInt()
+            shards.add(TaskShardReader(projectPath, taskCount, firstSharedId until endSharedId, readBinary()))
+        }
+        if (shardCount == 1) {
+            shards[0].run { readTasks() }
+        } else {
+            buildOperationExecutor.runAllWithAccessToProjectState<RunnableBuildOperation> { queue ->
+                for (shard in shards) {
+                    queue.add(object : RunnableBuildOperation {
+                        override fun run(context: BuildOperationContext) {
+                            owner.owner.projects.getProject(Path.path(shard.projectPath)).applyToMutableState {
+                                shard.run { readTasks() }
+                            }
+                        }
+
+                        override fun description(): BuildOperationDescriptor.Builder =
+                            BuildOperationDescriptor.displayName("Load configuration cache state of tasks in ${shard.projectPath}")
+                    })
+                }
+            }
+        }
+        return shards.map { it.tasks }
+    }
+
+    private
+    class TaskShard(val index: Int) {
+        val tasks = ArrayList<LocalTaskNode>()
+    }
+
+    private
+    inner class TaskShardReader(
+        val projectPath: String,
+        private val taskCount: Int,
+        private val sharedIds: IntRange,
+        private val bytes: ByteArray
+    ) {
+        val tasks = ArrayList<Task>(taskCount)
+
+        fun DefaultReadContext.readTasks() {
+            try {
+                forkFor(KryoBackedDecoder(ByteArrayInputStream(bytes)), sharedIds.first).use { shardContext ->
+                    shardContext.runReadOperation {
+                        withGradleIsolate(owner, internalTypesCodec) {
+                            for (i in 0 until taskCount) {
+                                taskNodeCodec.run {
+                                    tasks.add(readTask())
+                                }
+                            }
+                        }
+                    }
+                    shardContext.finish()
+                }
+            } catch (e: Throwable) {
+                sharedIdentities.fail(sharedIds, e)
+                throw e
+            }
+        }
+    }
+
     private
     fun WriteContext.writeNodeGroup(group: NodeGroup, nodesById: Map<Node, Int>) {
         encodePreservingIdentityOf(group) {
@@ -247,3 +405,7 @@ class WorkNodeCodec(
         }
     }
 }
+
+
+private
+const val INLINE_NODE = -1
@@ -47,6 +47,7 @@ import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.TestHashCodes
 import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
+import org.gradle.util.Path
 import org.hamcrest.CoreMatchers.equalTo
 import org.hamcrest.MatcherAssert.assertThat
 import org.junit.Test
@@ -168,7 +169,7 @@ class ConfigurationCacheFingerprintCheckerTest {
                     on { hashCodeOf(scriptFile) } doReturn TestHashCodes.hashCodeFrom(1)
                     on { displayNameOf(scriptFile) } doReturn "displayNameOf(scriptFile)"
                 },
-                ConfigurationCacheFingerprint.InputFile(
+                ConfigurationCacheFingerprint.ScriptFile(
                     scriptFile,
                     TestHashCodes.hashCodeFrom(2)
                 )
@@ -177,6 +178,42 @@ class ConfigurationCacheFingerprintCheckerTest {
         )
     }
 
+    @Test
+    fun `changed build script is reported for a project that is already invalid`() {
+        val inputFile = File("input.txt")
+        val scriptFile = File("b/build.gradle")
+        val unchangedScriptFile = File("c/build.gradle")
+        val host = mock<ConfigurationCacheFingerprintChecker.Host> {
+            on { hashCodeOf(inputFile) } doReturn TestHashCodes.hashCodeFrom(1)
+            on { hashCodeOf(scriptFile) } doReturn TestHashCodes.hashCodeFrom(1)
+            on { hashCodeOf(unchangedScriptFile) } doReturn TestHashCodes.hashCodeFrom(1)
+            on { displayNameOf(any()) }.then { invocation ->
+                invocation.getArgument<File>(0).path
+            }
+        }
+        val a = Path.path(":a")
+        val b = Path.path(":b")
+        val c = Path.path(":c")
+
+        val readContext = recordWritingOf {
+            write(ProjectSpecificFingerprint.ProjectFingerprint(b, ConfigurationCacheFingerprint.InputFile(inputFile, TestHashCodes.hashCodeFrom(2))))
+            write(ProjectSpecificFingerprint.ProjectFingerprint(b, ConfigurationCacheFingerprint.ScriptFile(scriptFile, TestHashCodes.hashCodeFrom(2))))
+            write(ProjectSpecificFingerprint.ProjectFingerprint(c, ConfigurationCacheFingerprint.ScriptFile(unchangedScriptFile, TestHashCodes.hashCodeFrom(1))))
+            write(ProjectSpecificFingerprint.ProjectFingerprint(a, ConfigurationCacheFingerprint.ScriptFile(unchangedScriptFile, TestHashCodes.hashCodeFrom(1))))
+            write(null)
+        }
+        val checkedFingerprint = readContext.runReadOperation {
+            ConfigurationCacheFingerprintChecker(host).run {
+                checkProjectScopedFingerprint()
+            }
+        }
+
+        require(checkedFingerprint is CheckedFingerprint.ProjectsInvalid)
+        assertThat(checkedFingerprint.reason, equalTo("file 'input.txt' has changed"))
+        assertThat(checkedFingerprint.invalidProjects, equalTo(setOf(b)))
+        assertThat(checkedFingerprint.buildLogicChangedProjects, equalTo(setOf(b)))
+    }
+
     @Test
     fun `invalidation reason includes ValueSource description`() {
 
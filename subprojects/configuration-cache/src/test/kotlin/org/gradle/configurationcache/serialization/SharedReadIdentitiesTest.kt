@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+
+
+class SharedReadIdentitiesTest {
+
+    @Test
+    fun `shard does not wait for its own identities`() {
+        val identities = SharedReadIdentities()
+        val shard = identities.forShard(2)
+
+        assertThat(shard.getInstance(2), nullValue())
+
+        val instance = Any()
+        shard.putInstance(2, instance)
+
+        assertThat(shard.getInstance(2), sameInstance(instance))
+        assertThat(identities.getInstance(2), sameInstance(instance))
+    }
+
+    @Test
+    fun `shard waits for identities read by earlier shards`() {
+        val identities = SharedReadIdentities()
+        val shard = identities.forShard(1)
+
+        val lookup = CompletableFuture.supplyAsync { shard.getInstance(0) }
+        assertThat(lookup.isDone, equalTo(false))
+
+        identities.forShard(0).putInstance(0, "value")
+
+        assertThat(lookup.get(), equalTo<Any>("value"))
+    }
+
+    @Test(expected = CompletionException::class)
+    fun `failing a shard releases shards waiting on it`() {
+        val identities = SharedReadIdentities()
+        identities.fail(0 until 2, IllegalStateException())
+
+        identities.forShard(2).getInstance(1)
+    }
+}
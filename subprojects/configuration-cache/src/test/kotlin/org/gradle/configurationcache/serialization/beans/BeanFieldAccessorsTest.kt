@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization.beans
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.lang.reflect.Field
+
+
+class BeanFieldAccessorsTest {
+
+    @Test
+    fun `generated accessor reads and writes private, final and primitive fields`() {
+        val fields = fieldsOf(Bean::class.java)
+        val accessor = BeanFieldAccessors.generatedAccessorFor(fields)
+        val bean = Bean()
+
+        assertThat(valuesOf(accessor, bean, fields), equalTo(listOf<Any?>("a", 1, 2L, listOf("x"), false)))
+
+        listOf<Any?>("b", 42, 7L, listOf("y"), true).forEachIndexed { index, value ->
+            accessor.set(bean, index, value)
+        }
+
+        assertThat(valuesOf(accessor, bean, fields), equalTo(listOf<Any?>("b", 42, 7L, listOf("y"), true)))
+    }
+
+    @Test
+    fun `generated accessor behaves like the reflective accessor`() {
+        val fields = fieldsOf(Bean::class.java)
+        val generated = BeanFieldAccessors.generatedAccessorFor(fields)
+        val reflective = BeanFieldAccessors.reflectiveAccessorFor(fields)
+
+        assertThat(generated.javaClass, not(sameInstance(reflective.javaClass)))
+        assertThat(valuesOf(generated, Bean(), fields), equalTo(valuesOf(reflective, Bean(), fields)))
+    }
+
+    @Test
+    fun `generated accessor reads and writes primitive fields without boxing`() {
+        assertReadsAndWritesPrimitiveFields(BeanFieldAccessors::generatedAccessorFor)
+    }
+
+    @Test
+    fun `reflective accessor reads and writes primitive fields without boxing`() {
+        assertReadsAndWritesPrimitiveFields(BeanFieldAccessors::reflectiveAccessorFor)
+    }
+
+    @Test(expected = IndexOutOfBoundsException::class)
+    fun `generated accessor rejects primitive access to field of other type`() {
+        val fields = fieldsOf(Bean::class.java)
+        BeanFieldAccessors.generatedAccessorFor(fields).getInt(Bean(), fields.indexOfFirst { it.name == "c" })
+    }
+
+    @Test(expected = IndexOutOfBoundsException::class)
+    fun `generated accessor rejects unknown field index`() {
+        val fields = fieldsOf(Bean::class.java)
+        BeanFieldAccessors.generatedAccessorFor(fields).get(Bean(), fields.size)
+    }
+
+    private
+    fun assertReadsAndWritesPrimitiveFields(accessorFor: (List<Field>) -> BeanFieldAccessor) {
+        val fields = fieldsOf(PrimitiveBean::class.java)
+        val accessor = accessorFor(fields)
+        val bean = PrimitiveBean()
+        fun indexOf(name: String) = fields.indexOfFirst { it.name == name }
+
+        assertThat(accessor.getBoolean(bean, indexOf("z")), equalTo(true))
+        assertThat(accessor.getInt(bean, indexOf("b")), equalTo(-1))
+        assertThat(accessor.getInt(bean, indexOf("s")), equalTo(-2))
+        assertThat(accessor.getInt(bean, indexOf("c")), equalTo('c'.code))
+        assertThat(accessor.getInt(bean, indexOf("i")), equalTo(4))
+        assertThat(accessor.getLong(bean, indexOf("j")), equalTo(5L))
+        assertThat(accessor.getFloat(bean, indexOf("f")), equalTo(6f))
+        assertThat(accessor.getDouble(bean, indexOf("d")), equalTo(7.0))
+
+        accessor.setBoolean(bean, indexOf("z"), false)
+        accessor.setInt(bean, indexOf("b"), 11)
+        accessor.setInt(bean, indexOf("s"), 12)
+        accessor.setInt(bean, indexOf("c"), 'x'.code)
+        accessor.setInt(bean, indexOf("i"), 14)
+        accessor.setLong(bean, indexOf("j"), 15L)
+        accessor.setFloat(bean, indexOf("f"), 16f)
+        accessor.setDouble(bean, indexOf("d"), 17.0)
+
+        assertThat(valuesOf(accessor, bean, fields), equalTo(listOf<Any?>(11.toByte(), 'x', 17.0, 16f, 14, 15L, 12.toShort(), false)))
+    }
+
+    private
+    fun valuesOf(accessor: BeanFieldAccessor, bean: Any, fields: List<Field>) =
+        fields.indices.map { accessor.get(bean, it) }
+
+    private
+    fun fieldsOf(type: Class<*>) =
+        type.declaredFields.sortedBy { it.name }.onEach { it.isAccessible = true }
+
+    @Suppress("unused")
+    private
+    class Bean {
+        private var a: String = "a"
+        private val b: Int = 1
+        var c: Long = 2L
+        private val d: List<String> = listOf("x")
+        private var e: Boolean = false
+    }
+
+    @Suppress("unused")
+    private
+    class PrimitiveBean {
+        private var b: Byte = -1
+        private val c: Char = 'c'
+        private var d: Double = 7.0
+        private var f: Float = 6f
+        private val i: Int = 4
+        private var j: Long = 5L
+        private var s: Short = -2
+        private var z: Boolean = true
+    }
+}
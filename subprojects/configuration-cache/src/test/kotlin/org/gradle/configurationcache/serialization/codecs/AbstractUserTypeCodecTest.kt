@@ -28,6 +28,7 @@ import org.gradle.configurationcache.serialization.DefaultWriteContext
 import org.gradle.configurationcache.serialization.IsolateOwner
 import org.gradle.configurationcache.serialization.MutableIsolateContext
 import org.gradle.configurationcache.serialization.beans.BeanConstructors
+import org.gradle.configurationcache.serialization.beans.BeanFieldAccessors
 import org.gradle.configurationcache.serialization.beans.BeanStateReaderLookup
 import org.gradle.configurationcache.serialization.beans.BeanStateWriterLookup
 import org.gradle.configurationcache.serialization.codecs.jos.JavaSerializationEncodingLookup
@@ -132,7 +133,7 @@ abstract class AbstractUserTypeCodecTest {
             codec = codec,
             encoder = encoder,
             scopeLookup = mock(),
-            beanStateWriterLookup = BeanStateWriterLookup(),
+            beanStateWriterLookup = BeanStateWriterLookup(beanFieldAccessors),
             logger = mock(),
             tracer = null,
             problemsListener = problemHandler
@@ -143,11 +144,14 @@ abstract class AbstractUserTypeCodecTest {
         DefaultReadContext(
             codec = codec,
             decoder = KryoBackedDecoder(inputStream),
-            beanStateReaderLookup = BeanStateReaderLookup(BeanConstructors(TestCrossBuildInMemoryCacheFactory()), TestUtil.instantiatorFactory()),
+            beanStateReaderLookup = BeanStateReaderLookup(BeanConstructors(TestCrossBuildInMemoryCacheFactory()), TestUtil.instantiatorFactory(), beanFieldAccessors),
             logger = mock(),
             problemsListener = mock()
         )
 
+    private
+    val beanFieldAccessors = BeanFieldAccessors(TestCrossBuildInMemoryCacheFactory())
+
     private
     fun userTypesCodec() = codecs().userTypesCodec()
 
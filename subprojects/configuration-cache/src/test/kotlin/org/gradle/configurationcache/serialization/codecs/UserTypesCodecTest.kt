@@ -38,6 +38,28 @@ class UserTypesCodecTest : AbstractUserTypeCodecTest() {
         )
     }
 
+    @Test
+    fun `can handle beans with primitive fields`() {
+
+        val bean = PrimitiveBean(true, Byte.MIN_VALUE, Short.MAX_VALUE, '\u00e9', -42, Long.MAX_VALUE, Float.MIN_VALUE, -0.5)
+
+        assertThat(
+            configurationCacheRoundtripOf(bean),
+            equalTo(bean)
+        )
+    }
+
+    data class PrimitiveBean(
+        val z: Boolean,
+        val b: Byte,
+        val s: Short,
+        val c: Char,
+        val i: Int,
+        val j: Long,
+        val f: Float,
+        val d: Double
+    )
+
     @Test
     fun `internal types codec leaves not implemented trace for unsupported types`() {
 
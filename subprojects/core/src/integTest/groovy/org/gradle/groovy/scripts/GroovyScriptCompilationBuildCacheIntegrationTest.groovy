@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.BuildOperationsFixture
+import org.gradle.integtests.fixtures.DirectoryBuildCacheFixture
+import org.gradle.internal.scripts.CompileScriptBuildOperationType
+
+class GroovyScriptCompilationBuildCacheIntegrationTest extends AbstractIntegrationSpec implements DirectoryBuildCacheFixture {
+
+    def operations = new BuildOperationsFixture(executer, temporaryFolder)
+
+    def "build scripts compiled in one checkout are loaded from the build cache in another checkout"() {
+        given:
+        def checkout = file("checkout")
+        checkout.file("settings.gradle") << localCacheConfiguration()
+        checkout.file("build.gradle") << """
+            apply from: 'script.gradle'
+            println 'configuring ' + project.path
+        """
+        checkout.file("script.gradle") << "println 'applying script'"
+
+        when:
+        executer.inDirectory(checkout).withGradleUserHomeDir(file("user-home"))
+        withBuildCache().run "help"
+
+        then:
+        outputContains "configuring :"
+        compiledScripts().containsAll(["build.gradle", "script.gradle"])
+
+        when:
+        def otherCheckout = file("other-checkout")
+        checkout.copyTo(otherCheckout)
+        executer.inDirectory(otherCheckout).withGradleUserHomeDir(file("other-user-home"))
+        withBuildCache().run "help"
+
+        then:
+        outputContains "configuring :"
+        outputContains "applying script"
+        compiledScripts().contains("settings.gradle")
+        !compiledScripts().contains("build.gradle")
+        !compiledScripts().contains("script.gradle")
+    }
+
+    def "build scripts are compiled when the build cache is disabled"() {
+        given:
+        settingsFile << localCacheConfiguration()
+        buildFile << """
+            println 'configuring ' + project.path
+        """
+
+        when:
+        executer.withGradleUserHomeDir(file("user-home"))
+        withBuildCache().run "help"
+
+        then:
+        compiledScripts().contains("build.gradle")
+
+        when:
+        executer.withGradleUserHomeDir(file("other-user-home"))
+        run "help"
+
+        then:
+        outputContains "configuring :"
+        compiledScripts().contains("build.gradle")
+    }
+
+    private List<String> compiledScripts() {
+        operations.all(CompileScriptBuildOperationType).collect { it.displayName.find(/'(?:.*[\/\\])?([^\/\\']+)'/) { match, name -> name } }
+    }
+}
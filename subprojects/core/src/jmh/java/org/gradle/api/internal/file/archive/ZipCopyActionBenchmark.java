@@ -0,0 +1,142 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.copy.CopyAction;
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
+import org.gradle.api.internal.file.copy.DefaultZipCompressor;
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares writing an archive of a large tree of resources with {@link ZipCopyAction} and {@link ParallelZipCopyAction}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+@SuppressWarnings("OctalInteger")
+public class ZipCopyActionBenchmark {
+    private static final String[] WORDS = {"gradle", "task", "project", "archive", "resource", "configuration", "dependency", "compile", "class", "jar"};
+
+    @Param({"1", "4", "8"})
+    int parallelism;
+
+    @Param({"2000"})
+    int fileCount;
+
+    @Param({"32768"})
+    int fileSize;
+
+    private File tempDir;
+    private File archive;
+    private List<File> files;
+    private DefaultExecutorFactory executorFactory;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        tempDir = Files.createTempDirectory("zip-benchmark").toFile();
+        archive = new File(tempDir, "archive.zip");
+        files = new ArrayList<>(fileCount);
+        Random random = new Random(1234);
+        File resources = new File(tempDir, "resources");
+        for (int i = 0; i < fileCount; i++) {
+            File file = new File(resources, "dir" + (i % 50) + "/resource" + i + ".txt");
+            StringBuilder content = new StringBuilder(fileSize);
+            while (content.length() < fileSize) {
+                content.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            FileUtils.writeStringToFile(file, content.toString(), StandardCharsets.UTF_8);
+            files.add(file);
+        }
+        executorFactory = new DefaultExecutorFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        executorFactory.stop();
+        FileUtils.forceDelete(tempDir);
+    }
+
+    @Benchmark
+    public void sequential() {
+        zip(new ZipCopyAction(archive, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), "UTF-8", false));
+    }
+
+    @Benchmark
+    public void parallel() {
+        zip(new ParallelZipCopyAction(archive, false, new DocumentationRegistry(), "UTF-8", false, executorFactory, parallelism, false));
+    }
+
+    private void zip(CopyAction action) {
+        CopyActionProcessingStream stream = streamAction -> {
+            for (File file : files) {
+                streamAction.processFile(details(file));
+            }
+        };
+        action.execute(stream);
+    }
+
+    private FileCopyDetailsInternal details(File file) {
+        String path = tempDir.toPath().resolve("resources").relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+        return (FileCopyDetailsInternal) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{FileCopyDetailsInternal.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isDirectory":
+                    return false;
+                case "getRelativePath":
+                    return RelativePath.parse(true, path);
+                case "getLastModified":
+                    return file.lastModified();
+                case "getMode":
+                    return 0644;
+                case "getSize":
+                    return file.length();
+                case "copyTo":
+                    Files.copy(file.toPath(), (OutputStream) args[0]);
+                    return null;
+                case "toString":
+                    return path;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
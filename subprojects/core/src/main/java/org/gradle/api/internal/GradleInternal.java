@@ -80,6 +80,11 @@ public interface GradleInternal extends Gradle, PluginAwareInternal {
      */
     ProjectEvaluationListener getProjectEvaluationBroadcaster();
 
+    /**
+     * Returns true when any actions or listeners are registered to run before or after each project of this build is evaluated.
+     */
+    boolean hasProjectEvaluationListeners();
+
     /**
      * The settings for this build.
      *
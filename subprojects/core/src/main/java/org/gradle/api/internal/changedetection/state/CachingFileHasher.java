@@ -98,6 +98,13 @@ private FileInfo snapshot(File file, long length, long timestamp) {
         return info;
     }
 
+    /**
+     * Records the hash of the given file with the given metadata, which was calculated by other means, for example while the file was written.
+     */
+    public void record(File file, long length, long lastModified, HashCode hash) {
+        cache.put(stringInterner.intern(file.getAbsolutePath()), new FileInfo(hash, length, lastModified));
+    }
+
     public void discard(String path) {
         cache.remove(path);
     }
@@ -0,0 +1,481 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.commons.compress.archivers.zip.UnixStat;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.Zip64RequiredException;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.gradle.api.GradleException;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.FileCopyDetails;
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.file.copy.CopyAction;
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream;
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.WorkResults;
+import org.gradle.api.tasks.bundling.Zip;
+import org.gradle.internal.IoActions;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.HashFunction;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.HashingOutputStream;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import static org.gradle.api.internal.file.archive.ZipCopyAction.CONSTANT_TIME_FOR_ZIP_ENTRIES;
+
+/**
+ * Writes a ZIP archive with deflated entries, compressing the entries concurrently.
+ *
+ * The content of each file is read by the visiting thread, deflated by a worker thread into memory, and then written
+ * to the archive in the order the files were visited, so the archive is the same regardless of the number of threads.
+ * Large files are written by the visiting thread as they are read, to bound the memory used.
+ *
+ * When reusing previous entries, the archive from the previous execution is used as a source of already compressed data.
+ * Along with the archive, this action records the SHA-256 hash of the archive, the deflater settings and the SHA-256 hash
+ * of the content of each entry in an entries file. The previous archive is only used when the entries file matches it and
+ * the current deflater settings, so the entries were written by this action. A file whose content hash matches the entry
+ * with the same path in the previous archive is written using the compressed data of that entry, without deflating it
+ * again. As the entries are deflated the same way, the result is the same as when building the archive from scratch.
+ */
+public class ParallelZipCopyAction implements CopyAction {
+    /**
+     * Enables this copy action for {@link Zip} tasks using deflated entries.
+     */
+    public static final String PARALLEL_ZIP_PROPERTY = "org.gradle.internal.zip.parallel";
+
+    /**
+     * Enables reusing the entries of the previous archive for {@link Zip} tasks using deflated entries.
+     */
+    public static final String INCREMENTAL_ZIP_PROPERTY = "org.gradle.internal.zip.incremental";
+
+    private static final long MAX_BUFFERED_FILE_SIZE = 4 * 1024 * 1024;
+    private static final long MAX_PENDING_BYTES = 64 * 1024 * 1024;
+    private static final int MAX_PENDING_ENTRIES = 4096;
+    private static final int DEFLATER_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    private static final String ENTRIES_FILE_HEADER = "entries v1 deflate level=" + DEFLATER_LEVEL + " nowrap=true";
+    private static final HashFunction ENTRY_HASH_FUNCTION = Hashing.sha256();
+
+    private final File zipFile;
+    private final boolean allowZip64;
+    private final DocumentationRegistry documentationRegistry;
+    private final String encoding;
+    private final boolean preserveFileTimestamps;
+    private final ExecutorFactory executorFactory;
+    private final int parallelism;
+    private final File entriesFile;
+
+    /**
+     * @param entriesFile the file to record the entries of the archive in, or null to not reuse the entries of the previous archive.
+     */
+    public ParallelZipCopyAction(File zipFile, boolean allowZip64, DocumentationRegistry documentationRegistry, @Nullable String encoding, boolean preserveFileTimestamps, ExecutorFactory executorFactory, int parallelism, @Nullable File entriesFile) {
+        this.zipFile = zipFile;
+        this.allowZip64 = allowZip64;
+        this.documentationRegistry = documentationRegistry;
+        this.encoding = encoding;
+        this.preserveFileTimestamps = preserveFileTimestamps;
+        this.executorFactory = executorFactory;
+        this.parallelism = parallelism;
+        this.entriesFile = entriesFile;
+    }
+
+    public static boolean isParallelEnabled() {
+        return Boolean.getBoolean(PARALLEL_ZIP_PROPERTY);
+    }
+
+    public static boolean isIncrementalEnabled() {
+        return Boolean.getBoolean(INCREMENTAL_ZIP_PROPERTY);
+    }
+
+    @Override
+    public WorkResult execute(CopyActionProcessingStream stream) {
+        if (entriesFile == null) {
+            return write(stream, null, Collections.emptyMap(), null);
+        }
+        Map<String, HashCode> previousEntries = readPreviousEntries();
+        // The entries file no longer describes the archive once writing starts
+        FileUtils.deleteQuietly(entriesFile);
+        File previousZipFile = previousEntries.isEmpty() ? null : movePreviousArchive();
+        try {
+            Map<String, HashCode> entries = new ConcurrentHashMap<>();
+            WorkResult result = write(stream, previousZipFile == null ? null : openPreviousArchive(previousZipFile), previousEntries, entries);
+            writeEntries(entries);
+            return result;
+        } finally {
+            if (previousZipFile != null) {
+                FileUtils.deleteQuietly(previousZipFile);
+            }
+        }
+    }
+
+    /**
+     * Returns the content hash of the entries of the previous archive, or nothing when the previous archive was not written by this action with the same settings.
+     */
+    private Map<String, HashCode> readPreviousEntries() {
+        if (!zipFile.isFile() || !entriesFile.isFile()) {
+            return Collections.emptyMap();
+        }
+        try {
+            List<String> lines = Files.readAllLines(entriesFile.toPath(), StandardCharsets.UTF_8);
+            if (lines.size() < 2 || !lines.get(0).equals(ENTRIES_FILE_HEADER) || !lines.get(1).equals(ENTRY_HASH_FUNCTION.hashFile(zipFile).toString())) {
+                return Collections.emptyMap();
+            }
+            Map<String, HashCode> entries = new HashMap<>();
+            for (String line : lines.subList(2, lines.size())) {
+                int separator = line.indexOf(' ');
+                entries.put(line.substring(separator + 1), HashCode.fromString(line.substring(0, separator)));
+            }
+            return entries;
+        } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            // Not a usable entries file, build from scratch
+            return Collections.emptyMap();
+        }
+    }
+
+    private void writeEntries(Map<String, HashCode> entries) {
+        try {
+            List<String> lines = new ArrayList<>(entries.size() + 2);
+            lines.add(ENTRIES_FILE_HEADER);
+            lines.add(ENTRY_HASH_FUNCTION.hashFile(zipFile).toString());
+            new TreeMap<>(entries).forEach((path, hash) -> lines.add(hash + " " + path));
+            Files.createDirectories(entriesFile.getParentFile().toPath());
+            Files.write(entriesFile.toPath(), lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not write the entries of ZIP '%s'.", zipFile), e);
+        }
+    }
+
+    @Nullable
+    private File movePreviousArchive() {
+        if (!zipFile.isFile()) {
+            return null;
+        }
+        File previousZipFile = new File(zipFile.getParentFile(), zipFile.getName() + ".previous");
+        try {
+            Files.move(zipFile.toPath(), previousZipFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not move previous ZIP '%s'.", zipFile), e);
+        }
+        return previousZipFile;
+    }
+
+    @Nullable
+    private ZipFile openPreviousArchive(File previousZipFile) {
+        try {
+            return new ZipFile(previousZipFile, encoding);
+        } catch (IOException e) {
+            // Not a usable archive, build from scratch
+            return null;
+        }
+    }
+
+    private WorkResult write(CopyActionProcessingStream stream, @Nullable ZipFile previousArchive, Map<String, HashCode> previousEntries, @Nullable Map<String, HashCode> entries) {
+        ZipArchiveOutputStream zipOutStr;
+        try {
+            zipOutStr = new ZipArchiveOutputStream(zipFile);
+            zipOutStr.setUseZip64(allowZip64 ? Zip64Mode.AsNeeded : Zip64Mode.Never);
+            zipOutStr.setEncoding(encoding);
+        } catch (Exception e) {
+            IoActions.closeQuietly(previousArchive);
+            throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
+        }
+
+        ManagedExecutor executor = executorFactory.create("Zip compression", parallelism);
+        try {
+            try {
+                StreamAction action = new StreamAction(zipOutStr, previousArchive, previousEntries, entries, executor);
+                stream.process(action);
+                action.writePendingEntries();
+                action.finishEntries();
+            } finally {
+                zipOutStr.close();
+            }
+        } catch (Zip64RequiredException e) {
+            throw new org.gradle.api.tasks.bundling.internal.Zip64RequiredException(
+                String.format("%s\n\nTo build this archive, please enable the zip64 extension.\nSee: %s", e.getMessage(), documentationRegistry.getDslRefForProperty(Zip.class, "zip64"))
+            );
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not write ZIP '%s'.", zipFile), e);
+        } finally {
+            executor.stop();
+            IoActions.closeQuietly(previousArchive);
+        }
+
+        return WorkResults.didWork(true);
+    }
+
+    private class StreamAction implements CopyActionProcessingStreamAction {
+        private final ZipArchiveOutputStream zipOutStr;
+        private final ZipFile previousArchive;
+        private final Map<String, HashCode> previousEntries;
+        private final Map<String, HashCode> entries;
+        private final ManagedExecutor executor;
+        private final Deque<PendingEntry> pendingEntries = new ArrayDeque<>();
+        private final Set<String> visitedPaths = new HashSet<>();
+        private final Set<String> duplicatePaths = new HashSet<>();
+        private long pendingBytes;
+
+        public StreamAction(ZipArchiveOutputStream zipOutStr, @Nullable ZipFile previousArchive, Map<String, HashCode> previousEntries, @Nullable Map<String, HashCode> entries, ManagedExecutor executor) {
+            this.zipOutStr = zipOutStr;
+            this.previousArchive = previousArchive;
+            this.previousEntries = previousEntries;
+            this.entries = entries;
+            this.executor = executor;
+        }
+
+        @Override
+        public void processFile(FileCopyDetailsInternal details) {
+            try {
+                if (details.isDirectory()) {
+                    visitDir(details);
+                } else {
+                    visitFile(details);
+                }
+            } catch (Zip64RequiredException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", details, zipFile), e);
+            }
+        }
+
+        private void visitFile(FileCopyDetails fileDetails) throws IOException {
+            String path = fileDetails.getRelativePath().getPathString();
+            ZipArchiveEntry archiveEntry = new ZipArchiveEntry(path);
+            archiveEntry.setTime(getArchiveTimeFor(fileDetails));
+            archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getMode());
+            long size = fileDetails.getSize();
+            boolean recordEntry = entries != null && isRecordable(path);
+            ZipArchiveEntry previousEntry = findPreviousEntry(path, size);
+            if (size > MAX_BUFFERED_FILE_SIZE) {
+                writePendingEntries();
+                if (previousEntry != null) {
+                    HashCode hash = hashOf(fileDetails);
+                    if (hash.equals(previousEntries.get(path))) {
+                        reuse(archiveEntry, previousEntry);
+                        try (InputStream rawContent = previousArchive.getRawInputStream(previousEntry)) {
+                            zipOutStr.addRawArchiveEntry(archiveEntry, rawContent);
+                        }
+                        recordEntry(recordEntry, path, hash);
+                        return;
+                    }
+                }
+                // Declare the size up front, so the entry is written the same way as a reused entry
+                archiveEntry.setMethod(ZipEntry.DEFLATED);
+                archiveEntry.setSize(size);
+                zipOutStr.putArchiveEntry(archiveEntry);
+                HashingOutputStream content = new HashingOutputStream(ENTRY_HASH_FUNCTION, zipOutStr);
+                fileDetails.copyTo(content);
+                zipOutStr.closeArchiveEntry();
+                recordEntry(recordEntry, path, content.hash());
+                return;
+            }
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream((int) size);
+            fileDetails.copyTo(content);
+            byte[] bytes = content.toByteArray();
+            if (previousEntry != null && ENTRY_HASH_FUNCTION.hashBytes(bytes).equals(previousEntries.get(path))) {
+                reuse(archiveEntry, previousEntry);
+                recordEntry(recordEntry, path, previousEntries.get(path));
+                byte[] rawContent;
+                try (InputStream inputStream = previousArchive.getRawInputStream(previousEntry)) {
+                    rawContent = IOUtils.toByteArray(inputStream);
+                }
+                addPendingEntry(new PendingEntry(fileDetails, archiveEntry, CompletableFuture.completedFuture(rawContent), rawContent.length));
+                return;
+            }
+            Future<byte[]> deflated = executor.submit(() -> {
+                recordEntry(recordEntry, path, ENTRY_HASH_FUNCTION.hashBytes(bytes));
+                return deflate(archiveEntry, bytes);
+            });
+            addPendingEntry(new PendingEntry(fileDetails, archiveEntry, deflated, bytes.length));
+        }
+
+        /**
+         * Paths that occur more than once in the archive or that cannot be written to a line of the entries file are not recorded, so never reused.
+         */
+        private boolean isRecordable(String path) {
+            if (!visitedPaths.add(path)) {
+                duplicatePaths.add(path);
+                return false;
+            }
+            return path.indexOf('\n') < 0 && path.indexOf('\r') < 0;
+        }
+
+        private void recordEntry(boolean recordEntry, String path, HashCode hash) {
+            if (recordEntry) {
+                entries.put(path, hash);
+            }
+        }
+
+        @Nullable
+        private ZipArchiveEntry findPreviousEntry(String path, long size) {
+            if (previousArchive == null || !previousEntries.containsKey(path)) {
+                return null;
+            }
+            ZipArchiveEntry previousEntry = previousArchive.getEntry(path);
+            if (previousEntry == null || previousEntry.isDirectory() || previousEntry.getMethod() != ZipEntry.DEFLATED || previousEntry.getSize() != size) {
+                return null;
+            }
+            return previousEntry;
+        }
+
+        private void visitDir(FileCopyDetails dirDetails) throws IOException {
+            // Trailing slash in name indicates that entry is a directory
+            ZipArchiveEntry archiveEntry = new ZipArchiveEntry(dirDetails.getRelativePath().getPathString() + '/');
+            archiveEntry.setTime(getArchiveTimeFor(dirDetails));
+            archiveEntry.setUnixMode(UnixStat.DIR_FLAG | dirDetails.getMode());
+            addPendingEntry(new PendingEntry(dirDetails, archiveEntry, null, 0));
+        }
+
+        private void addPendingEntry(PendingEntry entry) throws IOException {
+            pendingEntries.add(entry);
+            pendingBytes += entry.size;
+            while (pendingBytes > MAX_PENDING_BYTES || pendingEntries.size() > MAX_PENDING_ENTRIES) {
+                writeNextPendingEntry();
+            }
+        }
+
+        void writePendingEntries() throws IOException {
+            while (!pendingEntries.isEmpty()) {
+                writeNextPendingEntry();
+            }
+        }
+
+        /**
+         * Completes the recorded entries, once all entries have been written.
+         */
+        void finishEntries() {
+            if (entries != null) {
+                entries.keySet().removeAll(duplicatePaths);
+            }
+        }
+
+        private void writeNextPendingEntry() throws IOException {
+            PendingEntry entry = pendingEntries.remove();
+            pendingBytes -= entry.size;
+            if (entry.deflated == null) {
+                zipOutStr.putArchiveEntry(entry.archiveEntry);
+                zipOutStr.closeArchiveEntry();
+                return;
+            }
+            byte[] deflated;
+            try {
+                deflated = entry.deflated.get();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                throw new GradleException(String.format("Could not add %s to ZIP '%s'.", entry.details, zipFile), e.getCause());
+            }
+            zipOutStr.addRawArchiveEntry(entry.archiveEntry, new ByteArrayInputStream(deflated));
+        }
+    }
+
+    private static void reuse(ZipArchiveEntry archiveEntry, ZipArchiveEntry previousEntry) {
+        archiveEntry.setMethod(ZipEntry.DEFLATED);
+        archiveEntry.setCrc(previousEntry.getCrc());
+        archiveEntry.setSize(previousEntry.getSize());
+        archiveEntry.setCompressedSize(previousEntry.getCompressedSize());
+    }
+
+    private static long crcOf(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length);
+        return crc.getValue();
+    }
+
+    private static HashCode hashOf(FileCopyDetails fileDetails) {
+        HashingOutputStream content = new HashingOutputStream(ENTRY_HASH_FUNCTION, NullOutputStream.NULL_OUTPUT_STREAM);
+        fileDetails.copyTo(content);
+        return content.hash();
+    }
+
+    private static byte[] deflate(ZipArchiveEntry archiveEntry, byte[] content) {
+        long crc = crcOf(content);
+        Deflater deflater = new Deflater(DEFLATER_LEVEL, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                deflated.write(buffer, 0, count);
+            }
+            archiveEntry.setMethod(ZipEntry.DEFLATED);
+            archiveEntry.setCrc(crc);
+            archiveEntry.setSize(content.length);
+            archiveEntry.setCompressedSize(deflated.size());
+            return deflated.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static class PendingEntry {
+        private final FileCopyDetails details;
+        private final ZipArchiveEntry archiveEntry;
+        private final Future<byte[]> deflated;
+        private final long size;
+
+        PendingEntry(FileCopyDetails details, ZipArchiveEntry archiveEntry, @Nullable Future<byte[]> deflated, long size) {
+            this.details = details;
+            this.archiveEntry = archiveEntry;
+            this.deflated = deflated;
+            this.size = size;
+        }
+    }
+
+    private long getArchiveTimeFor(FileCopyDetails details) {
+        return preserveFileTimestamps ? details.getLastModified() : CONSTANT_TIME_FOR_ZIP_ENTRIES;
+    }
+}
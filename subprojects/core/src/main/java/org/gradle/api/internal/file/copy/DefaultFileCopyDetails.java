@@ -25,6 +25,7 @@
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
 import org.gradle.api.model.ObjectFactory;
 import org.gradle.internal.Actions;
 import org.gradle.internal.file.Chmod;
@@ -134,6 +135,17 @@ public boolean copyTo(File target) {
         }
     }
 
+    /**
+     * Returns the local file whose content is copied unchanged to the destination, or null when the content is filtered or does not come from a local file.
+     */
+    @Nullable
+    public File getUnfilteredFile() {
+        if (filterChain.hasFilters() || !(fileDetails instanceof DefaultFileTreeElement)) {
+            return null;
+        }
+        return fileDetails.getFile();
+    }
+
     private void adaptPermissions(File target) {
         int specMode = getMode();
         getChmod().chmod(target, specMode);
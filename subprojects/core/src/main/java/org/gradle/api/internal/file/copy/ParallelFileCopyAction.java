@@ -0,0 +1,238 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.WorkResults;
+import org.gradle.internal.FileUtils;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.file.PathToFileResolver;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.internal.vfs.FileSystemAccess;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Copies files into a destination directory, copying the content of regular files concurrently.
+ *
+ * Files copied without filters from the local file system are copied on a bounded pool with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+ * which lets the operating system copy the data without passing it through the JVM. Depending on the platform, the operating system can
+ * share the data between the files instead of copying it. All other files and directories are copied as they are visited, in the same way
+ * as {@link FileCopyAction}. Writes to the same destination file happen in the order the files are visited.
+ */
+public class ParallelFileCopyAction implements CopyAction {
+    /**
+     * Enables this copy action for {@code Copy} and {@code Sync} tasks.
+     */
+    public static final String PARALLEL_COPY_PROPERTY = "org.gradle.internal.copy.parallel";
+
+    /**
+     * Enables hard linking destination files to source files, instead of copying them, when the file is copied without changes.
+     * A hard linked destination file shares its content with the source file, so changing it in place changes the source file.
+     */
+    public static final String HARD_LINKS_PROPERTY = "org.gradle.internal.copy.hardlinks";
+
+    private final PathToFileResolver fileResolver;
+    private final FileSystem fileSystem;
+    private final ExecutorFactory executorFactory;
+    private final int parallelism;
+    private final boolean useHardLinks;
+    private final FileSystemAccess fileSystemAccess;
+
+    /**
+     * @param fileSystemAccess when present, used to skip destination files that already have the content of their source file.
+     */
+    public ParallelFileCopyAction(PathToFileResolver fileResolver, FileSystem fileSystem, ExecutorFactory executorFactory, int parallelism, boolean useHardLinks, @Nullable FileSystemAccess fileSystemAccess) {
+        this.fileResolver = fileResolver;
+        this.fileSystem = fileSystem;
+        this.executorFactory = executorFactory;
+        this.parallelism = parallelism;
+        this.useHardLinks = useHardLinks;
+        this.fileSystemAccess = fileSystemAccess;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(PARALLEL_COPY_PROPERTY);
+    }
+
+    public static boolean isHardLinkingEnabled() {
+        return Boolean.getBoolean(HARD_LINKS_PROPERTY);
+    }
+
+    @Override
+    public WorkResult execute(CopyActionProcessingStream stream) {
+        ManagedExecutor executor = executorFactory.create("File copy", parallelism);
+        try {
+            FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction(executor);
+            try {
+                stream.process(action);
+            } catch (RuntimeException e) {
+                action.cancelPendingCopies();
+                throw e;
+            }
+            action.awaitPendingCopies();
+            return WorkResults.didWork(action.didWork);
+        } finally {
+            executor.stop();
+        }
+    }
+
+    private class FileCopyDetailsInternalAction implements CopyActionProcessingStreamAction {
+        private final ManagedExecutor executor;
+        private final Map<File, Future<?>> pendingCopies = new HashMap<>();
+        private boolean didWork;
+
+        FileCopyDetailsInternalAction(ManagedExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void processFile(FileCopyDetailsInternal details) {
+            File target = fileResolver.resolve(details.getRelativePath().getPathString());
+            Future<?> previousCopy = pendingCopies.remove(target);
+            if (previousCopy != null) {
+                await(previousCopy);
+            }
+            renameIfCaseChanged(target);
+            File source = details instanceof DefaultFileCopyDetails ? ((DefaultFileCopyDetails) details).getUnfilteredFile() : null;
+            if (source == null || details.isDirectory() || details.getLastModified() < 0) {
+                boolean copied = details.copyTo(target);
+                if (copied) {
+                    didWork = true;
+                }
+                return;
+            }
+            int mode = details.getMode();
+            pendingCopies.put(target, executor.submit(() -> copyFile(source, target, mode)));
+            didWork = true;
+        }
+
+        private void renameIfCaseChanged(File target) {
+            if (target.exists()) {
+                File canonicalizedTarget = FileUtils.canonicalize(target);
+                if (!Objects.equals(target.getName(), canonicalizedTarget.getName())) {
+                    canonicalizedTarget.renameTo(target);
+                }
+            }
+        }
+
+        void awaitPendingCopies() {
+            try {
+                for (Future<?> copy : pendingCopies.values()) {
+                    await(copy);
+                }
+            } catch (RuntimeException e) {
+                cancelPendingCopies();
+                throw e;
+            }
+            pendingCopies.clear();
+        }
+
+        void cancelPendingCopies() {
+            for (Future<?> copy : pendingCopies.values()) {
+                copy.cancel(false);
+            }
+            pendingCopies.clear();
+        }
+
+        private void await(Future<?> copy) {
+            try {
+                copy.get();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
+        }
+    }
+
+    private void copyFile(File source, File target, int mode) {
+        try {
+            Files.createDirectories(target.getParentFile().toPath());
+            if (fileSystemAccess != null && hasSameContent(source, target)) {
+                fileSystem.chmod(target, mode);
+                return;
+            }
+            if (useHardLinks && link(source, target, mode)) {
+                return;
+            }
+            transfer(source.toPath(), target.toPath());
+            fileSystem.chmod(target, mode);
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not copy file '%s' to '%s'.", source, target), e);
+        }
+    }
+
+    private boolean hasSameContent(File source, File target) {
+        if (!target.isFile() || target.length() != source.length()) {
+            return false;
+        }
+        Optional<HashCode> sourceHash = fileSystemAccess.readRegularFileContentHash(source.getAbsolutePath());
+        return sourceHash.isPresent() && sourceHash.equals(fileSystemAccess.readRegularFileContentHash(target.getAbsolutePath()));
+    }
+
+    private boolean link(File source, File target, int mode) throws IOException {
+        // A hard link shares the permissions of the source file, so only link when they don't need to change
+        if (fileSystem.getUnixMode(source) != mode) {
+            return false;
+        }
+        Path targetPath = target.toPath();
+        if (Files.exists(targetPath) && Files.isSameFile(source.toPath(), targetPath)) {
+            return true;
+        }
+        Files.deleteIfExists(targetPath);
+        try {
+            Files.createLink(targetPath, source.toPath());
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            // For example, when the source file is on a different file system
+            return false;
+        }
+    }
+
+    private static void transfer(Path source, Path target) throws IOException {
+        try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = input.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = input.transferTo(position, size - position, output);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+}
@@ -21,6 +21,9 @@
 import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.DestinationRootCopySpec;
 import org.gradle.api.internal.file.copy.FileCopyAction;
+import org.gradle.api.internal.file.copy.ParallelFileCopyAction;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.work.DisableCachingByDefault;
 
 import java.io.File;
@@ -75,6 +78,10 @@ protected CopyAction createCopyAction() {
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
+        if (ParallelFileCopyAction.isEnabled()) {
+            return new ParallelFileCopyAction(getFileLookup().getFileResolver(destinationDir), getFileSystem(), getServices().get(ExecutorFactory.class),
+                getServices().get(WorkerLeaseService.class).getMaxWorkerCount(), ParallelFileCopyAction.isHardLinkingEnabled(), null);
+        }
         return new FileCopyAction(getFileLookup().getFileResolver(destinationDir));
     }
 
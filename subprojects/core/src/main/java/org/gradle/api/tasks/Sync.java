@@ -22,10 +22,14 @@
 import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.DestinationRootCopySpec;
 import org.gradle.api.internal.file.copy.FileCopyAction;
+import org.gradle.api.internal.file.copy.ParallelFileCopyAction;
 import org.gradle.api.internal.file.copy.SyncCopyActionDecorator;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.file.Deleter;
+import org.gradle.internal.vfs.FileSystemAccess;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.work.DisableCachingByDefault;
 
 import javax.inject.Inject;
@@ -77,13 +81,22 @@ protected CopyAction createCopyAction() {
         }
         return new SyncCopyActionDecorator(
             destinationDir,
-            new FileCopyAction(getFileLookup().getFileResolver(destinationDir)),
+            createFileCopyAction(destinationDir),
             preserveInDestination,
             getDeleter(),
             getDirectoryFileTreeFactory()
         );
     }
 
+    private CopyAction createFileCopyAction(File destinationDir) {
+        if (ParallelFileCopyAction.isEnabled()) {
+            // Files that are left in place from the previous sync are not copied again
+            return new ParallelFileCopyAction(getFileLookup().getFileResolver(destinationDir), getFileSystem(), getServices().get(ExecutorFactory.class),
+                getServices().get(WorkerLeaseService.class).getMaxWorkerCount(), ParallelFileCopyAction.isHardLinkingEnabled(), getServices().get(FileSystemAccess.class));
+        }
+        return new FileCopyAction(getFileLookup().getFileResolver(destinationDir));
+    }
+
     @Override
     protected CopySpecInternal createRootSpec() {
         return getProject().getObjects().newInstance(DestinationRootCopySpec.class, super.createRootSpec());
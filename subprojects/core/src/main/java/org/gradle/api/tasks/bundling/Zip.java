@@ -18,6 +18,7 @@
 import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.archive.ParallelZipCopyAction;
 import org.gradle.api.internal.file.archive.ZipCopyAction;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.DefaultZipCompressor;
@@ -25,9 +26,12 @@
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.work.WorkerLeaseService;
 import org.gradle.work.DisableCachingByDefault;
 
 import javax.annotation.Nullable;
+import java.io.File;
 import java.nio.charset.Charset;
 
 /**
@@ -62,6 +66,13 @@ protected ZipCompressor getCompressor() {
     @Override
     protected CopyAction createCopyAction() {
         DocumentationRegistry documentationRegistry = getServices().get(DocumentationRegistry.class);
+        boolean parallel = ParallelZipCopyAction.isParallelEnabled();
+        boolean incremental = ParallelZipCopyAction.isIncrementalEnabled();
+        if (entryCompression == ZipEntryCompression.DEFLATED && (parallel || incremental)) {
+            int parallelism = parallel ? getServices().get(WorkerLeaseService.class).getMaxWorkerCount() : 1;
+            File entriesFile = incremental ? new File(getTemporaryDir(), "zip-entries.txt") : null;
+            return new ParallelZipCopyAction(getArchiveFile().get().getAsFile(), allowZip64, documentationRegistry, metadataCharset, isPreserveFileTimestamps(), getServices().get(ExecutorFactory.class), parallelism, entriesFile);
+        }
         return new ZipCopyAction(getArchiveFile().get().getAsFile(), getCompressor(), documentationRegistry, metadataCharset, isPreserveFileTimestamps());
     }
 
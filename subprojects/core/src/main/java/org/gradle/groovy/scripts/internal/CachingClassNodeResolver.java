@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal;
+
+import org.codehaus.groovy.control.ClassNodeResolver;
+import org.codehaus.groovy.control.CompilationUnit;
+
+import java.util.Set;
+
+/**
+ * A {@link ClassNodeResolver} that shares the names of the classes that could not be found with the other
+ * compilations against the same class loader.
+ *
+ * Resolving a simple name in a script probes many candidate names, one per default and Gradle import,
+ * and each miss walks the whole class loader hierarchy. Those candidates are mostly the same for all scripts,
+ * so the misses are remembered across compilations.
+ */
+class CachingClassNodeResolver extends ClassNodeResolver {
+    private final Set<String> missingClasses;
+
+    CachingClassNodeResolver(Set<String> missingClasses) {
+        this.missingClasses = missingClasses;
+    }
+
+    @Override
+    public LookupResult findClassNode(String name, CompilationUnit compilationUnit) {
+        if (missingClasses.contains(name)) {
+            return null;
+        }
+        LookupResult result = super.findClassNode(name, compilationUnit);
+        if (result == null) {
+            missingClasses.add(name);
+        }
+        return result;
+    }
+}
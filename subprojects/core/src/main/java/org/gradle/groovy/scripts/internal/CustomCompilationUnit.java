@@ -19,6 +19,7 @@
 import groovy.lang.GroovyClassLoader;
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.classgen.GeneratorContext;
+import org.codehaus.groovy.control.ClassNodeResolver;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilationUnit;
 import org.codehaus.groovy.control.CompilationUnit.IPrimaryClassNodeOperation;
@@ -36,9 +37,11 @@
 @SuppressWarnings("deprecation")
 class CustomCompilationUnit extends CompilationUnit {
 
-    public CustomCompilationUnit(CompilerConfiguration compilerConfiguration, CodeSource codeSource, final Action<? super ClassNode> customVerifier, GroovyClassLoader groovyClassLoader, Map<String, List<String>> simpleNameToFQN) {
+    public CustomCompilationUnit(CompilerConfiguration compilerConfiguration, CodeSource codeSource, final Action<? super ClassNode> customVerifier, GroovyClassLoader groovyClassLoader, Map<String, List<String>> simpleNameToFQN, ClassNodeResolver classNodeResolver) {
         super(compilerConfiguration, codeSource, groovyClassLoader);
-        this.resolveVisitor = new GradleResolveVisitor(this, simpleNameToFQN);
+        GradleResolveVisitor resolveVisitor = new GradleResolveVisitor(this, simpleNameToFQN);
+        resolveVisitor.setClassNodeResolver(classNodeResolver);
+        this.resolveVisitor = resolveVisitor;
         installCustomCodegen(customVerifier);
     }
 
@@ -16,6 +16,9 @@
 
 package org.gradle.groovy.scripts.internal;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyCodeSource;
 import groovy.lang.GroovyResourceLoader;
@@ -63,6 +66,8 @@
 import java.security.CodeSource;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("deprecation")
 public class DefaultScriptCompilationHandler implements ScriptCompilationHandler {
@@ -74,6 +79,9 @@ public class DefaultScriptCompilationHandler implements ScriptCompilationHandler
 
     private final Deleter deleter;
     private final Map<String, List<String>> simpleNameToFQN;
+    private final LoadingCache<ClassLoader, Set<String>> missingClassesByClassLoader = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(CacheLoader.from(() -> ConcurrentHashMap.newKeySet()));
 
     public DefaultScriptCompilationHandler(Deleter deleter, ImportsReader importsReader) {
         this.deleter = deleter;
@@ -113,12 +121,13 @@ private void compileScript(ScriptSource source, ClassLoader classLoader, Compile
 
         final EmptyScriptDetector emptyScriptDetector = new EmptyScriptDetector();
         final PackageStatementDetector packageDetector = new PackageStatementDetector();
+        final Set<String> missingClasses = missingClassesByClassLoader.getUnchecked(classLoader);
         GroovyClassLoader groovyClassLoader = new GroovyClassLoader(classLoader, configuration, false) {
             @Override
             protected CompilationUnit createCompilationUnit(CompilerConfiguration compilerConfiguration,
                                                             CodeSource codeSource) {
 
-                CompilationUnit compilationUnit = new CustomCompilationUnit(compilerConfiguration, codeSource, customVerifier, this, simpleNameToFQN);
+                CompilationUnit compilationUnit = new CustomCompilationUnit(compilerConfiguration, codeSource, customVerifier, this, simpleNameToFQN, new CachingClassNodeResolver(missingClasses));
 
                 if (transformer != null) {
                     transformer.register(compilationUnit);
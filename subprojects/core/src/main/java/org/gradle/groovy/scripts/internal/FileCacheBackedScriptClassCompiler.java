@@ -20,22 +20,28 @@
 import org.gradle.api.Action;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.initialization.ClassLoaderScope;
-import org.gradle.cache.PersistentCache;
-import org.gradle.cache.scopes.GlobalScopedCache;
+import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.Pair;
+import org.gradle.internal.build.BuildState;
 import org.gradle.internal.classanalysis.AsmConstants;
 import org.gradle.internal.classpath.CachedClasspathTransformer;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.classpath.ClasspathEntryVisitor;
 import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.execution.ExecutionEngine;
+import org.gradle.internal.execution.UnitOfWork;
+import org.gradle.internal.execution.fingerprint.InputFingerprinter;
+import org.gradle.internal.execution.workspace.WorkspaceProvider;
+import org.gradle.internal.file.TreeType;
+import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.Hasher;
 import org.gradle.internal.hash.Hashing;
-import org.gradle.internal.hash.PrimitiveHasher;
 import org.gradle.internal.logging.progress.ProgressLogger;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+import org.gradle.internal.snapshot.ValueSnapshot;
 import org.gradle.model.dsl.internal.transform.RuleVisitor;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassReader;
@@ -51,29 +57,51 @@
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
 
 import static org.gradle.internal.classpath.CachedClasspathTransformer.StandardTransform.BuildLogic;
 
 /**
  * A {@link ScriptClassCompiler} which compiles scripts to a cache directory, and loads them from there.
+ *
+ * <p>Compilation is a unit of work keyed by the script content and the compile class path only, so that its outputs are relocatable.
+ * Once the projects of the build have been loaded, compilation goes through the execution engine of the build, which can then load
+ * the compiled classes from the build cache instead of compiling the script.</p>
  */
 public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler, Closeable {
     private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
     private final ScriptCompilationHandler scriptCompilationHandler;
     private final ProgressLoggerFactory progressLoggerFactory;
-    private final GlobalScopedCache cacheRepository;
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
     private final CachedClasspathTransformer classpathTransformer;
+    private final GroovyDslWorkspaceProvider workspaceProvider;
+    private final ExecutionEngine executionEngine;
+    private final BuildState owner;
+    private final FileCollectionFactory fileCollectionFactory;
+    private final InputFingerprinter inputFingerprinter;
 
     public FileCacheBackedScriptClassCompiler(
-        GlobalScopedCache cacheRepository, ScriptCompilationHandler scriptCompilationHandler,
-        ProgressLoggerFactory progressLoggerFactory, ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
-        CachedClasspathTransformer classpathTransformer) {
-        this.cacheRepository = cacheRepository;
+        ScriptCompilationHandler scriptCompilationHandler,
+        ProgressLoggerFactory progressLoggerFactory,
+        ClassLoaderHierarchyHasher classLoaderHierarchyHasher,
+        CachedClasspathTransformer classpathTransformer,
+        GroovyDslWorkspaceProvider workspaceProvider,
+        ExecutionEngine executionEngine,
+        BuildState owner,
+        FileCollectionFactory fileCollectionFactory,
+        InputFingerprinter inputFingerprinter
+    ) {
         this.scriptCompilationHandler = scriptCompilationHandler;
         this.progressLoggerFactory = progressLoggerFactory;
         this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
         this.classpathTransformer = classpathTransformer;
+        this.workspaceProvider = workspaceProvider;
+        this.executionEngine = executionEngine;
+        this.owner = owner;
+        this.fileCollectionFactory = fileCollectionFactory;
+        this.inputFingerprinter = inputFingerprinter;
     }
 
     @Override
@@ -89,40 +117,30 @@ public <T extends Script, M> CompiledScript<T, M> compile(final ScriptSource sou
 
         ClassLoader classLoader = targetScope.getExportClassLoader();
         HashCode sourceHashCode = source.getResource().getContentHash();
-        final String dslId = operation.getId();
         HashCode classLoaderHash = classLoaderHierarchyHasher.getClassLoaderHash(classLoader);
         if (classLoaderHash == null) {
             throw new IllegalArgumentException("Unknown classloader: " + classLoader);
         }
         final RemappingScriptSource remapped = new RemappingScriptSource(source);
 
-        PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
-        hasher.putString(dslId);
-        hasher.putHash(sourceHashCode);
-        hasher.putHash(classLoaderHash);
-        String key = hasher.hash().toCompactString();
-
         // Caching involves 2 distinct caches, so that 2 scripts with the same (hash, classpath) do not get compiled twice
-        // 1. First, we look for a cache script which (path, hash) matches. This cache is invalidated when the compile classpath of the script changes
-        // 2. Then we look into the 2d cache for a "generic script" with the same hash, that will be remapped to the script class name
-        // Both caches can be closed directly after use because:
-        // For 1, if the script changes or its compile classpath changes, a different directory will be used
-        // For 2, if the script changes, a different cache is used. If the classpath changes, the cache is invalidated, but classes are remapped to 1. anyway so never directly used
-        final PersistentCache cache = cacheRepository.cache("scripts/" + key)
-            .withDisplayName(dslId + " generic class cache for " + source.getDisplayName())
-            .withInitializer(new ProgressReportingInitializer(
-                progressLoggerFactory,
-                new CompileToCrossBuildCacheAction(remapped, classLoader, operation, verifier, scriptBaseClass),
-                "Compiling " + source.getShortDisplayName()))
-            .open();
-        try {
-            File genericClassesDir = classesDir(cache, operation);
-            File metadataDir = metadataDir(cache);
-            ClassPath remappedClasses = remapClasses(genericClassesDir, remapped);
-            return scriptCompilationHandler.loadFromDir(source, sourceHashCode, targetScope, remappedClasses, metadataDir, operation, scriptBaseClass);
-        } finally {
-            cache.close();
+        // 1. First, we look for a "generic script" with the same (hash, classpath), compiling it or loading it from the build cache when missing
+        // 2. Then the generic script is remapped to the script class name, using the classpath transformer cache
+        CompileScript<M> work = new CompileScript<>(remapped, sourceHashCode, classLoader, classLoaderHash, operation, scriptBaseClass, verifier);
+        File workspace = (File) executionEngine().createRequest(work).execute().getExecutionResult().get().getOutput();
+        File genericClassesDir = classesDir(workspace, operation);
+        File metadataDir = metadataDir(workspace);
+        ClassPath remappedClasses = remapClasses(genericClassesDir, remapped);
+        return scriptCompilationHandler.loadFromDir(source, sourceHashCode, targetScope, remappedClasses, metadataDir, operation, scriptBaseClass);
+    }
+
+    private ExecutionEngine executionEngine() {
+        // The build cache is configured by the settings script, so use the execution engine of the build
+        // for scripts that are compiled after the projects have been loaded only
+        if (owner.isProjectsLoaded()) {
+            return owner.getMutableModel().getServices().get(ExecutionEngine.class);
         }
+        return executionEngine;
     }
 
     private <T extends Script, M> CompiledScript<T, M> emptyCompiledScript(CompileOperation<M> operation) {
@@ -160,59 +178,115 @@ public Pair<RelativePath, ClassVisitor> apply(ClasspathEntryVisitor.Entry entry,
     public void close() {
     }
 
-    private File classesDir(PersistentCache cache, CompileOperation<?> operation) {
-        return new File(cache.getBaseDir(), operation.getId());
+    private static File classesDir(File workspace, CompileOperation<?> operation) {
+        return new File(workspace, operation.getId());
     }
 
-    private File metadataDir(PersistentCache cache) {
-        return new File(cache.getBaseDir(), "metadata");
+    private static File metadataDir(File workspace) {
+        return new File(workspace, "metadata");
     }
 
-    private class CompileToCrossBuildCacheAction implements Action<PersistentCache> {
-        private final Action<? super ClassNode> verifier;
-        private final Class<? extends Script> scriptBaseClass;
+    private class CompileScript<M> implements UnitOfWork {
+        private static final String TEMPLATE_ID = "templateId";
+        private static final String SOURCE_HASH = "sourceHash";
+        private static final String CLASSPATH_HASH = "classpathHash";
+        private static final String CLASSES = "classes";
+        private static final String METADATA = "metadata";
+
+        private final RemappingScriptSource source;
+        private final HashCode sourceHash;
         private final ClassLoader classLoader;
-        private final CompileOperation<?> operation;
-        private final ScriptSource source;
+        private final HashCode classLoaderHash;
+        private final CompileOperation<M> operation;
+        private final Class<? extends Script> scriptBaseClass;
+        private final Action<? super ClassNode> verifier;
 
-        public <T extends Script> CompileToCrossBuildCacheAction(ScriptSource source, ClassLoader classLoader, CompileOperation<?> operation,
-                                                                 Action<? super ClassNode> verifier, Class<T> scriptBaseClass) {
+        public CompileScript(
+            RemappingScriptSource source,
+            HashCode sourceHash,
+            ClassLoader classLoader,
+            HashCode classLoaderHash,
+            CompileOperation<M> operation,
+            Class<? extends Script> scriptBaseClass,
+            Action<? super ClassNode> verifier
+        ) {
             this.source = source;
+            this.sourceHash = sourceHash;
             this.classLoader = classLoader;
+            this.classLoaderHash = classLoaderHash;
             this.operation = operation;
-            this.verifier = verifier;
             this.scriptBaseClass = scriptBaseClass;
+            this.verifier = verifier;
         }
 
         @Override
-        public void execute(PersistentCache cache) {
-            File classesDir = classesDir(cache, operation);
-            File metadataDir = metadataDir(cache);
-            scriptCompilationHandler.compileToDir(source, classLoader, classesDir, metadataDir, operation, scriptBaseClass, verifier);
+        public void visitIdentityInputs(InputVisitor visitor) {
+            visitor.visitInputProperty(TEMPLATE_ID, operation::getId);
+            visitor.visitInputProperty(SOURCE_HASH, () -> sourceHash);
+            visitor.visitInputProperty(CLASSPATH_HASH, () -> classLoaderHash);
         }
-    }
 
-    static class ProgressReportingInitializer implements Action<PersistentCache> {
-        private final ProgressLoggerFactory progressLoggerFactory;
-        private final Action<? super PersistentCache> delegate;
-        private final String shortDescription;
+        @Override
+        public Identity identify(Map<String, ValueSnapshot> identityInputs, Map<String, CurrentFileCollectionFingerprint> identityFileInputs) {
+            Hasher hasher = Hashing.newHasher();
+            for (String propertyName : Arrays.asList(TEMPLATE_ID, SOURCE_HASH, CLASSPATH_HASH)) {
+                Objects.requireNonNull(identityInputs.get(propertyName)).appendToHasher(hasher);
+            }
+            String identityHash = hasher.hash().toCompactString();
+            return () -> identityHash;
+        }
 
-        public ProgressReportingInitializer(ProgressLoggerFactory progressLoggerFactory,
-                                            Action<PersistentCache> delegate,
-                                            String shortDescription) {
-            this.progressLoggerFactory = progressLoggerFactory;
-            this.delegate = delegate;
-            this.shortDescription = shortDescription;
+        @Override
+        public void visitOutputs(File workspace, OutputVisitor visitor) {
+            visitOutputDir(visitor, CLASSES, classesDir(workspace, operation));
+            visitOutputDir(visitor, METADATA, metadataDir(workspace));
+        }
+
+        private void visitOutputDir(OutputVisitor visitor, String propertyName, File dir) {
+            visitor.visitOutputProperty(propertyName, TreeType.DIRECTORY, new OutputFileValueSupplier(dir, fileCollectionFactory.fixed(dir)));
         }
 
         @Override
-        public void execute(PersistentCache cache) {
+        public WorkOutput execute(ExecutionRequest executionRequest) {
+            File workspace = executionRequest.getWorkspace();
+            String shortDescription = "Compiling " + source.getShortDisplayName();
             ProgressLogger op = progressLoggerFactory.newOperation(FileCacheBackedScriptClassCompiler.class).start(shortDescription, shortDescription);
             try {
-                delegate.execute(cache);
+                scriptCompilationHandler.compileToDir(source, classLoader, classesDir(workspace, operation), metadataDir(workspace), operation, scriptBaseClass, verifier);
             } finally {
                 op.completed();
             }
+            return new WorkOutput() {
+                @Override
+                public WorkResult getDidWork() {
+                    return WorkResult.DID_WORK;
+                }
+
+                @Override
+                public Object getOutput() {
+                    return loadRestoredOutput(workspace);
+                }
+            };
+        }
+
+        @Override
+        public Object loadRestoredOutput(File workspace) {
+            return workspace;
+        }
+
+        @Override
+        public WorkspaceProvider getWorkspaceProvider() {
+            return workspaceProvider;
+        }
+
+        @Override
+        public InputFingerprinter getInputFingerprinter() {
+            return inputFingerprinter;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Groovy DSL script compilation (" + operation.getId() + ")";
         }
     }
 
@@ -28,6 +28,8 @@ public class BuildModelParameters {
     private final boolean intermediateModelCache;
     private final boolean parallelToolingApiActions;
     private final boolean invalidateCoupledProjects;
+    private final boolean partialReuse;
+    private final boolean parallelProjectConfiguration;
 
     public BuildModelParameters(
         boolean configureOnDemand,
@@ -36,7 +38,9 @@ public BuildModelParameters(
         boolean requiresBuildModel,
         boolean intermediateModelCache,
         boolean parallelToolingApiActions,
-        boolean invalidateCoupledProjects
+        boolean invalidateCoupledProjects,
+        boolean partialReuse,
+        boolean parallelProjectConfiguration
     ) {
         this.configureOnDemand = configureOnDemand;
         this.configurationCache = configurationCache;
@@ -45,6 +49,8 @@ public BuildModelParameters(
         this.intermediateModelCache = intermediateModelCache;
         this.parallelToolingApiActions = parallelToolingApiActions;
         this.invalidateCoupledProjects = invalidateCoupledProjects;
+        this.partialReuse = partialReuse;
+        this.parallelProjectConfiguration = parallelProjectConfiguration;
     }
 
     /**
@@ -84,10 +90,28 @@ public boolean isParallelToolingApiActions() {
     }
 
     /**
-     * When {@link  #isIsolatedProjects()} is true, should project state be invalidated when a project it is coupled with changes?
+     * When {@link  #isIsolatedProjects()} or {@link #isPartialReuse()} is true, should project state be invalidated when a project it is coupled with changes?
      * This parameter is only used for benchmarking purposes.
      */
     public boolean isInvalidateCoupledProjects() {
         return invalidateCoupledProjects;
     }
+
+    /**
+     * When {@link #isConfigurationCache()} is true, can a cached work graph be reused when only the inputs of projects that do not contribute to it have changed?
+     * When true, the build inputs read while configuring a project are associated with that project.
+     * A change to the build scripts of any project still recreates the work graph, as the changed scripts may now access the projects that contribute to it.
+     */
+    public boolean isPartialReuse() {
+        return partialReuse;
+    }
+
+    /**
+     * Should the subprojects of a build be configured in parallel, as long as their build logic does not access other projects?
+     * Projects that accessed other projects in the previous build are configured one at a time, and so are all projects when a settings or build script has changed.
+     * When a project being configured in parallel accesses another project, the access waits until no other project is being configured, and the remaining projects are configured one at a time.
+     */
+    public boolean isParallelProjectConfiguration() {
+        return parallelProjectConfiguration;
+    }
 }
@@ -20,6 +20,7 @@
 import org.gradle.api.internal.changedetection.state.CrossBuildFileHashCache;
 import org.gradle.api.internal.changedetection.state.FileHasherStatistics;
 import org.gradle.api.internal.changedetection.state.FileTimeStampInspector;
+import org.gradle.internal.file.FileMetadata;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.internal.service.scopes.Scopes;
 import org.gradle.internal.service.scopes.ServiceScope;
@@ -32,6 +33,7 @@ public class DefaultChecksumService implements ChecksumService {
     private final CachingFileHasher sha1;
     private final CachingFileHasher sha256;
     private final CachingFileHasher sha512;
+    private final FileSystem fileSystem;
 
     public DefaultChecksumService(
         StringInterner stringInterner,
@@ -40,6 +42,7 @@ public DefaultChecksumService(
         FileTimeStampInspector fileTimeStampInspector,
         FileHasherStatistics.Collector statisticsCollector
     ) {
+        this.fileSystem = fileSystem;
         md5 = createCache(stringInterner, fileStore, fileSystem, fileTimeStampInspector, "md5", Hashing.md5(), statisticsCollector);
         sha1 = createCache(stringInterner, fileStore, fileSystem, fileTimeStampInspector, "sha1", Hashing.sha1(), statisticsCollector);
         sha256 = createCache(stringInterner, fileStore, fileSystem, fileTimeStampInspector, "sha256", Hashing.sha256(), statisticsCollector);
@@ -96,6 +99,15 @@ public HashCode hash(File src, String algorithm) {
         throw new UnsupportedOperationException("Cannot hash with algorith " + algorithm);
     }
 
+    @Override
+    public void recordChecksums(File file, FileChecksums checksums) {
+        FileMetadata metadata = fileSystem.stat(file);
+        md5.record(file, metadata.getLength(), metadata.getLastModified(), checksums.getMd5());
+        sha1.record(file, metadata.getLength(), metadata.getLastModified(), checksums.getSha1());
+        sha256.record(file, metadata.getLength(), metadata.getLastModified(), checksums.getSha256());
+        sha512.record(file, metadata.getLength(), metadata.getLastModified(), checksums.getSha512());
+    }
+
     private HashCode doHash(File file, CachingFileHasher hasher) {
         return hasher.hash(file);
     }
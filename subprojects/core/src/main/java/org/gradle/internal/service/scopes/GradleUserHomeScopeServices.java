@@ -19,6 +19,7 @@
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.DefaultClassPathProvider;
 import org.gradle.api.internal.DefaultClassPathRegistry;
+import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.DefaultFileAccessTimeJournal;
 import org.gradle.api.internal.changedetection.state.GradleUserHomeScopeFileTimeStampInspector;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -46,6 +47,7 @@
 import org.gradle.cache.scopes.GlobalScopedCache;
 import org.gradle.groovy.scripts.internal.CrossBuildInMemoryCachingScriptClassCache;
 import org.gradle.groovy.scripts.internal.DefaultScriptSourceHasher;
+import org.gradle.groovy.scripts.internal.GroovyDslWorkspaceProvider;
 import org.gradle.groovy.scripts.internal.RegistryAwareClassLoaderHierarchyHasher;
 import org.gradle.groovy.scripts.internal.ScriptSourceHasher;
 import org.gradle.initialization.ClassLoaderRegistry;
@@ -133,6 +135,16 @@ CrossBuildInMemoryCachingScriptClassCache createCachingScriptCompiler(CrossBuild
         return new CrossBuildInMemoryCachingScriptClassCache(cacheFactory);
     }
 
+    GroovyDslWorkspaceProvider createGroovyDslWorkspaceProvider(
+        GlobalScopedCache cacheRepository,
+        FileAccessTimeJournal fileAccessTimeJournal,
+        InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory,
+        StringInterner stringInterner,
+        ClassLoaderHierarchyHasher classLoaderHierarchyHasher
+    ) {
+        return new GroovyDslWorkspaceProvider(cacheRepository, fileAccessTimeJournal, inMemoryCacheDecoratorFactory, stringInterner, classLoaderHierarchyHasher);
+    }
+
     ClassLoaderHierarchyHasher createClassLoaderHierarchyHasher(ClassLoaderRegistry registry, HashingClassLoaderFactory classLoaderFactory) {
         return new RegistryAwareClassLoaderHierarchyHasher(registry, classLoaderFactory);
     }
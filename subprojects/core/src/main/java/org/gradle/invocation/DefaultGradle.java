@@ -403,6 +403,11 @@ public ProjectEvaluationListener getProjectEvaluationBroadcaster() {
         return projectEvaluationListenerBroadcast.getSource();
     }
 
+    @Override
+    public boolean hasProjectEvaluationListeners() {
+        return !projectEvaluationListenerBroadcast.isEmpty() || getListenerManager().hasListeners(ProjectEvaluationListener.class);
+    }
+
     @Override
     public void addBuildListener(BuildListener buildListener) {
         addListener("Gradle.addBuildListener", buildListener);
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.api.JavaVersion;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.installation.CurrentGradleInstallation;
+import org.gradle.internal.installation.GradleInstallation;
+import org.gradle.util.GradleVersion;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Manages the dynamic class data sharing (AppCDS) archives used to start Gradle JVMs, such as daemons and worker processes.
+ *
+ * <p>There is one archive per Gradle version, Java installation and class path, stored in the Gradle user home. The first JVM started for
+ * some combination writes the archive when it exits, and later JVMs map the classes from the archive instead of loading them from the jars.</p>
+ *
+ * <p>Archives are only used for JVMs whose class path consists of jars of the Gradle distribution, such as the daemon and the workers that
+ * only run Gradle code, as the class path of other JVMs changes from build to build. Archives that have not been used for some days are
+ * deleted.</p>
+ *
+ * <p>The JVM checks that the archive matches its class path and Java version when it starts. When it does not, for example because a jar
+ * was replaced, the JVM ignores the archive and loads the classes as usual.</p>
+ */
+public class ClassDataSharingArchive {
+    /**
+     * Enables the use of class data sharing archives for Gradle JVMs.
+     */
+    public static final String CDS_PROPERTY = "org.gradle.internal.cds";
+
+    private static final Logger LOGGER = Logging.getLogger(ClassDataSharingArchive.class);
+    private static final long STALE_CLAIM_AGE = TimeUnit.DAYS.toMillis(1);
+    private static final long ARCHIVE_WRITE_QUIET_PERIOD = TimeUnit.MINUTES.toMillis(1);
+    private static final long UNUSED_ARCHIVE_AGE = TimeUnit.DAYS.toMillis(7);
+    private static final long CLEANUP_INTERVAL = TimeUnit.DAYS.toMillis(1);
+    private static final List<String> QUIET_LOGGING_ARGS = Arrays.asList("-Xshare:auto", "-Xlog:cds=off", "-Xlog:cds+dynamic=off");
+
+    private final File versionCacheDir;
+    private final File archivesDir;
+    private final File gradleHomeDir;
+
+    public ClassDataSharingArchive(File gradleUserHomeDir) {
+        this(gradleUserHomeDir, gradleHomeDir());
+    }
+
+    /**
+     * @param gradleHomeDir the directory of the Gradle distribution, or null when not running from a distribution.
+     */
+    public ClassDataSharingArchive(File gradleUserHomeDir, @Nullable File gradleHomeDir) {
+        this.versionCacheDir = new File(gradleUserHomeDir, "caches/" + GradleVersion.current().getVersion());
+        this.archivesDir = new File(versionCacheDir, "cds");
+        this.gradleHomeDir = gradleHomeDir;
+    }
+
+    @Nullable
+    private static File gradleHomeDir() {
+        GradleInstallation installation = CurrentGradleInstallation.get();
+        return installation == null ? null : installation.getGradleHome();
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(CDS_PROPERTY);
+    }
+
+    /**
+     * Returns the arguments that start a JVM with the archive for the given Java installation and class path, or that create the archive
+     * when it does not exist yet. Returns no arguments when the JVM does not support dynamic archives, the arguments already configure
+     * class data sharing or the class path contains other entries than jars of the Gradle distribution.
+     *
+     * @param classPath the entries that the JVM loads classes from.
+     */
+    public List<String> getJvmArgs(File javaExecutable, JavaVersion javaVersion, List<String> jvmArgs, Iterable<File> classPath) {
+        if (!javaVersion.isCompatibleWith(JavaVersion.VERSION_13) || configuresClassDataSharing(jvmArgs) || !isDistributionClassPath(classPath)) {
+            return Collections.emptyList();
+        }
+        try {
+            Files.createDirectories(archivesDir.toPath());
+            deleteUnusedArchives();
+            String key = archiveKey(javaExecutable, javaVersion, classPath);
+            File archive = new File(archivesDir, key + ".jsa");
+            markUsed(archive);
+            if (javaVersion.isCompatibleWith(JavaVersion.VERSION_19)) {
+                // The JVM creates the archive at exit when it is missing or does not match, and maps it otherwise
+                return withQuietLogging("-XX:+AutoCreateSharedArchive", "-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+            }
+            if (archive.isFile() || publishWrittenArchive(key, archive)) {
+                return withQuietLogging("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+            }
+            if (claim(key)) {
+                LOGGER.debug("Creating class data sharing archive {}", archive);
+                return withQuietLogging("-XX:ArchiveClassesAtExit=" + partFile(key).getAbsolutePath());
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not prepare class data sharing archive in {}", archivesDir, e);
+        }
+        return Collections.emptyList();
+    }
+
+    private static boolean configuresClassDataSharing(List<String> jvmArgs) {
+        for (String jvmArg : jvmArgs) {
+            if (jvmArg.startsWith("-Xshare") || jvmArg.contains("SharedArchiveFile") || jvmArg.contains("ArchiveClassesAtExit") || jvmArg.contains("SharedClassListFile")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true when all entries are jars of the Gradle distribution, or jars that the distribution generates in the Gradle user home.
+     * Other entries, such as class directories or the dependencies of a build, change from build to build, and the JVM refuses to
+     * write an archive for a class path with directories.
+     */
+    private boolean isDistributionClassPath(Iterable<File> classPath) {
+        boolean empty = true;
+        for (File file : classPath) {
+            if (!file.isFile() || !file.getName().endsWith(".jar") || !(isWithin(file, gradleHomeDir) || isWithin(file, versionCacheDir))) {
+                return false;
+            }
+            empty = false;
+        }
+        return !empty;
+    }
+
+    private static boolean isWithin(File file, @Nullable File dir) {
+        return dir != null && file.getAbsoluteFile().toPath().normalize().startsWith(dir.getAbsoluteFile().toPath().normalize());
+    }
+
+    private static void markUsed(File archive) {
+        if (archive.isFile() && !archive.setLastModified(System.currentTimeMillis())) {
+            LOGGER.debug("Could not mark class data sharing archive {} as used", archive);
+        }
+    }
+
+    /**
+     * Deletes the archives, and the files of archives being written, that have not been used for some days. Runs at most once a day.
+     */
+    private void deleteUnusedArchives() throws IOException {
+        File marker = new File(archivesDir, "cleanup");
+        long now = System.currentTimeMillis();
+        if (marker.isFile() && now - marker.lastModified() < CLEANUP_INTERVAL) {
+            return;
+        }
+        if (!marker.createNewFile() && !marker.setLastModified(now)) {
+            return;
+        }
+        File[] files = archivesDir.listFiles((dir, name) -> name.endsWith(".jsa") || name.endsWith(".jsa.part") || name.endsWith(".lock"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (now - file.lastModified() > UNUSED_ARCHIVE_AGE && !file.delete()) {
+                // Still mapped by a running JVM on some platforms
+                LOGGER.debug("Could not delete unused class data sharing archive file {}", file);
+            }
+        }
+    }
+
+    private static String archiveKey(File javaExecutable, JavaVersion javaVersion, Iterable<File> classPath) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(GradleVersion.current().getVersion());
+        hasher.putString(javaExecutable.getAbsolutePath());
+        hasher.putString(javaVersion.getMajorVersion());
+        for (File file : classPath) {
+            hasher.putString(file.getAbsolutePath());
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        }
+        return hasher.hash().toCompactString();
+    }
+
+    /**
+     * The JVM that creates an archive writes it to a separate file when it exits. Publish that file once it has not changed for a while,
+     * so that JVMs never start with a partially written archive.
+     */
+    private boolean publishWrittenArchive(String key, File archive) throws IOException {
+        File partFile = partFile(key);
+        if (!partFile.isFile() || System.currentTimeMillis() - partFile.lastModified() < ARCHIVE_WRITE_QUIET_PERIOD) {
+            return false;
+        }
+        try {
+            Files.move(partFile.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partFile.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // Another JVM published the archive first
+            return archive.isFile();
+        }
+        Files.deleteIfExists(claimFile(key).toPath());
+        return true;
+    }
+
+    /**
+     * Claims the creation of an archive, so that only one of the JVMs started at the same time writes it. A claim for which
+     * no archive appeared for a long time belongs to a JVM that did not exit normally, and is taken over.
+     */
+    private boolean claim(String key) throws IOException {
+        File claimFile = claimFile(key);
+        if (claimFile.createNewFile()) {
+            return true;
+        }
+        if (System.currentTimeMillis() - claimFile.lastModified() > STALE_CLAIM_AGE && claimFile.delete()) {
+            return claimFile.createNewFile();
+        }
+        return false;
+    }
+
+    private File partFile(String key) {
+        return new File(archivesDir, key + ".jsa.part");
+    }
+
+    private File claimFile(String key) {
+        return new File(archivesDir, key + ".lock");
+    }
+
+    private static List<String> withQuietLogging(String... args) {
+        List<String> result = new ArrayList<>(Arrays.asList(args));
+        result.addAll(QUIET_LOGGING_ARGS);
+        return result;
+    }
+}
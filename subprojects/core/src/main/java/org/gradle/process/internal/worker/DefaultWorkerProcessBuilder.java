@@ -17,7 +17,9 @@
 package org.gradle.process.internal.worker;
 
 import org.gradle.api.Action;
+import org.gradle.api.JavaVersion;
 import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.jvm.Jvm;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
@@ -27,6 +29,7 @@
 import org.gradle.internal.remote.MessagingServer;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ClassDataSharingArchive;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.JavaExecHandleFactory;
@@ -40,8 +43,11 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
@@ -70,6 +76,7 @@ public class DefaultWorkerProcessBuilder implements WorkerProcessBuilder {
     private List<URL> implementationClassPath;
     private List<URL> implementationModulePath;
     private boolean shouldPublishJvmMemoryInfo;
+    private ClassDataSharingArchive classDataSharingArchive;
 
     DefaultWorkerProcessBuilder(JavaExecHandleFactory execHandleFactory, MessagingServer server, IdGenerator<Long> idGenerator, ApplicationClassesInSystemClassLoaderWorkerImplementationFactory workerImplementationFactory, OutputEventListener outputEventListener, MemoryManager memoryManager, JvmVersionDetector jvmVersionDetector) {
         this.javaCommand = execHandleFactory.newJavaExec();
@@ -90,6 +97,13 @@ public void setConnectTimeoutSeconds(int connectTimeoutSeconds) {
         this.connectTimeoutSeconds = connectTimeoutSeconds;
     }
 
+    /**
+     * Sets the archive to start the worker process with, or null to start it without class data sharing.
+     */
+    public void setClassDataSharingArchive(@Nullable ClassDataSharingArchive classDataSharingArchive) {
+        this.classDataSharingArchive = classDataSharingArchive;
+    }
+
     @Override
     public WorkerProcessBuilder setBaseName(String baseName) {
         this.baseName = baseName;
@@ -229,8 +243,12 @@ public void run() {
         JavaExecHandleBuilder javaCommand = getJavaCommand();
         javaCommand.setDisplayName(displayName);
 
-        boolean java9Compatible = jvmVersionDetector.getJavaVersion(javaCommand.getExecutable()).isJava9Compatible();
+        JavaVersion javaVersion = jvmVersionDetector.getJavaVersion(javaCommand.getExecutable());
+        boolean java9Compatible = javaVersion.isJava9Compatible();
         workerImplementationFactory.prepareJavaCommand(id, displayName, this, implementationClassPath, implementationModulePath, localAddress, javaCommand, shouldPublishJvmMemoryInfo, java9Compatible);
+        if (classDataSharingArchive != null) {
+            javaCommand.jvmArgs(classDataSharingArchive.getJvmArgs(new File(javaCommand.getExecutable()), javaVersion, javaCommand.getAllJvmArgs(), getClassDataSharingClassPath()));
+        }
 
         javaCommand.args("'" + displayName + "'");
         if (javaCommand.getMaxHeapSize() == null) {
@@ -243,6 +261,26 @@ public void run() {
         return new MemoryRequestingWorkerProcess(workerProcess, memoryManager, MemoryAmount.parseNotation(javaCommand.getMinHeapSize()));
     }
 
+    /**
+     * Returns all entries that the worker loads classes from, so that only workers that run Gradle code use an archive.
+     */
+    private List<File> getClassDataSharingClassPath() {
+        List<File> classPath = new ArrayList<>(applicationClasspath);
+        classPath.addAll(applicationModulePath);
+        for (List<URL> urls : Arrays.asList(implementationClassPath, implementationModulePath)) {
+            if (urls != null) {
+                for (URL url : urls) {
+                    try {
+                        classPath.add(new File(url.toURI()));
+                    } catch (URISyntaxException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+            }
+        }
+        return classPath;
+    }
+
     private static class MemoryRequestingWorkerProcess implements WorkerProcess {
         private final WorkerProcess delegate;
         private final MemoryManager memoryResourceManager;
@@ -25,6 +25,7 @@
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.internal.remote.MessagingServer;
+import org.gradle.process.internal.ClassDataSharingArchive;
 import org.gradle.process.internal.JavaExecHandleFactory;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.child.ApplicationClassesInSystemClassLoaderWorkerImplementationFactory;
@@ -41,6 +42,7 @@ public class DefaultWorkerProcessFactory implements WorkerProcessFactory {
     private final OutputEventListener outputEventListener;
     private final ApplicationClassesInSystemClassLoaderWorkerImplementationFactory workerImplementationFactory;
     private final MemoryManager memoryManager;
+    private final ClassDataSharingArchive classDataSharingArchive;
     private int connectTimeoutSeconds = 120;
 
     public DefaultWorkerProcessFactory(LoggingManager loggingManager, MessagingServer server, ClassPathRegistry classPathRegistry, IdGenerator<Long> idGenerator,
@@ -54,6 +56,7 @@ public DefaultWorkerProcessFactory(LoggingManager loggingManager, MessagingServe
         this.outputEventListener = outputEventListener;
         this.workerImplementationFactory = new ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(classPathRegistry, temporaryFileProvider, gradleUserHomeDir);
         this.memoryManager = memoryManager;
+        this.classDataSharingArchive = ClassDataSharingArchive.isEnabled() ? new ClassDataSharingArchive(gradleUserHomeDir) : null;
     }
 
     public void setConnectTimeoutSeconds(int connectTimeoutSeconds) {
@@ -82,6 +85,7 @@ private DefaultWorkerProcessBuilder newWorkerProcessBuilder() {
         DefaultWorkerProcessBuilder builder = new DefaultWorkerProcessBuilder(execHandleFactory, server, idGenerator, workerImplementationFactory, outputEventListener, memoryManager, jvmVersionDetector);
         builder.setLogLevel(loggingManager.getLevel());
         builder.setConnectTimeoutSeconds(connectTimeoutSeconds);
+        builder.setClassDataSharingArchive(classDataSharingArchive);
         return builder;
     }
 }
@@ -70,6 +70,19 @@ class CachingFileHasherTest extends Specification {
         0 * _
     }
 
+    def "records hash calculated by other means"() {
+        when:
+        hasher.record(file, 1024, 4711, hash)
+
+        then:
+        1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
+            assert fileInfo.hash == hash
+            assert fileInfo.length == 1024
+            assert fileInfo.timestamp == 4711
+        }
+        0 * _
+    }
+
     def "hashes file when length has changed"() {
         def stat = fileSystem.stat(file)
 
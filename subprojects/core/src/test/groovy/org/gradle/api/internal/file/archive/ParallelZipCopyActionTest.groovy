@@ -0,0 +1,318 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive
+
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction
+import org.gradle.api.internal.file.copy.CopyActionProcessingStream
+import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.hash.Hashing
+import org.gradle.test.fixtures.archive.ZipTestFixture
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.zip.Deflater
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
+import static org.hamcrest.CoreMatchers.equalTo
+
+class ParallelZipCopyActionTest extends Specification {
+
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def executorFactory = new DefaultExecutorFactory()
+    ParallelZipCopyAction visitor
+    TestFile zipFile
+
+    def setup() {
+        zipFile = tmpDir.getTestDirectory().file("test.zip")
+        visitor = new ParallelZipCopyAction(zipFile, false, new DocumentationRegistry(), 'UTF-8', false, executorFactory, 4, null)
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "creates deflated zip file"() {
+        given:
+        zip(dir("dir"), file("dir/file1"), file("file2"))
+
+        when:
+        TestFile expandDir = tmpDir.getTestDirectory().file("expanded")
+        zipFile.unzipTo(expandDir)
+
+        then:
+        expandDir.file("dir/file1").assertContents(equalTo("contents of dir/file1"))
+        expandDir.file("file2").assertContents(equalTo("contents of file2"))
+
+        and:
+        def zipFixture = new ZipTestFixture(zipFile)
+        zipFixture.hasCompression("dir/file1", ZipEntry.DEFLATED)
+        zipFixture.hasCompression("file2", ZipEntry.DEFLATED)
+        zipFixture.assertFileMode("dir/", 2)
+        zipFixture.assertFileMode("file2", 1)
+    }
+
+    def "writes entries in the order they are visited"() {
+        given:
+        def paths = (0..<200).collect { "dir/file${199 - it}" }
+
+        when:
+        zip(paths.collect { file(it) } as FileCopyDetailsInternal[])
+
+        then:
+        new ZipTestFixture(zipFile).hasDescendantsInOrder(paths as String[])
+    }
+
+    def "produces the same archive regardless of parallelism"() {
+        given:
+        def paths = (0..<50).collect { "dir/file$it" }
+        zip(paths.collect { file(it) } as FileCopyDetailsInternal[])
+        def parallelZip = zipFile
+
+        when:
+        zipFile = tmpDir.getTestDirectory().file("sequential.zip")
+        visitor = new ParallelZipCopyAction(zipFile, false, new DocumentationRegistry(), 'UTF-8', false, executorFactory, 1, null)
+        zip(paths.collect { file(it) } as FileCopyDetailsInternal[])
+
+        then:
+        zipFile.bytes == parallelZip.bytes
+    }
+
+    def "records the content hash of the entries of the archive"() {
+        given:
+        def entriesFile = tmpDir.getTestDirectory().file("entries.txt")
+        visitor = incrementalAction(zipFile, entriesFile)
+
+        when:
+        zip(dir("dir"), file("dir/file1"), file("file2"))
+
+        then:
+        def lines = entriesFile.readLines()
+        lines.size() == 4
+        lines[1] == Hashing.sha256().hashFile(zipFile).toString()
+        lines[2] == "${Hashing.sha256().hashString("contents of dir/file1")} dir/file1"
+        lines[3] == "${Hashing.sha256().hashString("contents of file2")} file2"
+        !tmpDir.getTestDirectory().file("test.zip.previous").exists()
+    }
+
+    def "updated archive is the same as an archive built from scratch"() {
+        given:
+        def paths = (0..<20).collect { "dir/file$it" }
+        visitor = incrementalAction(zipFile, tmpDir.getTestDirectory().file("entries.txt"))
+        zip(paths.collect { file(it) } as FileCopyDetailsInternal[])
+
+        when:
+        zip(paths.collect { it == "dir/file5" ? file(it, "changed contents") : file(it) } as FileCopyDetailsInternal[])
+
+        then:
+        zipFile.bytes == cleanBuild(paths.collect { it == "dir/file5" ? file(it, "changed contents") : file(it) } as FileCopyDetailsInternal[]).bytes
+    }
+
+    def "reuses the compressed data of unchanged entries"() {
+        given:
+        def entriesFile = tmpDir.getTestDirectory().file("entries.txt")
+        def large = "large contents " * (512 * 1024)
+        def previousContents = ["file1": "contents of file1", "file2": "contents of file2", "large": large]
+        // Entries without compression differ from the entries this action writes, so reused entries can be told apart
+        writeWithOtherWriter(zipFile, previousContents)
+        recordEntries(zipFile, entriesFile, previousContents)
+        def previousSizes = compressedSizesOf(zipFile)
+        visitor = incrementalAction(zipFile, entriesFile)
+
+        when:
+        zip(file("file1"), file("file2", "changed contents"), file("large", large))
+
+        then:
+        def sizes = compressedSizesOf(zipFile)
+        sizes["file1"] == previousSizes["file1"]
+        sizes["large"] == previousSizes["large"]
+        sizes["file2"] == compressedSizesOf(cleanBuild(file("file1"), file("file2", "changed contents"), file("large", large)))["file2"]
+
+        and:
+        def expandDir = tmpDir.getTestDirectory().file("expanded")
+        zipFile.unzipTo(expandDir)
+        expandDir.file("file1").text == "contents of file1"
+        expandDir.file("file2").text == "changed contents"
+        expandDir.file("large").text == large
+    }
+
+    def "updated archive with a large entry is the same as an archive built from scratch"() {
+        given:
+        def large = "large contents " * (512 * 1024)
+        visitor = incrementalAction(zipFile, tmpDir.getTestDirectory().file("entries.txt"))
+        zip(file("file1"), file("large", large))
+
+        when:
+        zip(file("file1", "changed contents"), file("large", large), file("file2"))
+
+        then:
+        zipFile.bytes == cleanBuild(file("file1", "changed contents"), file("large", large), file("file2")).bytes
+    }
+
+    def "does not reuse entries of an archive written by another writer"() {
+        given:
+        def entriesFile = tmpDir.getTestDirectory().file("entries.txt")
+        writeWithOtherWriter(zipFile)
+        visitor = incrementalAction(zipFile, entriesFile)
+
+        when:
+        zip(file("file1"), file("file2", "changed contents"), file("file3"))
+
+        then:
+        zipFile.bytes == cleanBuild(file("file1"), file("file2", "changed contents"), file("file3")).bytes
+        entriesFile.isFile()
+    }
+
+    def "does not reuse entries of an archive that was changed after it was written"() {
+        given:
+        def entriesFile = tmpDir.getTestDirectory().file("entries.txt")
+        visitor = incrementalAction(zipFile, entriesFile)
+        zip(file("file1"), file("file2"))
+        writeWithOtherWriter(zipFile)
+
+        when:
+        zip(file("file1"), file("file2", "changed contents"), file("file3"))
+
+        then:
+        zipFile.bytes == cleanBuild(file("file1"), file("file2", "changed contents"), file("file3")).bytes
+    }
+
+    def "does not reuse entries recorded with other deflater settings"() {
+        given:
+        def entriesFile = tmpDir.getTestDirectory().file("entries.txt")
+        writeWithOtherWriter(zipFile)
+        entriesFile.text = ([
+            "entries v1 deflate level=0 nowrap=true",
+            Hashing.sha256().hashFile(zipFile).toString()
+        ] + ["file1", "file2"].collect { "${Hashing.sha256().hashString("contents of $it")} $it" }).join("\n")
+        visitor = incrementalAction(zipFile, entriesFile)
+
+        when:
+        zip(file("file1"), file("file2"))
+
+        then:
+        zipFile.bytes == cleanBuild(file("file1"), file("file2")).bytes
+    }
+
+    def "wraps failure to add element"() {
+        given:
+        Throwable failure = new RuntimeException("broken")
+
+        def brokenFile = brokenFile("dir/file1", failure)
+        when:
+        visit(visitor, brokenFile)
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not add $brokenFile to ZIP '%s'.", zipFile)
+        e.cause.is(failure)
+    }
+
+    private ParallelZipCopyAction incrementalAction(TestFile zipFile, TestFile entriesFile) {
+        new ParallelZipCopyAction(zipFile, false, new DocumentationRegistry(), 'UTF-8', false, executorFactory, 4, entriesFile)
+    }
+
+    private TestFile cleanBuild(final FileCopyDetailsInternal... files) {
+        def cleanZipFile = tmpDir.getTestDirectory().file("clean.zip")
+        new ParallelZipCopyAction(cleanZipFile, false, new DocumentationRegistry(), 'UTF-8', false, executorFactory, 4, null).execute(new CopyActionProcessingStream() {
+            void process(CopyActionProcessingStreamAction action) {
+                for (FileCopyDetailsInternal f : files) {
+                    action.processFile(f)
+                }
+            }
+        })
+        cleanZipFile
+    }
+
+    private static void writeWithOtherWriter(TestFile zipFile, Map<String, String> contents = ["file1": "contents of file1", "file2": "contents of file2"]) {
+        new ZipOutputStream(zipFile.newOutputStream()).withCloseable { out ->
+            out.level = Deflater.NO_COMPRESSION
+            contents.each { path, content ->
+                out.putNextEntry(new ZipEntry(path))
+                out << content
+                out.closeEntry()
+            }
+        }
+    }
+
+    private static void recordEntries(TestFile zipFile, TestFile entriesFile, Map<String, String> contents) {
+        entriesFile.text = ([
+            "entries v1 deflate level=${Deflater.DEFAULT_COMPRESSION} nowrap=true",
+            Hashing.sha256().hashFile(zipFile).toString()
+        ] + contents.collect { path, content -> "${Hashing.sha256().hashString(content)} $path" }).join("\n")
+    }
+
+    private static Map<String, Long> compressedSizesOf(TestFile zipFile) {
+        new ZipFile(zipFile).withCloseable { zip ->
+            zip.entries().toList().collectEntries { [it.name, it.compressedSize] }
+        }
+    }
+
+    private void zip(final FileCopyDetailsInternal... files) {
+        visitor.execute(new CopyActionProcessingStream() {
+            void process(CopyActionProcessingStreamAction action) {
+                for (FileCopyDetailsInternal f : files) {
+                    action.processFile(f)
+                }
+            }
+        })
+    }
+
+    private FileCopyDetailsInternal file(final String path, final String content = "contents of $path") {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> false
+        mock.getMode() >> 1
+        mock.getSize() >> content.length()
+        mock.copyTo(_ as OutputStream) >> { OutputStream out ->
+            out << content
+        }
+        mock
+    }
+
+    private FileCopyDetailsInternal dir(final String path) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> true
+        mock.getMode() >> 2
+        mock
+    }
+
+    private FileCopyDetailsInternal brokenFile(final String path, final Throwable failure) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> RelativePath.parse(false, path)
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> false
+        mock.getMode() >> 1
+        mock.copyTo(_ as OutputStream) >> { OutputStream out ->
+            failure.fillInStackTrace()
+            throw failure
+        }
+        mock
+    }
+}
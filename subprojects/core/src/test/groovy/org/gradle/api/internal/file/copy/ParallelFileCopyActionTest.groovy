@@ -0,0 +1,157 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy
+
+import org.gradle.api.GradleException
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
+
+class ParallelFileCopyActionTest extends Specification {
+    @Rule
+    public TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def executorFactory = new DefaultExecutorFactory()
+    TestFile sourceDir
+    TestFile destDir
+
+    def setup() {
+        sourceDir = tmpDir.createDir("source")
+        destDir = tmpDir.file("dest")
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "copies unfiltered files"() {
+        def a = sourceDir.file("a.txt").createFile().setText("a")
+        def b = sourceDir.file("sub/b.txt").createFile().setText("b" * 100_000)
+
+        when:
+        def result = visit(action(), unfiltered(a, "a.txt"), unfiltered(b, "sub/b.txt"))
+
+        then:
+        result.didWork
+        destDir.file("a.txt").text == "a"
+        destDir.file("sub/b.txt").text == "b" * 100_000
+    }
+
+    def "copies filtered files and directories as they are visited"() {
+        def directory = Mock(FileCopyDetailsInternal)
+        def filtered = Mock(FileCopyDetailsInternal)
+
+        when:
+        def result = visit(action(), directory, filtered)
+
+        then:
+        result.didWork
+        _ * directory.relativePath >> new RelativePath(false, "dir")
+        1 * directory.copyTo(destDir.file("dir")) >> true
+        _ * filtered.relativePath >> new RelativePath(true, "dir", "filtered.txt")
+        1 * filtered.copyTo(destDir.file("dir/filtered.txt")) >> true
+    }
+
+    def "later file with the same destination wins"() {
+        def first = sourceDir.file("first.txt").createFile().setText("first")
+        def second = sourceDir.file("second.txt").createFile().setText("second")
+
+        when:
+        visit(action(), unfiltered(first, "out.txt"), unfiltered(second, "out.txt"))
+
+        then:
+        destDir.file("out.txt").text == "second"
+    }
+
+    def "skips destination files with the same content when checking for changes"() {
+        def a = sourceDir.file("a.txt").createFile().setText("content")
+        def target = destDir.file("a.txt").createFile().setText("content")
+        target.lastModified = 0
+
+        when:
+        visit(action(TestFiles.fileSystemAccess()), unfiltered(a, "a.txt"))
+
+        then:
+        target.text == "content"
+        target.lastModified() == 0
+    }
+
+    def "overwrites destination files with different content when checking for changes"() {
+        def a = sourceDir.file("a.txt").createFile().setText("new")
+        def target = destDir.file("a.txt").createFile().setText("old")
+
+        when:
+        visit(action(TestFiles.fileSystemAccess()), unfiltered(a, "a.txt"))
+
+        then:
+        target.text == "new"
+    }
+
+    @Requires(TestPrecondition.FILE_PERMISSIONS)
+    def "hard links files when permissions do not change"() {
+        def a = sourceDir.file("a.txt").createFile().setText("a")
+        def b = sourceDir.file("b.txt").createFile().setText("b")
+        def mode = TestFiles.fileSystem().getUnixMode(a)
+
+        when:
+        visit(new ParallelFileCopyAction(TestFiles.resolver(destDir), TestFiles.fileSystem(), executorFactory, 2, true, null),
+            unfiltered(a, "a.txt", mode),
+            unfiltered(b, "b.txt", 0640))
+
+        then:
+        Files.isSameFile(a.toPath(), destDir.file("a.txt").toPath())
+        !Files.isSameFile(b.toPath(), destDir.file("b.txt").toPath())
+        destDir.file("b.txt").text == "b"
+        destDir.file("b.txt").mode == 0640
+    }
+
+    def "reports the file that could not be copied"() {
+        def a = sourceDir.file("a.txt").createFile().setText("a")
+        destDir.createFile()
+
+        when:
+        visit(action(), unfiltered(a, "a.txt"))
+
+        then:
+        def e = thrown(GradleException)
+        e.message == "Could not copy file '${a}' to '${destDir.file("a.txt")}'."
+    }
+
+    private ParallelFileCopyAction action(fileSystemAccess = null) {
+        return new ParallelFileCopyAction(TestFiles.resolver(destDir), TestFiles.fileSystem(), executorFactory, 2, false, fileSystemAccess)
+    }
+
+    private DefaultFileCopyDetails unfiltered(File source, String path, int mode = 0644) {
+        def details = Mock(DefaultFileCopyDetails)
+        _ * details.relativePath >> RelativePath.parse(true, path)
+        _ * details.unfilteredFile >> source
+        _ * details.directory >> false
+        _ * details.lastModified >> source.lastModified()
+        _ * details.mode >> mode
+        return details
+    }
+}
@@ -428,6 +428,22 @@ println 'hi'
         unknownClass << ['unknownClass', 'fully.qualified.unknownClass', 'not.java.util.Map.Entry']
     }
 
+    def "classes missing from the class loader can be declared by a later script"() {
+        when:
+        scriptCompilationHandler.compileToDir(scriptSource("new Declared()"), classLoader, scriptCacheDir, metadataCacheDir, null, expectedScriptClass, verifier)
+
+        then:
+        ScriptCompilationException e = thrown()
+        e.cause.message.contains("unable to resolve class Declared")
+
+        when:
+        scriptCompilationHandler.compileToDir(scriptSource("class Declared {}\nnew Declared()"), classLoader, scriptCacheDir, metadataCacheDir, null, expectedScriptClass, verifier)
+
+        then:
+        noExceptionThrown()
+        checkScriptClassesInCache()
+    }
+
     @Issue('GRADLE-3423')
     def testCompileWithInnerClassReference() {
         ScriptSource source = new TextResourceScriptSource(new StringTextResource("script.gradle", innerClass))
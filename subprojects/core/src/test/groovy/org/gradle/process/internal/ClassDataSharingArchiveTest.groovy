@@ -0,0 +1,154 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import org.gradle.api.JavaVersion
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.GradleVersion
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class ClassDataSharingArchiveTest extends Specification {
+    @Rule
+    public TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def java = tmpDir.file("jdk/bin/java")
+    def classPath = [tmpDir.file("gradle-home/lib/a.jar").createFile(), tmpDir.file("gradle-home/lib/b.jar").createFile()]
+    def archive = new ClassDataSharingArchive(tmpDir.file("user-home"), tmpDir.file("gradle-home"))
+
+    def "does not use an archive for Java versions without dynamic archives"() {
+        expect:
+        archive.getJvmArgs(java, JavaVersion.VERSION_11, [], classPath).empty
+    }
+
+    def "does not use an archive when the JVM arguments configure class data sharing"() {
+        expect:
+        archive.getJvmArgs(java, JavaVersion.VERSION_17, [jvmArg], classPath).empty
+
+        where:
+        jvmArg << ["-Xshare:off", "-XX:SharedArchiveFile=other.jsa", "-XX:ArchiveClassesAtExit=other.jsa"]
+    }
+
+    def "does not use an archive when the class path contains other entries than jars of the Gradle distribution"() {
+        given:
+        def entry = directory ? tmpDir.file(path).createDir() : tmpDir.file(path).createFile()
+
+        expect:
+        archive.getJvmArgs(java, JavaVersion.VERSION_17, [], classPath + [entry]).empty
+
+        where:
+        path                                           | directory
+        "gradle-home/lib/classes"                      | true
+        "project/build/classes/java/main"              | true
+        "user-home/caches/modules-2/files-2.1/lib.jar" | false
+    }
+
+    def "does not use an archive without class path"() {
+        expect:
+        archive.getJvmArgs(java, JavaVersion.VERSION_17, [], []).empty
+    }
+
+    def "uses an archive for jars that the distribution generates in the Gradle user home"() {
+        given:
+        def workerJar = tmpDir.file("user-home/caches/${GradleVersion.current().version}/workerMain/gradle-worker.jar").createFile()
+
+        expect:
+        archiveArgument(archive.getJvmArgs(java, JavaVersion.VERSION_17, [], [workerJar] + classPath))
+    }
+
+    def "lets the JVM create and validate the archive on Java 19 and later"() {
+        when:
+        def args = archive.getJvmArgs(java, JavaVersion.VERSION_19, ["-Xmx1g"], classPath)
+
+        then:
+        args.contains("-XX:+AutoCreateSharedArchive")
+        args.find { it.startsWith("-XX:SharedArchiveFile=") && it.endsWith(".jsa") }
+    }
+
+    def "only one JVM creates a missing archive"() {
+        when:
+        def first = archive.getJvmArgs(java, JavaVersion.VERSION_17, [], classPath)
+        def second = archive.getJvmArgs(java, JavaVersion.VERSION_17, [], classPath)
+
+        then:
+        first.find { it.startsWith("-XX:ArchiveClassesAtExit=") && it.endsWith(".jsa.part") }
+        second.empty
+    }
+
+    def "uses the archive once it has been written"() {
+        given:
+        def partFile = new File(archiveArgument(archive.getJvmArgs(java, JavaVersion.VERSION_17, [], classPath)))
+        partFile.text = "archive"
+
+        expect:
+        archive.getJvmArgs(java, JavaVersion.VERSION_17, [], classPath).empty
+
+        when:
+        partFile.lastModified = System.currentTimeMillis() - 120_000
+        def args = archive.getJvmArgs(java, JavaVersion.VERSION_17, [], classPath)
+
+        then:
+        args.contains("-XX:SharedArchiveFile=" + partFile.path - ".part")
+        args.contains("-Xshare:auto")
+        !partFile.exists()
+        new File(partFile.path - ".part").text == "archive"
+    }
+
+    def "uses a different archive for a different class path"() {
+        when:
+        def first = archive.getJvmArgs(java, JavaVersion.VERSION_17, [], classPath)
+        def second = archive.getJvmArgs(java, JavaVersion.VERSION_17, [], classPath.take(1))
+
+        then:
+        archiveArgument(first) != archiveArgument(second)
+    }
+
+    def "deletes archives that have not been used for some days"() {
+        given:
+        def archivesDir = tmpDir.file("user-home/caches/${GradleVersion.current().version}/cds")
+        def unused = archivesDir.file("unused.jsa").createFile()
+        unused.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8)
+        def recent = archivesDir.file("recent.jsa").createFile()
+        recent.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)
+
+        when:
+        archive.getJvmArgs(java, JavaVersion.VERSION_19, [], classPath)
+
+        then:
+        !unused.exists()
+        recent.exists()
+    }
+
+    def "marks the archive as used when starting a JVM with it"() {
+        given:
+        def archiveFile = new File(archiveArgument(archive.getJvmArgs(java, JavaVersion.VERSION_17, [], classPath)) - ".part")
+        archiveFile.text = "archive"
+        archiveFile.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2)
+
+        when:
+        archive.getJvmArgs(java, JavaVersion.VERSION_17, [], classPath)
+
+        then:
+        System.currentTimeMillis() - archiveFile.lastModified() < TimeUnit.DAYS.toMillis(1)
+    }
+
+    private static String archiveArgument(List<String> args) {
+        return args.find { it.startsWith("-XX:ArchiveClassesAtExit=") }.substring("-XX:ArchiveClassesAtExit=".length())
+    }
+}
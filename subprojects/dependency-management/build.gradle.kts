@@ -1,5 +1,6 @@
 plugins {
     id("gradlebuild.distribution.implementation-java")
+    id("gradlebuild.jmh")
 }
 
 description = """This project contains most of the dependency management logic of Gradle:
@@ -47,6 +48,11 @@ dependencies {
     implementation(libs.ivy)
     implementation(libs.maven3SettingsBuilder)
 
+    jmhImplementation(testFixtures(project(":core")))
+    jmhImplementation(testFixtures(project(":dependency-management"))) {
+        because("The synthetic repository used by the benchmarks creates module metadata like the tests do")
+    }
+
     testImplementation(project(":process-services"))
     testImplementation(project(":diagnostics"))
     testImplementation(project(":build-cache-packaging"))
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.DependencyManagementTestUtil;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.GraphShape;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.SyntheticRepository;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DesugaredAttributeContainerSerializer;
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+import org.gradle.internal.serialize.InputStreamBackedDecoder;
+import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+import org.gradle.util.AttributeTestUtil;
+import org.gradle.util.TestUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Measures writing and reading the module metadata cache entries of all the components of a {@link SyntheticRepository}.
+ *
+ * Like the module metadata cache, every component is serialized as an entry of its own.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class ModuleMetadataSerializerBenchmark {
+    private static final long SEED = 42L;
+
+    @Param
+    GraphShape shape;
+
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory = new DefaultImmutableModuleIdentifierFactory();
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private ModuleMetadataSerializer serializer;
+    private List<ModuleComponentResolveMetadata> components;
+    private List<byte[]> entries;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        serializer = new ModuleMetadataSerializer(
+            new DesugaredAttributeContainerSerializer(AttributeTestUtil.attributesFactory(), TestUtil.objectInstantiator()),
+            DependencyManagementTestUtil.mavenMetadataFactory(),
+            DependencyManagementTestUtil.ivyMetadataFactory(),
+            new ModuleSourcesSerializer(Collections.emptyMap())
+        );
+        components = new ArrayList<>(SyntheticRepository.generate(shape, SEED).getComponents().values());
+        entries = new ArrayList<>(components.size());
+        for (ModuleComponentResolveMetadata component : components) {
+            entries.add(write(component));
+        }
+    }
+
+    @Benchmark
+    public void writeMetadata(Blackhole blackhole) throws IOException {
+        for (ModuleComponentResolveMetadata component : components) {
+            blackhole.consume(write(component));
+        }
+    }
+
+    @Benchmark
+    public void readMetadata(Blackhole blackhole) throws IOException {
+        for (byte[] entry : entries) {
+            InputStreamBackedDecoder decoder = new InputStreamBackedDecoder(new ByteArrayInputStream(entry));
+            blackhole.consume(serializer.read(decoder, moduleIdentifierFactory, new HashMap<>()).asImmutable());
+        }
+    }
+
+    private byte[] write(ModuleComponentResolveMetadata component) throws IOException {
+        buffer.reset();
+        OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(buffer);
+        serializer.write(encoder, component, new HashMap<>());
+        encoder.flush();
+        return buffer.toByteArray();
+    }
+}
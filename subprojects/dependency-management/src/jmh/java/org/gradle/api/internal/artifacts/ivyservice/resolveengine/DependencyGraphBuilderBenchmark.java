@@ -0,0 +1,287 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import com.google.common.collect.ImmutableSet;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor;
+import org.gradle.api.internal.artifacts.ComponentSelectorConverter;
+import org.gradle.api.internal.artifacts.DefaultBuildIdentifier;
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector;
+import org.gradle.api.internal.artifacts.DefaultProjectComponentIdentifier;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.configurations.ConflictResolution;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionApplicator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.UserResolverChain;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser;
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultCachePolicy;
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultComponentSelectionRules;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder.DependencyGraphBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultCapabilitiesConflictHandler;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultConflictHandler;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.LastCandidateCapabilityResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.RejectRemainingCandidates;
+import org.gradle.api.internal.attributes.DefaultAttributesSchema;
+import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.api.internal.attributes.ImmutableAttributesFactory;
+import org.gradle.api.specs.Specs;
+import org.gradle.internal.component.external.model.ImmutableCapabilities;
+import org.gradle.internal.component.local.model.BuildableLocalConfigurationMetadata;
+import org.gradle.internal.component.local.model.LocalComponentMetadata;
+import org.gradle.internal.component.local.model.RootLocalComponentMetadata;
+import org.gradle.internal.component.model.ComponentAttributeMatcher;
+import org.gradle.internal.component.model.LocalComponentDependencyMetadata;
+import org.gradle.internal.locking.NoOpDependencyLockingProvider;
+import org.gradle.internal.operations.TestBuildOperationExecutor;
+import org.gradle.util.AttributeTestUtil;
+import org.gradle.util.Path;
+import org.gradle.util.SnapshotTestUtil;
+import org.gradle.util.TestUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+/**
+ * Measures building a dependency graph from a {@link SyntheticRepository}, including version
+ * conflict resolution, platform alignment through constraints and exclude evaluation.
+ *
+ * Metadata is served from memory, so that only the resolution engine itself is measured.
+ * Each invocation uses fresh conflict handlers and exclusion caches, like a new resolution would.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class DependencyGraphBuilderBenchmark {
+    private static final long SEED = 42L;
+
+    @Param
+    GraphShape shape;
+
+    private final VersionParser versionParser = new VersionParser();
+    private final DefaultVersionComparator versionComparator = new DefaultVersionComparator();
+    private final ImmutableAttributesFactory attributesFactory = AttributeTestUtil.attributesFactory();
+
+    private DefaultAttributesSchema attributesSchema;
+    private UserResolverChain resolverChain;
+    private ResolveContext resolveContext;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticRepository repository = SyntheticRepository.generate(shape, SEED);
+        attributesSchema = new DefaultAttributesSchema(new ComponentAttributeMatcher(), TestUtil.instantiatorFactory(), SnapshotTestUtil.isolatableFactory());
+        DefaultCachePolicy cachePolicy = new DefaultCachePolicy();
+        resolverChain = new UserResolverChain(
+            versionComparator,
+            new DefaultComponentSelectionRules(new DefaultImmutableModuleIdentifierFactory()),
+            versionParser,
+            ImmutableAttributes.EMPTY,
+            attributesSchema,
+            attributesFactory,
+            context -> ComponentMetadataProcessor.NO_OP,
+            null,
+            cachePolicy,
+            TestUtil.calculatedValueContainerFactory()
+        );
+        resolverChain.add(repository.asModuleComponentRepository());
+        resolveContext = new SyntheticResolveContext(createRootComponent(repository), resolutionStrategy(cachePolicy));
+
+        CountingVisitor visitor = resolve();
+        if (visitor.failures > 0) {
+            throw new IllegalStateException("Resolution of " + shape + " graph failed for " + visitor.failures + " dependencies");
+        }
+    }
+
+    @Benchmark
+    public int resolveGraph() {
+        return resolve().nodes;
+    }
+
+    private CountingVisitor resolve() {
+        DefaultCapabilitiesConflictHandler capabilitiesConflictHandler = new DefaultCapabilitiesConflictHandler();
+        capabilitiesConflictHandler.registerResolver(new LastCandidateCapabilityResolver());
+        capabilitiesConflictHandler.registerResolver(new RejectRemainingCandidates());
+        DependencyGraphBuilder builder = new DependencyGraphBuilder(
+            resolverChain.getComponentIdResolver(),
+            resolverChain.getComponentResolver(),
+            (context, result) -> result.resolved(context.toRootComponentMetaData()),
+            new DefaultConflictHandler(new ConflictResolverFactory(versionComparator, versionParser).createConflictResolver(ConflictResolution.latest), ModuleReplacementsData.NO_OP),
+            capabilitiesConflictHandler,
+            Specs.satisfyAll(),
+            attributesSchema,
+            new ModuleExclusions(),
+            new TestBuildOperationExecutor(),
+            DependencySubstitutionApplicator.NO_OP,
+            new ModuleSelectorConverter(),
+            attributesFactory,
+            new DefaultVersionSelectorScheme(versionComparator, versionParser),
+            versionComparator.asVersionComparator(),
+            versionParser
+        );
+        CountingVisitor visitor = new CountingVisitor();
+        builder.resolve(resolveContext, visitor, true);
+        return visitor;
+    }
+
+    private LocalComponentMetadata createRootComponent(SyntheticRepository repository) {
+        ProjectComponentIdentifier componentId = new DefaultProjectComponentIdentifier(new DefaultBuildIdentifier(":"), Path.ROOT, Path.ROOT, "root");
+        RootLocalComponentMetadata root = new RootLocalComponentMetadata(
+            DefaultModuleVersionIdentifier.newId("org.synthetic", "root", "1.0"),
+            componentId,
+            "release",
+            attributesSchema,
+            NoOpDependencyLockingProvider.getInstance()
+        );
+        BuildableLocalConfigurationMetadata configuration = root.addConfiguration(
+            "runtimeClasspath", null, Collections.emptySet(), ImmutableSet.of("runtimeClasspath"), true, true,
+            ImmutableAttributes.EMPTY, false, null, true, ImmutableCapabilities.EMPTY, Collections::emptyList
+        );
+        for (ModuleComponentSelector selector : repository.getRootDependencies()) {
+            configuration.addDependency(new LocalComponentDependencyMetadata(
+                componentId, selector, "runtimeClasspath", null, ImmutableAttributes.EMPTY, null,
+                Collections.emptyList(), Collections.emptyList(), false, false, true, false, false, null
+            ));
+        }
+        return root;
+    }
+
+    /**
+     * The graph builder only queries the conflict resolution and the dynamic or changing version policies.
+     */
+    private static ResolutionStrategyInternal resolutionStrategy(DefaultCachePolicy cachePolicy) {
+        return (ResolutionStrategyInternal) Proxy.newProxyInstance(
+            ResolutionStrategyInternal.class.getClassLoader(),
+            new Class<?>[]{ResolutionStrategyInternal.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getConflictResolution":
+                        return ConflictResolution.latest;
+                    case "isFailingOnDynamicVersions":
+                    case "isFailingOnChangingVersions":
+                        return false;
+                    case "getCachePolicy":
+                        return cachePolicy;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        );
+    }
+
+    private static class SyntheticResolveContext implements ResolveContext {
+        private final LocalComponentMetadata root;
+        private final ResolutionStrategyInternal resolutionStrategy;
+
+        SyntheticResolveContext(LocalComponentMetadata root, ResolutionStrategyInternal resolutionStrategy) {
+            this.root = root;
+            this.resolutionStrategy = resolutionStrategy;
+        }
+
+        @Override
+        public String getName() {
+            return "runtimeClasspath";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "synthetic runtime classpath";
+        }
+
+        @Override
+        public ResolutionStrategyInternal getResolutionStrategy() {
+            return resolutionStrategy;
+        }
+
+        @Override
+        public LocalComponentMetadata toRootComponentMetaData() {
+            return root;
+        }
+
+        @Override
+        public AttributeContainer getAttributes() {
+            return ImmutableAttributes.EMPTY;
+        }
+    }
+
+    private static class ModuleSelectorConverter implements ComponentSelectorConverter {
+        @Override
+        public ModuleIdentifier getModule(ComponentSelector selector) {
+            return ((ModuleComponentSelector) selector).getModuleIdentifier();
+        }
+
+        @Override
+        public ModuleVersionSelector getSelector(ComponentSelector selector) {
+            return DefaultModuleVersionSelector.newSelector((ModuleComponentSelector) selector);
+        }
+    }
+
+    private static class CountingVisitor implements DependencyGraphVisitor {
+        int nodes;
+        int failures;
+
+        @Override
+        public void start(RootGraphNode root) {
+        }
+
+        @Override
+        public void visitNode(DependencyGraphNode node) {
+            nodes++;
+            for (DependencyGraphEdge edge : node.getOutgoingEdges()) {
+                if (edge.getFailure() != null) {
+                    failures++;
+                }
+            }
+        }
+
+        @Override
+        public void visitSelector(DependencyGraphSelector selector) {
+        }
+
+        @Override
+        public void visitEdges(DependencyGraphNode node) {
+        }
+
+        @Override
+        public void finish(DependencyGraphNode root) {
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+/**
+ * The shapes of synthetic dependency graphs used by resolution benchmarks.
+ */
+public enum GraphShape {
+    /**
+     * Long chains of dependencies with little sharing between them.
+     */
+    DEEP(50, 6, 3, 1, 0, 0, 0),
+    /**
+     * Few layers with a very large number of modules and dependencies.
+     */
+    WIDE(3, 600, 30, 1, 0, 0, 0),
+    /**
+     * Modules depending on different versions of the same modules, some of them using dynamic versions.
+     */
+    CONFLICTS(8, 60, 6, 8, 0, 0, 10),
+    /**
+     * Modules aligned by platforms which contribute constraints on other modules.
+     */
+    PLATFORMS(8, 60, 6, 4, 6, 0, 0),
+    /**
+     * Modules declaring excludes on their dependencies.
+     */
+    EXCLUDES(8, 60, 6, 2, 0, 30, 0);
+
+    final int layers;
+    final int modulesPerLayer;
+    final int dependenciesPerModule;
+    final int versionsPerModule;
+    final int platforms;
+    final int excludePercentage;
+    final int dynamicVersionPercentage;
+
+    GraphShape(int layers, int modulesPerLayer, int dependenciesPerModule, int versionsPerModule, int platforms, int excludePercentage, int dynamicVersionPercentage) {
+        this.layers = layers;
+        this.modulesPerLayer = modulesPerLayer;
+        this.dependenciesPerModule = dependenciesPerModule;
+        this.versionsPerModule = versionsPerModule;
+        this.platforms = platforms;
+        this.excludePercentage = excludePercentage;
+        this.dynamicVersionPercentage = dynamicVersionPercentage;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.DependencyManagementTestUtil;
+import org.gradle.api.internal.artifacts.dependencies.DefaultImmutableVersionConstraint;
+import org.gradle.api.internal.artifacts.repositories.metadata.MavenMutableModuleMetadataFactory;
+import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector;
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+import org.gradle.internal.component.external.model.MutableComponentVariant;
+import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
+import org.gradle.internal.component.model.ExcludeMetadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates a repository of synthetic modules with the given {@link GraphShape}.
+ *
+ * Modules are organized in layers, each module of a layer depending on modules of the next layer.
+ * Metadata is modelled after Gradle module metadata: every module has a single variant, and platforms
+ * are modules whose variant only declares dependency constraints.
+ * Generation is deterministic for a given shape and seed.
+ */
+public class SyntheticRepository {
+    private static final String PLATFORM_GROUP = "org.synthetic.platform";
+
+    private final Map<ModuleIdentifier, List<String>> versions = new LinkedHashMap<>();
+    private final Map<ModuleComponentIdentifier, ModuleComponentResolveMetadata> components = new LinkedHashMap<>();
+    private final List<ModuleComponentSelector> rootDependencies = new ArrayList<>();
+
+    public static SyntheticRepository generate(GraphShape shape, long seed) {
+        SyntheticRepository repository = new SyntheticRepository();
+        new Generator(shape, new Random(seed), DependencyManagementTestUtil.mavenMetadataFactory(), repository).generate();
+        return repository;
+    }
+
+    private SyntheticRepository() {
+    }
+
+    /**
+     * The modules the root of the graph depends on.
+     */
+    public List<ModuleComponentSelector> getRootDependencies() {
+        return rootDependencies;
+    }
+
+    public Map<ModuleComponentIdentifier, ModuleComponentResolveMetadata> getComponents() {
+        return Collections.unmodifiableMap(components);
+    }
+
+    public List<String> getVersions(ModuleIdentifier module) {
+        List<String> moduleVersions = versions.get(module);
+        return moduleVersions == null ? Collections.emptyList() : moduleVersions;
+    }
+
+    public InMemoryModuleComponentRepository asModuleComponentRepository() {
+        return new InMemoryModuleComponentRepository(this);
+    }
+
+    private void add(ModuleComponentResolveMetadata metadata) {
+        ModuleComponentIdentifier id = metadata.getId();
+        components.put(id, metadata);
+        versions.computeIfAbsent(id.getModuleIdentifier(), m -> new ArrayList<>()).add(id.getVersion());
+    }
+
+    private static class Generator {
+        private final GraphShape shape;
+        private final Random random;
+        private final MavenMutableModuleMetadataFactory metadataFactory;
+        private final SyntheticRepository repository;
+
+        Generator(GraphShape shape, Random random, MavenMutableModuleMetadataFactory metadataFactory, SyntheticRepository repository) {
+            this.shape = shape;
+            this.random = random;
+            this.metadataFactory = metadataFactory;
+            this.repository = repository;
+        }
+
+        void generate() {
+            for (int platform = 0; platform < shape.platforms; platform++) {
+                generatePlatform(platform);
+            }
+            for (int layer = 0; layer < shape.layers; layer++) {
+                for (int index = 0; index < shape.modulesPerLayer; index++) {
+                    for (int version = 0; version < shape.versionsPerModule; version++) {
+                        generateModule(layer, index, version);
+                    }
+                }
+            }
+            for (int index = 0; index < shape.modulesPerLayer; index++) {
+                repository.rootDependencies.add(DefaultModuleComponentSelector.newSelector(module(0, index), DefaultImmutableVersionConstraint.of(selectVersion())));
+            }
+        }
+
+        private void generatePlatform(int platform) {
+            MutableModuleComponentResolveMetadata metadata = metadataFactory.createForGradleModuleMetadata(
+                DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId(PLATFORM_GROUP, "platform-" + platform), "1.0")
+            );
+            MutableComponentVariant variant = metadata.addVariant("platform", ImmutableAttributes.EMPTY);
+            String alignedVersion = version(shape.versionsPerModule - 1);
+            for (int layer = 0; layer < shape.layers; layer++) {
+                for (int index = platform; index < shape.modulesPerLayer; index += shape.platforms) {
+                    ModuleIdentifier module = module(layer, index);
+                    variant.addDependencyConstraint(module.getGroup(), module.getName(), DefaultImmutableVersionConstraint.of(alignedVersion), null, ImmutableAttributes.EMPTY);
+                }
+            }
+            repository.add(metadata.asImmutable());
+        }
+
+        private void generateModule(int layer, int index, int version) {
+            MutableModuleComponentResolveMetadata metadata = metadataFactory.createForGradleModuleMetadata(
+                DefaultModuleComponentIdentifier.newId(module(layer, index), version(version))
+            );
+            MutableComponentVariant variant = metadata.addVariant("runtime", ImmutableAttributes.EMPTY);
+            if (layer + 1 < shape.layers) {
+                for (int target : pickTargets()) {
+                    ModuleIdentifier dependency = module(layer + 1, target);
+                    variant.addDependency(dependency.getGroup(), dependency.getName(), DefaultImmutableVersionConstraint.of(selectVersion()), excludes(layer + 2), null, ImmutableAttributes.EMPTY, Collections.emptyList(), false, null);
+                }
+            }
+            if (shape.platforms > 0) {
+                variant.addDependency(PLATFORM_GROUP, "platform-" + (index % shape.platforms), DefaultImmutableVersionConstraint.of("1.0"), Collections.emptyList(), null, ImmutableAttributes.EMPTY, Collections.emptyList(), false, null);
+            }
+            repository.add(metadata.asImmutable());
+        }
+
+        private Set<Integer> pickTargets() {
+            int count = Math.min(shape.dependenciesPerModule, shape.modulesPerLayer);
+            Set<Integer> targets = new LinkedHashSet<>();
+            while (targets.size() < count) {
+                targets.add(random.nextInt(shape.modulesPerLayer));
+            }
+            return targets;
+        }
+
+        private String selectVersion() {
+            if (random.nextInt(100) < shape.dynamicVersionPercentage) {
+                return "1.+";
+            }
+            return version(random.nextInt(shape.versionsPerModule));
+        }
+
+        private List<ExcludeMetadata> excludes(int layer) {
+            if (layer >= shape.layers || random.nextInt(100) >= shape.excludePercentage) {
+                return Collections.emptyList();
+            }
+            int count = 1 + random.nextInt(3);
+            ImmutableList.Builder<ExcludeMetadata> excludes = ImmutableList.builderWithExpectedSize(count);
+            for (int i = 0; i < count; i++) {
+                excludes.add(new DefaultExclude(module(layer, random.nextInt(shape.modulesPerLayer))));
+            }
+            return excludes.build();
+        }
+
+        private static ModuleIdentifier module(int layer, int index) {
+            return DefaultModuleIdentifier.newId("org.synthetic.layer" + layer, "module-" + index);
+        }
+
+        private static String version(int version) {
+            return "1." + version;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.ExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.NormalizingExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.DefaultExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Measures the exclude algebra on patterns commonly found in published metadata: a small set of logging,
+ * XML and servlet artifacts excluded over and over again, mixed with project specific module excludes.
+ *
+ * The normalizing factory is used without caches, so that each operation pays for the actual set algebra.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class ExcludeAlgebraBenchmark {
+    private static final String[][] COMMON_EXCLUDES = {
+        {"commons-logging", "commons-logging"},
+        {"log4j", "log4j"},
+        {"org.slf4j", "slf4j-log4j12"},
+        {"org.slf4j", "slf4j-jdk14"},
+        {"org.slf4j", "slf4j-simple"},
+        {"ch.qos.logback", "logback-classic"},
+        {"org.apache.logging.log4j", "log4j-slf4j-impl"},
+        {"javax.servlet", "servlet-api"},
+        {"javax.servlet", "jsp-api"},
+        {"com.google.code.findbugs", "jsr305"},
+        {"xml-apis", "xml-apis"},
+        {"xerces", "xercesImpl"},
+        {"stax", "stax-api"},
+        {"javax.xml.stream", "stax-api"},
+        {"asm", "asm"},
+        {"org.ow2.asm", "asm"},
+        {"junit", "junit"},
+        {"org.hamcrest", "hamcrest-core"},
+        {"com.sun.jersey", "jersey-core"},
+        {"io.netty", "netty"},
+    };
+
+    @Param({"8", "64", "512"})
+    int moduleIdsPerExclude;
+
+    private ExcludeFactory factory;
+    private ExcludeSpec left;
+    private ExcludeSpec right;
+    private ExcludeSpec group;
+    private ExcludeSpec module;
+    private List<ExcludeSpec> perDependencyExcludes;
+    private ModuleIdentifier[] probes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        factory = new NormalizingExcludeFactory(new DefaultExcludeFactory());
+        Random random = new Random(42);
+        left = moduleIdSet(random);
+        right = moduleIdSet(random);
+        group = factory.group("org.slf4j");
+        module = factory.module("asm");
+        perDependencyExcludes = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            perDependencyExcludes.add(moduleIdSet(random));
+        }
+        probes = new ModuleIdentifier[64];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = i % 2 == 0 ? commonExclude(random) : DefaultModuleIdentifier.newId("org.example", "module-" + random.nextInt(4 * moduleIdsPerExclude));
+        }
+    }
+
+    private ExcludeSpec moduleIdSet(Random random) {
+        Set<ModuleIdentifier> ids = new HashSet<>();
+        while (ids.size() < Math.min(moduleIdsPerExclude, COMMON_EXCLUDES.length) / 2) {
+            ids.add(commonExclude(random));
+        }
+        while (ids.size() < moduleIdsPerExclude) {
+            ids.add(DefaultModuleIdentifier.newId("org.example", "module-" + random.nextInt(4 * moduleIdsPerExclude)));
+        }
+        return factory.moduleIdSet(ids);
+    }
+
+    private static ModuleIdentifier commonExclude(Random random) {
+        String[] exclude = COMMON_EXCLUDES[random.nextInt(COMMON_EXCLUDES.length)];
+        return DefaultModuleIdentifier.newId(exclude[0], exclude[1]);
+    }
+
+    @Benchmark
+    public ExcludeSpec intersectModuleIdSets() {
+        return factory.allOf(left, right);
+    }
+
+    @Benchmark
+    public ExcludeSpec unionModuleIdSets() {
+        return factory.anyOf(left, right);
+    }
+
+    @Benchmark
+    public ExcludeSpec intersectGroupWithModuleIdSet() {
+        return factory.allOf(group, left);
+    }
+
+    @Benchmark
+    public ExcludeSpec unionModuleWithModuleIdSet() {
+        return factory.anyOf(module, left);
+    }
+
+    @Benchmark
+    public ExcludeSpec unionOfDependencyExcludes() {
+        return factory.anyOf(new HashSet<>(perDependencyExcludes));
+    }
+
+    @Benchmark
+    public void excludesModule(Blackhole blackhole) {
+        for (ModuleIdentifier probe : probes) {
+            blackhole.consume(left.excludes(probe));
+        }
+    }
+}
@@ -16,8 +16,8 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories;
 
 import com.google.common.collect.Sets;
-import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.ModuleIdSets;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeAnyOf;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeNothing;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
@@ -194,8 +194,7 @@ private ExcludeSpec intersectModuleId(ModuleIdExclude left, ExcludeSpec right) {
             }
             return factory.nothing();
         } else if (right instanceof ModuleIdSetExclude) {
-            Set<ModuleIdentifier> rightModuleIds = ((ModuleIdSetExclude) right).getModuleIds();
-            if (rightModuleIds.contains(left.getModuleId())) {
+            if (right.excludes(left.getModuleId())) {
                 return left;
             }
             return factory.nothing();
@@ -204,38 +203,15 @@ private ExcludeSpec intersectModuleId(ModuleIdExclude left, ExcludeSpec right) {
     }
 
     private ExcludeSpec intersectModuleIdSet(ModuleIdSetExclude left, ExcludeSpec right) {
-        Set<ModuleIdentifier> moduleIds = left.getModuleIds();
         if (right instanceof ModuleIdSetExclude) {
-            Set<ModuleIdentifier> common = Sets.newHashSet(((ModuleIdSetExclude) right).getModuleIds());
-            common.retainAll(moduleIds);
-            return moduleIds(common);
+            return ModuleIdSets.intersect(factory, left, (ModuleIdSetExclude) right);
         } else if (right instanceof ModuleSetExclude) {
             Set<String> modules = ((ModuleSetExclude) right).getModules();
-            Set<ModuleIdentifier> identifiers = moduleIds.stream()
-                .filter(e -> modules.contains(e.getName()))
-                .collect(toSet());
-            if (identifiers.isEmpty()) {
-                return factory.nothing();
-            }
-            if (identifiers.size() == 1) {
-                return factory.moduleId(identifiers.iterator().next());
-            } else {
-                return factory.moduleIdSet(identifiers);
-            }
+            return ModuleIdSets.retain(factory, left, id -> modules.contains(id.getName()));
         }
         return null;
     }
 
-    private ExcludeSpec moduleIds(Set<ModuleIdentifier> common) {
-        if (common.isEmpty()) {
-            return factory.nothing();
-        }
-        if (common.size() == 1) {
-            return factory.moduleId(common.iterator().next());
-        }
-        return factory.moduleIdSet(common);
-    }
-
     private ExcludeSpec intersectGroup(GroupExclude left, ExcludeSpec right) {
         String group = left.getGroup();
         if (right instanceof GroupExclude) {
@@ -253,8 +229,7 @@ private ExcludeSpec intersectGroup(GroupExclude left, ExcludeSpec right) {
             }
             return factory.nothing();
         } else if (right instanceof ModuleIdSetExclude) {
-            Set<ModuleIdentifier> moduleIds = ((ModuleIdSetExclude) right).getModuleIds().stream().filter(id -> id.getGroup().equals(group)).collect(toSet());
-            return moduleIdSet(moduleIds);
+            return ModuleIdSets.retain(factory, (ModuleIdSetExclude) right, id -> id.getGroup().equals(group));
         } else if (right instanceof ModuleExclude) {
             return factory.moduleId(DefaultModuleIdentifier.newId(left.getGroup(), ((ModuleExclude) right).getModule()));
         } else if (right instanceof ModuleSetExclude) {
@@ -268,16 +243,6 @@ private ExcludeSpec intersectGroup(GroupExclude left, ExcludeSpec right) {
         return null;
     }
 
-    private ExcludeSpec moduleIdSet(Set<ModuleIdentifier> moduleIds) {
-        if (moduleIds.isEmpty()) {
-            return factory.nothing();
-        }
-        if (moduleIds.size() == 1) {
-            return factory.moduleId(moduleIds.iterator().next());
-        }
-        return factory.moduleIdSet(moduleIds);
-    }
-
     private ExcludeSpec intersectGroupSet(GroupSetExclude left, ExcludeSpec right) {
         Set<String> groups = left.getGroups();
         if (right instanceof GroupSetExclude) {
@@ -290,11 +255,7 @@ private ExcludeSpec intersectGroupSet(GroupSetExclude left, ExcludeSpec right) {
             }
             return factory.nothing();
         } else if (right instanceof ModuleIdSetExclude) {
-            Set<ModuleIdentifier> filtered = ((ModuleIdSetExclude) right).getModuleIds()
-                .stream()
-                .filter(id -> groups.contains(id.getGroup()))
-                .collect(toSet());
-            return moduleIdSet(filtered);
+            return ModuleIdSets.retain(factory, (ModuleIdSetExclude) right, id -> groups.contains(id.getGroup()));
         }
         return null;
     }
@@ -330,8 +291,7 @@ private ExcludeSpec intersectModule(ModuleExclude left, ExcludeSpec right) {
             }
             return factory.nothing();
         } else if (right instanceof ModuleIdSetExclude) {
-            Set<ModuleIdentifier> common = ((ModuleIdSetExclude) right).getModuleIds().stream().filter(id -> id.getName().equals(module)).collect(toSet());
-            return moduleIdSet(common);
+            return ModuleIdSets.retain(factory, (ModuleIdSetExclude) right, id -> id.getName().equals(module));
         }
         return null;
     }
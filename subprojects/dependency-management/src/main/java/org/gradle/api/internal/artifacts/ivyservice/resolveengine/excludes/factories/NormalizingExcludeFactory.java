@@ -18,6 +18,7 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.ModuleIdSets;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.CompositeExclude;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeAllOf;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeAnyOf;
@@ -182,7 +183,7 @@ private ExcludeSpec doUnion(Set<ExcludeSpec> specs) {
             }
         }
         if (moduleIdSetsExcludes.size() > 1) {
-            moduleIdSetsExcludes = ImmutableList.of(delegate.moduleIdSet(moduleIdSetsExcludes.stream().flatMap(e -> e.getModuleIds().stream()).collect(toSet())));
+            moduleIdSetsExcludes = ImmutableList.of(ModuleIdSets.union(delegate, moduleIdSetsExcludes));
         }
         if (groupSetExcludes.size() > 1) {
             groupSetExcludes = ImmutableList.of(delegate.groupSet(groupSetExcludes.stream().flatMap(e -> e.getGroups().stream()).collect(toSet())));
@@ -15,7 +15,8 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories;
 
-import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.ModuleIdSets;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeNothing;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.GroupExclude;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.GroupSetExclude;
@@ -25,7 +26,6 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleSetExclude;
 
 import java.util.Set;
-import java.util.stream.Collectors;
 
 class Unions {
     private final ExcludeFactory factory;
@@ -75,15 +75,12 @@ private ExcludeSpec tryModuleUnion(ModuleExclude left, ExcludeSpec right) {
         }
         if (right instanceof ModuleIdSetExclude) {
             ModuleIdSetExclude ids = (ModuleIdSetExclude) right;
-            Set<ModuleIdentifier> items = ids.getModuleIds().stream().filter(id -> !id.getName().equals(leftModule)).collect(Collectors.toSet());
-            if (items.size() == 1) {
-                return factory.anyOf(left, factory.moduleId(items.iterator().next()));
-            }
-            if (items.isEmpty()) {
+            ExcludeSpec remaining = ModuleIdSets.retain(factory, ids, id -> !id.getName().equals(leftModule));
+            if (remaining instanceof ExcludeNothing) {
                 return left;
             }
-            if (items.size() != ids.getModuleIds().size()) {
-                return factory.anyOf(left, factory.moduleIdSet(items));
+            if (remaining != ids) {
+                return factory.anyOf(left, remaining);
             }
         }
         return null;
@@ -99,15 +96,12 @@ private ExcludeSpec tryGroupUnion(GroupExclude left, ExcludeSpec right) {
         }
         if (right instanceof ModuleIdSetExclude) {
             ModuleIdSetExclude ids = (ModuleIdSetExclude) right;
-            Set<ModuleIdentifier> items = ids.getModuleIds().stream().filter(id -> !id.getGroup().equals(leftGroup)).collect(Collectors.toSet());
-            if (items.size() == 1) {
-                return factory.anyOf(left, factory.moduleId(items.iterator().next()));
-            }
-            if (items.isEmpty()) {
+            ExcludeSpec remaining = ModuleIdSets.retain(factory, ids, id -> !id.getGroup().equals(leftGroup));
+            if (remaining instanceof ExcludeNothing) {
                 return left;
             }
-            if (items.size() != ids.getModuleIds().size()) {
-                return factory.anyOf(left, factory.moduleIdSet(items));
+            if (remaining != ids) {
+                return factory.anyOf(left, remaining);
             }
         }
         return null;
@@ -123,15 +117,12 @@ private ExcludeSpec tryModuleSetUnion(ModuleSetExclude left, ExcludeSpec right)
         }
         if (right instanceof ModuleIdSetExclude) {
             ModuleIdSetExclude ids = (ModuleIdSetExclude) right;
-            Set<ModuleIdentifier> items = ids.getModuleIds().stream().filter(id -> !leftModules.contains(id.getName())).collect(Collectors.toSet());
-            if (items.size() == 1) {
-                return factory.anyOf(left, factory.moduleId(items.iterator().next()));
-            }
-            if (items.isEmpty()) {
+            ExcludeSpec remaining = ModuleIdSets.retain(factory, ids, id -> !leftModules.contains(id.getName()));
+            if (remaining instanceof ExcludeNothing) {
                 return left;
             }
-            if (items.size() != ids.getModuleIds().size()) {
-                return factory.anyOf(left, factory.moduleIdSet(items));
+            if (remaining != ids) {
+                return factory.anyOf(left, remaining);
             }
         }
         return null;
@@ -147,15 +138,12 @@ private ExcludeSpec tryGroupSetUnion(GroupSetExclude left, ExcludeSpec right) {
         }
         if (right instanceof ModuleIdSetExclude) {
             ModuleIdSetExclude ids = (ModuleIdSetExclude) right;
-            Set<ModuleIdentifier> items = ids.getModuleIds().stream().filter(id -> !leftGroups.contains(id.getGroup())).collect(Collectors.toSet());
-            if (items.size() == 1) {
-                return factory.anyOf(left, factory.moduleId(items.iterator().next()));
-            }
-            if (items.isEmpty()) {
+            ExcludeSpec remaining = ModuleIdSets.retain(factory, ids, id -> !leftGroups.contains(id.getGroup()));
+            if (remaining instanceof ExcludeNothing) {
                 return left;
             }
-            if (items.size() != ids.getModuleIds().size()) {
-                return factory.anyOf(left, factory.moduleIdSet(items));
+            if (remaining != ids) {
+                return factory.anyOf(left, remaining);
             }
         }
         return null;
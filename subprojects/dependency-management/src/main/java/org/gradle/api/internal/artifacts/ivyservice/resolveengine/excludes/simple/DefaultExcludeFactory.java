@@ -32,6 +32,8 @@
 import java.util.Set;
 
 public class DefaultExcludeFactory implements ExcludeFactory {
+    private final ModuleIdInterner moduleIdInterner = new ModuleIdInterner();
+
     @Override
     public ExcludeNothing nothing() {
         return DefaultExcludeNothing.get();
@@ -84,7 +86,7 @@ public ExcludeSpec ivyPatternExclude(ModuleIdentifier moduleId, IvyArtifactName
 
     @Override
     public ModuleIdSetExclude moduleIdSet(Set<ModuleIdentifier> modules) {
-        return DefaultModuleIdSetExclude.of(modules);
+        return DefaultModuleIdSetExclude.of(moduleIdInterner, modules);
     }
 
     @Override
@@ -20,29 +20,69 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleIdSetExclude;
 import org.gradle.internal.component.model.IvyArtifactName;
 
+import java.util.Arrays;
 import java.util.Set;
 
+/**
+ * A set of module ids backed by a sorted array of interned indices. Two sets created by the same
+ * factory can be compared, merged and intersected without hashing or allocating intermediate collections.
+ */
 final class DefaultModuleIdSetExclude implements ModuleIdSetExclude {
-    private final Set<ModuleIdentifier> moduleIds;
+    private final ModuleIdInterner interner;
+    private final int[] indices;
     private final int hashCode;
+    private volatile Set<ModuleIdentifier> moduleIds;
+
+    static ModuleIdSetExclude of(ModuleIdInterner interner, Set<ModuleIdentifier> ids) {
+        int[] indices = new int[ids.size()];
+        int i = 0;
+        for (ModuleIdentifier id : ids) {
+            indices[i++] = interner.intern(id);
+        }
+        Arrays.sort(indices);
+        return new DefaultModuleIdSetExclude(interner, indices);
+    }
+
+    /**
+     * Creates a set from indices which are already sorted and distinct. The array is not copied.
+     */
+    DefaultModuleIdSetExclude(ModuleIdInterner interner, int[] indices) {
+        this.interner = interner;
+        this.indices = indices;
+        // same as Set.hashCode(), so that sets from different interners stay consistent with equals
+        int hash = 0;
+        for (int index : indices) {
+            hash += interner.get(index).hashCode();
+        }
+        this.hashCode = hash;
+    }
 
-    static ModuleIdSetExclude of(Set<ModuleIdentifier> ids) {
-        return new DefaultModuleIdSetExclude(ImmutableSet.copyOf(ids));
+    ModuleIdInterner getInterner() {
+        return interner;
     }
 
-    private DefaultModuleIdSetExclude(ImmutableSet<ModuleIdentifier> moduleIds) {
-        this.moduleIds = moduleIds;
-        this.hashCode = moduleIds.hashCode();
+    int[] getIndices() {
+        return indices;
     }
 
     @Override
     public Set<ModuleIdentifier> getModuleIds() {
-        return moduleIds;
+        Set<ModuleIdentifier> result = moduleIds;
+        if (result == null) {
+            ImmutableSet.Builder<ModuleIdentifier> builder = ImmutableSet.builderWithExpectedSize(indices.length);
+            for (int index : indices) {
+                builder.add(interner.get(index));
+            }
+            result = builder.build();
+            moduleIds = result;
+        }
+        return result;
     }
 
     @Override
     public boolean excludes(ModuleIdentifier module) {
-        return moduleIds.contains(module);
+        int index = interner.indexOf(module);
+        return index >= 0 && Arrays.binarySearch(indices, index) >= 0;
     }
 
     @Override
@@ -65,9 +105,13 @@ public boolean equals(Object o) {
         }
 
         DefaultModuleIdSetExclude that = (DefaultModuleIdSetExclude) o;
-
-        return moduleIds.equals(that.moduleIds);
-
+        if (hashCode != that.hashCode) {
+            return false;
+        }
+        if (interner == that.interner) {
+            return Arrays.equals(indices, that.indices);
+        }
+        return getModuleIds().equals(that.getModuleIds());
     }
 
     @Override
@@ -77,7 +121,7 @@ public int hashCode() {
 
     @Override
     public String toString() {
-        return "{ \"module ids\" : [" + ExcludeJsonHelper.toJson(moduleIds) + "]}";
+        return "{ \"module ids\" : [" + ExcludeJsonHelper.toJson(getModuleIds()) + "]}";
     }
 
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a dense integer index to every module identifier seen by an exclude factory,
+ * so that sets of module ids can be represented as sorted int arrays.
+ */
+final class ModuleIdInterner {
+    private final Map<ModuleIdentifier, Integer> indices = new ConcurrentHashMap<>();
+    private volatile ModuleIdentifier[] identifiers = new ModuleIdentifier[64];
+    private int count;
+
+    int intern(ModuleIdentifier id) {
+        Integer index = indices.get(id);
+        if (index != null) {
+            return index;
+        }
+        synchronized (this) {
+            index = indices.get(id);
+            if (index != null) {
+                return index;
+            }
+            int next = count++;
+            ModuleIdentifier[] current = identifiers;
+            if (next == current.length) {
+                current = Arrays.copyOf(current, next * 2);
+            }
+            current[next] = id;
+            identifiers = current;
+            indices.put(id, next);
+            return next;
+        }
+    }
+
+    /**
+     * Returns the index of the given module id, or -1 if it was never interned.
+     */
+    int indexOf(ModuleIdentifier id) {
+        Integer index = indices.get(id);
+        return index == null ? -1 : index;
+    }
+
+    ModuleIdentifier get(int index) {
+        ModuleIdentifier[] current = identifiers;
+        if (index < current.length) {
+            ModuleIdentifier id = current[index];
+            if (id != null) {
+                return id;
+            }
+        }
+        synchronized (this) {
+            return identifiers[index];
+        }
+    }
+}
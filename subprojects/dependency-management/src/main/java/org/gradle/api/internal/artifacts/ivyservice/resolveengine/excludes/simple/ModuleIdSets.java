@@ -0,0 +1,201 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple;
+
+import com.google.common.collect.Sets;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.ExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleIdSetExclude;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Set algebra on {@link ModuleIdSetExclude module id set excludes}. When the operands were created by the
+ * same {@link DefaultExcludeFactory}, the operations work directly on the sorted index arrays and only
+ * allocate the result. Otherwise they fall back to operating on {@link ModuleIdSetExclude#getModuleIds()}.
+ *
+ * Results are always in canonical form: an empty result is {@link ExcludeFactory#nothing()} and a
+ * single element result is a {@link ExcludeFactory#moduleId(ModuleIdentifier) module id exclude}.
+ */
+public final class ModuleIdSets {
+    private ModuleIdSets() {
+    }
+
+    public static ExcludeSpec intersect(ExcludeFactory factory, ModuleIdSetExclude left, ModuleIdSetExclude right) {
+        if (!sameInterner(left, right)) {
+            Set<ModuleIdentifier> common = Sets.newHashSet(right.getModuleIds());
+            common.retainAll(left.getModuleIds());
+            return canonical(factory, common);
+        }
+        DefaultModuleIdSetExclude l = (DefaultModuleIdSetExclude) left;
+        DefaultModuleIdSetExclude r = (DefaultModuleIdSetExclude) right;
+        int[] a = l.getIndices();
+        int[] b = r.getIndices();
+        int count = 0;
+        int first = -1;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                if (count++ == 0) {
+                    first = a[i];
+                }
+                i++;
+                j++;
+            }
+        }
+        if (count == 0) {
+            return factory.nothing();
+        }
+        if (count == 1) {
+            return factory.moduleId(l.getInterner().get(first));
+        }
+        if (count == a.length) {
+            return left;
+        }
+        if (count == b.length) {
+            return right;
+        }
+        int[] result = new int[count];
+        for (int i = 0, j = 0, k = 0; k < count; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return new DefaultModuleIdSetExclude(l.getInterner(), result);
+    }
+
+    /**
+     * Returns the module ids of the set which match the predicate. If all of them match, the set itself is returned.
+     */
+    public static ExcludeSpec retain(ExcludeFactory factory, ModuleIdSetExclude set, Predicate<? super ModuleIdentifier> predicate) {
+        if (!(set instanceof DefaultModuleIdSetExclude)) {
+            Set<ModuleIdentifier> moduleIds = set.getModuleIds();
+            Set<ModuleIdentifier> retained = Sets.newHashSetWithExpectedSize(moduleIds.size());
+            for (ModuleIdentifier id : moduleIds) {
+                if (predicate.test(id)) {
+                    retained.add(id);
+                }
+            }
+            return retained.size() == moduleIds.size() ? set : canonical(factory, retained);
+        }
+        DefaultModuleIdSetExclude ids = (DefaultModuleIdSetExclude) set;
+        ModuleIdInterner interner = ids.getInterner();
+        int[] indices = ids.getIndices();
+        // Use a bit set on the stack for the common case of small sets, so that the predicate is only evaluated once
+        long matches = 0;
+        int count = 0;
+        ModuleIdentifier first = null;
+        boolean[] large = indices.length > 64 ? new boolean[indices.length] : null;
+        for (int i = 0; i < indices.length; i++) {
+            ModuleIdentifier id = interner.get(indices[i]);
+            if (predicate.test(id)) {
+                if (count++ == 0) {
+                    first = id;
+                }
+                if (large == null) {
+                    matches |= 1L << i;
+                } else {
+                    large[i] = true;
+                }
+            }
+        }
+        if (count == indices.length) {
+            return set;
+        }
+        if (count == 0) {
+            return factory.nothing();
+        }
+        if (count == 1) {
+            return factory.moduleId(first);
+        }
+        int[] result = new int[count];
+        for (int i = 0, k = 0; k < count; i++) {
+            if (large == null ? (matches & (1L << i)) != 0 : large[i]) {
+                result[k++] = indices[i];
+            }
+        }
+        return new DefaultModuleIdSetExclude(interner, result);
+    }
+
+    /**
+     * Returns the union of the given module id sets.
+     */
+    public static ModuleIdSetExclude union(ExcludeFactory factory, List<? extends ModuleIdSetExclude> sets) {
+        ModuleIdInterner interner = null;
+        int total = 0;
+        for (ModuleIdSetExclude set : sets) {
+            if (!(set instanceof DefaultModuleIdSetExclude) || (interner != null && interner != ((DefaultModuleIdSetExclude) set).getInterner())) {
+                Set<ModuleIdentifier> all = Sets.newHashSet();
+                for (ModuleIdSetExclude each : sets) {
+                    all.addAll(each.getModuleIds());
+                }
+                return factory.moduleIdSet(all);
+            }
+            interner = ((DefaultModuleIdSetExclude) set).getInterner();
+            total += ((DefaultModuleIdSetExclude) set).getIndices().length;
+        }
+        int[] merged = new int[total];
+        int offset = 0;
+        for (ModuleIdSetExclude set : sets) {
+            int[] indices = ((DefaultModuleIdSetExclude) set).getIndices();
+            System.arraycopy(indices, 0, merged, offset, indices.length);
+            offset += indices.length;
+        }
+        Arrays.sort(merged);
+        int distinct = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[distinct - 1]) {
+                merged[distinct++] = merged[i];
+            }
+        }
+        for (ModuleIdSetExclude set : sets) {
+            // a set which already contains all others is the union
+            if (((DefaultModuleIdSetExclude) set).getIndices().length == distinct) {
+                return set;
+            }
+        }
+        return new DefaultModuleIdSetExclude(interner, Arrays.copyOf(merged, distinct));
+    }
+
+    private static boolean sameInterner(ModuleIdSetExclude left, ModuleIdSetExclude right) {
+        return left instanceof DefaultModuleIdSetExclude
+            && right instanceof DefaultModuleIdSetExclude
+            && ((DefaultModuleIdSetExclude) left).getInterner() == ((DefaultModuleIdSetExclude) right).getInterner();
+    }
+
+    private static ExcludeSpec canonical(ExcludeFactory factory, Set<ModuleIdentifier> moduleIds) {
+        if (moduleIds.isEmpty()) {
+            return factory.nothing();
+        }
+        if (moduleIds.size() == 1) {
+            return factory.moduleId(moduleIds.iterator().next());
+        }
+        return factory.moduleIdSet(moduleIds);
+    }
+}
@@ -101,14 +101,18 @@ private void create(Long id, ModuleVersionIdentifier moduleVersion, ComponentSel
     public void addExtraFailures(Long rootId, Set<UnresolvedDependency> extraFailures) {
         DefaultResolvedComponentResult root = modules.get(rootId);
         for (UnresolvedDependency failure : extraFailures) {
-            ModuleVersionSelector failureSelector = failure.getSelector();
-            ModuleComponentSelector failureComponentSelector = DefaultModuleComponentSelector.newSelector(failureSelector.getModule(), failureSelector.getVersion());
-            root.addDependency(dependencyResultFactory.createUnresolvedDependency(failureComponentSelector, root, true,
-                    ComponentSelectionReasons.of(DEPENDENCY_LOCKING),
-                new ModuleVersionResolveException(failureComponentSelector, () -> "Dependency lock state out of date", failure.getProblem())));
+            root.addDependency(createExtraFailure(dependencyResultFactory, root, failure));
         }
     }
 
+    static DependencyResult createExtraFailure(CachingDependencyResultFactory dependencyResultFactory, ResolvedComponentResult root, UnresolvedDependency failure) {
+        ModuleVersionSelector failureSelector = failure.getSelector();
+        ModuleComponentSelector failureComponentSelector = DefaultModuleComponentSelector.newSelector(failureSelector.getModule(), failureSelector.getVersion());
+        return dependencyResultFactory.createUnresolvedDependency(failureComponentSelector, root, true,
+                ComponentSelectionReasons.of(DEPENDENCY_LOCKING),
+            new ModuleVersionResolveException(failureComponentSelector, () -> "Dependency lock state out of date", failure.getProblem()));
+    }
+
     private static class RootFactory implements Factory<ResolvedComponentResult> {
         private final DefaultResolvedComponentResult rootModule;
 
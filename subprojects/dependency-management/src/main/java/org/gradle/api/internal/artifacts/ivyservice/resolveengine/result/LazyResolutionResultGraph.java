@@ -0,0 +1,126 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.UnresolvedDependency;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.artifacts.result.ResolvedVariantResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ResolvedGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ResolvedGraphDependency;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index over the components and edges read from a resolution result store, which creates the
+ * {@link ResolvedComponentResult} and {@link DependencyResult} instances of the graph on demand.
+ *
+ * Only the components that are reached by traversing the graph, or looked up by module, are created.
+ * The edges of a component are created when its dependencies or dependents are first queried.
+ * Access to the created components is synchronized on this graph.
+ */
+class LazyResolutionResultGraph {
+    private final Map<Long, ResolvedGraphComponent> components = new HashMap<>();
+    private final Map<ModuleIdentifier, Long> componentsByModule = new HashMap<>();
+    private final ListMultimap<Long, ResolvedGraphDependency> outgoingEdges = ArrayListMultimap.create();
+    private final ListMultimap<Long, Long> incomingEdges = ArrayListMultimap.create();
+    private final Map<Long, LazyResolvedComponentResult> created = new HashMap<>();
+    private final CachingDependencyResultFactory dependencyResultFactory = new CachingDependencyResultFactory();
+    private Long rootId;
+    private Set<UnresolvedDependency> extraFailures = Collections.emptySet();
+
+    void visitComponent(ResolvedGraphComponent component) {
+        Long id = component.getResultId();
+        if (components.putIfAbsent(id, component) == null) {
+            componentsByModule.putIfAbsent(component.getModuleVersion().getModule(), id);
+        }
+    }
+
+    void visitOutgoingEdges(Long fromComponent, Collection<? extends ResolvedGraphDependency> dependencies) {
+        for (ResolvedGraphDependency d : dependencies) {
+            if (d.getFailure() == null) {
+                Long selected = d.getSelected();
+                if (!components.containsKey(selected)) {
+                    throw new IllegalStateException("Corrupt serialized resolution result. Cannot find selected module (" + selected + ") for " + (d.isConstraint() ? "constraint " : "") + d.getFromVariant() + " -> " + d.getRequested().getDisplayName());
+                }
+                incomingEdges.put(selected, fromComponent);
+            }
+            outgoingEdges.put(fromComponent, d);
+        }
+    }
+
+    ResolvedComponentResult complete(Long rootId, Set<UnresolvedDependency> extraFailures) {
+        this.rootId = rootId;
+        this.extraFailures = extraFailures;
+        return getComponent(rootId);
+    }
+
+    @Nullable
+    synchronized ResolvedComponentResult findComponent(ModuleIdentifier module) {
+        Long id = componentsByModule.get(module);
+        return id == null ? null : getComponent(id);
+    }
+
+    private synchronized LazyResolvedComponentResult getComponent(Long id) {
+        LazyResolvedComponentResult component = created.get(id);
+        if (component == null) {
+            component = new LazyResolvedComponentResult(this, components.get(id));
+            created.put(id, component);
+        }
+        return component;
+    }
+
+    synchronized void createDependencies(LazyResolvedComponentResult from) {
+        for (ResolvedGraphDependency d : outgoingEdges.get(from.getResultId())) {
+            DependencyResult dependencyResult;
+            if (d.getFailure() != null) {
+                dependencyResult = dependencyResultFactory.createUnresolvedDependency(d.getRequested(), from, d.isConstraint(), d.getReason(), d.getFailure());
+            } else {
+                dependencyResult = dependencyResultFactory.createResolvedDependency(d.getRequested(), from, getComponent(d.getSelected()), d.getSelectedVariant(), d.isConstraint());
+            }
+            from.addDependency(dependencyResult);
+            ResolvedVariantResult fromVariant = d.getFromVariant();
+            if (fromVariant != null) {
+                from.associateDependencyToVariant(dependencyResult, fromVariant);
+            }
+        }
+        if (from.getResultId().equals(rootId)) {
+            for (UnresolvedDependency failure : extraFailures) {
+                from.addDependency(DefaultResolutionResultBuilder.createExtraFailure(dependencyResultFactory, from, failure));
+            }
+        }
+    }
+
+    synchronized void createDependents(LazyResolvedComponentResult selected) {
+        for (Long fromId : new LinkedHashSet<>(incomingEdges.get(selected.getResultId()))) {
+            for (DependencyResult dependency : getComponent(fromId).getDependencies()) {
+                if (dependency instanceof ResolvedDependencyResult && ((ResolvedDependencyResult) dependency).getSelected() == selected) {
+                    selected.addDependent((ResolvedDependencyResult) dependency);
+                }
+            }
+        }
+    }
+}
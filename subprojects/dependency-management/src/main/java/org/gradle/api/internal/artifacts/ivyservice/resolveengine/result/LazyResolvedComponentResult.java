@@ -0,0 +1,91 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.artifacts.result.ResolvedVariantResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ResolvedGraphComponent;
+import org.gradle.api.internal.artifacts.result.DefaultResolvedComponentResult;
+import org.gradle.api.internal.artifacts.result.IndexedResolvedComponentResult;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A component of a {@link LazyResolutionResultGraph}, whose dependencies and dependents are only created when first queried.
+ */
+class LazyResolvedComponentResult extends DefaultResolvedComponentResult implements IndexedResolvedComponentResult {
+    private final LazyResolutionResultGraph graph;
+    private final Long resultId;
+    private volatile boolean dependenciesCreated;
+    private volatile boolean dependentsCreated;
+
+    LazyResolvedComponentResult(LazyResolutionResultGraph graph, ResolvedGraphComponent component) {
+        super(component.getModuleVersion(), component.getSelectionReason(), component.getComponentId(), component.getResolvedVariants(), component.getAllVariants(), component.getRepositoryName());
+        this.graph = graph;
+        this.resultId = component.getResultId();
+    }
+
+    Long getResultId() {
+        return resultId;
+    }
+
+    @Override
+    public Set<DependencyResult> getDependencies() {
+        ensureDependencies();
+        return super.getDependencies();
+    }
+
+    @Override
+    public Set<ResolvedDependencyResult> getDependents() {
+        if (!dependentsCreated) {
+            synchronized (graph) {
+                if (!dependentsCreated) {
+                    graph.createDependents(this);
+                    dependentsCreated = true;
+                }
+            }
+        }
+        return super.getDependents();
+    }
+
+    @Override
+    public List<DependencyResult> getDependenciesForVariant(ResolvedVariantResult variant) {
+        ensureDependencies();
+        return super.getDependenciesForVariant(variant);
+    }
+
+    @Nullable
+    @Override
+    public ResolvedComponentResult findComponent(ModuleIdentifier module) {
+        return graph.findComponent(module);
+    }
+
+    private void ensureDependencies() {
+        if (!dependenciesCreated) {
+            synchronized (graph) {
+                if (!dependenciesCreated) {
+                    graph.createDependencies(this);
+                    dependenciesCreated = true;
+                }
+            }
+        }
+    }
+}
@@ -206,7 +206,7 @@ private ResolvedComponentResult deserialize(Decoder decoder) {
             byte type = -1;
             Timer clock = Time.startTimer();
             try {
-                DefaultResolutionResultBuilder builder = new DefaultResolutionResultBuilder();
+                LazyResolutionResultGraph graph = new LazyResolutionResultGraph();
                 Map<Long, ComponentSelector> selectors = new HashMap<>();
                 while (true) {
                     type = decoder.readByte();
@@ -215,14 +215,14 @@ private ResolvedComponentResult deserialize(Decoder decoder) {
                         case ROOT:
                             // Last entry, complete the result
                             Long rootId = decoder.readSmallLong();
-                            builder.setRequestedAttributes(attributeContainerSerializer.read(decoder));
-                            builder.addExtraFailures(rootId, extraFailures);
-                            ResolvedComponentResult root = builder.complete(rootId).getRoot();
+                            // The requested attributes are already known to the resolution result
+                            attributeContainerSerializer.read(decoder);
+                            ResolvedComponentResult root = graph.complete(rootId, extraFailures);
                             LOG.debug("Loaded resolution results ({}) from {}", clock.getElapsed(), data);
                             return root;
                         case COMPONENT:
                             ResolvedGraphComponent component = componentResultSerializer.read(decoder);
-                            builder.visitComponent(component);
+                            graph.visitComponent(component);
                             break;
                         case SELECTOR:
                             Long id = decoder.readSmallLong();
@@ -237,7 +237,7 @@ private ResolvedComponentResult deserialize(Decoder decoder) {
                                 for (int i = 0; i < size; i++) {
                                     deps.add(dependencyResultSerializer.read(decoder, selectors, failures));
                                 }
-                                builder.visitOutgoingEdges(fromId, deps);
+                                graph.visitOutgoingEdges(fromId, deps);
                             }
                             break;
                         default:
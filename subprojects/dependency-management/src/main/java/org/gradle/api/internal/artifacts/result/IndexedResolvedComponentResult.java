@@ -0,0 +1,34 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.result;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+
+import javax.annotation.Nullable;
+
+/**
+ * A component of a resolution result which can find the other components of its graph without traversing it.
+ */
+public interface IndexedResolvedComponentResult extends ResolvedComponentResultInternal {
+
+    /**
+     * Returns the component selected for the given module in the graph this component belongs to, or {@code null} if the module is not part of the graph.
+     */
+    @Nullable
+    ResolvedComponentResult findComponent(ModuleIdentifier module);
+
+}
@@ -24,7 +24,9 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.ExternalResourceCachePolicy;
 import org.gradle.api.internal.file.temp.TemporaryFileProvider;
 import org.gradle.cache.internal.ProducerGuard;
+import org.gradle.internal.hash.ChecksumCalculatingOutputStream;
 import org.gradle.internal.hash.ChecksumService;
+import org.gradle.internal.hash.FileChecksums;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.resource.ExternalResource;
@@ -178,7 +180,7 @@ private LocallyAvailableExternalResource copyCandidateToCache(ExternalResourceNa
             if (!localChecksum.equals(remoteChecksum)) {
                 return null;
             }
-            return moveIntoCache(source, destination, fileStore, remoteMetaData);
+            return moveIntoCache(source, destination, fileStore, remoteMetaData, null);
         } finally {
             destination.delete();
         }
@@ -193,18 +195,21 @@ private LocallyAvailableExternalResource copyToCache(final ExternalResourceName
             return null;
         }
 
-        // Move into cache
+        // Move into cache, the file store and dependency verification can use the checksums calculated during the download
         try {
-            return moveIntoCache(source, downloadAction.destination, fileStore, downloadAction.metaData);
+            return moveIntoCache(source, downloadAction.destination, fileStore, downloadAction.metaData, downloadAction.checksums);
         } finally {
             downloadAction.destination.delete();
         }
     }
 
-    private LocallyAvailableExternalResource moveIntoCache(final ExternalResourceName source, final File destination, final ResourceFileStore fileStore, final ExternalResourceMetaData metaData) {
+    private LocallyAvailableExternalResource moveIntoCache(final ExternalResourceName source, final File destination, final ResourceFileStore fileStore, final ExternalResourceMetaData metaData, @Nullable FileChecksums checksums) {
         return artifactCacheLockingManager.useCache(() -> {
-            LocallyAvailableResource cachedResource = fileStore.moveIntoCache(destination);
+            LocallyAvailableResource cachedResource = checksums != null ? fileStore.moveIntoCache(destination, checksums.getSha1()) : fileStore.moveIntoCache(destination);
             File fileInFileStore = cachedResource.getFile();
+            if (checksums != null) {
+                checksumService.recordChecksums(fileInFileStore, checksums);
+            }
             cachedExternalResourceIndex.store(source.toString(), fileInFileStore, metaData);
             return fileResourceRepository.resource(fileInFileStore, source.getUri(), metaData);
         });
@@ -218,6 +223,7 @@ private class DownloadAction implements ExternalResource.ContentAndMetadataActio
         private final ExternalResourceName source;
         File destination;
         ExternalResourceMetaData metaData;
+        FileChecksums checksums;
 
         DownloadAction(ExternalResourceName source) {
             this.source = source;
@@ -231,8 +237,9 @@ public Object execute(InputStream inputStream, ExternalResourceMetaData metaData
             if (destination.getParentFile() != null) {
                 GFileUtils.mkdirs(destination.getParentFile());
             }
-            try (FileOutputStream outputStream = new FileOutputStream(destination)) {
+            try (ChecksumCalculatingOutputStream outputStream = new ChecksumCalculatingOutputStream(new FileOutputStream(destination))) {
                 IOUtils.copyLarge(inputStream, outputStream);
+                checksums = outputStream.getChecksums();
             }
             return null;
         }
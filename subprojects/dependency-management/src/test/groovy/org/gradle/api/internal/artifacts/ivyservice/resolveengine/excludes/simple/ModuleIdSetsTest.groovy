@@ -0,0 +1,132 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple
+
+import org.gradle.api.artifacts.ModuleIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleIdSetExclude
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.DefaultModuleIdentifier.newId
+
+class ModuleIdSetsTest extends Specification {
+    private final DefaultExcludeFactory factory = new DefaultExcludeFactory()
+
+    def "sets with the same module ids are equal regardless of construction order"() {
+        def one = ids("a:1", "b:1", "c:1")
+        def two = ids("c:1", "a:1", "b:1")
+
+        expect:
+        one == two
+        one.hashCode() == two.hashCode()
+        one.moduleIds == [newId("a", "1"), newId("b", "1"), newId("c", "1")] as Set
+    }
+
+    def "sets created by different factories are equal"() {
+        def other = new DefaultExcludeFactory()
+        other.moduleIdSet([newId("z", "1")] as Set)
+
+        expect:
+        ids("a:1", "b:1") == other.moduleIdSet([newId("b", "1"), newId("a", "1")] as Set)
+        ids("a:1", "b:1").hashCode() == other.moduleIdSet([newId("b", "1"), newId("a", "1")] as Set).hashCode()
+        ids("a:1", "b:1") != other.moduleIdSet([newId("a", "1"), newId("c", "1")] as Set)
+    }
+
+    def "checks membership without materializing module ids"() {
+        def set = ids("a:1", "b:1")
+
+        expect:
+        set.excludes(newId("a", "1"))
+        set.excludes(newId("b", "1"))
+        !set.excludes(newId("a", "2"))
+        !set.excludes(newId("never", "seen"))
+    }
+
+    def "intersects sets"() {
+        expect:
+        ModuleIdSets.intersect(factory, left, right) == expected
+
+        where:
+        left                        | right                       | expected
+        ids("a:1", "b:1")           | ids("c:1", "d:1")           | factory.nothing()
+        ids("a:1", "b:1")           | ids("b:1", "c:1")           | moduleId("b:1")
+        ids("a:1", "b:1", "c:1")    | ids("b:1", "c:1", "d:1")    | ids("b:1", "c:1")
+        ids("a:1", "b:1", "c:1")    | ids("a:1", "c:1")           | ids("a:1", "c:1")
+        ids("a:1", "c:1")           | ids("a:1", "b:1", "c:1")    | ids("a:1", "c:1")
+    }
+
+    def "intersection returns an operand when it is a subset of the other"() {
+        def small = ids("a:1", "b:1")
+        def large = ids("a:1", "b:1", "c:1")
+
+        expect:
+        ModuleIdSets.intersect(factory, small, large).is(small)
+        ModuleIdSets.intersect(factory, large, small).is(small)
+    }
+
+    def "retains matching module ids"() {
+        def set = ids("a:1", "a:2", "b:1", "c:1")
+
+        expect:
+        ModuleIdSets.retain(factory, set) { it.group == "a" } == ids("a:1", "a:2")
+        ModuleIdSets.retain(factory, set) { it.group == "b" } == moduleId("b:1")
+        ModuleIdSets.retain(factory, set) { it.group == "d" } == factory.nothing()
+        ModuleIdSets.retain(factory, set) { true }.is(set)
+    }
+
+    def "retains matching module ids from large sets"() {
+        def all = (0..<200).collect { "g$it:m${it % 3}" as String }
+        def set = ids(all as String[])
+
+        expect:
+        ModuleIdSets.retain(factory, set) { it.name == "m1" } == ids(all.findAll { it.endsWith(":m1") } as String[])
+    }
+
+    def "computes union of sets"() {
+        expect:
+        ModuleIdSets.union(factory, [ids("a:1", "b:1"), ids("b:1", "c:1"), ids("d:1", "a:1")]) == ids("a:1", "b:1", "c:1", "d:1")
+    }
+
+    def "union returns the set containing all others"() {
+        def large = ids("a:1", "b:1", "c:1")
+
+        expect:
+        ModuleIdSets.union(factory, [ids("a:1", "b:1"), large, ids("c:1", "b:1")]).is(large)
+    }
+
+    def "operates on sets from different factories"() {
+        def other = new DefaultExcludeFactory()
+        def foreign = other.moduleIdSet([newId("b", "1"), newId("c", "1"), newId("d", "1")] as Set)
+
+        expect:
+        ModuleIdSets.intersect(factory, ids("a:1", "b:1", "c:1"), foreign) == ids("b:1", "c:1")
+        ModuleIdSets.union(factory, [ids("a:1", "b:1"), foreign]) == ids("a:1", "b:1", "c:1", "d:1")
+    }
+
+    private ModuleIdSetExclude ids(String... ids) {
+        factory.moduleIdSet(ids.collect { moduleIdentifier(it) } as Set<ModuleIdentifier>)
+    }
+
+    private ExcludeSpec moduleId(String id) {
+        factory.moduleId(moduleIdentifier(id))
+    }
+
+    private static ModuleIdentifier moduleIdentifier(String id) {
+        def parts = id.split(":")
+        newId(parts[0], parts[1])
+    }
+}
@@ -29,6 +29,7 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.Dependen
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode
+import org.gradle.api.internal.artifacts.result.IndexedResolvedComponentResult
 import org.gradle.api.internal.attributes.AttributeDesugaring
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
@@ -215,6 +216,40 @@ class StreamingResolutionResultBuilderTest extends Specification {
 """
     }
 
+    def "components can be looked up by module"() {
+        def root = rootNode(1, "org", "root", "1.0")
+        def selector1 = selector(10, "org", "dep1", "1.0")
+        root.outgoingEdges >> [dep(selector1, 2)]
+        def dep1 = node(2, "org", "dep1", "1.0")
+        def selector2 = selector(11, "org", "dep2", "2.0")
+        dep1.outgoingEdges >> [dep(selector2, 3)]
+
+        builder.start(root)
+
+        builder.visitNode(root)
+        builder.visitNode(dep1)
+        builder.visitNode(node(3, "org", "dep2", "2.0"))
+
+        builder.visitSelector(selector1)
+        builder.visitSelector(selector2)
+
+        builder.visitEdges(root)
+        builder.visitEdges(dep1)
+
+        builder.finish(root)
+
+        when:
+        def rootComponent = builder.complete(emptySet()).root as IndexedResolvedComponentResult
+        def dep2 = rootComponent.findComponent(DefaultModuleIdentifier.newId("org", "dep2"))
+
+        then:
+        dep2.id == DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", "dep2"), "2.0")
+        dep2.dependents*.from*.id == [DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", "dep1"), "1.0")]
+        dep2.dependents.first().from.dependents.first().from.is(rootComponent)
+        rootComponent.dependencies.first().selected.dependencies.first().selected.is(dep2)
+        rootComponent.findComponent(DefaultModuleIdentifier.newId("org", "unknown")) == null
+    }
+
     private DependencyGraphEdge dep(DependencyGraphSelector selector, Long selectedId) {
         def edge = Stub(DependencyGraphEdge)
         _ * edge.selector >> selector
@@ -21,6 +21,8 @@ import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheLockingManagerS
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultExternalResourceCachePolicy
 import org.gradle.api.internal.file.temp.TemporaryFileProvider
 import org.gradle.cache.internal.ProducerGuard
+import org.gradle.internal.hash.ChecksumService
+import org.gradle.internal.hash.FileChecksums
 import org.gradle.internal.hash.Hashing
 import org.gradle.internal.resource.ExternalResource
 import org.gradle.internal.resource.ExternalResourceName
@@ -62,6 +64,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
             supplier.get()
         }
     }
+    final emptySha1 = Hashing.sha1().hashBytes(new byte[0])
     final cache = new DefaultCacheAwareExternalResourceAccessor(repository, index, timeProvider, temporaryFileProvider, cacheLockingManager, cachePolicy, producerGuard, fileRepository, TestUtil.checksumService)
 
     def "returns null when the request resource is not cached and does not exist in the remote repository"() {
@@ -131,7 +134,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         }
 
         and:
-        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * fileStore.moveIntoCache(tempFile, emptySha1) >> localResource
         1 * index.store("thing", cachedFile, metaData)
         1 * fileRepository.resource(cachedFile, location.uri, metaData) >> cachedResource
         0 * _._
@@ -333,7 +336,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         0 * _._
 
         and:
-        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * fileStore.moveIntoCache(tempFile, emptySha1) >> localResource
         1 * index.store("thing", cachedFile, remoteMetaData)
         1 * fileRepository.resource(cachedFile, location.uri, remoteMetaData) >> resultResource
         0 * _._
@@ -380,7 +383,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         0 * _._
 
         and:
-        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * fileStore.moveIntoCache(tempFile, emptySha1) >> localResource
         1 * index.store("thing", cachedFile, remoteMetaData)
         1 * fileRepository.resource(cachedFile, location.uri, remoteMetaData) >> resultResource
         0 * _._
@@ -432,9 +435,48 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         0 * _._
 
         and:
-        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * fileStore.moveIntoCache(tempFile, emptySha1) >> localResource
         1 * index.store("thing", cachedFile, remoteMetaData)
         1 * fileRepository.resource(cachedFile, location.uri, remoteMetaData) >> resultResource
         0 * _._
     }
+
+    def "records checksums calculated during download for the file in the file store only"() {
+        def checksumService = Mock(ChecksumService)
+        def cache = new DefaultCacheAwareExternalResourceAccessor(repository, index, timeProvider, temporaryFileProvider, cacheLockingManager, cachePolicy, producerGuard, fileRepository, checksumService)
+        def location = new ExternalResourceName("thing")
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def localCandidates = Mock(LocallyAvailableResourceCandidates)
+        def remoteResource = Mock(ExternalResource)
+        def metaData = Mock(ExternalResourceMetaData)
+        def localResource = new DefaultLocallyAvailableResource(cachedFile, checksumService)
+        def cachedResource = Stub(LocallyAvailableExternalResource)
+        def content = "content".bytes
+        def sha1 = Hashing.sha1().hashBytes(content)
+
+        when:
+        def result = cache.getResource(location, null, fileStore, localCandidates)
+
+        then:
+        result == cachedResource
+
+        and:
+        1 * index.lookup("thing") >> null
+        1 * localCandidates.isNone() >> true
+        1 * repository.withProgressLogging() >> progressLoggingRepo
+        1 * progressLoggingRepo.resource(location) >> remoteResource
+        _ * remoteResource.name >> "remoteResource"
+        1 * remoteResource.withContentIfPresent(_) >> { ExternalResource.ContentAndMetadataAction a ->
+            a.execute(new ByteArrayInputStream(content), metaData)
+        }
+
+        and:
+        1 * fileStore.moveIntoCache(tempFile, sha1) >> localResource
+        1 * checksumService.recordChecksums(cachedFile, { FileChecksums checksums ->
+            checksums.sha1 == sha1 && checksums.md5 == Hashing.md5().hashBytes(content)
+        })
+        1 * index.store("thing", cachedFile, metaData)
+        1 * fileRepository.resource(cachedFile, location.uri, metaData) >> cachedResource
+        0 * _._
+    }
 }
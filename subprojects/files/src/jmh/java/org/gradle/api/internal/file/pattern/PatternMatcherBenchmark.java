@@ -0,0 +1,130 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares matching paths against a set of patterns using a chain of matchers, one per pattern, and using a {@link TriePatternMatcher}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class PatternMatcherBenchmark {
+    // Ant's default excludes, which are applied to every file tree
+    private static final List<String> DEFAULT_EXCLUDE_PATTERNS = Arrays.asList(
+        "**/%*%", "**/.git", "**/.git/**", "**/.gitattributes", "**/.gitignore", "**/.gitmodules", "**/.hg", "**/.hg/**", "**/.hgignore",
+        "**/.hgsub", "**/.hgsubstate", "**/.hgtags", "**/.bzr", "**/.bzr/**", "**/.bzrignore", "**/.svn", "**/.svn/**", "**/._*",
+        "**/#*#", "**/.#*", "**/*~", "**/CVS", "**/CVS/**", "**/.cvsignore", "**/SCCS", "**/SCCS/**", "**/vssver.scc", "**/.DS_Store"
+    );
+
+    private static final List<String> SOURCE_INCLUDE_PATTERNS = Arrays.asList(
+        "**/*.java", "**/*.kt", "**/*.groovy", "**/*.properties", "**/*.xml", "**/*.json", "META-INF/**", "**/package-info.java"
+    );
+
+    public enum PatternSetType {
+        DEFAULT_EXCLUDES {
+            @Override
+            List<String> patterns() {
+                return DEFAULT_EXCLUDE_PATTERNS;
+            }
+        },
+        SOURCE_INCLUDES {
+            @Override
+            List<String> patterns() {
+                return SOURCE_INCLUDE_PATTERNS;
+            }
+        },
+        CLASS_FILES {
+            @Override
+            List<String> patterns() {
+                // Shaped like the patterns used to select the class files of changed sources
+                List<String> patterns = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    patterns.add("org/gradle/pkg" + (i % 20) + "/Type" + i + ".class");
+                    patterns.add("org/gradle/pkg" + (i % 20) + "/Type" + i + "$*.class");
+                }
+                return patterns;
+            }
+        };
+
+        abstract List<String> patterns();
+    }
+
+    @Param
+    PatternSetType patternSet;
+
+    @Param({"true", "false"})
+    boolean caseSensitive;
+
+    private PatternMatcher chain;
+    private PatternMatcher trie;
+    private String[][] paths;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<String> patterns = patternSet.patterns();
+        chain = PatternMatcher.MATCH_ALL;
+        for (String pattern : patterns) {
+            PatternMatcher matcher = PatternMatcherFactory.getPatternMatcher(false, caseSensitive, pattern);
+            chain = chain == PatternMatcher.MATCH_ALL ? matcher : chain.or(matcher);
+        }
+        trie = TriePatternMatcher.compile(false, caseSensitive, patterns);
+
+        Random random = new Random(1234);
+        String[] directories = {"src", "main", "java", "org", "gradle", "internal", "pkg3", "impl", ".git", "resources", "META-INF", "build"};
+        String[] files = {"Type12.class", "Type12$1.class", "Foo.java", "Bar.kt", "messages.properties", "Type300.class", ".DS_Store", "file~", "plugin.xml"};
+        paths = new String[10000][];
+        for (int i = 0; i < paths.length; i++) {
+            String[] path = new String[1 + random.nextInt(8)];
+            for (int j = 0; j < path.length - 1; j++) {
+                path[j] = directories[random.nextInt(directories.length)];
+            }
+            path[path.length - 1] = files[random.nextInt(files.length)];
+            paths[i] = path;
+        }
+    }
+
+    @Benchmark
+    public void chain(Blackhole blackhole) {
+        for (String[] path : paths) {
+            blackhole.consume(chain.test(path, true));
+        }
+    }
+
+    @Benchmark
+    public void trie(Blackhole blackhole) {
+        for (String[] path : paths) {
+            blackhole.consume(trie.test(path, true));
+        }
+    }
+}
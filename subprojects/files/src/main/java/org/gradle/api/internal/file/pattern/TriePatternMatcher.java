@@ -0,0 +1,211 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Splitter;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches a path against a set of patterns in a single pass, with the same result as matching it against each pattern in turn.
+ *
+ * The patterns are compiled into a trie of pattern steps, where patterns with the same leading steps share nodes.
+ * Literal steps of case sensitive patterns are looked up by segment, and all patterns continuing with {@code **}
+ * at a node share a single greedy branch, so each segment of the path is only matched against the steps that can follow the
+ * segments matched so far.
+ */
+public class TriePatternMatcher extends PatternMatcher {
+    private static final Splitter PATH_SPLITTER = Splitter.on(CharMatcher.anyOf("\\/")).omitEmptyStrings();
+    private static final PatternStep[] NO_STEPS = new PatternStep[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final boolean partialMatchDirs;
+    private final Node root;
+
+    private TriePatternMatcher(boolean partialMatchDirs, Node root) {
+        this.partialMatchDirs = partialMatchDirs;
+        this.root = root;
+    }
+
+    public static TriePatternMatcher compile(boolean partialMatchDirs, boolean caseSensitive, Iterable<String> patterns) {
+        Node root = new Node();
+        for (String pattern : patterns) {
+            add(root, caseSensitive, pattern);
+        }
+        root.compact();
+        return new TriePatternMatcher(partialMatchDirs, root);
+    }
+
+    private static void add(Node root, boolean caseSensitive, String pattern) {
+        if (pattern.length() == 0) {
+            root.end = true;
+            return;
+        }
+        // trailing / or \ assumes **, as in PatternMatcherFactory
+        if (pattern.endsWith("/") || pattern.endsWith("\\")) {
+            pattern = pattern + "**";
+        }
+        List<String> parts = PATH_SPLITTER.splitToList(pattern);
+        Node node = root;
+        int pos = 0;
+        while (pos < parts.size()) {
+            if (parts.get(pos).equals("**")) {
+                while (pos < parts.size() && parts.get(pos).equals("**")) {
+                    pos++;
+                }
+                if (pos == parts.size()) {
+                    node.anything = true;
+                    return;
+                }
+                node = node.greedyChild();
+            } else {
+                node = node.child(parts.get(pos), caseSensitive);
+                pos++;
+            }
+        }
+        node.end = true;
+    }
+
+    @Override
+    public boolean test(String[] segments, boolean isFile) {
+        if (isFile || !partialMatchDirs) {
+            return matches(root, segments, 0);
+        } else {
+            return isPrefix(root, segments, 0);
+        }
+    }
+
+    private static boolean matches(Node node, String[] segments, int index) {
+        if (node.anything) {
+            return true;
+        }
+        if (index == segments.length) {
+            if (node.end) {
+                return true;
+            }
+        } else {
+            String segment = segments[index];
+            Node literalChild = node.literalChildren.get(segment);
+            if (literalChild != null && matches(literalChild, segments, index + 1)) {
+                return true;
+            }
+            for (int i = 0; i < node.steps.length; i++) {
+                if (node.steps[i].matches(segment) && matches(node.stepChildren[i], segments, index + 1)) {
+                    return true;
+                }
+            }
+        }
+        if (node.greedyChild != null) {
+            for (int pos = segments.length; pos >= index; pos--) {
+                if (matches(node.greedyChild, segments, pos)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPrefix(Node node, String[] segments, int index) {
+        if (node.anything || node.greedyChild != null) {
+            return true;
+        }
+        if (node.literalChildren.isEmpty() && node.steps.length == 0) {
+            return false;
+        }
+        if (index == segments.length) {
+            // Might match when more segments are added
+            return true;
+        }
+        String segment = segments[index];
+        boolean lastSegment = index + 1 == segments.length;
+        Node literalChild = node.literalChildren.get(segment);
+        if (literalChild != null && (lastSegment || isPrefix(literalChild, segments, index + 1))) {
+            return true;
+        }
+        for (int i = 0; i < node.steps.length; i++) {
+            if (node.steps[i].matches(segment) && (lastSegment || isPrefix(node.stepChildren[i], segments, index + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Node {
+        private boolean end;
+        private boolean anything;
+        private Map<String, Node> literalChildren = new HashMap<>();
+        private Map<String, Node> stepChildrenBySource = new LinkedHashMap<>();
+        private Map<String, PatternStep> stepsBySource = new HashMap<>();
+        private PatternStep[] steps = NO_STEPS;
+        private Node[] stepChildren = NO_NODES;
+        @Nullable
+        private Node greedyChild;
+
+        Node child(String source, boolean caseSensitive) {
+            if (caseSensitive && isLiteral(source)) {
+                return literalChildren.computeIfAbsent(source, key -> new Node());
+            }
+            return stepChildrenBySource.computeIfAbsent(source, key -> {
+                stepsBySource.put(key, PatternStepFactory.getStep(key, caseSensitive));
+                return new Node();
+            });
+        }
+
+        Node greedyChild() {
+            if (greedyChild == null) {
+                greedyChild = new Node();
+            }
+            return greedyChild;
+        }
+
+        void compact() {
+            if (literalChildren.isEmpty()) {
+                literalChildren = Collections.emptyMap();
+            }
+            for (Node child : literalChildren.values()) {
+                child.compact();
+            }
+            if (!stepChildrenBySource.isEmpty()) {
+                List<PatternStep> stepList = new ArrayList<>(stepChildrenBySource.size());
+                List<Node> childList = new ArrayList<>(stepChildrenBySource.size());
+                for (Map.Entry<String, Node> entry : stepChildrenBySource.entrySet()) {
+                    stepList.add(stepsBySource.get(entry.getKey()));
+                    childList.add(entry.getValue());
+                    entry.getValue().compact();
+                }
+                steps = stepList.toArray(NO_STEPS);
+                stepChildren = childList.toArray(NO_NODES);
+            }
+            stepChildrenBySource = Collections.emptyMap();
+            stepsBySource = Collections.emptyMap();
+            if (greedyChild != null) {
+                greedyChild.compact();
+            }
+        }
+
+        private static boolean isLiteral(String source) {
+            return source.indexOf('*') < 0 && source.indexOf('?') < 0;
+        }
+    }
+}
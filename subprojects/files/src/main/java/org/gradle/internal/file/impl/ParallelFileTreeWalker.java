@@ -0,0 +1,319 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.file.impl;
+
+import com.google.common.base.Throwables;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Walks a file tree in the same way as {@link Files#walkFileTree(Path, Set, int, FileVisitor)}, but lists directories concurrently.
+ *
+ * The visitor is called on the walking thread, and the children of a directory are visited in the order of their names,
+ * so the walk is deterministic. When the visitor enters a directory, the sub-directories of that directory are listed
+ * in the background, including the attributes of their children, ahead of the visitor reaching them.
+ * Only the sub-directories of entered directories are listed, so skipping a subtree does not cause it to be walked.
+ * Listings that have not completed yet are cancelled when the visitor skips the remaining siblings or terminates the walk.
+ */
+public class ParallelFileTreeWalker {
+    /**
+     * Enables walking file trees with the shared parallel walker in {@link #walkFileTree(Path, Set, int, FileVisitor)}.
+     */
+    public static final String PARALLEL_WALK_PROPERTY = "org.gradle.internal.file.walk.parallel";
+
+    private static final int MAX_PREFETCHED_DIRECTORIES = 64;
+    private static final Comparator<Entry> BY_NAME = Comparator.comparing(entry -> entry.name);
+
+    private final Executor executor;
+
+    public ParallelFileTreeWalker(Executor executor) {
+        this.executor = executor;
+    }
+
+    public static boolean isParallelWalkEnabled() {
+        return Boolean.getBoolean(PARALLEL_WALK_PROPERTY);
+    }
+
+    /**
+     * Walks the file tree with the shared parallel walker when parallel walking is enabled, or with {@link Files#walkFileTree(Path, Set, int, FileVisitor)} otherwise.
+     */
+    public static void walkFileTree(Path start, Set<FileVisitOption> options, int maxDepth, FileVisitor<? super Path> visitor) throws IOException {
+        if (isParallelWalkEnabled()) {
+            SharedWalker.INSTANCE.walk(start, options, maxDepth, visitor);
+        } else {
+            Files.walkFileTree(start, options, maxDepth, visitor);
+        }
+    }
+
+    public void walk(Path start, Set<FileVisitOption> options, int maxDepth, FileVisitor<? super Path> visitor) throws IOException {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("'maxDepth' is negative");
+        }
+        new Walk(options.contains(FileVisitOption.FOLLOW_LINKS), maxDepth, visitor).visit(Entry.of(start, options.contains(FileVisitOption.FOLLOW_LINKS)), 0, null);
+    }
+
+    private class Walk {
+        private final boolean followLinks;
+        private final int maxDepth;
+        private final FileVisitor<? super Path> visitor;
+        private final Deque<DirectoryNode> ancestors = new ArrayDeque<>();
+
+        Walk(boolean followLinks, int maxDepth, FileVisitor<? super Path> visitor) {
+            this.followLinks = followLinks;
+            this.maxDepth = maxDepth;
+            this.visitor = visitor;
+        }
+
+        /**
+         * Visits an entry, returning either {@link FileVisitResult#CONTINUE}, {@link FileVisitResult#SKIP_SIBLINGS} or {@link FileVisitResult#TERMINATE}.
+         */
+        FileVisitResult visit(Entry entry, int depth, @Nullable CompletableFuture<DirectoryListing> prefetchedListing) throws IOException {
+            Path file = entry.path;
+            if (entry.failure != null) {
+                return continueOnSkipSubtree(visitor.visitFileFailed(file, entry.failure));
+            }
+            BasicFileAttributes attributes = entry.attributes;
+            if (depth >= maxDepth || !attributes.isDirectory()) {
+                return continueOnSkipSubtree(visitor.visitFile(file, attributes));
+            }
+            if (followLinks && wouldLoop(file, attributes.fileKey())) {
+                return continueOnSkipSubtree(visitor.visitFileFailed(file, new FileSystemLoopException(file.toString())));
+            }
+
+            DirectoryListing listing = prefetchedListing != null ? await(prefetchedListing) : DirectoryListing.of(file, followLinks);
+            if (listing.openFailure != null) {
+                return continueOnSkipSubtree(visitor.visitFileFailed(file, listing.openFailure));
+            }
+            FileVisitResult result = visitor.preVisitDirectory(file, attributes);
+            if (result != FileVisitResult.CONTINUE) {
+                return continueOnSkipSubtree(result);
+            }
+
+            ancestors.push(new DirectoryNode(file, attributes.fileKey()));
+            try {
+                if (visitChildren(listing.children, depth + 1) == FileVisitResult.TERMINATE) {
+                    return FileVisitResult.TERMINATE;
+                }
+            } finally {
+                ancestors.pop();
+            }
+
+            result = visitor.postVisitDirectory(file, listing.iterationFailure);
+            // Skipping siblings of a directory after it has been visited is the same as continuing
+            return result == FileVisitResult.TERMINATE ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+        }
+
+        private FileVisitResult visitChildren(List<Entry> children, int depth) throws IOException {
+            @SuppressWarnings("unchecked")
+            CompletableFuture<DirectoryListing>[] listings = new CompletableFuture[children.size()];
+            int nextToPrefetch = 0;
+            int prefetched = 0;
+            try {
+                for (int i = 0; i < children.size(); i++) {
+                    while (nextToPrefetch < children.size() && prefetched < MAX_PREFETCHED_DIRECTORIES) {
+                        Entry candidate = children.get(nextToPrefetch);
+                        if (depth < maxDepth && candidate.isDirectory()) {
+                            listings[nextToPrefetch] = CompletableFuture.supplyAsync(() -> DirectoryListing.of(candidate.path, followLinks), executor);
+                            prefetched++;
+                        }
+                        nextToPrefetch++;
+                    }
+                    CompletableFuture<DirectoryListing> listing = listings[i];
+                    if (listing != null) {
+                        listings[i] = null;
+                        prefetched--;
+                    }
+                    FileVisitResult result = visit(children.get(i), depth, listing);
+                    if (result != FileVisitResult.CONTINUE) {
+                        return result;
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            } finally {
+                // The remaining siblings are not visited, so their listings are not needed anymore
+                for (CompletableFuture<DirectoryListing> listing : listings) {
+                    if (listing != null) {
+                        listing.cancel(false);
+                    }
+                }
+            }
+        }
+
+        private boolean wouldLoop(Path dir, @Nullable Object key) {
+            for (DirectoryNode ancestor : ancestors) {
+                if (key != null && ancestor.key != null) {
+                    if (key.equals(ancestor.key)) {
+                        return true;
+                    }
+                } else {
+                    try {
+                        if (Files.isSameFile(dir, ancestor.directory)) {
+                            return true;
+                        }
+                    } catch (IOException | SecurityException ignored) {
+                        // Not the same file as far as we can tell
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private static FileVisitResult continueOnSkipSubtree(FileVisitResult result) {
+        return result == FileVisitResult.SKIP_SUBTREE ? FileVisitResult.CONTINUE : result;
+    }
+
+    private static DirectoryListing await(CompletableFuture<DirectoryListing> listing) {
+        try {
+            return listing.join();
+        } catch (CompletionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
+    private static class Entry {
+        private final Path path;
+        private final String name;
+        @Nullable
+        private final BasicFileAttributes attributes;
+        @Nullable
+        private final IOException failure;
+
+        private Entry(Path path, @Nullable BasicFileAttributes attributes, @Nullable IOException failure) {
+            this.path = path;
+            Path fileName = path.getFileName();
+            this.name = fileName == null ? "" : fileName.toString();
+            this.attributes = attributes;
+            this.failure = failure;
+        }
+
+        static Entry of(Path path, boolean followLinks) {
+            try {
+                return new Entry(path, readAttributes(path, followLinks), null);
+            } catch (IOException e) {
+                return new Entry(path, null, e);
+            }
+        }
+
+        private static BasicFileAttributes readAttributes(Path path, boolean followLinks) throws IOException {
+            if (!followLinks) {
+                return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            }
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // Same as Files.walkFileTree(), use the attributes of the link when the target can't be read
+                return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            }
+        }
+
+        boolean isDirectory() {
+            return attributes != null && attributes.isDirectory();
+        }
+    }
+
+    private static class DirectoryListing {
+        private final List<Entry> children;
+        @Nullable
+        private final IOException openFailure;
+        @Nullable
+        private final IOException iterationFailure;
+
+        private DirectoryListing(List<Entry> children, @Nullable IOException openFailure, @Nullable IOException iterationFailure) {
+            this.children = children;
+            this.openFailure = openFailure;
+            this.iterationFailure = iterationFailure;
+        }
+
+        static DirectoryListing of(Path dir, boolean followLinks) {
+            DirectoryStream<Path> stream;
+            try {
+                stream = Files.newDirectoryStream(dir);
+            } catch (IOException e) {
+                return new DirectoryListing(new ArrayList<>(), e, null);
+            }
+            List<Entry> children = new ArrayList<>();
+            IOException iterationFailure = null;
+            try {
+                for (Path child : stream) {
+                    children.add(Entry.of(child, followLinks));
+                }
+            } catch (DirectoryIteratorException e) {
+                iterationFailure = e.getCause();
+            } finally {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    if (iterationFailure == null) {
+                        iterationFailure = e;
+                    } else {
+                        iterationFailure.addSuppressed(e);
+                    }
+                }
+            }
+            children.sort(BY_NAME);
+            return new DirectoryListing(children, null, iterationFailure);
+        }
+    }
+
+    private static class DirectoryNode {
+        private final Path directory;
+        @Nullable
+        private final Object key;
+
+        DirectoryNode(Path directory, @Nullable Object key) {
+            this.directory = directory;
+            this.key = key;
+        }
+    }
+
+    private static class SharedWalker {
+        private static final ParallelFileTreeWalker INSTANCE = new ParallelFileTreeWalker(new ForkJoinPool(
+            Math.min(32, 2 * Runtime.getRuntime().availableProcessors()),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("File tree walker " + thread.getPoolIndex());
+                return thread;
+            },
+            null,
+            false
+        ));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern
+
+import spock.lang.Specification
+
+class TriePatternMatcherTest extends Specification {
+    static final List<String> PATTERNS = [
+        "", "**", "a/**", "**/b", "a/b", "a\\b/", "a*/b", "*/c/**", "**/c/d", "a/**/d", "A/b", "a?/*", "**/*.java", "**/.git/**", "x/**/**/y"
+    ]
+    static final List<String[]> PATHS = [
+        [], ["a"], ["b"], ["A"], ["a", "b"], ["A", "B"], ["ab", "b"], ["a", "c"], ["x", "c", "e"], ["c", "d"], ["a", "c", "d"],
+        ["a", "x", "y", "d"], ["src", "Foo.java"], ["src", ".git", "config"], [".git"], ["x", "y"], ["x", "z", "y"], ["ab", "c"]
+    ].collect { it as String[] }
+
+    def "matches the same paths as the patterns matched one at a time"() {
+        def trie = TriePatternMatcher.compile(partialMatchDirs, caseSensitive, patterns)
+        def chain = patterns.collect { PatternMatcherFactory.getPatternMatcher(partialMatchDirs, caseSensitive, it) }.inject { a, b -> a.or(b) }
+
+        expect:
+        PATHS.each { path ->
+            [true, false].each { file ->
+                assert trie.test(path, file) == chain.test(path, file): "${path as List} (file: $file)"
+            }
+        }
+
+        where:
+        [partialMatchDirs, caseSensitive, patterns] << [[true, false], [true, false], (2..PATTERNS.size()).collect { PATTERNS.subList(it - 2, it) } + [PATTERNS]].combinations()
+    }
+
+    def "matches literal segments"() {
+        def trie = TriePatternMatcher.compile(false, true, ["a/b", "a/c", "d"])
+
+        expect:
+        trie.test(["a", "b"] as String[], true)
+        trie.test(["a", "c"] as String[], true)
+        trie.test(["d"] as String[], true)
+        !trie.test(["a"] as String[], true)
+        !trie.test(["a", "d"] as String[], true)
+        !trie.test(["A", "b"] as String[], true)
+    }
+
+    def "matches literal segments ignoring case"() {
+        def trie = TriePatternMatcher.compile(false, false, ["a/b", "a/c"])
+
+        expect:
+        trie.test(["A", "b"] as String[], true)
+        trie.test(["a", "C"] as String[], true)
+        !trie.test(["a", "d"] as String[], true)
+    }
+
+    def "directory is accepted when it is a prefix of a pattern"() {
+        def trie = TriePatternMatcher.compile(true, true, ["a/b/c", "d/*/e"])
+
+        expect:
+        trie.test([] as String[], false)
+        trie.test(["a"] as String[], false)
+        trie.test(["a", "b"] as String[], false)
+        trie.test(["d", "x"] as String[], false)
+        !trie.test(["b"] as String[], false)
+        !trie.test(["a", "c"] as String[], false)
+        !trie.test(["a", "b"] as String[], true)
+    }
+
+    def "greedy patterns match at any depth"() {
+        def trie = TriePatternMatcher.compile(false, true, ["**/.git/**", "**/*~", "**/CVS"])
+
+        expect:
+        trie.test([".git"] as String[], false)
+        trie.test(["a", ".git", "config"] as String[], true)
+        trie.test(["a", "b", "file~"] as String[], true)
+        trie.test(["CVS"] as String[], false)
+        !trie.test(["a", "CVS", "b"] as String[], true)
+        !trie.test(["a", "b"] as String[], true)
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.file.impl
+
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.nio.file.FileVisitOption
+import java.nio.file.FileVisitResult
+import java.nio.file.FileVisitor
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.BasicFileAttributes
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+class ParallelFileTreeWalkerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    ExecutorService executor = Executors.newFixedThreadPool(4)
+    ParallelFileTreeWalker walker = new ParallelFileTreeWalker(executor)
+    TestFile root
+
+    def setup() {
+        root = tmpDir.createDir("root")
+        root.createFile("b/d/file2")
+        root.createFile("b/c/file1")
+        root.createFile("a")
+        root.createDir("e")
+        root.createFile("b/file3")
+    }
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "visits entries in order of their names"() {
+        when:
+        def events = walk()
+
+        then:
+        events == [
+            "pre root",
+            "file a",
+            "pre b",
+            "pre c",
+            "file file1",
+            "post c",
+            "pre d",
+            "file file2",
+            "post d",
+            "file file3",
+            "post b",
+            "pre e",
+            "post e",
+            "post root"
+        ]
+    }
+
+    def "visits the same entries as Files.walkFileTree()"() {
+        given:
+        def expected = new Recorder()
+        Files.walkFileTree(root.toPath(), EnumSet.noneOf(FileVisitOption), maxDepth, expected)
+
+        expect:
+        walk(maxDepth).sort() == expected.events.sort()
+
+        where:
+        maxDepth << [0, 1, 2, Integer.MAX_VALUE]
+    }
+
+    def "does not visit skipped subtrees"() {
+        when:
+        def events = walk(Integer.MAX_VALUE) { event -> event == "pre b" ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE }
+
+        then:
+        events == ["pre root", "file a", "pre b", "pre e", "post e", "post root"]
+    }
+
+    def "skipping siblings of a file finishes the directory"() {
+        when:
+        def events = walk(Integer.MAX_VALUE) { event -> event == "file a" ? FileVisitResult.SKIP_SIBLINGS : FileVisitResult.CONTINUE }
+
+        then:
+        events == ["pre root", "file a", "post root"]
+
+        when:
+        events = walk(Integer.MAX_VALUE) { event -> event == "pre c" ? FileVisitResult.SKIP_SIBLINGS : FileVisitResult.CONTINUE }
+
+        then:
+        events == ["pre root", "file a", "pre b", "pre c", "post b", "pre e", "post e", "post root"]
+    }
+
+    def "stops walking when terminated"() {
+        when:
+        def events = walk(Integer.MAX_VALUE) { event -> event == "file file1" ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE }
+
+        then:
+        events == ["pre root", "file a", "pre b", "pre c", "file file1"]
+    }
+
+    def "does not wait for listings of the remaining siblings when skipping siblings or terminating"() {
+        given:
+        def pending = []
+        walker = new ParallelFileTreeWalker({ Runnable task -> pending << task })
+
+        when:
+        def events = walk(Integer.MAX_VALUE) { event -> event == "pre root" ? FileVisitResult.CONTINUE : result }
+
+        then:
+        events == expected
+        pending.size() == 2
+
+        where:
+        result                        | expected
+        FileVisitResult.SKIP_SIBLINGS | ["pre root", "file a", "post root"]
+        FileVisitResult.TERMINATE     | ["pre root", "file a"]
+    }
+
+    def "visits a file as root"() {
+        expect:
+        def recorder = new Recorder()
+        walker.walk(root.file("a").toPath(), EnumSet.noneOf(FileVisitOption), Integer.MAX_VALUE, recorder)
+        recorder.events == ["file a"]
+    }
+
+    def "reports missing root"() {
+        expect:
+        def recorder = new Recorder()
+        walker.walk(root.file("missing").toPath(), EnumSet.noneOf(FileVisitOption), Integer.MAX_VALUE, recorder)
+        recorder.events == ["failed missing NoSuchFileException"]
+    }
+
+    @Requires(TestPrecondition.SYMLINKS)
+    def "reports loops when following links"() {
+        given:
+        root.file("b/d/loop").createLink(root.file("b"))
+
+        when:
+        def recorder = new Recorder()
+        walker.walk(root.toPath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, recorder)
+
+        then:
+        recorder.events.contains("failed loop FileSystemLoopException")
+
+        when:
+        recorder = new Recorder()
+        walker.walk(root.toPath(), EnumSet.noneOf(FileVisitOption), Integer.MAX_VALUE, recorder)
+
+        then:
+        recorder.events.contains("file loop")
+    }
+
+    private List<String> walk(int maxDepth = Integer.MAX_VALUE, Closure<FileVisitResult> result = { FileVisitResult.CONTINUE }) {
+        def recorder = new Recorder(result)
+        walker.walk(root.toPath(), EnumSet.noneOf(FileVisitOption), maxDepth, recorder)
+        return recorder.events
+    }
+
+    private static class Recorder implements FileVisitor<Path> {
+        final List<String> events = []
+        final Closure<FileVisitResult> result
+
+        Recorder(Closure<FileVisitResult> result = { FileVisitResult.CONTINUE }) {
+            this.result = result
+        }
+
+        @Override
+        FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            record("pre ${dir.fileName}")
+        }
+
+        @Override
+        FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            record("file ${file.fileName}")
+        }
+
+        @Override
+        FileVisitResult visitFileFailed(Path file, IOException exc) {
+            record("failed ${file.fileName} ${exc.class.simpleName}")
+        }
+
+        @Override
+        FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+            record("post ${dir.fileName}")
+        }
+
+        private FileVisitResult record(String event) {
+            events.add(event)
+            return result.call(event)
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Output stream decorator that calculates all the checksums supported by {@link ChecksumService} for the data written to the stream,
+ * so that content can be checksummed while it is being written rather than by reading it back.
+ */
+public final class ChecksumCalculatingOutputStream extends FilterOutputStream {
+    private final PrimitiveHasher md5 = Hashing.md5().newPrimitiveHasher();
+    private final PrimitiveHasher sha1 = Hashing.sha1().newPrimitiveHasher();
+    private final PrimitiveHasher sha256 = Hashing.sha256().newPrimitiveHasher();
+    private final PrimitiveHasher sha512 = Hashing.sha512().newPrimitiveHasher();
+    private FileChecksums checksums;
+
+    public ChecksumCalculatingOutputStream(OutputStream out) {
+        super(checkNotNull(out));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        byte value = (byte) b;
+        md5.putByte(value);
+        sha1.putByte(value);
+        sha256.putByte(value);
+        sha512.putByte(value);
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) throws IOException {
+        md5.putBytes(bytes, off, len);
+        sha1.putBytes(bytes, off, len);
+        sha256.putBytes(bytes, off, len);
+        sha512.putBytes(bytes, off, len);
+        out.write(bytes, off, len);
+    }
+
+    /**
+     * Returns the checksums of the data written to the stream. No more data can be written once this method has been called.
+     */
+    public FileChecksums getChecksums() {
+        if (checksums == null) {
+            checksums = new FileChecksums(md5.hash(), sha1.hash(), sha256.hash(), sha512.hash());
+        }
+        return checksums;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -27,4 +27,11 @@ public interface ChecksumService {
     HashCode sha512(File file);
 
     HashCode hash(File src, String algorithm);
+
+    /**
+     * Records the checksums of the given file, which were calculated while the file was written, so that they don't need to be calculated by reading the file again.
+     * The checksums are only used as long as the file is not modified.
+     */
+    default void recordChecksums(File file, FileChecksums checksums) {
+    }
 }
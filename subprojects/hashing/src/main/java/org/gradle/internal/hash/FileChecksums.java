@@ -0,0 +1,50 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+/**
+ * The checksums of some content, calculated with each of the algorithms supported by {@link ChecksumService}.
+ */
+public final class FileChecksums {
+    private final HashCode md5;
+    private final HashCode sha1;
+    private final HashCode sha256;
+    private final HashCode sha512;
+
+    public FileChecksums(HashCode md5, HashCode sha1, HashCode sha256, HashCode sha512) {
+        this.md5 = md5;
+        this.sha1 = sha1;
+        this.sha256 = sha256;
+        this.sha512 = sha512;
+    }
+
+    public HashCode getMd5() {
+        return md5;
+    }
+
+    public HashCode getSha1() {
+        return sha1;
+    }
+
+    public HashCode getSha256() {
+        return sha256;
+    }
+
+    public HashCode getSha512() {
+        return sha512;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import spock.lang.Specification
+
+class ChecksumCalculatingOutputStreamTest extends Specification {
+    def 'calculates all checksums of the written content'() {
+        given:
+        def content = ('a'..'z').join().bytes * 1000
+        def target = new ByteArrayOutputStream()
+
+        when:
+        def stream = new ChecksumCalculatingOutputStream(target)
+        stream.write(content[0])
+        stream.write(content, 1, content.length - 1)
+        stream.close()
+        def checksums = stream.checksums
+
+        then:
+        target.toByteArray() == content
+        checksums.md5 == Hashing.md5().hashBytes(content)
+        checksums.sha1 == Hashing.sha1().hashBytes(content)
+        checksums.sha256 == Hashing.sha256().hashBytes(content)
+        checksums.sha512 == Hashing.sha512().hashBytes(content)
+
+        and:
+        stream.checksums.is(checksums)
+    }
+}
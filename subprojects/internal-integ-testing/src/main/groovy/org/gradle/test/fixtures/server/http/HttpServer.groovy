@@ -43,6 +43,7 @@ import org.slf4j.LoggerFactory
 import javax.servlet.ServletException
 import javax.servlet.http.HttpServletRequest
 import javax.servlet.http.HttpServletResponse
+import java.util.concurrent.CopyOnWriteArrayList
 import java.util.concurrent.CountDownLatch
 import java.util.concurrent.TimeUnit
 import java.util.zip.GZIPOutputStream
@@ -85,6 +86,11 @@ class HttpServer extends ServerWithExpectations implements HttpServerFixture {
     boolean sendLastModified = true
     boolean sendSha1Header = false
 
+    /**
+     * The byte ranges served by resources added with {@link #allowGetOrHeadWithRanges(String, File)}.
+     */
+    final List<String> servedRanges = new CopyOnWriteArrayList<String>()
+
     void beforeHandle(org.gradle.api.Action<HttpServletRequest> r) {
         beforeHandle = r
     }
@@ -155,6 +161,13 @@ class HttpServer extends ServerWithExpectations implements HttpServerFixture {
         allow(path, true, ['GET', 'HEAD'], revalidateFileHandler(path, srcFile))
     }
 
+    /**
+     * Adds a given file at the given URL, honouring single byte range requests for the current entity tag of the file.
+     */
+    void allowGetOrHeadWithRanges(String path, File srcFile) {
+        allow(path, false, ['GET', 'HEAD'], new SendFileRangesAction(srcFile))
+    }
+
     /**
      * Adds a given file at the given URL with the given credentials. The source file can be either a file or a directory.
      */
@@ -241,6 +254,45 @@ class HttpServer extends ServerWithExpectations implements HttpServerFixture {
         }
     }
 
+    class SendFileRangesAction extends ActionSupport {
+        private final File srcFile
+
+        SendFileRangesAction(File srcFile) {
+            super("return byte ranges of $srcFile.name")
+            this.srcFile = srcFile
+        }
+
+        void handle(HttpServletRequest request, HttpServletResponse response) {
+            if (beforeHandle) {
+                beforeHandle.execute(request)
+            }
+            def content = srcFile.bytes
+            def etag = '"' + Hashing.sha1().hashBytes(content) + '"'
+            response.setHeader(HttpHeader.ACCEPT_RANGES.asString(), "bytes")
+            response.setHeader(HttpHeader.ETAG.asString(), etag)
+            if (sendSha1Header) {
+                response.addHeader("X-Checksum-Sha1", Hashing.sha1().hashBytes(content).toZeroPaddedString(Hashing.sha1().hexDigits))
+            }
+            def range = request.getHeader(HttpHeader.RANGE.asString())
+            def ifRange = request.getHeader(HttpHeader.IF_RANGE.asString())
+            def matcher = range =~ /bytes=(\d+)-(\d+)/
+            if (range != null && (ifRange == null || ifRange == etag) && matcher.matches()) {
+                int first = matcher.group(1) as int
+                int last = Math.min(matcher.group(2) as int, content.length - 1)
+                servedRanges << "$first-$last".toString()
+                response.status = HttpStatus.PARTIAL_CONTENT_206
+                response.setHeader(HttpHeader.CONTENT_RANGE.asString(), "bytes $first-$last/$content.length")
+                response.setContentLength(last - first + 1)
+                response.outputStream.write(content, first, last - first + 1)
+            } else {
+                response.setContentLength(content.length)
+                if (request.method == 'GET') {
+                    response.outputStream.write(content)
+                }
+            }
+        }
+    }
+
     /**
      * Adds a broken resource at the given URL.
      */
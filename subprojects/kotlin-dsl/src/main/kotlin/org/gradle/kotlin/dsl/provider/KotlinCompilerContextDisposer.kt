@@ -20,11 +20,12 @@ import org.gradle.api.invocation.Gradle
 import org.gradle.internal.InternalBuildAdapter
 import org.gradle.internal.concurrent.Stoppable
 import org.gradle.internal.event.ListenerManager
-import org.gradle.kotlin.dsl.support.disposeKotlinCompilerContext
+import org.gradle.kotlin.dsl.support.kotlinCompilerSession
 
 
 /**
- * Disposes Kotlin compiler environment once all scripts are compiled.
+ * Notifies the daemon-wide Kotlin compiler session once all scripts of a build are compiled,
+ * so the compiler environment gets disposed after it stayed unused for a few builds.
  */
 class KotlinCompilerContextDisposer(
     private val listenerManager: ListenerManager
@@ -39,6 +40,6 @@ class KotlinCompilerContextDisposer(
     }
 
     override fun projectsEvaluated(gradle: Gradle) {
-        disposeKotlinCompilerContext()
+        kotlinCompilerSession.onBuildConfigured()
     }
 }
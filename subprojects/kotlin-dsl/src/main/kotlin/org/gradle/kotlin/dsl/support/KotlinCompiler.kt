@@ -169,24 +169,26 @@ fun compileKotlinScriptModuleTo(
     classPath: Iterable<File>,
     messageCollector: LoggingMessageCollector
 ) {
-    withRootDisposable {
-        withCompilationExceptionHandler(messageCollector) {
-            val configuration = compilerConfigurationFor(messageCollector).apply {
-                put(RETAIN_OUTPUT_IN_MEMORY, false)
-                put(OUTPUT_DIRECTORY, outputDirectory)
-                setModuleName(moduleName)
-                addScriptingCompilerComponents()
-                addScriptDefinition(scriptDef)
-                scriptFiles.forEach { addKotlinSourceRoot(it) }
-                classPath.forEach { addJvmClasspathRoot(it) }
-            }
+    kotlinCompilerSession.compile(classPath) {
+        withRootDisposable {
+            withCompilationExceptionHandler(messageCollector) {
+                val configuration = compilerConfigurationFor(messageCollector).apply {
+                    put(RETAIN_OUTPUT_IN_MEMORY, false)
+                    put(OUTPUT_DIRECTORY, outputDirectory)
+                    setModuleName(moduleName)
+                    addScriptingCompilerComponents()
+                    addScriptDefinition(scriptDef)
+                    scriptFiles.forEach { addKotlinSourceRoot(it) }
+                    classPath.forEach { addJvmClasspathRoot(it) }
+                }
 
-            val environment = kotlinCoreEnvironmentFor(configuration).apply {
-                HasImplicitReceiverCompilerPlugin.apply(project)
-            }
+                val environment = kotlinCoreEnvironmentFor(configuration).apply {
+                    HasImplicitReceiverCompilerPlugin.apply(project)
+                }
 
-            compileBunchOfSources(environment)
-                || throw ScriptCompilationException(messageCollector.errors)
+                compileBunchOfSources(environment)
+                    || throw ScriptCompilationException(messageCollector.errors)
+            }
         }
     }
 }
@@ -212,22 +214,23 @@ fun compileToDirectory(
     sourceFiles: Iterable<File>,
     logger: Logger,
     classPath: Iterable<File>
-): Boolean {
-
-    withRootDisposable {
-        withMessageCollectorFor(logger) { messageCollector ->
-            val configuration = compilerConfigurationFor(messageCollector).apply {
-                addKotlinSourceRoots(sourceFiles.map { it.canonicalPath })
-                put(OUTPUT_DIRECTORY, outputDirectory)
-                setModuleName(moduleName)
-                classPath.forEach { addJvmClasspathRoot(it) }
-                addJvmClasspathRoot(kotlinStdlibJar)
+): Boolean =
+
+    kotlinCompilerSession.compile(classPath + kotlinStdlibJar) {
+        withRootDisposable {
+            withMessageCollectorFor(logger) { messageCollector ->
+                val configuration = compilerConfigurationFor(messageCollector).apply {
+                    addKotlinSourceRoots(sourceFiles.map { it.canonicalPath })
+                    put(OUTPUT_DIRECTORY, outputDirectory)
+                    setModuleName(moduleName)
+                    classPath.forEach { addJvmClasspathRoot(it) }
+                    addJvmClasspathRoot(kotlinStdlibJar)
+                }
+                val environment = kotlinCoreEnvironmentFor(configuration)
+                compileBunchOfSources(environment)
             }
-            val environment = kotlinCoreEnvironmentFor(configuration)
-            return compileBunchOfSources(environment)
         }
     }
-}
 
 
 private
@@ -290,26 +293,80 @@ inline fun <T> ignoringOutputOf(action: () -> T): T =
 
 
 private
-inline fun <T> redirectingOutputTo(noinline outputStream: () -> OutputStream, action: () -> T): T =
-    redirecting(System.err, System::setErr, outputStream()) {
-        redirecting(System.out, System::setOut, outputStream()) {
-            action()
-        }
+inline fun <T> redirectingOutputTo(noinline outputStream: () -> OutputStream, action: () -> T): T {
+    val out = PrintStream(outputStream(), true)
+    val err = PrintStream(outputStream(), true)
+    CompilerOutputRouter.enter(out, err)
+    try {
+        return action()
+    } finally {
+        CompilerOutputRouter.exit()
+        out.flush()
+        err.flush()
     }
+}
 
 
+/**
+ * Routes what the compiler writes to [System.out] and [System.err] to the streams of the compilation
+ * running on the current thread, so concurrent compilations don't redirect each other's output.
+ *
+ * Threads not compiling anything keep writing to the original streams.
+ */
 private
-inline fun <T> redirecting(
-    stream: PrintStream,
-    set: (PrintStream) -> Unit,
-    to: OutputStream,
-    action: () -> T
-): T = try {
-    set(PrintStream(to, true))
-    action()
-} finally {
-    set(stream)
-    to.flush()
+object CompilerOutputRouter {
+
+    private
+    val targets = ThreadLocal<Pair<PrintStream, PrintStream>>()
+
+    private
+    var compilations = 0
+
+    private
+    lateinit var originalOut: PrintStream
+
+    private
+    lateinit var originalErr: PrintStream
+
+    @Synchronized
+    fun enter(out: PrintStream, err: PrintStream) {
+        targets.set(out to err)
+        if (compilations++ == 0) {
+            originalOut = System.out
+            originalErr = System.err
+            System.setOut(routingStream(originalOut) { first })
+            System.setErr(routingStream(originalErr) { second })
+        }
+    }
+
+    @Synchronized
+    fun exit() {
+        targets.remove()
+        if (--compilations == 0) {
+            System.out.flush()
+            System.err.flush()
+            System.setOut(originalOut)
+            System.setErr(originalErr)
+        }
+    }
+
+    private
+    fun routingStream(original: PrintStream, target: Pair<PrintStream, PrintStream>.() -> PrintStream) =
+        PrintStream(
+            object : OutputStream() {
+
+                private
+                val current: PrintStream
+                    get() = targets.get()?.target() ?: original
+
+                override fun write(b: Int) = current.write(b)
+
+                override fun write(b: ByteArray, off: Int, len: Int) = current.write(b, off, len)
+
+                override fun flush() = current.flush()
+            },
+            true
+        )
 }
 
 
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.support
+
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Semaphore
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import kotlin.concurrent.read
+import kotlin.concurrent.write
+
+
+/**
+ * The Kotlin compiler session shared by all script compilations of the daemon.
+ */
+internal
+val kotlinCompilerSession = KotlinCompilerSession(
+    maxConcurrentCompilations = Runtime.getRuntime().availableProcessors().coerceIn(1, 4),
+    maxIndexedJars = 1000,
+    maxIdleBuilds = 3,
+    disposeEnvironment = ::disposeKotlinCompilerContext
+)
+
+
+/**
+ * Shares the Kotlin compiler application environment between compilations, across builds.
+ *
+ * The application environment holds the indexes of the jars on the compilation class path and the compiler state warmed
+ * up by previous compilations. It is disposed, to be recreated by the next compilation:
+ * - when a jar it may have indexed has changed,
+ * - when it would index more than [maxIndexedJars] distinct jars,
+ * - after [maxIdleBuilds] consecutive builds that did not compile anything.
+ *
+ * Up to [maxConcurrentCompilations] compilations can run at the same time, for instance when the scripts of
+ * independent projects are compiled while configuring projects in parallel.
+ */
+internal
+class KotlinCompilerSession(
+    maxConcurrentCompilations: Int,
+    private val maxIndexedJars: Int,
+    private val maxIdleBuilds: Int,
+    private val disposeEnvironment: () -> Unit
+) {
+
+    private
+    val compilations = Semaphore(maxConcurrentCompilations, true)
+
+    private
+    val environmentLock = ReentrantReadWriteLock()
+
+    private
+    val indexedJars = ConcurrentHashMap<File, JarState>()
+
+    @Volatile
+    private
+    var compiledSinceLastBuild = false
+
+    private
+    var idleBuilds = 0
+
+    fun <T> compile(classPath: Iterable<File>, compilation: () -> T): T {
+        val jars = classPath.filter { it.isFile }.associateWith { JarState.of(it) }
+        compilations.acquire()
+        try {
+            while (true) {
+                environmentLock.read {
+                    if (canReuseEnvironmentFor(jars)) {
+                        indexedJars.putAll(jars)
+                        compiledSinceLastBuild = true
+                        return compilation()
+                    }
+                }
+                dispose()
+            }
+        } finally {
+            compilations.release()
+        }
+    }
+
+    /**
+     * Notified when a build has finished compiling its scripts.
+     */
+    @Synchronized
+    fun onBuildConfigured() {
+        if (compiledSinceLastBuild) {
+            compiledSinceLastBuild = false
+            idleBuilds = 0
+        } else if (++idleBuilds >= maxIdleBuilds) {
+            idleBuilds = 0
+            dispose()
+        }
+    }
+
+    fun dispose() {
+        environmentLock.write {
+            indexedJars.clear()
+            disposeEnvironment()
+        }
+    }
+
+    private
+    fun canReuseEnvironmentFor(jars: Map<File, JarState>): Boolean {
+        if (indexedJars.isEmpty()) {
+            return true
+        }
+        var newJars = 0
+        for ((jar, state) in jars) {
+            when (indexedJars[jar]) {
+                null -> newJars += 1
+                state -> Unit
+                else -> return false
+            }
+        }
+        return indexedJars.size + newJars <= maxIndexedJars
+    }
+
+    private
+    data class JarState(val lastModified: Long, val length: Long) {
+        companion object {
+            fun of(jar: File) = JarState(jar.lastModified(), jar.length())
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.kotlin.dsl.support
+
+import org.gradle.kotlin.dsl.fixtures.TestWithTempFiles
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.concurrent.thread
+
+
+class KotlinCompilerSessionTest : TestWithTempFiles() {
+
+    private
+    var disposals = 0
+
+    @Test
+    fun `reuses compiler environment for unchanged class path`() {
+
+        val session = sessionWith()
+        val classPath = listOf(newFile("a.jar", "a"), newFile("b.jar", "b"))
+
+        repeat(3) {
+            assertThat(session.compile(classPath) { "compiled" }, equalTo("compiled"))
+            session.onBuildConfigured()
+        }
+
+        assertThat(disposals, equalTo(0))
+    }
+
+    @Test
+    fun `disposes compiler environment when a jar on the class path changes`() {
+
+        val session = sessionWith()
+        val jar = newFile("a.jar", "a")
+
+        session.compile(listOf(jar)) {}
+        jar.writeText("changed")
+        session.compile(listOf(jar)) {}
+
+        assertThat(disposals, equalTo(1))
+    }
+
+    @Test
+    fun `disposes compiler environment when too many jars would be indexed`() {
+
+        val session = sessionWith(maxIndexedJars = 2)
+
+        session.compile(listOf(newFile("a.jar", "a"), newFile("b.jar", "b"))) {}
+        session.compile(listOf(newFile("c.jar", "c"))) {}
+        assertThat(disposals, equalTo(1))
+
+        session.compile(listOf(file("c.jar"), newFile("d.jar", "d"))) {}
+        assertThat(disposals, equalTo(1))
+    }
+
+    @Test
+    fun `disposes compiler environment after idle builds`() {
+
+        val session = sessionWith(maxIdleBuilds = 2)
+
+        session.compile(listOf(newFile("a.jar", "a"))) {}
+        session.onBuildConfigured()
+        session.onBuildConfigured()
+        assertThat(disposals, equalTo(0))
+
+        session.onBuildConfigured()
+        assertThat(disposals, equalTo(1))
+    }
+
+    @Test
+    fun `bounds the number of concurrent compilations`() {
+
+        val session = sessionWith(maxConcurrentCompilations = 2)
+        val classPath = listOf(newFile("a.jar", "a"))
+        val running = AtomicInteger()
+        val maxRunning = AtomicInteger()
+        val start = CountDownLatch(1)
+
+        val executor = Executors.newFixedThreadPool(4)
+        try {
+            repeat(8) {
+                executor.submit {
+                    start.await()
+                    session.compile(classPath) {
+                        maxRunning.accumulateAndGet(running.incrementAndGet()) { a, b -> maxOf(a, b) }
+                        Thread.sleep(10)
+                        running.decrementAndGet()
+                    }
+                }
+            }
+            start.countDown()
+        } finally {
+            executor.shutdown()
+            executor.awaitTermination(10, TimeUnit.SECONDS)
+        }
+
+        assertThat(maxRunning.get(), equalTo(2))
+    }
+
+    @Test
+    fun `waits for running compilations before disposing compiler environment`() {
+
+        val session = sessionWith()
+        val compiling = CountDownLatch(1)
+        val finishCompilation = CountDownLatch(1)
+
+        val compilation = thread {
+            session.compile(listOf(newFile("a.jar", "a"))) {
+                compiling.countDown()
+                finishCompilation.await()
+            }
+        }
+        compiling.await()
+
+        val disposal = thread { session.dispose() }
+        disposal.join(100)
+        assertThat(disposals, equalTo(0))
+
+        finishCompilation.countDown()
+        compilation.join()
+        disposal.join()
+        assertThat(disposals, equalTo(1))
+    }
+
+    private
+    fun sessionWith(maxConcurrentCompilations: Int = 4, maxIndexedJars: Int = 100, maxIdleBuilds: Int = 3) =
+        KotlinCompilerSession(maxConcurrentCompilations, maxIndexedJars, maxIdleBuilds) { disposals += 1 }
+}
@@ -1,6 +1,7 @@
 plugins {
     id("gradlebuild.distribution.api-java")
     id("gradlebuild.launchable-jar")
+    id("gradlebuild.jmh")
 }
 
 description = "Implementation for launching, controlling and communicating with Gradle Daemon from CLI and TAPI"
@@ -66,6 +67,10 @@ dependencies {
     testImplementation(testFixtures(project(":logging")))
     testImplementation(testFixtures(project(":tooling-api")))
 
+    jmhImplementation(project(":ide")) {
+        because("The benchmarks transfer IDE models")
+    }
+
     integTestImplementation(project(":persistent-cache"))
     integTestImplementation(libs.slf4jApi)
     integTestImplementation(libs.guava)
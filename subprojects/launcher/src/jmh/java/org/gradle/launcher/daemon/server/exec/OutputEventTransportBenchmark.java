@@ -0,0 +1,167 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.server.exec;
+
+import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.logging.events.LogEvent;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.ProgressCompleteEvent;
+import org.gradle.internal.logging.events.ProgressEvent;
+import org.gradle.internal.logging.events.ProgressStartEvent;
+import org.gradle.internal.operations.BuildOperationCategory;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.launcher.daemon.protocol.DaemonMessageSerializer;
+import org.gradle.launcher.daemon.protocol.Finished;
+import org.gradle.launcher.daemon.protocol.Message;
+import org.gradle.launcher.daemon.protocol.OutputMessage;
+import org.gradle.launcher.daemon.protocol.OutputMessageBatch;
+import org.gradle.tooling.internal.provider.action.BuildActionSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Stress test for the transport of output events from the daemon to the client, simulating a backlog of progress and log events produced by many workers.
+ * Each invocation sends all events through a pipe, and completes once a client thread has decoded all of them.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class OutputEventTransportBenchmark {
+    private static final int OPERATIONS_PER_WORKER = 50;
+    private static final int UPDATES_PER_OPERATION = 20;
+
+    public enum Transport {
+        PER_EVENT, BATCHED
+    }
+
+    @Param({"PER_EVENT", "BATCHED"})
+    Transport transport;
+
+    @Param({"8", "64"})
+    int workers;
+
+    private final Serializer<Message> serializer = DaemonMessageSerializer.create(BuildActionSerializer.create());
+    private final Semaphore received = new Semaphore(0);
+    private List<OutputEvent> events;
+    private KryoBackedEncoder encoder;
+    private Thread client;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        events = createEvents(workers);
+        Pipe pipe = Pipe.open();
+        encoder = new KryoBackedEncoder(Channels.newOutputStream(pipe.sink()));
+        KryoBackedDecoder decoder = new KryoBackedDecoder(Channels.newInputStream(pipe.source()));
+        client = new Thread(() -> receive(decoder), "client");
+        client.setDaemon(true);
+        client.start();
+        System.out.printf("%nSending %d output events from %d workers%n", events.size(), workers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws InterruptedException {
+        encoder.close();
+        client.join();
+    }
+
+    @Benchmark
+    public void send() throws Exception {
+        if (transport == Transport.PER_EVENT) {
+            for (OutputEvent event : events) {
+                write(new OutputMessage(event));
+            }
+        } else {
+            OutputEventBatch batch = new OutputEventBatch();
+            for (OutputEvent event : events) {
+                batch.add(event);
+                if (batch.size() >= LogToClient.MAX_BATCH_SIZE) {
+                    write(new OutputMessageBatch(batch.takeEvents()));
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(new OutputMessageBatch(batch.takeEvents()));
+            }
+        }
+        write(new Finished());
+        received.acquire();
+    }
+
+    private void write(Message message) throws Exception {
+        // The daemon flushes the connection after each message
+        serializer.write(encoder, message);
+        encoder.flush();
+    }
+
+    private void receive(KryoBackedDecoder decoder) {
+        try {
+            while (true) {
+                Message message = serializer.read(decoder);
+                if (message instanceof Finished) {
+                    received.release();
+                }
+            }
+        } catch (Exception e) {
+            // Connection closed
+        }
+    }
+
+    private static List<OutputEvent> createEvents(int workers) {
+        List<OutputEvent> events = new ArrayList<>();
+        long id = 0;
+        for (int i = 0; i < OPERATIONS_PER_WORKER; i++) {
+            // Each worker runs an operation, and the workers report progress concurrently
+            List<OperationIdentifier> operations = new ArrayList<>(workers);
+            for (int worker = 0; worker < workers; worker++) {
+                OperationIdentifier operation = new OperationIdentifier(++id);
+                operations.add(operation);
+                events.add(new ProgressStartEvent(operation, null, 0, "category", "Task :project" + worker + ":task" + i, null, "", 0, true, operation, BuildOperationCategory.TASK));
+            }
+            for (int update = 0; update < UPDATES_PER_OPERATION; update++) {
+                for (OperationIdentifier operation : operations) {
+                    events.add(new ProgressEvent(operation, update + "/" + UPDATES_PER_OPERATION + " files processed", false));
+                    if (update % 5 == 0) {
+                        events.add(new LogEvent(0, "category", LogLevel.LIFECYCLE, "Processed batch " + update + " of operation " + operation, null, operation));
+                    }
+                }
+            }
+            for (OperationIdentifier operation : operations) {
+                events.add(new ProgressCompleteEvent(operation, 0, "", false));
+            }
+        }
+        return events;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.serialization;
+
+import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaCompilerOutput;
+import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaContentRoot;
+import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaDependency;
+import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaDependencyScope;
+import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaModule;
+import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaModuleDependency;
+import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaProject;
+import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaSingleEntryLibraryDependency;
+import org.gradle.plugins.ide.internal.tooling.idea.DefaultIdeaSourceDirectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Measures the time to transfer an IDEA model of a large build with {@link PayloadSerializer}, using the payload codec and Java serialization.
+ * The size of the serialized model is printed when each trial starts.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class PayloadSerializerBenchmark {
+    public enum Format {
+        CODEC, JAVA_SERIALIZATION
+    }
+
+    @Param({"CODEC", "JAVA_SERIALIZATION"})
+    Format format;
+
+    @Param({"100", "1000"})
+    int moduleCount;
+
+    private PayloadSerializer serializer;
+    private DefaultIdeaProject model;
+    private SerializedPayload payload;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        System.setProperty(PayloadSerializer.JAVA_SERIALIZATION_PROPERTY, String.valueOf(format == Format.JAVA_SERIALIZATION));
+        serializer = new PayloadSerializer(new WellKnownClassLoaderRegistry(new DefaultPayloadClassLoaderRegistry(new ClassLoaderCache(), new ModelClassLoaderFactory())));
+        model = createModel(moduleCount);
+        payload = serializer.serialize(model);
+        long size = 0;
+        for (byte[] chunk : payload.getSerializedModel()) {
+            size += chunk.length;
+        }
+        System.out.printf("%nSerialized model of %d modules with %s: %d bytes%n", moduleCount, format, size);
+    }
+
+    @Benchmark
+    public SerializedPayload serialize() {
+        return serializer.serialize(model);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(payload);
+    }
+
+    private static DefaultIdeaProject createModel(int moduleCount) {
+        File rootDir = new File("/home/user/projects/large-build");
+        DefaultIdeaProject project = new DefaultIdeaProject().setName("large-build").setJdkName("17");
+        DefaultIdeaDependencyScope compile = new DefaultIdeaDependencyScope("COMPILE");
+        DefaultIdeaDependencyScope test = new DefaultIdeaDependencyScope("TEST");
+        List<DefaultIdeaModule> modules = new ArrayList<>(moduleCount);
+        for (int i = 0; i < moduleCount; i++) {
+            String name = "module-" + i;
+            File moduleDir = new File(rootDir, name);
+            DefaultIdeaModule module = new DefaultIdeaModule().setName(name).setParent(project).setJdkName("17");
+            module.setCompilerOutput(new DefaultIdeaCompilerOutput()
+                .setOutputDir(new File(moduleDir, "out/production"))
+                .setTestOutputDir(new File(moduleDir, "out/test")));
+            module.setContentRoots(Collections.singletonList(new DefaultIdeaContentRoot()
+                .setRootDirectory(moduleDir)
+                .setSourceDirectories(sourceDirectories(moduleDir, "src/main/java", "src/main/kotlin"))
+                .setResourceDirectories(sourceDirectories(moduleDir, "src/main/resources"))
+                .setTestDirectories(sourceDirectories(moduleDir, "src/test/java"))
+                .setTestResourceDirectories(sourceDirectories(moduleDir, "src/test/resources"))
+                .setExcludeDirectories(Collections.singleton(new File(moduleDir, "build")))));
+
+            List<DefaultIdeaDependency> dependencies = new ArrayList<>();
+            for (int j = 1; j <= 10 && j <= i; j++) {
+                dependencies.add(new DefaultIdeaModuleDependency("module-" + (i - j)).setScope(compile).setExported(false));
+            }
+            for (int j = 0; j < 60; j++) {
+                File jarDir = new File("/home/user/.gradle/caches/modules-2/files-2.1/org.example/library-" + j + "/1.0");
+                dependencies.add(new DefaultIdeaSingleEntryLibraryDependency()
+                    .setFile(new File(jarDir, "library-" + j + "-1.0.jar"))
+                    .setSource(new File(jarDir, "library-" + j + "-1.0-sources.jar"))
+                    .setScope(j % 5 == 0 ? test : compile)
+                    .setExported(false));
+            }
+            module.setDependencies(dependencies);
+            modules.add(module);
+        }
+        return project.setChildren(modules);
+    }
+
+    private static Set<DefaultIdeaSourceDirectory> sourceDirectories(File moduleDir, String... paths) {
+        Set<DefaultIdeaSourceDirectory> directories = new LinkedHashSet<>();
+        for (String path : paths) {
+            directories.add(new DefaultIdeaSourceDirectory().setDirectory(new File(moduleDir, path)));
+        }
+        return directories;
+    }
+}
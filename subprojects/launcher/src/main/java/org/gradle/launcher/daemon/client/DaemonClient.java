@@ -31,6 +31,7 @@
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.invocation.BuildAction;
 import org.gradle.internal.logging.ConsoleRenderer;
+import org.gradle.internal.logging.events.OutputEvent;
 import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.internal.nativeintegration.ProcessEnvironment;
 import org.gradle.internal.remote.internal.Connection;
@@ -46,6 +47,7 @@
 import org.gradle.launcher.daemon.protocol.ForwardInput;
 import org.gradle.launcher.daemon.protocol.Message;
 import org.gradle.launcher.daemon.protocol.OutputMessage;
+import org.gradle.launcher.daemon.protocol.OutputMessageBatch;
 import org.gradle.launcher.daemon.protocol.Result;
 import org.gradle.launcher.daemon.protocol.Stop;
 import org.gradle.launcher.daemon.server.api.DaemonStoppedException;
@@ -242,6 +244,10 @@ private Object monitorBuild(Build build, DaemonDiagnostics diagnostics, Connecti
                     return handleDaemonDisappearance(build, diagnostics);
                 } else if (object instanceof OutputMessage) {
                     outputEventListener.onOutput(((OutputMessage) object).getEvent());
+                } else if (object instanceof OutputMessageBatch) {
+                    for (OutputEvent event : ((OutputMessageBatch) object).getEvents()) {
+                        outputEventListener.onOutput(event);
+                    }
                 } else if (object instanceof BuildEvent) {
                     buildEventConsumer.dispatch(((BuildEvent) object).getPayload());
                 } else {
@@ -16,6 +16,7 @@
 package org.gradle.launcher.daemon.client;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.JavaVersion;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -38,6 +39,7 @@
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.process.internal.ClassDataSharingArchive;
 import org.gradle.process.internal.DefaultExecActionFactory;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.util.internal.CollectionUtils;
@@ -89,14 +91,19 @@ public DaemonStartupInfo startDaemon(boolean singleUse) {
             throw new IllegalStateException("Unable to construct a bootstrap classpath when starting the daemon");
         }
 
-        versionValidator.validate(daemonParameters);
+        JavaVersion javaVersion = versionValidator.validate(daemonParameters);
 
         List<String> daemonArgs = new ArrayList<String>();
         daemonArgs.addAll(getPriorityArgs(daemonParameters.getPriority()));
-        daemonArgs.add(daemonParameters.getEffectiveJvm().getJavaExecutable().getAbsolutePath());
+        File javaExecutable = daemonParameters.getEffectiveJvm().getJavaExecutable();
+        daemonArgs.add(javaExecutable.getAbsolutePath());
 
         List<String> daemonOpts = daemonParameters.getEffectiveJvmArgs();
         daemonArgs.addAll(daemonOpts);
+        if (ClassDataSharingArchive.isEnabled()) {
+            // Not part of the daemon options, as these are used to match a running daemon with the client's requirements
+            daemonArgs.addAll(new ClassDataSharingArchive(daemonParameters.getGradleUserHomeDir()).getJvmArgs(javaExecutable, javaVersion, daemonOpts, classpath.getAsFiles()));
+        }
         daemonArgs.add("-cp");
         daemonArgs.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
 
@@ -29,12 +29,16 @@ public JvmVersionValidator(JvmVersionDetector versionDetector) {
         this.versionDetector = versionDetector;
     }
 
-    public void validate(DaemonParameters parameters) {
+    /**
+     * Checks that Gradle can run on the daemon JVM and returns its Java version.
+     */
+    public JavaVersion validate(DaemonParameters parameters) {
         if (parameters.getEffectiveJvm().equals(Jvm.current())) {
-            return;
+            return JavaVersion.current();
         }
 
         JavaVersion javaVersion = versionDetector.getJavaVersion(parameters.getEffectiveJvm());
         UnsupportedJavaRuntimeException.assertUsingVersion("Gradle", JavaVersion.VERSION_1_8, javaVersion);
+        return javaVersion;
     }
 }
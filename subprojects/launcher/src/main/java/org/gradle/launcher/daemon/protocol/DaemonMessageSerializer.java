@@ -98,7 +98,9 @@ public static Serializer<Message> create(Serializer<BuildAction> buildActionSeri
         registry.register(ProgressCompleteEvent.class, new ProgressCompleteEventSerializer());
         registry.register(ProgressEvent.class, new ProgressEventSerializer());
         registry.register(LogLevelChangeEvent.class, new LogLevelChangeEventSerializer(logLevelSerializer));
-        registry.register(OutputMessage.class, new OutputMessageSerializer(registry.build(OutputEvent.class)));
+        Serializer<OutputEvent> outputEventSerializer = registry.build(OutputEvent.class);
+        registry.register(OutputMessage.class, new OutputMessageSerializer(outputEventSerializer));
+        registry.register(OutputMessageBatch.class, new OutputMessageBatchSerializer(outputEventSerializer));
 
         // Default for everything else
         registry.useJavaSerialization(Message.class);
@@ -244,6 +246,24 @@ public OutputMessage read(Decoder decoder) throws Exception {
         }
     }
 
+    private static class OutputMessageBatchSerializer implements Serializer<OutputMessageBatch> {
+        private final Serializer<List<OutputEvent>> eventsSerializer;
+
+        OutputMessageBatchSerializer(Serializer<OutputEvent> eventSerializer) {
+            this.eventsSerializer = new ListSerializer<>(eventSerializer);
+        }
+
+        @Override
+        public void write(Encoder encoder, OutputMessageBatch message) throws Exception {
+            eventsSerializer.write(encoder, message.getEvents());
+        }
+
+        @Override
+        public OutputMessageBatch read(Decoder decoder) throws Exception {
+            return new OutputMessageBatch(eventsSerializer.read(decoder));
+        }
+    }
+
     private static class BuildSerializer implements Serializer<Build> {
         private final Serializer<BuildAction> buildActionSerializer;
         private final Serializer<BuildActionParameters> buildActionParametersSerializer = new BuildActionParametersSerializer();
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.protocol;
+
+import org.gradle.internal.logging.events.OutputEvent;
+
+import java.util.List;
+
+/**
+ * A batch of output events, to be handled by the client in the given order.
+ */
+public class OutputMessageBatch extends Message {
+    private final List<OutputEvent> events;
+
+    public OutputMessageBatch(List<OutputEvent> events) {
+        this.events = events;
+    }
+
+    public List<OutputEvent> getEvents() {
+        return events;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[events=" + events.size() + "]";
+    }
+}
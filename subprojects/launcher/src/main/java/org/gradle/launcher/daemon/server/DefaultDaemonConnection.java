@@ -31,6 +31,7 @@
 import org.gradle.launcher.daemon.protocol.InputMessage;
 import org.gradle.launcher.daemon.protocol.Message;
 import org.gradle.launcher.daemon.protocol.OutputMessage;
+import org.gradle.launcher.daemon.protocol.OutputMessageBatch;
 import org.gradle.launcher.daemon.protocol.Result;
 import org.gradle.launcher.daemon.server.api.DaemonConnection;
 import org.gradle.launcher.daemon.server.api.StdinHandler;
@@ -38,6 +39,7 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -139,6 +141,11 @@ public void logEvent(OutputEvent logEvent) {
         connection.dispatchAndFlush(new OutputMessage(logEvent));
     }
 
+    @Override
+    public void logEvents(List<OutputEvent> logEvents) {
+        connection.dispatchAndFlush(new OutputMessageBatch(logEvents));
+    }
+
     @Override
     public void event(Object event) {
         connection.dispatchAndFlush(new BuildEvent(event));
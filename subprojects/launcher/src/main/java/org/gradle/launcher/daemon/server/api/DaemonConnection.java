@@ -23,6 +23,7 @@
 import org.gradle.launcher.daemon.protocol.Result;
 
 import javax.annotation.Nullable;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public interface DaemonConnection extends Stoppable {
@@ -85,6 +86,11 @@ public interface DaemonConnection extends Stoppable {
      */
     void logEvent(OutputEvent logEvent);
 
+    /**
+     * Dispatches a batch of log event messages to the client. The client handles the events in the order they are given.
+     */
+    void logEvents(List<OutputEvent> logEvents);
+
     /**
      * Dispatches some build event to the client.
      */
@@ -30,15 +30,21 @@
 import org.gradle.launcher.daemon.server.api.DaemonCommandExecution;
 import org.gradle.launcher.daemon.server.api.DaemonConnection;
 
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class LogToClient extends BuildCommandOnly {
 
     public static final String DISABLE_OUTPUT = "org.gradle.daemon.disable-output";
     private static final Logger LOGGER = Logging.getLogger(LogToClient.class);
 
+    // Bounds for the events sent to the client in a single message. A batch is also sent as soon as no more events are waiting.
+    static final int MAX_BATCH_SIZE = 1000;
+    private static final long MAX_BATCH_AGE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
     private final LoggingOutputInternal loggingOutput;
     private final DaemonDiagnostics diagnostics;
 
@@ -69,10 +75,16 @@ protected void doBuild(final DaemonCommandExecution execution, Build build) {
     private class AsynchronousLogDispatcher extends Thread {
         private final CountDownLatch completionLock = new CountDownLatch(1);
         private final Queue<OutputEvent> eventQueue = new ConcurrentLinkedQueue<OutputEvent>();
+        private final OutputEventBatch batch = new OutputEventBatch();
         private final DaemonConnection connection;
         private final OutputEventListener listener;
         private volatile boolean shouldStop;
         private boolean unableToSend;
+        private long eventCount;
+        private long coalescedCount;
+        private long messageCount;
+        private int largestMessage;
+        private long sendTimeNanos;
 
         private AsynchronousLogDispatcher(DaemonConnection conn, final LogLevel buildLogLevel) {
             super("Asynchronous log dispatcher for " + conn);
@@ -106,10 +118,13 @@ public void run() {
             try {
                 while (!shouldStop) {
                     OutputEvent event = eventQueue.poll();
-                    if (event == null) {
-                        Thread.sleep(10);
+                    if (event != null) {
+                        add(event);
+                    } else if (!batch.isEmpty()) {
+                        // Nothing else is waiting, so send what has been collected rather than delay the output
+                        sendBatch();
                     } else {
-                        dispatchAsync(event);
+                        Thread.sleep(10);
                     }
                 }
             } catch (InterruptedException ex) {
@@ -125,16 +140,37 @@ public void run() {
         private void sendRemainingEvents() {
             OutputEvent event;
             while ((event = eventQueue.poll()) != null) {
-                dispatchAsync(event);
+                add(event);
+            }
+            if (!batch.isEmpty()) {
+                sendBatch();
+            }
+        }
+
+        private void add(OutputEvent event) {
+            eventCount++;
+            batch.add(event);
+            if (batch.size() >= MAX_BATCH_SIZE || batch.getAgeNanos() >= MAX_BATCH_AGE_NANOS) {
+                sendBatch();
             }
         }
 
-        private void dispatchAsync(OutputEvent event) {
+        private void sendBatch() {
+            coalescedCount += batch.takeCoalescedCount();
+            List<OutputEvent> events = batch.takeEvents();
             if (unableToSend) {
                 return;
             }
+            long start = System.nanoTime();
             try {
-                connection.logEvent(event);
+                if (events.size() == 1) {
+                    connection.logEvent(events.get(0));
+                } else {
+                    connection.logEvents(events);
+                }
+                messageCount++;
+                largestMessage = Math.max(largestMessage, events.size());
+                sendTimeNanos += System.nanoTime() - start;
             } catch (Exception ex) {
                 shouldStop = true;
                 unableToSend = true;
@@ -150,7 +186,16 @@ public void waitForCompletion() {
                 completionLock.await();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
+                return;
             }
+            if (LOGGER.isDebugEnabled() && messageCount > 0) {
+                LOGGER.debug("Relayed {} output events to the client in {} messages (largest {} events, {} progress updates coalesced), spending {} ms sending ({} events/s).",
+                    eventCount, messageCount, largestMessage, coalescedCount, TimeUnit.NANOSECONDS.toMillis(sendTimeNanos), eventsPerSecond());
+            }
+        }
+
+        private long eventsPerSecond() {
+            return sendTimeNanos == 0 ? eventCount : eventCount * TimeUnit.SECONDS.toNanos(1) / sendTimeNanos;
         }
     }
 }
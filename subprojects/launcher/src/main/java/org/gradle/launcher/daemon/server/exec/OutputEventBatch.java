@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.server.exec;
+
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.ProgressCompleteEvent;
+import org.gradle.internal.logging.events.ProgressEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the output events to send to the client in a single message.
+ *
+ * <p>A progress update for an operation replaces an earlier update for the same operation that is still in the batch, as the client only
+ * displays the most recent status of each operation. The earlier update is removed and the merged update takes the position of the later
+ * one, so that it is not sent ahead of the events added in between. All other events are kept, in the order they are added.</p>
+ */
+class OutputEventBatch {
+    // Contains null where a progress update has been replaced by a later update
+    private final List<OutputEvent> events = new ArrayList<>();
+    private final Map<OperationIdentifier, Integer> pendingProgress = new HashMap<>();
+    private long startTime;
+    private int size;
+    private int coalesced;
+
+    public void add(OutputEvent event) {
+        if (events.isEmpty()) {
+            startTime = System.nanoTime();
+        }
+        if (event instanceof ProgressEvent) {
+            ProgressEvent progressEvent = (ProgressEvent) event;
+            Integer index = pendingProgress.put(progressEvent.getProgressOperationId(), events.size());
+            if (index != null) {
+                ProgressEvent previous = (ProgressEvent) events.set(index, null);
+                events.add(supersede(previous, progressEvent));
+                coalesced++;
+                return;
+            }
+        } else if (event instanceof ProgressCompleteEvent) {
+            pendingProgress.remove(((ProgressCompleteEvent) event).getProgressOperationId());
+        }
+        events.add(event);
+        size++;
+    }
+
+    private static ProgressEvent supersede(ProgressEvent previous, ProgressEvent next) {
+        // Once an operation is reported as failing, the console keeps showing it as failing
+        if (previous.isFailing() && !next.isFailing()) {
+            return new ProgressEvent(next.getProgressOperationId(), next.getStatus(), true);
+        }
+        return next;
+    }
+
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    /**
+     * Returns the number of events that will be sent for this batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the time since the first event was added to this batch.
+     */
+    public long getAgeNanos() {
+        return events.isEmpty() ? 0 : System.nanoTime() - startTime;
+    }
+
+    /**
+     * Returns the number of progress updates that have been replaced by a later update, since the last call to this method.
+     */
+    public int takeCoalescedCount() {
+        int count = coalesced;
+        coalesced = 0;
+        return count;
+    }
+
+    /**
+     * Returns the events of this batch and resets this batch.
+     */
+    public List<OutputEvent> takeEvents() {
+        List<OutputEvent> result = new ArrayList<>(size);
+        for (OutputEvent event : events) {
+            if (event != null) {
+                result.add(event);
+            }
+        }
+        events.clear();
+        pendingProgress.clear();
+        size = 0;
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.provider;
+
+import org.gradle.internal.event.ListenerNotificationException;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Listener that will collect failures from the delegate listener and rethrow them in the right moment of the build.
+ * Also ensures that the delegate is notified by a single thread at a time, as values may be sent concurrently when the build runs embedded.
+ */
+public class FailsafeStreamedValueListener implements InternalStreamedValueListener {
+    private final InternalStreamedValueListener delegate;
+    private final List<Throwable> listenerFailures = new ArrayList<Throwable>();
+
+    public FailsafeStreamedValueListener(InternalStreamedValueListener delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void onValue(Object value) {
+        try {
+            delegate.onValue(value);
+        } catch (Throwable t) {
+            listenerFailures.add(t);
+        }
+    }
+
+    public synchronized void rethrowErrors() {
+        if (!listenerFailures.isEmpty()) {
+            throw new ListenerNotificationException(null, "One or more streamed value listeners failed with an exception.", listenerFailures);
+        }
+    }
+}
@@ -63,6 +63,7 @@
 import org.gradle.tooling.internal.protocol.InternalBuildCancelledException;
 import org.gradle.tooling.internal.protocol.InternalBuildProgressListener;
 import org.gradle.tooling.internal.protocol.InternalPhasedAction;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueListener;
 import org.gradle.tooling.internal.protocol.InternalUnsupportedModelException;
 import org.gradle.tooling.internal.protocol.ModelIdentifier;
 import org.gradle.tooling.internal.protocol.PhasedActionResultListener;
@@ -83,6 +84,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.InputStream;
 import java.util.Collections;
@@ -166,8 +168,13 @@ public Object runClientAction(Object clientAction, BuildCancellationToken cancel
         Parameters params = initParams(providerParameters);
         StartParameterInternal startParameter = new ProviderStartParameterConverter().toStartParameter(providerParameters, params.buildLayout, params.properties);
         ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters, consumerVersion);
-        BuildAction action = new ClientProvidedBuildAction(startParameter, serializedAction, tasks != null, listenerConfig.clientSubscriptions);
-        return run(action, cancellationToken, listenerConfig, listenerConfig.buildEventConsumer, providerParameters, params);
+        FailsafeStreamedValueListener streamedValueListener = streamedValueListenerFor(providerParameters);
+        BuildAction action = new ClientProvidedBuildAction(startParameter, serializedAction, tasks != null, streamedValueListener != null, listenerConfig.clientSubscriptions);
+        try {
+            return run(action, cancellationToken, listenerConfig, withStreamedValues(streamedValueListener, listenerConfig.buildEventConsumer), providerParameters, params);
+        } finally {
+            rethrowErrors(streamedValueListener);
+        }
     }
 
     public Object runPhasedAction(InternalPhasedAction clientPhasedAction,
@@ -180,12 +187,32 @@ public Object runPhasedAction(InternalPhasedAction clientPhasedAction,
         StartParameterInternal startParameter = new ProviderStartParameterConverter().toStartParameter(providerParameters, params.buildLayout, params.properties);
         FailsafePhasedActionResultListener failsafePhasedActionResultListener = new FailsafePhasedActionResultListener(resultListener);
         ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters, consumerVersion);
-        BuildAction action = new ClientProvidedPhasedAction(startParameter, serializedAction, tasks != null, listenerConfig.clientSubscriptions);
+        FailsafeStreamedValueListener streamedValueListener = streamedValueListenerFor(providerParameters);
+        BuildAction action = new ClientProvidedPhasedAction(startParameter, serializedAction, tasks != null, streamedValueListener != null, listenerConfig.clientSubscriptions);
         try {
-            return run(action, cancellationToken, listenerConfig, new PhasedActionEventConsumer(failsafePhasedActionResultListener, payloadSerializer, listenerConfig.buildEventConsumer),
+            BuildEventConsumer buildEventConsumer = withStreamedValues(streamedValueListener, listenerConfig.buildEventConsumer);
+            return run(action, cancellationToken, listenerConfig, new PhasedActionEventConsumer(failsafePhasedActionResultListener, payloadSerializer, buildEventConsumer),
                 providerParameters, params);
         } finally {
             failsafePhasedActionResultListener.rethrowErrors();
+            rethrowErrors(streamedValueListener);
+        }
+    }
+
+    @Nullable
+    private static FailsafeStreamedValueListener streamedValueListenerFor(ProviderOperationParameters providerParameters) {
+        InternalStreamedValueListener streamedValueListener = providerParameters.getStreamedValueListener(null);
+        return streamedValueListener == null ? null : new FailsafeStreamedValueListener(streamedValueListener);
+    }
+
+    private BuildEventConsumer withStreamedValues(@Nullable FailsafeStreamedValueListener streamedValueListener, BuildEventConsumer buildEventConsumer) {
+        // The build action does not send values when the client has not registered a listener
+        return streamedValueListener == null ? buildEventConsumer : new StreamedValueEventConsumer(streamedValueListener, payloadSerializer, buildEventConsumer);
+    }
+
+    private static void rethrowErrors(@Nullable FailsafeStreamedValueListener streamedValueListener) {
+        if (streamedValueListener != null) {
+            streamedValueListener.rethrowErrors();
         }
     }
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.provider;
+
+import org.gradle.initialization.BuildEventConsumer;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueListener;
+import org.gradle.tooling.internal.provider.serialization.PayloadSerializer;
+
+/**
+ * Consumer of values streamed from build actions. This consumer deserializes each value as it arrives and forwards it to the listener.
+ */
+public class StreamedValueEventConsumer implements BuildEventConsumer {
+    private final InternalStreamedValueListener streamedValueListener;
+    private final PayloadSerializer payloadSerializer;
+    private final BuildEventConsumer delegate;
+
+    StreamedValueEventConsumer(InternalStreamedValueListener streamedValueListener, PayloadSerializer payloadSerializer, BuildEventConsumer delegate) {
+        this.streamedValueListener = streamedValueListener;
+        this.payloadSerializer = payloadSerializer;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void dispatch(Object event) {
+        if (event instanceof StreamedValue) {
+            StreamedValue value = (StreamedValue) event;
+            streamedValueListener.onValue(payloadSerializer.deserialize(value.value));
+        } else {
+            delegate.dispatch(event);
+        }
+    }
+}
@@ -321,6 +321,7 @@ public void write(Encoder encoder, ClientProvidedBuildAction value) throws Excep
             startParameterSerializer.write(encoder, value.getStartParameter());
             payloadSerializer.write(encoder, value.getAction());
             encoder.writeBoolean(value.isRunTasks());
+            encoder.writeBoolean(value.isStreamValues());
             buildEventSubscriptionsSerializer.write(encoder, value.getClientSubscriptions());
         }
 
@@ -329,8 +330,9 @@ public ClientProvidedBuildAction read(Decoder decoder) throws Exception {
             StartParameterInternal startParameter = startParameterSerializer.read(decoder);
             SerializedPayload action = payloadSerializer.read(decoder);
             boolean runTasks = decoder.readBoolean();
+            boolean streamValues = decoder.readBoolean();
             BuildEventSubscriptions buildEventSubscriptions = buildEventSubscriptionsSerializer.read(decoder);
-            return new ClientProvidedBuildAction(startParameter, action, runTasks, buildEventSubscriptions);
+            return new ClientProvidedBuildAction(startParameter, action, runTasks, streamValues, buildEventSubscriptions);
         }
     }
 
@@ -344,6 +346,7 @@ public void write(Encoder encoder, ClientProvidedPhasedAction value) throws Exce
             startParameterSerializer.write(encoder, value.getStartParameter());
             payloadSerializer.write(encoder, value.getPhasedAction());
             encoder.writeBoolean(value.isRunTasks());
+            encoder.writeBoolean(value.isStreamValues());
             buildEventSubscriptionsSerializer.write(encoder, value.getClientSubscriptions());
         }
 
@@ -352,8 +355,9 @@ public ClientProvidedPhasedAction read(Decoder decoder) throws Exception {
             StartParameterInternal startParameter = startParameterSerializer.read(decoder);
             SerializedPayload action = payloadSerializer.read(decoder);
             boolean runTasks = decoder.readBoolean();
+            boolean streamValues = decoder.readBoolean();
             BuildEventSubscriptions buildEventSubscriptions = buildEventSubscriptionsSerializer.read(decoder);
-            return new ClientProvidedPhasedAction(startParameter, action, runTasks, buildEventSubscriptions);
+            return new ClientProvidedPhasedAction(startParameter, action, runTasks, streamValues, buildEventSubscriptions);
         }
     }
 
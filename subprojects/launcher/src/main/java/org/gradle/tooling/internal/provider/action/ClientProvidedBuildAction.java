@@ -24,12 +24,14 @@ public class ClientProvidedBuildAction extends SubscribableBuildAction {
     private final StartParameterInternal startParameter;
     private final SerializedPayload action;
     private final boolean runTasks;
+    private final boolean streamValues;
 
-    public ClientProvidedBuildAction(StartParameterInternal startParameter, SerializedPayload action, boolean runTasks, BuildEventSubscriptions clientSubscriptions) {
+    public ClientProvidedBuildAction(StartParameterInternal startParameter, SerializedPayload action, boolean runTasks, boolean streamValues, BuildEventSubscriptions clientSubscriptions) {
         super(clientSubscriptions);
         this.startParameter = startParameter;
         this.action = action;
         this.runTasks = runTasks;
+        this.streamValues = streamValues;
     }
 
     @Override
@@ -46,6 +48,13 @@ public boolean isRunTasks() {
         return runTasks;
     }
 
+    /**
+     * Returns true when the client listens to the values streamed by the action. Otherwise, the values are discarded.
+     */
+    public boolean isStreamValues() {
+        return streamValues;
+    }
+
     @Override
     public boolean isCreateModel() {
         return true;
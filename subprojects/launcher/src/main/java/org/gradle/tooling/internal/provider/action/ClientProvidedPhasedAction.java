@@ -24,12 +24,14 @@ public class ClientProvidedPhasedAction extends SubscribableBuildAction {
     private final StartParameterInternal startParameter;
     private final SerializedPayload phasedAction;
     private final boolean runTasks;
+    private final boolean streamValues;
 
-    public ClientProvidedPhasedAction(StartParameterInternal startParameter, SerializedPayload phasedAction, boolean runTasks, BuildEventSubscriptions clientSubscriptions) {
+    public ClientProvidedPhasedAction(StartParameterInternal startParameter, SerializedPayload phasedAction, boolean runTasks, boolean streamValues, BuildEventSubscriptions clientSubscriptions) {
         super(clientSubscriptions);
         this.startParameter = startParameter;
         this.phasedAction = phasedAction;
         this.runTasks = runTasks;
+        this.streamValues = streamValues;
     }
 
     @Override
@@ -46,6 +48,13 @@ public boolean isRunTasks() {
         return runTasks;
     }
 
+    /**
+     * Returns true when the client listens to the values streamed by the action. Otherwise, the values are discarded.
+     */
+    public boolean isStreamValues() {
+        return streamValues;
+    }
+
     @Override
     public boolean isCreateModel() {
         return true;
@@ -18,6 +18,7 @@
 import org.gradle.api.logging.LogLevel;
 import org.gradle.tooling.internal.protocol.InternalBuildProgressListener;
 import org.gradle.tooling.internal.protocol.InternalLaunchable;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueListener;
 import org.gradle.tooling.internal.protocol.ProgressListenerVersion1;
 
 import javax.annotation.Nullable;
@@ -177,4 +178,11 @@ public interface ProviderOperationParameters {
      * @since 7.6
      */
     Map<String, String> getSystemProperties(Map<String, String> defaultValue);
+
+    /**
+     * @return When null, discard the values streamed by the build action.
+     * @since 8.0
+     */
+    @Nullable
+    InternalStreamedValueListener getStreamedValueListener(@Nullable InternalStreamedValueListener defaultValue);
 }
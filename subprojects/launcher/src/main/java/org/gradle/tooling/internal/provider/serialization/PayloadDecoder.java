@@ -0,0 +1,334 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.serialization;
+
+import org.gradle.internal.serialize.Decoder;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.ARRAY;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.ARRAY_LIST;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.BYTE;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.CHARACTER;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.DOUBLE;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.ENUM;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.FALSE;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.FILE;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.FLOAT;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.HASH_MAP;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.HASH_SET;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.INTEGER;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.JAVA_SERIALIZED;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.LINKED_HASH_MAP;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.LINKED_HASH_SET;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.LINKED_LIST;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.LONG;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.NULL;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.OBJECT;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.REFERENCE;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.SHORT;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.STRING;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.STRING_REFERENCE;
+import static org.gradle.tooling.internal.provider.serialization.PayloadEncoder.TRUE;
+
+/**
+ * Reads an object graph written by {@link PayloadEncoder}.
+ *
+ * <p>Fields are matched by name and type with the fields of the class loaded on this side, so the classes on both sides do not need to be
+ * identical. Values of fields that do not exist on this side are ignored, and fields that were not written keep their default value.</p>
+ */
+class PayloadDecoder {
+    private final Decoder decoder;
+    private final ClassLoader classLoader;
+    private final Map<Short, ClassLoaderDetails> classLoaderDetails;
+    private final DeserializeMap map;
+    private final List<Object> objects = new ArrayList<>();
+    private final List<String> strings = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+    private final List<ReadSchema> schemas = new ArrayList<>();
+
+    PayloadDecoder(Decoder decoder, ClassLoader classLoader, Map<Short, ClassLoaderDetails> classLoaderDetails, DeserializeMap map) {
+        this.decoder = decoder;
+        this.classLoader = classLoader;
+        this.classLoaderDetails = classLoaderDetails;
+        this.map = map;
+    }
+
+    @Nullable
+    Object read() throws IOException, ClassNotFoundException {
+        byte tag = decoder.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case REFERENCE:
+                return objects.get(decoder.readSmallInt());
+            case STRING:
+            case STRING_REFERENCE:
+                return readString(tag);
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INTEGER:
+                return decoder.readSmallInt();
+            case LONG:
+                return decoder.readSmallLong();
+            case SHORT:
+                return (short) decoder.readSmallInt();
+            case BYTE:
+                return decoder.readByte();
+            case CHARACTER:
+                return (char) decoder.readSmallInt();
+            case FLOAT:
+                return Float.intBitsToFloat(decoder.readInt());
+            case DOUBLE:
+                return Double.longBitsToDouble(decoder.readLong());
+            case FILE:
+                return new File(readString());
+            case ENUM:
+                return readEnum();
+            case OBJECT:
+                return readObject();
+            case ARRAY:
+                return readArray();
+            case ARRAY_LIST:
+                return readCollection(new ArrayList<>());
+            case LINKED_LIST:
+                return readCollection(new LinkedList<>());
+            case HASH_SET:
+                return readCollection(new HashSet<>());
+            case LINKED_HASH_SET:
+                return readCollection(new LinkedHashSet<>());
+            case HASH_MAP:
+                return readMap(new HashMap<>());
+            case LINKED_HASH_MAP:
+                return readMap(new LinkedHashMap<>());
+            case JAVA_SERIALIZED:
+                return readJavaSerialized();
+            default:
+                throw new StreamCorruptedException("Unexpected payload tag " + tag);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnum() throws IOException, ClassNotFoundException {
+        Class enumType = readClass();
+        return Enum.valueOf(enumType, readString());
+    }
+
+    private Object readObject() throws IOException, ClassNotFoundException {
+        ReadSchema schema = readSchema();
+        Object value;
+        try {
+            value = schema.local.newInstance();
+        } catch (ReflectiveOperationException e) {
+            InvalidClassException failure = new InvalidClassException(schema.local.getType().getName(), "Could not create instance");
+            failure.initCause(e);
+            throw failure;
+        }
+        objects.add(value);
+        Field[] fields = schema.local.getFields();
+        try {
+            for (int i = 0; i < schema.typeCodes.length; i++) {
+                int index = schema.targets[i];
+                Field field = index < 0 ? null : fields[index];
+                switch (schema.typeCodes[i]) {
+                    case 'Z':
+                        boolean booleanValue = decoder.readBoolean();
+                        if (field != null) {
+                            field.setBoolean(value, booleanValue);
+                        }
+                        break;
+                    case 'B':
+                        byte byteValue = decoder.readByte();
+                        if (field != null) {
+                            field.setByte(value, byteValue);
+                        }
+                        break;
+                    case 'C':
+                        char charValue = (char) decoder.readSmallInt();
+                        if (field != null) {
+                            field.setChar(value, charValue);
+                        }
+                        break;
+                    case 'S':
+                        short shortValue = (short) decoder.readSmallInt();
+                        if (field != null) {
+                            field.setShort(value, shortValue);
+                        }
+                        break;
+                    case 'I':
+                        int intValue = decoder.readSmallInt();
+                        if (field != null) {
+                            field.setInt(value, intValue);
+                        }
+                        break;
+                    case 'J':
+                        long longValue = decoder.readSmallLong();
+                        if (field != null) {
+                            field.setLong(value, longValue);
+                        }
+                        break;
+                    case 'F':
+                        float floatValue = Float.intBitsToFloat(decoder.readInt());
+                        if (field != null) {
+                            field.setFloat(value, floatValue);
+                        }
+                        break;
+                    case 'D':
+                        double doubleValue = Double.longBitsToDouble(decoder.readLong());
+                        if (field != null) {
+                            field.setDouble(value, doubleValue);
+                        }
+                        break;
+                    default:
+                        Object fieldValue = read();
+                        if (field != null) {
+                            if (fieldValue != null && !field.getType().isInstance(fieldValue)) {
+                                throw new ClassCastException(String.format("Cannot assign instance of %s to field %s.%s of type %s", fieldValue.getClass().getName(), field.getDeclaringClass().getName(), field.getName(), field.getType().getName()));
+                            }
+                            field.set(value, fieldValue);
+                        }
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Could not set fields of " + schema.local.getType().getName(), e);
+        }
+        return value;
+    }
+
+    private Object readArray() throws IOException, ClassNotFoundException {
+        Class<?> componentType = readClass();
+        int length = decoder.readSmallInt();
+        Object[] array = (Object[]) Array.newInstance(componentType, length);
+        objects.add(array);
+        for (int i = 0; i < length; i++) {
+            array[i] = read();
+        }
+        return array;
+    }
+
+    private Object readCollection(Collection<Object> collection) throws IOException, ClassNotFoundException {
+        objects.add(collection);
+        int size = decoder.readSmallInt();
+        for (int i = 0; i < size; i++) {
+            collection.add(read());
+        }
+        return collection;
+    }
+
+    private Object readMap(Map<Object, Object> map) throws IOException, ClassNotFoundException {
+        objects.add(map);
+        int size = decoder.readSmallInt();
+        for (int i = 0; i < size; i++) {
+            Object key = read();
+            map.put(key, read());
+        }
+        return map;
+    }
+
+    private Object readJavaSerialized() throws IOException, ClassNotFoundException {
+        byte[] bytes = decoder.readBinary();
+        ObjectInputStream objectStream = new PayloadSerializerObjectInputStream(new ByteArrayInputStream(bytes), classLoader, classLoaderDetails, map);
+        Object value = objectStream.readObject();
+        objects.add(value);
+        return value;
+    }
+
+    private String readString() throws IOException {
+        return readString(decoder.readByte());
+    }
+
+    private String readString(byte tag) throws IOException {
+        if (tag == STRING_REFERENCE) {
+            return strings.get(decoder.readSmallInt());
+        }
+        if (tag != STRING) {
+            throw new StreamCorruptedException("Expected a string but found payload tag " + tag);
+        }
+        String value = decoder.readString();
+        strings.add(value);
+        return value;
+    }
+
+    private Class<?> readClass() throws IOException, ClassNotFoundException {
+        int id = decoder.readSmallInt();
+        if (id > 0) {
+            return classes.get(id - 1);
+        }
+        short classLoaderId = (short) decoder.readInt();
+        String className = decoder.readString();
+        Class<?> type = map.resolveClass(classLoaderDetails.get(classLoaderId), className);
+        classes.add(type);
+        return type;
+    }
+
+    private ReadSchema readSchema() throws IOException, ClassNotFoundException {
+        int id = decoder.readSmallInt();
+        if (id > 0) {
+            return schemas.get(id - 1);
+        }
+        Class<?> type = readClass();
+        PayloadSchema local = PayloadSchema.of(type);
+        if (local == null) {
+            throw new InvalidClassException(type.getName(), "Class cannot be read field by field");
+        }
+        int fieldCount = decoder.readSmallInt();
+        char[] typeCodes = new char[fieldCount];
+        int[] targets = new int[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            String name = decoder.readString();
+            typeCodes[i] = (char) decoder.readByte();
+            targets[i] = local.indexOf(name, typeCodes[i]);
+        }
+        ReadSchema schema = new ReadSchema(local, typeCodes, targets);
+        schemas.add(schema);
+        return schema;
+    }
+
+    /**
+     * The fields as written, and the index of the matching field of the local class for each of them.
+     */
+    private static class ReadSchema {
+        final PayloadSchema local;
+        final char[] typeCodes;
+        final int[] targets;
+
+        ReadSchema(PayloadSchema local, char[] typeCodes, int[] targets) {
+            this.local = local;
+            this.typeCodes = typeCodes;
+            this.targets = targets;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.serialization;
+
+import org.gradle.internal.serialize.Encoder;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Writes an object graph in a compact binary form that the {@link PayloadDecoder} can read.
+ *
+ * <p>Strings, boxed primitives, files, enums, the common JDK collections and arrays are written directly. Objects of classes with a {@link PayloadSchema}
+ * are written field by field, and the field names and types of each class are written once. Classes are written along with the id of their
+ * ClassLoader from the {@link SerializeMap}. Shared references and cycles are preserved.</p>
+ *
+ * <p>Any other object is written using Java serialization, which does not share references with the rest of the graph.</p>
+ */
+class PayloadEncoder {
+    static final byte NULL = 0;
+    static final byte REFERENCE = 1;
+    static final byte STRING = 2;
+    static final byte STRING_REFERENCE = 3;
+    static final byte TRUE = 4;
+    static final byte FALSE = 5;
+    static final byte INTEGER = 6;
+    static final byte LONG = 7;
+    static final byte SHORT = 8;
+    static final byte BYTE = 9;
+    static final byte CHARACTER = 10;
+    static final byte FLOAT = 11;
+    static final byte DOUBLE = 12;
+    static final byte FILE = 13;
+    static final byte ENUM = 14;
+    static final byte OBJECT = 15;
+    static final byte ARRAY = 16;
+    static final byte ARRAY_LIST = 17;
+    static final byte LINKED_LIST = 18;
+    static final byte HASH_SET = 19;
+    static final byte LINKED_HASH_SET = 20;
+    static final byte HASH_MAP = 21;
+    static final byte LINKED_HASH_MAP = 22;
+    static final byte JAVA_SERIALIZED = 23;
+
+    private final Encoder encoder;
+    private final SerializeMap map;
+    private final Map<Object, Integer> objects = new IdentityHashMap<>();
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<Class<?>, Integer> classes = new HashMap<>();
+    private final Map<PayloadSchema, Integer> schemas = new IdentityHashMap<>();
+
+    PayloadEncoder(Encoder encoder, SerializeMap map) {
+        this.encoder = encoder;
+        this.map = map;
+    }
+
+    void write(@Nullable Object value) throws IOException {
+        if (value == null) {
+            encoder.writeByte(NULL);
+            return;
+        }
+        if (value instanceof String) {
+            writeString((String) value);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (type == Boolean.class) {
+            encoder.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (type == Integer.class) {
+            encoder.writeByte(INTEGER);
+            encoder.writeSmallInt((Integer) value);
+        } else if (type == Long.class) {
+            encoder.writeByte(LONG);
+            encoder.writeSmallLong((Long) value);
+        } else if (type == Short.class) {
+            encoder.writeByte(SHORT);
+            encoder.writeSmallInt((Short) value);
+        } else if (type == Byte.class) {
+            encoder.writeByte(BYTE);
+            encoder.writeByte((Byte) value);
+        } else if (type == Character.class) {
+            encoder.writeByte(CHARACTER);
+            encoder.writeSmallInt((Character) value);
+        } else if (type == Float.class) {
+            encoder.writeByte(FLOAT);
+            encoder.writeInt(Float.floatToRawIntBits((Float) value));
+        } else if (type == Double.class) {
+            encoder.writeByte(DOUBLE);
+            encoder.writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (type == File.class) {
+            encoder.writeByte(FILE);
+            writeString(((File) value).getPath());
+        } else if (value instanceof Enum) {
+            encoder.writeByte(ENUM);
+            writeClass(((Enum<?>) value).getDeclaringClass());
+            writeString(((Enum<?>) value).name());
+        } else {
+            writeObject(value, type);
+        }
+    }
+
+    private void writeObject(Object value, Class<?> type) throws IOException {
+        Integer id = objects.get(value);
+        if (id != null) {
+            encoder.writeByte(REFERENCE);
+            encoder.writeSmallInt(id);
+            return;
+        }
+        objects.put(value, objects.size());
+
+        if (type == ArrayList.class) {
+            writeCollection(ARRAY_LIST, (Collection<?>) value);
+        } else if (type == LinkedList.class) {
+            writeCollection(LINKED_LIST, (Collection<?>) value);
+        } else if (type == HashSet.class) {
+            writeCollection(HASH_SET, (Collection<?>) value);
+        } else if (type == LinkedHashSet.class) {
+            writeCollection(LINKED_HASH_SET, (Collection<?>) value);
+        } else if (type == HashMap.class) {
+            writeMap(HASH_MAP, (Map<?, ?>) value);
+        } else if (type == LinkedHashMap.class) {
+            writeMap(LINKED_HASH_MAP, (Map<?, ?>) value);
+        } else if (type.isArray() && !type.getComponentType().isPrimitive()) {
+            Object[] array = (Object[]) value;
+            encoder.writeByte(ARRAY);
+            writeClass(type.getComponentType());
+            encoder.writeSmallInt(array.length);
+            for (Object element : array) {
+                write(element);
+            }
+        } else {
+            PayloadSchema schema = PayloadSchema.of(type);
+            if (schema != null) {
+                encoder.writeByte(OBJECT);
+                writeSchema(schema);
+                writeFields(value, schema);
+            } else {
+                encoder.writeByte(JAVA_SERIALIZED);
+                encoder.writeBinary(javaSerialize(value));
+            }
+        }
+    }
+
+    private void writeCollection(byte tag, Collection<?> collection) throws IOException {
+        encoder.writeByte(tag);
+        encoder.writeSmallInt(collection.size());
+        for (Object element : collection) {
+            write(element);
+        }
+    }
+
+    private void writeMap(byte tag, Map<?, ?> map) throws IOException {
+        encoder.writeByte(tag);
+        encoder.writeSmallInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            write(entry.getKey());
+            write(entry.getValue());
+        }
+    }
+
+    private void writeFields(Object value, PayloadSchema schema) throws IOException {
+        Field[] fields = schema.getFields();
+        char[] typeCodes = schema.getTypeCodes();
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                Field field = fields[i];
+                switch (typeCodes[i]) {
+                    case 'Z':
+                        encoder.writeBoolean(field.getBoolean(value));
+                        break;
+                    case 'B':
+                        encoder.writeByte(field.getByte(value));
+                        break;
+                    case 'C':
+                        encoder.writeSmallInt(field.getChar(value));
+                        break;
+                    case 'S':
+                        encoder.writeSmallInt(field.getShort(value));
+                        break;
+                    case 'I':
+                        encoder.writeSmallInt(field.getInt(value));
+                        break;
+                    case 'J':
+                        encoder.writeSmallLong(field.getLong(value));
+                        break;
+                    case 'F':
+                        encoder.writeInt(Float.floatToRawIntBits(field.getFloat(value)));
+                        break;
+                    case 'D':
+                        encoder.writeLong(Double.doubleToRawLongBits(field.getDouble(value)));
+                        break;
+                    default:
+                        write(field.get(value));
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Could not read fields of " + schema.getType().getName(), e);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        Integer id = strings.get(value);
+        if (id != null) {
+            encoder.writeByte(STRING_REFERENCE);
+            encoder.writeSmallInt(id);
+        } else {
+            strings.put(value, strings.size());
+            encoder.writeByte(STRING);
+            encoder.writeString(value);
+        }
+    }
+
+    private void writeClass(Class<?> type) throws IOException {
+        Integer id = classes.get(type);
+        if (id != null) {
+            encoder.writeSmallInt(id + 1);
+        } else {
+            classes.put(type, classes.size());
+            encoder.writeSmallInt(0);
+            encoder.writeInt(map.visitClass(type));
+            encoder.writeString(type.getName());
+        }
+    }
+
+    private void writeSchema(PayloadSchema schema) throws IOException {
+        Integer id = schemas.get(schema);
+        if (id != null) {
+            encoder.writeSmallInt(id + 1);
+        } else {
+            schemas.put(schema, schemas.size());
+            encoder.writeSmallInt(0);
+            writeClass(schema.getType());
+            Field[] fields = schema.getFields();
+            encoder.writeSmallInt(fields.length);
+            for (int i = 0; i < fields.length; i++) {
+                encoder.writeString(fields[i].getName());
+                encoder.writeByte((byte) schema.getTypeCodes()[i]);
+            }
+        }
+    }
+
+    private byte[] javaSerialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream objectStream = new PayloadSerializerObjectOutputStream(bytes, map);
+        try {
+            objectStream.writeObject(value);
+        } finally {
+            objectStream.close();
+        }
+        return bytes.toByteArray();
+    }
+}
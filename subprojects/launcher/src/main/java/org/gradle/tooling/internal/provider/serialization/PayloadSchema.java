@@ -0,0 +1,218 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.serialization;
+
+import javax.annotation.Nullable;
+import java.io.Externalizable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static sun.reflect.ReflectionFactory.getReflectionFactory;
+
+/**
+ * The serialized form of a Gradle class that {@link PayloadEncoder} writes field by field, instead of using Java serialization.
+ *
+ * <p>Only Gradle classes that use default Java serialization have a schema. This includes the tooling model and protocol classes.
+ * The serialized form is the same as for Java serialization: the non-static and non-transient fields of the serializable classes in
+ * the hierarchy. Instances are created in the same way too, without calling the constructors of serializable classes.</p>
+ */
+final class PayloadSchema {
+    static final char REFERENCE = 'L';
+
+    private static final ClassValue<Optional<PayloadSchema>> SCHEMAS = new ClassValue<Optional<PayloadSchema>>() {
+        @Override
+        protected Optional<PayloadSchema> computeValue(Class<?> type) {
+            return Optional.ofNullable(create(type));
+        }
+    };
+
+    private final Class<?> type;
+    private final Field[] fields;
+    private final char[] typeCodes;
+    private final Map<String, Integer> fieldIndexes;
+    private final Constructor<?> constructor;
+
+    private PayloadSchema(Class<?> type, Field[] fields, Constructor<?> constructor) {
+        this.type = type;
+        this.fields = fields;
+        this.constructor = constructor;
+        this.typeCodes = new char[fields.length];
+        this.fieldIndexes = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            typeCodes[i] = typeCode(fields[i].getType());
+            fieldIndexes.put(fields[i].getName(), i);
+        }
+    }
+
+    /**
+     * Returns the schema of the given class, or null when instances of the class need to be written using Java serialization.
+     */
+    @Nullable
+    static PayloadSchema of(Class<?> type) {
+        return SCHEMAS.get(type).orElse(null);
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    Field[] getFields() {
+        return fields;
+    }
+
+    char[] getTypeCodes() {
+        return typeCodes;
+    }
+
+    /**
+     * Returns the index of the field with the given name and type code, or -1 when this class has no such field.
+     */
+    int indexOf(String name, char typeCode) {
+        Integer index = fieldIndexes.get(name);
+        if (index == null || typeCodes[index] != typeCode) {
+            return -1;
+        }
+        return index;
+    }
+
+    Object newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        return constructor.newInstance();
+    }
+
+    static char typeCode(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return REFERENCE;
+        }
+        if (type == boolean.class) {
+            return 'Z';
+        } else if (type == byte.class) {
+            return 'B';
+        } else if (type == char.class) {
+            return 'C';
+        } else if (type == short.class) {
+            return 'S';
+        } else if (type == int.class) {
+            return 'I';
+        } else if (type == long.class) {
+            return 'J';
+        } else if (type == float.class) {
+            return 'F';
+        } else {
+            return 'D';
+        }
+    }
+
+    @Nullable
+    private static PayloadSchema create(Class<?> type) {
+        if (!type.getName().startsWith("org.gradle.")
+            || !Serializable.class.isAssignableFrom(type)
+            || Externalizable.class.isAssignableFrom(type)
+            || type.isEnum() || type.isArray() || type.isSynthetic() || Proxy.isProxyClass(type)) {
+            return null;
+        }
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            if (declaresMethod(current, "writeReplace") || declaresMethod(current, "readResolve")) {
+                return null;
+            }
+        }
+
+        List<Field> fields = new ArrayList<>();
+        Map<String, Field> fieldsByName = new HashMap<>();
+        Class<?> current = type;
+        for (; Serializable.class.isAssignableFrom(current); current = current.getSuperclass()) {
+            if (declaresMethod(current, "writeObject", ObjectOutputStream.class)
+                || declaresMethod(current, "readObject", ObjectInputStream.class)
+                || declaresMethod(current, "readObjectNoData")
+                || declaresField(current, "serialPersistentFields")) {
+                return null;
+            }
+            Field[] declaredFields = current.getDeclaredFields();
+            Arrays.sort(declaredFields, Comparator.comparing(Field::getName));
+            List<Field> classFields = new ArrayList<>();
+            for (Field field : declaredFields) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+                if (fieldsByName.put(field.getName(), field) != null) {
+                    // Fields are matched by name when reading
+                    return null;
+                }
+                classFields.add(field);
+            }
+            // Write the fields of super classes first, like Java serialization
+            fields.addAll(0, classFields);
+        }
+
+        try {
+            Constructor<?> nonSerializableConstructor = current.getDeclaredConstructor();
+            int modifiers = nonSerializableConstructor.getModifiers();
+            if (Modifier.isPrivate(modifiers) || (!Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers) && !isSamePackage(current, type))) {
+                return null;
+            }
+            Constructor<?> constructor = getReflectionFactory().newConstructorForSerialization(type, nonSerializableConstructor);
+            constructor.setAccessible(true);
+            for (Field field : fields) {
+                field.setAccessible(true);
+            }
+            return new PayloadSchema(type, fields.toArray(new Field[0]), constructor);
+        } catch (NoSuchMethodException | RuntimeException e) {
+            // No usable constructor, or the fields are not accessible
+            return null;
+        }
+    }
+
+    private static boolean isSamePackage(Class<?> a, Class<?> b) {
+        return a.getClassLoader() == b.getClassLoader() && packageName(a).equals(packageName(b));
+    }
+
+    private static String packageName(Class<?> type) {
+        String name = type.getName();
+        int index = name.lastIndexOf('.');
+        return index < 0 ? "" : name.substring(0, index);
+    }
+
+    private static boolean declaresMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            type.getDeclaredMethod(name, parameterTypes);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean declaresField(Class<?> type, String name) {
+        try {
+            type.getDeclaredField(name);
+            return true;
+        } catch (NoSuchFieldException e) {
+            return false;
+        }
+    }
+}
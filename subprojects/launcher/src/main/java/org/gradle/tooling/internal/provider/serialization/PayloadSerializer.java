@@ -22,6 +22,8 @@
 import org.gradle.internal.IoActions;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.io.StreamByteBuffer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
@@ -31,9 +33,24 @@
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Serializes the payloads exchanged between the tooling API client and the daemon, such as build actions and the models they produce.
+ *
+ * <p>Payloads are written using {@link PayloadEncoder}, which writes the tooling model and protocol classes in a compact form and uses Java serialization
+ * for everything else. Java serialization can be used for all payloads instead by setting the {@value #JAVA_SERIALIZATION_PROPERTY} system property
+ * to {@code true} on the sending side. The receiving side reads both forms.</p>
+ */
 @ThreadSafe
 public class PayloadSerializer {
+    public static final String JAVA_SERIALIZATION_PROPERTY = "org.gradle.internal.tooling.payload.java-serialization";
+
+    /**
+     * Marks a payload written by {@link PayloadEncoder}. A Java serialization stream starts with a different byte.
+     */
+    private static final byte ENCODED_PAYLOAD = 0x47;
+
     private final PayloadClassLoaderRegistry classLoaderRegistry;
+    private final boolean useJavaSerialization = Boolean.getBoolean(JAVA_SERIALIZATION_PROPERTY);
 
     public PayloadSerializer(PayloadClassLoaderRegistry registry) {
         classLoaderRegistry = registry;
@@ -47,12 +64,22 @@ public SerializedPayload serialize(@Nullable Object payload) {
         final SerializeMap map = classLoaderRegistry.newSerializeSession();
         try {
             StreamByteBuffer buffer = new StreamByteBuffer();
-            final ObjectOutputStream objectStream = new PayloadSerializerObjectOutputStream(buffer.getOutputStream(), map);
+            if (useJavaSerialization) {
+                final ObjectOutputStream objectStream = new PayloadSerializerObjectOutputStream(buffer.getOutputStream(), map);
 
-            try {
-                objectStream.writeObject(payload);
-            } finally {
-                IoActions.closeQuietly(objectStream);
+                try {
+                    objectStream.writeObject(payload);
+                } finally {
+                    IoActions.closeQuietly(objectStream);
+                }
+            } else {
+                KryoBackedEncoder encoder = new KryoBackedEncoder(buffer.getOutputStream());
+                try {
+                    encoder.writeByte(ENCODED_PAYLOAD);
+                    new PayloadEncoder(encoder, map).write(payload);
+                } finally {
+                    encoder.close();
+                }
             }
 
             Map<Short, ClassLoaderDetails> classLoaders = new HashMap<Short, ClassLoaderDetails>();
@@ -72,6 +99,11 @@ public SerializedPayload serialize(@Nullable Object payload) {
         try {
             final Map<Short, ClassLoaderDetails> classLoaderDetails = Cast.uncheckedNonnullCast(payload.getHeader());
             StreamByteBuffer buffer = StreamByteBuffer.of(payload.getSerializedModel());
+            if (isEncoded(payload)) {
+                KryoBackedDecoder decoder = new KryoBackedDecoder(buffer.getInputStream());
+                decoder.readByte();
+                return new PayloadDecoder(decoder, getClass().getClassLoader(), classLoaderDetails, map).read();
+            }
             final ObjectInputStream objectStream = new PayloadSerializerObjectInputStream(buffer.getInputStream(), getClass().getClassLoader(), classLoaderDetails, map);
             return objectStream.readObject();
         } catch (Exception e) {
@@ -79,4 +111,9 @@ public SerializedPayload serialize(@Nullable Object payload) {
         }
     }
 
+    private static boolean isEncoded(SerializedPayload payload) {
+        byte[] first = payload.getSerializedModel().get(0);
+        return first.length > 0 && first[0] == ENCODED_PAYLOAD;
+    }
+
 }
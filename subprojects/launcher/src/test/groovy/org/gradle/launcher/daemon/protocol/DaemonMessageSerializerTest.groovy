@@ -22,9 +22,11 @@ import org.gradle.configuration.GradleLauncherMetaData
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.logging.events.LogLevelChangeEvent
 import org.gradle.internal.logging.events.OutputEvent
+import org.gradle.internal.logging.events.ProgressEvent
 import org.gradle.internal.logging.events.PromptOutputEvent
 import org.gradle.internal.logging.events.UserInputRequestEvent
 import org.gradle.internal.logging.events.UserInputResumeEvent
+import org.gradle.internal.operations.OperationIdentifier
 import org.gradle.internal.serialize.PlaceholderException
 import org.gradle.internal.serialize.Serializer
 import org.gradle.internal.serialize.SerializerSpec
@@ -232,6 +234,20 @@ class DaemonMessageSerializerTest extends SerializerSpec {
         result2.diagnostics.pid == null
     }
 
+    def "can serialize OutputMessageBatch messages"() {
+        expect:
+        def message = new OutputMessageBatch([new LogLevelChangeEvent(LogLevel.LIFECYCLE), new ProgressEvent(new OperationIdentifier(12), "status", true)])
+        def result = serialize(message, serializer)
+        result instanceof OutputMessageBatch
+        result.events.size() == 2
+        result.events[0] instanceof LogLevelChangeEvent
+        result.events[0].newLogLevel == LogLevel.LIFECYCLE
+        result.events[1] instanceof ProgressEvent
+        result.events[1].progressOperationId.id == 12
+        result.events[1].status == "status"
+        result.events[1].failing
+    }
+
     def "can serialize other messages"() {
         expect:
         def messageResult = serialize(message, serializer)
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.server.exec
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.logging.events.LogEvent
+import org.gradle.internal.logging.events.ProgressCompleteEvent
+import org.gradle.internal.logging.events.ProgressEvent
+import org.gradle.internal.operations.OperationIdentifier
+import spock.lang.Specification
+
+class OutputEventBatchTest extends Specification {
+    def batch = new OutputEventBatch()
+    def op1 = new OperationIdentifier(1)
+    def op2 = new OperationIdentifier(2)
+
+    def "keeps events in the order they are added"() {
+        def log1 = log("one")
+        def progress = new ProgressEvent(op1, "status", false)
+        def log2 = log("two")
+
+        when:
+        batch.add(log1)
+        batch.add(progress)
+        batch.add(log2)
+
+        then:
+        batch.size() == 3
+        batch.takeEvents() == [log1, progress, log2]
+        batch.empty
+        batch.takeCoalescedCount() == 0
+    }
+
+    def "replaces superseded progress update for the same operation"() {
+        def log = log("one")
+        def progress1 = new ProgressEvent(op1, "1", false)
+        def progress2 = new ProgressEvent(op2, "2", false)
+        def progress3 = new ProgressEvent(op1, "3", false)
+
+        when:
+        batch.add(progress1)
+        batch.add(log)
+        batch.add(progress2)
+        batch.add(progress3)
+
+        then:
+        batch.size() == 3
+        batch.takeCoalescedCount() == 1
+        batch.takeEvents() == [log, progress2, progress3]
+    }
+
+    def "does not send replacing progress update ahead of events added before it"() {
+        def progress1 = new ProgressEvent(op1, "1", false)
+        def log = log("one")
+        def progress2 = new ProgressEvent(op1, "2", false)
+        def progress3 = new ProgressEvent(op1, "3", false)
+
+        when:
+        batch.add(progress1)
+        batch.add(log)
+        batch.add(progress2)
+        batch.add(progress3)
+
+        then:
+        batch.size() == 2
+        batch.takeCoalescedCount() == 2
+        batch.takeEvents() == [log, progress3]
+        batch.empty
+    }
+
+    def "does not replace progress update across completion of the operation"() {
+        def progress1 = new ProgressEvent(op1, "1", false)
+        def complete = new ProgressCompleteEvent(op1, 0, "done", false)
+        def progress2 = new ProgressEvent(op1, "2", false)
+
+        when:
+        batch.add(progress1)
+        batch.add(complete)
+        batch.add(progress2)
+
+        then:
+        batch.takeEvents() == [progress1, complete, progress2]
+        batch.takeCoalescedCount() == 0
+    }
+
+    def "does not replace progress update from a previous batch"() {
+        def progress1 = new ProgressEvent(op1, "1", false)
+        def progress2 = new ProgressEvent(op1, "2", false)
+
+        when:
+        batch.add(progress1)
+        def first = batch.takeEvents()
+        batch.add(progress2)
+
+        then:
+        first == [progress1]
+        batch.takeEvents() == [progress2]
+    }
+
+    def "keeps operation marked as failing when update is replaced"() {
+        when:
+        batch.add(new ProgressEvent(op1, "1", true))
+        batch.add(new ProgressEvent(op1, "2", false))
+        def events = batch.takeEvents()
+
+        then:
+        events.size() == 1
+        events[0].status == "2"
+        events[0].failing
+    }
+
+    private static LogEvent log(String message) {
+        return new LogEvent(0, "category", LogLevel.LIFECYCLE, message, null)
+    }
+}
@@ -81,7 +81,7 @@ class BuildActionSerializerTest extends SerializerSpec {
     def "serializes ClientProvidedBuildAction"() {
         def startParameter = new StartParameterInternal()
         startParameter.taskNames = ['a', 'b']
-        def action = new ClientProvidedBuildAction(startParameter, new SerializedPayload("12", []), true, new BuildEventSubscriptions([OperationType.TASK] as Set))
+        def action = new ClientProvidedBuildAction(startParameter, new SerializedPayload("12", []), true, true, new BuildEventSubscriptions([OperationType.TASK] as Set))
 
         expect:
         def result = serialize(action, BuildActionSerializer.create())
@@ -89,13 +89,14 @@ class BuildActionSerializerTest extends SerializerSpec {
         result.startParameter.taskNames == ['a', 'b']
         result.action.header == "12"
         result.runTasks
+        result.streamValues
         result.clientSubscriptions.operationTypes == [OperationType.TASK] as Set
     }
 
     def "serializes ClientProvidedPhasedAction"() {
         def startParameter = new StartParameterInternal()
         startParameter.taskNames = ['a', 'b']
-        def action = new ClientProvidedPhasedAction(startParameter, new SerializedPayload("12", []), true, new BuildEventSubscriptions([OperationType.TASK] as Set))
+        def action = new ClientProvidedPhasedAction(startParameter, new SerializedPayload("12", []), true, true, new BuildEventSubscriptions([OperationType.TASK] as Set))
 
         expect:
         def result = serialize(action, BuildActionSerializer.create())
@@ -103,6 +104,7 @@ class BuildActionSerializerTest extends SerializerSpec {
         result.startParameter.taskNames == ['a', 'b']
         result.phasedAction.header == "12"
         result.runTasks
+        result.streamValues
         result.clientSubscriptions.operationTypes == [OperationType.TASK] as Set
     }
 
@@ -176,6 +176,57 @@ class PayloadSerializerTest extends AbstractClassGraphSpec {
         reply2.payload.class == payloadClass
     }
 
+    def "preserves shared references and cycles"() {
+        def cl = isolated(WrapperPayload, CustomPayload, PayloadInterface)
+        def wrapper = cl.loadClass(WrapperPayload.name).newInstance()
+        def payload = cl.loadClass(CustomPayload.name).newInstance(value: [wrapper, "shared"], ok: true, anArray: [1, 2] as Integer[])
+        wrapper.payload = payload
+        def original = [wrapper: wrapper, payload: payload, files: [new File("a"), new File("b")] as LinkedHashSet]
+
+        when:
+        def received = receiver.deserialize(originator.serialize(original))
+
+        then:
+        received instanceof LinkedHashMap
+        received.wrapper.payload.is(received.payload)
+        received.payload.value[0].is(received.wrapper)
+        received.payload.value[1] == "shared"
+        received.payload.ok
+        received.payload.anArray == [1, 2] as Integer[]
+        received.files == [new File("a"), new File("b")] as LinkedHashSet
+    }
+
+    def "uses Java serialization for values that cannot be written field by field"() {
+        def payloadClass = isolated(CustomPayload, PayloadInterface).loadClass(CustomPayload.name)
+        def original = payloadClass.newInstance(value: new StringBuilder("value"))
+
+        when:
+        def received = receiver.deserialize(originator.serialize(original))
+
+        then:
+        received.value instanceof StringBuilder
+        received.value.toString() == "value"
+    }
+
+    def "can receive payloads written with Java serialization"() {
+        def payloadClass = isolated(CustomPayload, PayloadInterface).loadClass(CustomPayload.name)
+        def original = payloadClass.newInstance(value: 'value')
+        System.setProperty(PayloadSerializer.JAVA_SERIALIZATION_PROPERTY, "true")
+        def javaSerializer
+        try {
+            javaSerializer = new PayloadSerializer(new WellKnownClassLoaderRegistry(new DefaultPayloadClassLoaderRegistry(new ClassLoaderCache(), new ModelClassLoaderFactory())))
+        } finally {
+            System.clearProperty(PayloadSerializer.JAVA_SERIALIZATION_PROPERTY)
+        }
+
+        when:
+        def received = receiver.deserialize(javaSerializer.serialize(original))
+
+        then:
+        received.class.name == CustomPayload.name
+        received.value == 'value'
+    }
+
     void assertNotVisible(Class<?> from, Class<?> to) {
         try {
             from.classLoader.loadClass(to.name)
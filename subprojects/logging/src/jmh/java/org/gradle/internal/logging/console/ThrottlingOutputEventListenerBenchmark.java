@@ -0,0 +1,171 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.console;
+
+import org.gradle.api.logging.LogLevel;
+import org.gradle.internal.logging.events.EndOutputEvent;
+import org.gradle.internal.logging.events.LogEvent;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.internal.logging.events.ProgressEvent;
+import org.gradle.internal.logging.events.UpdateNowEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.time.Clock;
+import org.gradle.internal.time.Time;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stress test for the console throttling queue, with many producer threads emitting a synthetic high-rate stream of log and progress events
+ * while a background thread renders the queued events at a fixed frame rate. Rendering of each event costs a fixed amount of CPU.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ThrottlingOutputEventListenerBenchmark {
+    private static final int FRAME_MS = 5;
+
+    public enum Queue {
+        LOCKING, RING_BUFFER
+    }
+
+    @Param({"LOCKING", "RING_BUFFER"})
+    Queue queue;
+
+    @Param({"0", "50"})
+    long renderTokens;
+
+    private ScheduledExecutorService executor;
+    private OutputEventListener listener;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Clock clock = Time.clock();
+        OutputEventListener renderer = new OutputEventListener() {
+            @Override
+            public void onOutput(OutputEvent event) {
+                Blackhole.consumeCPU(renderTokens);
+            }
+        };
+        executor = Executors.newSingleThreadScheduledExecutor();
+        switch (queue) {
+            case LOCKING:
+                listener = new LockingThrottlingListener(renderer, FRAME_MS, executor, clock);
+                break;
+            case RING_BUFFER:
+                listener = new ThrottlingOutputEventListener(renderer, FRAME_MS, executor, clock);
+                break;
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        listener.onOutput(new EndOutputEvent());
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @State(Scope.Thread)
+    public static class Producer {
+        private static final int EVENTS = 1024;
+        private final List<OutputEvent> events = new ArrayList<OutputEvent>(EVENTS);
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            long threadId = Thread.currentThread().getId();
+            for (int i = 0; i < EVENTS; i++) {
+                OperationIdentifier operationId = new OperationIdentifier(threadId * EVENTS + i);
+                if (i % 4 == 0) {
+                    events.add(new LogEvent(i, "category", LogLevel.LIFECYCLE, "message " + i, null, operationId));
+                } else {
+                    events.add(new ProgressEvent(operationId, "status " + i, false));
+                }
+            }
+        }
+
+        OutputEvent next() {
+            OutputEvent event = events.get(next);
+            next = (next + 1) % EVENTS;
+            return event;
+        }
+    }
+
+    @Benchmark
+    public void produce(Producer producer) {
+        listener.onOutput(producer.next());
+    }
+
+    /**
+     * The previous implementation, which queues and renders events while holding a single lock.
+     */
+    private static class LockingThrottlingListener implements OutputEventListener {
+        private final OutputEventListener listener;
+        private final ScheduledExecutorService executor;
+        private final Object lock = new Object();
+        private final List<OutputEvent> queue = new ArrayList<OutputEvent>();
+
+        LockingThrottlingListener(OutputEventListener listener, int throttleMs, ScheduledExecutorService executor, final Clock clock) {
+            this.listener = listener;
+            this.executor = executor;
+            executor.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    onOutput(new UpdateNowEvent(clock.getCurrentTime()));
+                }
+            }, throttleMs, throttleMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void onOutput(OutputEvent newEvent) {
+            synchronized (lock) {
+                queue.add(newEvent);
+                if (queue.size() == 10000 || newEvent instanceof UpdateNowEvent) {
+                    renderNow();
+                } else if (newEvent instanceof EndOutputEvent) {
+                    renderNow();
+                    executor.shutdown();
+                }
+            }
+        }
+
+        private void renderNow() {
+            while (!queue.isEmpty()) {
+                listener.onOutput(queue.remove(0));
+            }
+        }
+    }
+}
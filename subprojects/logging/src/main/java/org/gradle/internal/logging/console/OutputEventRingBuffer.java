@@ -0,0 +1,119 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.console;
+
+import org.gradle.internal.logging.events.OutputEvent;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded multi-producer, single-consumer ring buffer of output events.
+ *
+ * <p>Producers claim a slot with a compare-and-set on the tail sequence and never block. Each slot carries a sequence number
+ * that tells the consumer when the event in that slot has been published, and tells producers when the slot has been consumed
+ * and can be reused. Only one thread at a time may call {@link #poll()}; the caller is responsible for this.</p>
+ */
+class OutputEventRingBuffer {
+    private final int capacity;
+    private final int mask;
+    private final OutputEvent[] events;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    OutputEventRingBuffer(int minCapacity) {
+        if (minCapacity < 1 || minCapacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity out of range: " + minCapacity);
+        }
+        // Round up to a power of two, so that a slot index is a mask of the sequence
+        capacity = minCapacity == 1 ? 1 : Integer.highestOneBit(minCapacity - 1) << 1;
+        mask = capacity - 1;
+        events = new OutputEvent[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Adds the given event to the buffer.
+     *
+     * @return the sequence assigned to the event, or -1 if the buffer is full.
+     */
+    long offer(OutputEvent event) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    events[index] = event;
+                    // Publishes the event to the consumer
+                    sequences.set(index, pos + 1);
+                    return pos;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // The slot from the previous lap has not been consumed yet
+                return -1;
+            } else {
+                // Another producer claimed this slot
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the next event from the buffer. Must only be called by one thread at a time.
+     *
+     * @return the next event, or null if there is none or it has not been published yet.
+     */
+    @Nullable
+    OutputEvent poll() {
+        long pos = head;
+        int index = (int) (pos & mask);
+        if (sequences.get(index) != pos + 1) {
+            return null;
+        }
+        OutputEvent event = events[index];
+        events[index] = null;
+        // Hands the slot back to producers for the next lap
+        sequences.set(index, pos + capacity);
+        head = pos + 1;
+        return event;
+    }
+
+    /**
+     * Returns the sequence of the next event to be polled. All events with a lower sequence have been consumed.
+     */
+    long head() {
+        return head;
+    }
+
+    /**
+     * Returns the number of claimed but not yet consumed slots. This is an estimate when producers are active.
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
@@ -23,24 +23,27 @@
 import org.gradle.internal.logging.events.UpdateNowEvent;
 import org.gradle.internal.time.Clock;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Queue output events to be forwarded and schedule flush when time passed or if end of build is signalled.
+ *
+ * <p>Events are queued without locking. Only the thread that renders the queued events, which is usually the scheduled update thread, takes a lock.
+ * A producer renders on its own thread only when it needs its event to be handled before returning, or when the queue gets too big.</p>
  */
 public class ThrottlingOutputEventListener implements OutputEventListener {
+    private static final int MAX_QUEUED_EVENTS = 10000;
+
     private final OutputEventListener listener;
 
     private final ScheduledExecutorService executor;
     private final Clock clock;
     private final int throttleMs;
-    private final Object lock = new Object();
+    private final Object renderLock = new Object();
 
-    private final List<OutputEvent> queue = new ArrayList<OutputEvent>();
+    private final OutputEventRingBuffer queue = new OutputEventRingBuffer(MAX_QUEUED_EVENTS);
 
     public ThrottlingOutputEventListener(OutputEventListener listener, Clock clock) {
         this(listener, Integer.getInteger("org.gradle.internal.console.throttle", 100), Executors.newSingleThreadScheduledExecutor(), clock);
@@ -65,34 +68,63 @@ public void run() {
 
     @Override
     public void onOutput(OutputEvent newEvent) {
-        synchronized (lock) {
-            queue.add(newEvent);
+        long sequence = enqueue(newEvent);
 
-            if (queue.size() == 10000 || newEvent instanceof UpdateNowEvent) {
-                renderNow();
-                return;
-            }
+        if (newEvent instanceof UpdateNowEvent || newEvent instanceof FlushOutputEvent) {
+            renderUntil(sequence);
+            return;
+        }
 
-            if (newEvent instanceof FlushOutputEvent) {
-                renderNow();
-                return;
-            }
+        if (newEvent instanceof EndOutputEvent) {
+            // Flush and clean up
+            renderUntil(sequence);
+            executor.shutdown();
+            return;
+        }
+
+        if (sequence - queue.head() + 1 >= MAX_QUEUED_EVENTS) {
+            renderUntil(sequence);
+        }
+
+        // Else, wait for the next update event
+    }
 
-            if (newEvent instanceof EndOutputEvent) {
-                // Flush and clean up
-                renderNow();
-                executor.shutdown();
+    private long enqueue(OutputEvent event) {
+        while (true) {
+            long sequence = queue.offer(event);
+            if (sequence >= 0) {
+                return sequence;
             }
+            // The queue is full, so render what is there to make space
+            renderAvailable();
+        }
+    }
 
-            // Else, wait for the next update event
+    /**
+     * Renders events up to and including the event with the given sequence.
+     */
+    private void renderUntil(long sequence) {
+        synchronized (renderLock) {
+            while (queue.head() <= sequence) {
+                OutputEvent event = queue.poll();
+                if (event == null) {
+                    // An earlier event has been claimed by a producer but not yet published
+                    Thread.yield();
+                    continue;
+                }
+                listener.onOutput(event);
+            }
         }
     }
 
-    private void renderNow() {
-        // Remove event only as it is handled, and leave unhandled events in the queue
-        while (!queue.isEmpty()) {
-            OutputEvent event = queue.remove(0);
-            listener.onOutput(event);
+    private void renderAvailable() {
+        synchronized (renderLock) {
+            OutputEvent event = queue.poll();
+            while (event != null) {
+                listener.onOutput(event);
+                event = queue.poll();
+            }
         }
+        Thread.yield();
     }
 }
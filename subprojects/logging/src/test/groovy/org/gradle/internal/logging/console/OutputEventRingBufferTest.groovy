@@ -0,0 +1,82 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.logging.console
+
+import org.gradle.internal.logging.OutputSpecification
+
+class OutputEventRingBufferTest extends OutputSpecification {
+    def "rounds capacity up to a power of two"() {
+        expect:
+        new OutputEventRingBuffer(requested).capacity() == capacity
+
+        where:
+        requested | capacity
+        1         | 1
+        2         | 2
+        3         | 4
+        1000      | 1024
+        1024      | 1024
+        10000     | 16384
+    }
+
+    def "polls events in the order they were offered"() {
+        def buffer = new OutputEventRingBuffer(4)
+        def event1 = event('1')
+        def event2 = event('2')
+
+        expect:
+        buffer.poll() == null
+        buffer.offer(event1) == 0
+        buffer.offer(event2) == 1
+        buffer.size() == 2
+        buffer.poll() == event1
+        buffer.head() == 1
+        buffer.poll() == event2
+        buffer.poll() == null
+        buffer.size() == 0
+    }
+
+    def "rejects events when full and reuses slots once consumed"() {
+        def buffer = new OutputEventRingBuffer(2)
+        def event1 = event('1')
+        def event2 = event('2')
+        def event3 = event('3')
+
+        expect:
+        buffer.offer(event1) == 0
+        buffer.offer(event2) == 1
+        buffer.offer(event3) == -1
+
+        buffer.poll() == event1
+        buffer.offer(event3) == 2
+        buffer.poll() == event2
+        buffer.poll() == event3
+        buffer.poll() == null
+    }
+
+    def "can wrap around many times"() {
+        def buffer = new OutputEventRingBuffer(4)
+        def events = (1..100).collect { event("$it") }
+
+        expect:
+        events.eachWithIndex { event, index ->
+            assert buffer.offer(event) == index
+            assert buffer.poll() == event
+        }
+        buffer.size() == 0
+    }
+}
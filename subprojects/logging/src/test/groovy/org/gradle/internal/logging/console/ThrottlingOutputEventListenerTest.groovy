@@ -18,12 +18,16 @@ package org.gradle.internal.logging.console
 import org.gradle.internal.logging.OutputSpecification
 import org.gradle.internal.logging.events.EndOutputEvent
 import org.gradle.internal.logging.events.FlushOutputEvent
+import org.gradle.internal.logging.events.LogEvent
+import org.gradle.internal.logging.events.OutputEvent
 import org.gradle.internal.logging.events.OutputEventListener
 import org.gradle.internal.logging.events.UpdateNowEvent
 import org.gradle.internal.time.MockClock
 import org.gradle.util.internal.MockExecutor
 import spock.lang.Subject
 
+import java.util.concurrent.CopyOnWriteArrayList
+
 class ThrottlingOutputEventListenerTest extends OutputSpecification {
     def listener = Mock(OutputEventListener)
     def clock = new MockClock()
@@ -155,4 +159,31 @@ class ThrottlingOutputEventListenerTest extends OutputSpecification {
         then:
         executor.isShutdown()
     }
+
+    def "forwards events from concurrent producers in the order each producer queued them"() {
+        def received = new CopyOnWriteArrayList<OutputEvent>()
+        def collector = { OutputEvent event -> received.add(event) } as OutputEventListener
+        def throttling = new ThrottlingOutputEventListener(collector, 100, executor, clock)
+        def producers = 4
+        def eventsPerProducer = 20_000
+
+        when:
+        def threads = (1..producers).collect { producer ->
+            Thread.start {
+                (1..eventsPerProducer).each {
+                    throttling.onOutput(event("$producer:$it"))
+                }
+            }
+        }
+        threads.each { it.join() }
+        throttling.onOutput(new FlushOutputEvent())
+
+        then:
+        received.size() == producers * eventsPerProducer + 1
+        received.last() instanceof FlushOutputEvent
+        (1..producers).each { producer ->
+            def messages = received.findAll { it instanceof LogEvent && it.message.startsWith("$producer:") }*.message
+            assert messages == (1..eventsPerProducer).collect { "$producer:$it".toString() }
+        }
+    }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.provider;
+
+import org.gradle.api.provider.Provider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Measures querying the value of providers with the shapes commonly found on task inputs.
+ *
+ * Run with {@code -prof gc} to see the allocation rate per query.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ProviderChainBenchmark {
+
+    @Param({"property", "convention", "mapped", "list", "map"})
+    String shape;
+
+    @Param({"false", "true"})
+    boolean finalized;
+
+    private ProviderInternal<?> provider;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        provider = createProvider();
+        if (finalized) {
+            ((HasConfigurableValueInternal) provider).finalizeValue();
+        }
+    }
+
+    @Benchmark
+    public Object get() {
+        return provider.get();
+    }
+
+    @Benchmark
+    public Object calculateValue() {
+        return provider.calculateValue(ValueSupplier.ValueConsumer.IgnoreUnsafeRead);
+    }
+
+    private ProviderInternal<?> createProvider() {
+        switch (shape) {
+            case "property": {
+                DefaultProperty<String> property = new DefaultProperty<>(PropertyHost.NO_OP, String.class);
+                property.set("value");
+                return property;
+            }
+            case "convention": {
+                DefaultProperty<String> property = new DefaultProperty<>(PropertyHost.NO_OP, String.class);
+                property.convention("value");
+                return property;
+            }
+            case "mapped": {
+                // Resembles a destination directory derived from the build directory
+                DefaultProperty<File> buildDir = new DefaultProperty<>(PropertyHost.NO_OP, File.class);
+                buildDir.set(new File("build"));
+                Provider<File> classesDir = buildDir.map(dir -> new File(dir, "classes"));
+                DefaultProperty<File> destinationDir = new DefaultProperty<>(PropertyHost.NO_OP, File.class);
+                destinationDir.set(classesDir.map(dir -> new File(dir, "java")));
+                return destinationDir;
+            }
+            case "list": {
+                DefaultListProperty<String> property = new DefaultListProperty<>(PropertyHost.NO_OP, String.class);
+                property.addAll(Arrays.asList("-Xlint:all", "-Werror"));
+                property.add("-parameters");
+                property.addAll(Providers.of(Collections.singletonList("-g")));
+                return property;
+            }
+            case "map": {
+                DefaultMapProperty<String, Object> property = new DefaultMapProperty<>(PropertyHost.NO_OP, String.class, Object.class);
+                property.put("version", "1.0");
+                property.putAll(Providers.<Map<String, Object>>of(Collections.singletonMap("group", "org.gradle")));
+                return property;
+            }
+            default:
+                throw new IllegalArgumentException(shape);
+        }
+    }
+}
@@ -293,10 +293,12 @@ public ValueProducer getProducer() {
     private static class FixedSupplier<T, C extends Collection<? extends T>> implements CollectionSupplier<T, C> {
         private final C value;
         private final SideEffect<? super C> sideEffect;
+        private final Value<? extends C> calculatedValue;
 
         public FixedSupplier(C value, @Nullable SideEffect<? super C> sideEffect) {
             this.value = value;
             this.sideEffect = sideEffect;
+            this.calculatedValue = Value.of(value).withSideEffect(sideEffect);
         }
 
         @Override
@@ -306,7 +308,7 @@ public boolean calculatePresence(ValueConsumer consumer) {
 
         @Override
         public Value<? extends C> calculateValue(ValueConsumer consumer) {
-            return Value.of(value).withSideEffect(sideEffect);
+            return calculatedValue;
         }
 
         @Override
@@ -372,10 +372,12 @@ public ValueProducer getProducer() {
     private static class FixedSupplier<K, V> implements MapSupplier<K, V> {
         private final Map<K, V> entries;
         private final SideEffect<? super Map<K, V>> sideEffect;
+        private final Value<? extends Map<K, V>> calculatedValue;
 
         public FixedSupplier(Map<K, V> entries, @Nullable SideEffect<? super Map<K, V>> sideEffect) {
             this.entries = entries;
             this.sideEffect = sideEffect;
+            this.calculatedValue = Value.of(entries).withSideEffect(sideEffect);
         }
 
         @Override
@@ -385,7 +387,7 @@ public boolean calculatePresence(ValueConsumer consumer) {
 
         @Override
         public Value<? extends Map<K, V>> calculateValue(ValueConsumer consumer) {
-            return Value.of(entries).withSideEffect(sideEffect);
+            return calculatedValue;
         }
 
         @Override
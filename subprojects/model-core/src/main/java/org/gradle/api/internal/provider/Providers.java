@@ -85,9 +85,12 @@ public static <T> ProviderInternal<T> changing(SerializableCallable<T> value) {
 
     public static class FixedValueProvider<T> extends AbstractProviderWithValue<T> {
         private final T value;
+        // Created once, as the value of finalized properties is queried over and over
+        private final Value<T> calculatedValue;
 
         FixedValueProvider(T value) {
             this.value = value;
+            this.calculatedValue = Value.of(value);
         }
 
         @Nullable
@@ -98,7 +101,27 @@ public Class<T> getType() {
 
         @Override
         protected Value<? extends T> calculateOwnValue(ValueConsumer consumer) {
-            return Value.of(value);
+            return calculatedValue;
+        }
+
+        @Override
+        public Value<? extends T> calculateValue(ValueConsumer consumer) {
+            return calculatedValue;
+        }
+
+        @Override
+        public T get() {
+            return value;
+        }
+
+        @Override
+        public T getOrNull() {
+            return value;
+        }
+
+        @Override
+        public T getOrElse(T defaultValue) {
+            return value;
         }
 
         @Override
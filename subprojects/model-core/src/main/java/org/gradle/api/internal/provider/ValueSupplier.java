@@ -539,6 +539,10 @@ public T getWithoutSideEffect() throws IllegalStateException {
         @Override
         public <R> Value<R> transform(Transformer<? extends R, ? super T> transformer) {
             R transformResult = transformer.transform(result);
+            if (transformResult != null && transformResult == result && sideEffect == null) {
+                // Transforms such as type sanitizing usually return the value as is
+                return Cast.uncheckedCast(this);
+            }
             if (transformResult == null || sideEffect == null) {
                 return Value.ofNullable(transformResult);
             }
@@ -357,6 +357,46 @@ class DefaultPropertyTest extends PropertySpec<String> {
         0 * _
     }
 
+    def "finalized property does not recalculate its value"() {
+        def transformer = Mock(Transformer)
+        def property = propertyWithDefaultValue(String)
+        property.set(Providers.of("abc").map(transformer))
+
+        when:
+        property.finalizeValue()
+
+        then:
+        1 * transformer.transform("abc") >> "cba"
+        0 * _
+
+        when:
+        def first = property.calculateValue(ValueSupplier.ValueConsumer.IgnoreUnsafeRead)
+        def second = property.calculateValue(ValueSupplier.ValueConsumer.IgnoreUnsafeRead)
+
+        then:
+        first.is(second)
+        property.get() == "cba"
+        0 * _
+    }
+
+    def "transform of present value returns the value itself when the transformer returns its input"() {
+        def value = ValueSupplier.Value.of("abc")
+
+        expect:
+        value.transform { it }.is(value)
+    }
+
+    def "transform of value without content is missing when the transformer returns null"() {
+        def transformer = Mock(Transformer)
+
+        when:
+        def result = ValueSupplier.Value.SUCCESS.transform(transformer)
+
+        then:
+        1 * transformer.transform(null) >> null
+        result.missing
+    }
+
     def "provider from property with convention can be absent"() {
         def property = propertyWithDefaultValue(String)
         property.convention("convention")
@@ -9,6 +9,8 @@ dependencies {
     implementation(project(":base-services"))
     implementation(project(":core-api"))
     implementation(project(":core"))
+    implementation(project(":file-temp"))
+    implementation(project(":hashing"))
     implementation(project(":model-core"))
     implementation(project(":logging"))
 
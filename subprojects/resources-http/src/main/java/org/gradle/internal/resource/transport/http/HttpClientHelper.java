@@ -96,6 +96,21 @@ public HttpClientResponse performGet(String source, boolean revalidate) {
         return processResponse(performRawGet(source, revalidate));
     }
 
+    /**
+     * Performs a GET request for the given byte range of the resource, both ends inclusive.
+     * The server may ignore the range and answer with the complete resource, or with an error, so callers must check the status of the response.
+     *
+     * @param validator an entity tag or last modified date that the resource must still match for the range to be served, see {@code If-Range}
+     */
+    HttpClientResponse performRangeGet(String source, long firstBytePosition, long lastBytePosition, @Nullable String validator) {
+        HttpGet request = new HttpGet(source);
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + firstBytePosition + "-" + lastBytePosition);
+        if (validator != null) {
+            request.addHeader(HttpHeaders.IF_RANGE, validator);
+        }
+        return performRequest(request, false);
+    }
+
     public HttpClientResponse performRequest(HttpRequestBase request, boolean revalidate) {
         String method = request.getMethod();
         if (revalidate) {
@@ -65,6 +65,21 @@ public void close() {
         }
     }
 
+    /**
+     * Closes the response without consuming the remaining content, discarding the underlying connection.
+     * Used when only a part of a large response body is of interest.
+     */
+    void abort() {
+        if (!closed) {
+            closed = true;
+            try {
+                httpResponse.close();
+            } catch (IOException e) {
+                // Ignore, the connection is discarded anyway
+            }
+        }
+    }
+
     String getMethod() {
         return method;
     }
@@ -78,6 +93,10 @@ boolean wasSuccessful() {
         return statusCode >= 200 && statusCode < 400;
     }
 
+    boolean wasPartialContent() {
+        return getStatusLine().getStatusCode() == 206;
+    }
+
     boolean wasMissing() {
         int statusCode = getStatusLine().getStatusCode();
         return statusCode == 404;
@@ -40,10 +40,12 @@ public class HttpConnectorFactory implements ResourceConnectorFactory {
 
     private final SslContextFactory sslContextFactory;
     private final HttpClientHelper.Factory httpClientHelperFactory;
+    private final HttpRangeDownloader rangeDownloader;
 
-    public HttpConnectorFactory(SslContextFactory sslContextFactory, HttpClientHelper.Factory httpClientHelperFactory) {
+    public HttpConnectorFactory(SslContextFactory sslContextFactory, HttpClientHelper.Factory httpClientHelperFactory, HttpRangeDownloader rangeDownloader) {
         this.sslContextFactory = sslContextFactory;
         this.httpClientHelperFactory = httpClientHelperFactory;
+        this.rangeDownloader = rangeDownloader;
     }
 
     @Override
@@ -64,7 +66,7 @@ public ExternalResourceConnector createResourceConnector(ResourceConnectorSpecif
             .withRedirectVerifier(connectionDetails.getRedirectVerifier())
             .build()
         );
-        HttpResourceAccessor accessor = new HttpResourceAccessor(http);
+        HttpResourceAccessor accessor = new HttpResourceAccessor(http, rangeDownloader);
         HttpResourceLister lister = new HttpResourceLister(accessor);
         HttpResourceUploader uploader = new HttpResourceUploader(http);
         return new DefaultExternalResourceConnector(accessor, lister, uploader);
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+/**
+ * Controls when and how large resources are downloaded as concurrent byte ranges.
+ */
+public interface HttpRangeDownloadSettings {
+
+    boolean isEnabled();
+
+    /**
+     * Resources smaller than this are always downloaded with a single request.
+     */
+    long getMinimumContentLength();
+
+    long getChunkSize();
+
+    int getMaxConcurrentChunks();
+
+    /**
+     * The number of times a chunk is requested before giving up. Each retry resumes from the last received byte.
+     */
+    int getMaxAttemptsPerChunk();
+
+}
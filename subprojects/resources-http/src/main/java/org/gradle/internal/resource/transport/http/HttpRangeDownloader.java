@@ -0,0 +1,516 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.io.FileUtils;
+import org.apache.http.HttpHeaders;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.PrimitiveHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downloads large resources as a number of byte ranges that are fetched concurrently.
+ *
+ * <p>The first chunk is streamed from the response to the initial request, while the remaining chunks are fetched into
+ * partial files in the background. When a transfer fails, it is resumed from the last received byte. Partial files are
+ * kept when a download fails altogether, so that a later download of the same version of the resource picks up where the
+ * previous one stopped. Partial files that have not been used for {@value #STALE_PARTIAL_DOWNLOAD_DAYS} days are deleted.</p>
+ *
+ * <p>The version of a resource is identified by its entity tag or last modified date. It is sent along with each range request,
+ * so that the server answers with the complete resource rather than a range of a different version, which aborts the download.</p>
+ *
+ * <p>The SHA-1 checksum announced by the server, if any, is verified while the content is streamed to the consumer.</p>
+ */
+public class HttpRangeDownloader implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpRangeDownloader.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int STALE_PARTIAL_DOWNLOAD_DAYS = 7;
+
+    private final HttpRangeDownloadSettings settings;
+    private final ExecutorFactory executorFactory;
+    private final File partialDownloadsDir;
+    private ManagedExecutor executor;
+    private boolean staleDownloadsDeleted;
+
+    public HttpRangeDownloader(HttpRangeDownloadSettings settings, ExecutorFactory executorFactory, File partialDownloadsDir) {
+        this.settings = settings;
+        this.executorFactory = executorFactory;
+        this.partialDownloadsDir = partialDownloadsDir;
+    }
+
+    /**
+     * Returns true when the content of the given response can be fetched using concurrent range requests.
+     */
+    public boolean canDownload(HttpResponseResource response) {
+        long contentLength = response.getContentLength();
+        return settings.isEnabled()
+            && response.getStatusCode() == 200
+            && response.acceptsByteRanges()
+            && contentLength >= settings.getMinimumContentLength()
+            && contentLength > settings.getChunkSize()
+            && validatorOf(response) != null;
+    }
+
+    /**
+     * Opens the content of the given response. All chunks but the first one are fetched in the background using range requests.
+     * The caller must close the returned stream, which also discards the connection of the initial response.
+     */
+    public InputStream openStream(HttpClientHelper http, HttpResponseResource response) throws IOException {
+        String validator = validatorOf(response);
+        long contentLength = response.getContentLength();
+        String uri = response.getURI().toString();
+        PartialDownload download = startPartialDownload(partialDownloadKey(uri, validator, contentLength));
+        try {
+            List<Chunk> chunks = new ArrayList<>();
+            List<Future<File>> pendingChunks = new ArrayList<>();
+            for (long first = 0; first < contentLength; first += settings.getChunkSize()) {
+                long last = Math.min(first + settings.getChunkSize(), contentLength) - 1;
+                Chunk chunk = new Chunk(first, last, download.chunkFile(chunks.size()));
+                // The first chunk is read from the initial response
+                pendingChunks.add(chunks.isEmpty() ? null : getExecutor().submit(() -> fetchChunk(http, uri, validator, chunk)));
+                chunks.add(chunk);
+            }
+            LOGGER.debug("Downloading {} in {} chunks of up to {} bytes.", uri, chunks.size(), settings.getChunkSize());
+            return new RangedContentStream(http, uri, validator, response, chunks, pendingChunks, download);
+        } catch (RuntimeException e) {
+            response.abort();
+            download.release(true);
+            throw e;
+        }
+    }
+
+    private File fetchChunk(HttpClientHelper http, String uri, String validator, Chunk chunk) throws IOException {
+        int attempts = 0;
+        while (true) {
+            long received = chunk.file.length();
+            if (received == chunk.length()) {
+                return chunk.file;
+            }
+            if (received > chunk.length()) {
+                Files.delete(chunk.file.toPath());
+                received = 0;
+            }
+            attempts++;
+            HttpClientResponse rangeResponse = null;
+            try (OutputStream outputStream = new FileOutputStream(chunk.file, true)) {
+                rangeResponse = openRange(http, uri, validator, chunk.first + received, chunk.last);
+                copy(rangeResponse.getContent(), outputStream, chunk.length() - received);
+                rangeResponse.close();
+            } catch (RangeNotServedException e) {
+                throw e;
+            } catch (IOException | HttpRequestException e) {
+                if (rangeResponse != null) {
+                    rangeResponse.abort();
+                }
+                if (attempts >= settings.getMaxAttemptsPerChunk()) {
+                    throw e;
+                }
+                LOGGER.debug("Failed to download bytes {}-{} of {}, resuming after {} bytes.", chunk.first, chunk.last, uri, chunk.file.length(), e);
+            }
+        }
+    }
+
+    private static HttpClientResponse openRange(HttpClientHelper http, String uri, String validator, long first, long last) throws IOException {
+        HttpClientResponse rangeResponse = http.performRangeGet(uri, first, last, validator);
+        String contentRange = rangeResponse.getHeader(HttpHeaders.CONTENT_RANGE);
+        if (!rangeResponse.wasPartialContent() || contentRange == null || !contentRange.startsWith("bytes " + first + "-")) {
+            // Either the resource has changed, or the server does not honour the requested range after all
+            rangeResponse.abort();
+            throw new RangeNotServedException(String.format("Could not download bytes %d-%d of '%s', server responded with %s and content range '%s'.",
+                first, last, HttpClientHelper.stripUserCredentials(rangeResponse.getEffectiveUri()), rangeResponse.getStatusLine(), contentRange));
+        }
+        return rangeResponse;
+    }
+
+    private static void copy(InputStream inputStream, OutputStream outputStream, long length) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                throw new EOFException(String.format("Premature end of content, %d bytes missing.", remaining));
+            }
+            outputStream.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    @Nullable
+    @VisibleForTesting
+    static String validatorOf(HttpResponseResource response) {
+        String etag = response.getHeaderValue(HttpHeaders.ETAG);
+        // Weak entity tags cannot be used for range requests
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return response.getHeaderValue(HttpHeaders.LAST_MODIFIED);
+    }
+
+    @VisibleForTesting
+    static String partialDownloadKey(String uri, String validator, long contentLength) {
+        return Hashing.sha1().hashString(uri + "\n" + validator + "\n" + contentLength).toString();
+    }
+
+    private PartialDownload startPartialDownload(String key) throws IOException {
+        deleteStalePartialDownloads();
+        File dir = new File(partialDownloadsDir, key);
+        Files.createDirectories(dir.toPath());
+        FileChannel lockChannel = FileChannel.open(new File(dir, "lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = tryLock(lockChannel);
+        if (lock == null) {
+            lockChannel.close();
+            // Someone else is downloading the same resource, so do not share their partial files
+            return new PartialDownload(Files.createTempDirectory(partialDownloadsDir.toPath(), key).toFile(), null, null);
+        }
+        // Marks the partial files as recently used
+        dir.setLastModified(System.currentTimeMillis());
+        return new PartialDownload(dir, lockChannel, lock);
+    }
+
+    @Nullable
+    private static FileLock tryLock(FileChannel lockChannel) throws IOException {
+        try {
+            return lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Locked by this process
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the partial files of downloads that failed a long time ago and have not been resumed since. Runs once for each instance.
+     */
+    private void deleteStalePartialDownloads() {
+        synchronized (this) {
+            if (staleDownloadsDeleted) {
+                return;
+            }
+            staleDownloadsDeleted = true;
+        }
+        File[] dirs = partialDownloadsDir.listFiles(File::isDirectory);
+        if (dirs == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(STALE_PARTIAL_DOWNLOAD_DAYS);
+        for (File dir : dirs) {
+            if (dir.lastModified() < cutoff) {
+                deleteUnlessInUse(dir);
+            }
+        }
+    }
+
+    private static void deleteUnlessInUse(File dir) {
+        File lockFile = new File(dir, "lock");
+        if (!lockFile.exists()) {
+            // A private directory of a download that did not complete its clean up
+            FileUtils.deleteQuietly(dir);
+            return;
+        }
+        try (FileChannel lockChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.WRITE)) {
+            FileLock lock = tryLock(lockChannel);
+            if (lock == null) {
+                return;
+            }
+            try {
+                FileUtils.deleteQuietly(dir);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not delete stale partial download {}.", dir, e);
+        }
+    }
+
+    private synchronized ManagedExecutor getExecutor() {
+        if (executor == null) {
+            executor = executorFactory.create("HTTP range downloads", settings.getMaxConcurrentChunks());
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.stop();
+            executor = null;
+        }
+    }
+
+    private static class Chunk {
+        final long first;
+        final long last;
+        final File file;
+
+        Chunk(long first, long last, File file) {
+            this.first = first;
+            this.last = last;
+            this.file = file;
+        }
+
+        long length() {
+            return last - first + 1;
+        }
+    }
+
+    private static class PartialDownload {
+        private final File dir;
+        private final FileChannel lockChannel;
+        private final FileLock lock;
+        private boolean released;
+
+        PartialDownload(File dir, @Nullable FileChannel lockChannel, @Nullable FileLock lock) {
+            this.dir = dir;
+            this.lockChannel = lockChannel;
+            this.lock = lock;
+        }
+
+        File chunkFile(int index) {
+            return new File(dir, "chunk-" + index);
+        }
+
+        /**
+         * Releases this download, keeping the partial files for a later download to resume from when requested and possible.
+         * Otherwise, the directory of this download is deleted. Does nothing when already released.
+         */
+        void release(boolean keepPartialFiles) {
+            if (released) {
+                return;
+            }
+            released = true;
+            if (lock != null) {
+                try {
+                    lock.release();
+                    lockChannel.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Could not release partial download {}.", dir, e);
+                }
+                if (keepPartialFiles) {
+                    return;
+                }
+            }
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+
+    /**
+     * Signals that the server did not answer a range request with the requested range. Retrying does not help in this case.
+     */
+    private static class RangeNotServedException extends IOException {
+        RangeNotServedException(String message) {
+            super(message);
+        }
+    }
+
+    private class RangedContentStream extends InputStream {
+        private final HttpClientHelper http;
+        private final String uri;
+        private final String validator;
+        private final HttpResponseResource initialResponse;
+        private final List<Chunk> chunks;
+        private final List<Future<File>> pendingChunks;
+        private final PartialDownload download;
+        private final PrimitiveHasher hasher = Hashing.sha1().newPrimitiveHasher();
+        private final byte[] single = new byte[1];
+        private InputStream current;
+        private HttpClientResponse currentRangeResponse;
+        private int currentChunk;
+        private long positionInChunk;
+        private int firstChunkAttempts = 1;
+        private boolean completed;
+        private boolean closed;
+
+        RangedContentStream(HttpClientHelper http, String uri, String validator, HttpResponseResource initialResponse, List<Chunk> chunks, List<Future<File>> pendingChunks, PartialDownload download) {
+            this.http = http;
+            this.uri = uri;
+            this.validator = validator;
+            this.initialResponse = initialResponse;
+            this.chunks = chunks;
+            this.pendingChunks = pendingChunks;
+            this.download = download;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = read(single, 0, 1);
+            return read == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed.");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (!completed) {
+                Chunk chunk = chunks.get(currentChunk);
+                if (positionInChunk == chunk.length()) {
+                    closeCurrent(true);
+                    currentChunk++;
+                    positionInChunk = 0;
+                    if (currentChunk == chunks.size()) {
+                        complete();
+                    }
+                    continue;
+                }
+                if (current == null) {
+                    current = openChunk(currentChunk);
+                }
+                int read;
+                try {
+                    read = current.read(bytes, off, (int) Math.min(len, chunk.length() - positionInChunk));
+                    if (read == -1) {
+                        throw new EOFException(String.format("Premature end of content, %d bytes missing.", chunk.length() - positionInChunk));
+                    }
+                } catch (IOException e) {
+                    if (currentChunk > 0 || firstChunkAttempts >= settings.getMaxAttemptsPerChunk()) {
+                        throw e;
+                    }
+                    // The first chunk is streamed without a partial file, resume it right away
+                    LOGGER.debug("Failed to download bytes {}-{} of {}, resuming after {} bytes.", chunk.first, chunk.last, uri, positionInChunk, e);
+                    firstChunkAttempts++;
+                    closeCurrent(false);
+                    continue;
+                }
+                hasher.putBytes(bytes, off, read);
+                positionInChunk += read;
+                return read;
+            }
+            return -1;
+        }
+
+        private InputStream openChunk(int index) throws IOException {
+            if (index > 0) {
+                return new FileInputStream(waitFor(pendingChunks.get(index)));
+            }
+            if (positionInChunk == 0 && firstChunkAttempts == 1) {
+                return initialResponse.openStream();
+            }
+            Chunk chunk = chunks.get(0);
+            currentRangeResponse = openRange(http, uri, validator, chunk.first + positionInChunk, chunk.last);
+            return currentRangeResponse.getContent();
+        }
+
+        private void closeCurrent(boolean success) throws IOException {
+            if (currentChunk == 0) {
+                // Only the first chunk of the initial response is of interest, discard the connection rather than reading the rest
+                initialResponse.abort();
+                if (currentRangeResponse != null) {
+                    if (success) {
+                        currentRangeResponse.close();
+                    } else {
+                        currentRangeResponse.abort();
+                    }
+                    currentRangeResponse = null;
+                }
+            } else if (current != null) {
+                current.close();
+            }
+            current = null;
+        }
+
+        private void complete() throws IOException {
+            completed = true;
+            HashCode expectedSha1 = initialResponse.getMetaData().getSha1();
+            if (expectedSha1 != null) {
+                HashCode actualSha1 = hasher.hash();
+                if (!expectedSha1.equals(actualSha1)) {
+                    // The partial files cannot be trusted, so discard them along with the download
+                    close();
+                    throw new IOException(String.format("Checksum mismatch for '%s': expected SHA-1 %s but downloaded content has %s.", HttpClientHelper.stripUserCredentials(initialResponse.getURI()), expectedSha1, actualSha1));
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                closeCurrent(false);
+            } finally {
+                initialResponse.abort();
+                if (!completed) {
+                    awaitPendingChunks();
+                }
+                download.release(!completed);
+            }
+        }
+
+        private void awaitPendingChunks() {
+            // Let chunks that are already being transferred finish, so that their partial files are consistent when the download is released
+            for (Future<File> pendingChunk : pendingChunks) {
+                if (pendingChunk != null && !pendingChunk.cancel(false)) {
+                    try {
+                        pendingChunk.get();
+                    } catch (ExecutionException | CancellationException e) {
+                        // Already reported to the consumer, or not of interest anymore
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private File waitFor(Future<File> pendingChunk) throws IOException {
+            try {
+                return pendingChunk.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for download of " + uri);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw UncheckedException.throwAsUncheckedException(cause);
+            }
+        }
+    }
+}
@@ -21,19 +21,37 @@
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
 import org.gradle.internal.resource.transfer.AbstractExternalResourceAccessor;
 import org.gradle.internal.resource.transfer.ExternalResourceAccessor;
+import org.gradle.internal.resource.transfer.ExternalResourceReadResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 
 public class HttpResourceAccessor extends AbstractExternalResourceAccessor implements ExternalResourceAccessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpResourceAccessor.class);
     private final HttpClientHelper http;
+    private final HttpRangeDownloader rangeDownloader;
 
     public HttpResourceAccessor(HttpClientHelper http) {
+        this(http, null);
+    }
+
+    public HttpResourceAccessor(HttpClientHelper http, @Nullable HttpRangeDownloader rangeDownloader) {
         this.http = http;
+        this.rangeDownloader = rangeDownloader;
+    }
+
+    @Override
+    protected InputStream openStream(ExternalResourceReadResponse response) throws IOException {
+        HttpResponseResource httpResponse = (HttpResponseResource) response;
+        if (rangeDownloader != null && rangeDownloader.canDownload(httpResponse)) {
+            return rangeDownloader.openStream(http, httpResponse);
+        }
+        return response.openStream();
     }
 
     @Override
@@ -17,6 +17,7 @@
 package org.gradle.internal.resource.transport.http;
 
 import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.file.temp.TemporaryFileProvider;
 import org.gradle.authentication.http.BasicAuthentication;
 import org.gradle.authentication.http.DigestAuthentication;
 import org.gradle.authentication.http.HttpHeaderAuthentication;
@@ -24,6 +25,7 @@
 import org.gradle.internal.authentication.DefaultBasicAuthentication;
 import org.gradle.internal.authentication.DefaultDigestAuthentication;
 import org.gradle.internal.authentication.DefaultHttpHeaderAuthentication;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.resource.connector.ResourceConnectorFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
@@ -48,8 +50,12 @@ HttpClientHelper.Factory createHttpClientHelperFactory(DocumentationRegistry doc
             return HttpClientHelper.Factory.createFactory(documentationRegistry);
         }
 
-        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory, HttpClientHelper.Factory httpClientHelperFactory) {
-            return new HttpConnectorFactory(sslContextFactory, httpClientHelperFactory);
+        HttpRangeDownloader createHttpRangeDownloader(ExecutorFactory executorFactory, TemporaryFileProvider temporaryFileProvider) {
+            return new HttpRangeDownloader(new JavaSystemPropertiesHttpRangeDownloadSettings(), executorFactory, temporaryFileProvider.newTemporaryFile("http-range-downloads"));
+        }
+
+        ResourceConnectorFactory createHttpConnectorFactory(SslContextFactory sslContextFactory, HttpClientHelper.Factory httpClientHelperFactory, HttpRangeDownloader rangeDownloader) {
+            return new HttpConnectorFactory(sslContextFactory, httpClientHelperFactory, rangeDownloader);
         }
     }
 
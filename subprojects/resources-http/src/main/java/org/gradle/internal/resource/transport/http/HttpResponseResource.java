@@ -97,6 +97,13 @@ public String getContentType() {
         return response.getHeader(HttpHeaders.CONTENT_TYPE);
     }
 
+    /**
+     * Returns true when the server advertised that byte range requests are supported for this resource.
+     */
+    public boolean acceptsByteRanges() {
+        return "bytes".equalsIgnoreCase(response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    }
+
     public boolean isLocal() {
         return false;
     }
@@ -116,6 +123,13 @@ public void close() {
         response.close();
     }
 
+    /**
+     * Closes the response without reading the remaining content.
+     */
+    void abort() {
+        response.abort();
+    }
+
     private static String getEtag(HttpClientResponse response) {
         return response.getHeader(HttpHeaders.ETAG);
     }
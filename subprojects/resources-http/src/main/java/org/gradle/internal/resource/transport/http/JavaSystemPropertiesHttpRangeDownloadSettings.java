@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class JavaSystemPropertiesHttpRangeDownloadSettings implements HttpRangeDownloadSettings {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JavaSystemPropertiesHttpRangeDownloadSettings.class);
+    public static final String ENABLED_SYSTEM_PROPERTY = "org.gradle.internal.http.rangeDownload.enabled";
+    public static final String MINIMUM_CONTENT_LENGTH_SYSTEM_PROPERTY = "org.gradle.internal.http.rangeDownload.minimumContentLength";
+    public static final String CHUNK_SIZE_SYSTEM_PROPERTY = "org.gradle.internal.http.rangeDownload.chunkSize";
+    public static final String MAX_CONCURRENT_CHUNKS_SYSTEM_PROPERTY = "org.gradle.internal.http.rangeDownload.maxConcurrentChunks";
+    public static final String MAX_ATTEMPTS_PER_CHUNK_SYSTEM_PROPERTY = "org.gradle.internal.http.rangeDownload.maxAttemptsPerChunk";
+    public static final long DEFAULT_MINIMUM_CONTENT_LENGTH = 32L * 1024 * 1024;
+    public static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+    public static final int DEFAULT_MAX_CONCURRENT_CHUNKS = 4;
+    public static final int DEFAULT_MAX_ATTEMPTS_PER_CHUNK = 3;
+
+    private final boolean enabled;
+    private final long minimumContentLength;
+    private final long chunkSize;
+    private final int maxConcurrentChunks;
+    private final int maxAttemptsPerChunk;
+
+    public JavaSystemPropertiesHttpRangeDownloadSettings() {
+        this.enabled = !"false".equalsIgnoreCase(System.getProperty(ENABLED_SYSTEM_PROPERTY));
+        this.minimumContentLength = initLong(MINIMUM_CONTENT_LENGTH_SYSTEM_PROPERTY, DEFAULT_MINIMUM_CONTENT_LENGTH);
+        this.chunkSize = initLong(CHUNK_SIZE_SYSTEM_PROPERTY, DEFAULT_CHUNK_SIZE);
+        this.maxConcurrentChunks = (int) initLong(MAX_CONCURRENT_CHUNKS_SYSTEM_PROPERTY, DEFAULT_MAX_CONCURRENT_CHUNKS);
+        this.maxAttemptsPerChunk = (int) initLong(MAX_ATTEMPTS_PER_CHUNK_SYSTEM_PROPERTY, DEFAULT_MAX_ATTEMPTS_PER_CHUNK);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public long getMinimumContentLength() {
+        return minimumContentLength;
+    }
+
+    @Override
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public int getMaxConcurrentChunks() {
+        return maxConcurrentChunks;
+    }
+
+    @Override
+    public int getMaxAttemptsPerChunk() {
+        return maxAttemptsPerChunk;
+    }
+
+    private static long initLong(String propertyName, long defaultValue) {
+        String systemProperty = System.getProperty(propertyName);
+
+        if (!StringUtils.isBlank(systemProperty)) {
+            try {
+                long value = Long.parseLong(systemProperty);
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                // Fall through
+            }
+            LOGGER.warn("Invalid value for java system property '{}': {}. Default value '{}' will be used.",
+                propertyName, systemProperty, defaultValue);
+        }
+
+        return defaultValue;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http
+
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.api.resources.ResourceException
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.resource.ExternalResource
+import org.gradle.internal.resource.ExternalResourceName
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.server.http.HttpServer
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class HttpRangeDownloaderTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    @Rule
+    HttpServer server = new HttpServer()
+
+    def settings = Stub(HttpRangeDownloadSettings) {
+        isEnabled() >> true
+        getMinimumContentLength() >> 200
+        getChunkSize() >> 100
+        getMaxConcurrentChunks() >> 4
+        getMaxAttemptsPerChunk() >> 2
+    }
+    def partialDownloads = tmpDir.file("partial-downloads")
+    def downloader = new HttpRangeDownloader(settings, new DefaultExecutorFactory(), partialDownloads)
+    def http = new HttpClientHelper(new DocumentationRegistry(), DefaultHttpSettings.builder()
+        .withAuthenticationSettings([])
+        .withSslContextFactory(new DefaultSslContextFactory())
+        .withRedirectVerifier({})
+        .build())
+    def accessor = new HttpResourceAccessor(http, downloader)
+    def content = new byte[450]
+    def file = tmpDir.file("large.bin")
+
+    def setup() {
+        new Random(42).nextBytes(content)
+        file.bytes = content
+        server.sendSha1Header = true
+        server.start()
+    }
+
+    def cleanup() {
+        downloader.stop()
+        http.close()
+    }
+
+    def "downloads large resource in concurrent chunks"() {
+        given:
+        server.allowGetOrHeadWithRanges("/large.bin", file)
+
+        expect:
+        download("/large.bin") == content
+        server.servedRanges as Set == ["100-199", "200-299", "300-399", "400-449"] as Set
+
+        and:
+        partialDownloads.list() as List == []
+    }
+
+    def "downloads small resource with a single request"() {
+        given:
+        def small = tmpDir.file("small.bin")
+        small.bytes = content[0..<150] as byte[]
+        server.allowGetOrHeadWithRanges("/small.bin", small)
+
+        expect:
+        download("/small.bin") == small.bytes
+        server.servedRanges.empty
+    }
+
+    def "resumes download from partial files of a previous attempt"() {
+        given:
+        server.allowGetOrHeadWithRanges("/large.bin", file)
+        def etag = '"' + Hashing.sha1().hashBytes(content) + '"'
+        def partialChunk = new File(partialDownloads, HttpRangeDownloader.partialDownloadKey("${server.uri}/large.bin", etag, content.length) + "/chunk-1")
+        partialChunk.parentFile.mkdirs()
+        partialChunk.bytes = content[100..<140] as byte[]
+
+        expect:
+        download("/large.bin") == content
+        server.servedRanges as Set == ["140-199", "200-299", "300-399", "400-449"] as Set
+        !partialChunk.parentFile.exists()
+    }
+
+    def "fails when partial files do not match the announced checksum"() {
+        given:
+        server.allowGetOrHeadWithRanges("/large.bin", file)
+        def etag = '"' + Hashing.sha1().hashBytes(content) + '"'
+        def partialChunk = new File(partialDownloads, HttpRangeDownloader.partialDownloadKey("${server.uri}/large.bin", etag, content.length) + "/chunk-2")
+        partialChunk.parentFile.mkdirs()
+        partialChunk.bytes = new byte[100]
+
+        when:
+        download("/large.bin")
+
+        then:
+        def e = thrown(ResourceException)
+        e.cause.message.startsWith("Checksum mismatch for '${server.uri}/large.bin'")
+        !partialChunk.parentFile.exists()
+    }
+
+    def "fails when resource changes during download"() {
+        given:
+        server.allowGetOrHeadWithRanges("/large.bin", file)
+        server.beforeHandle = { request ->
+            if (request.getHeader("Range") != null) {
+                file.bytes = content.reverse()
+            }
+        }
+
+        when:
+        download("/large.bin")
+
+        then:
+        def e = thrown(ResourceException)
+        e.cause.message.contains("server responded with HTTP/1.1 200 OK")
+    }
+
+    def "keeps partial files of failed download"() {
+        given:
+        server.allowGetOrHeadWithRanges("/large.bin", file)
+        server.beforeHandle = { request ->
+            if (request.getHeader("Range") == "bytes=400-449") {
+                file.bytes = content.reverse()
+            }
+        }
+
+        when:
+        download("/large.bin")
+
+        then:
+        thrown(ResourceException)
+        def dirs = partialDownloads.listFiles()
+        dirs.length == 1
+        (dirs[0].list() as List).containsAll(["lock", "chunk-3"])
+    }
+
+    def "deletes stale partial files of other downloads"() {
+        given:
+        server.allowGetOrHeadWithRanges("/large.bin", file)
+        def stale = new File(partialDownloads, "stale")
+        new File(stale, "chunk-1").with { parentFile.mkdirs(); bytes = new byte[10] }
+        new File(stale, "lock").createNewFile()
+        stale.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(8))
+        def recent = new File(partialDownloads, "recent")
+        new File(recent, "chunk-1").with { parentFile.mkdirs(); bytes = new byte[10] }
+        new File(recent, "lock").createNewFile()
+
+        expect:
+        download("/large.bin") == content
+        partialDownloads.list() as List == ["recent"]
+    }
+
+    private byte[] download(String path) {
+        accessor.withContent(new ExternalResourceName(new URI("${server.uri}${path}")), false, { inputStream, metaData ->
+            inputStream.bytes
+        } as ExternalResource.ContentAndMetadataAction<byte[]>)
+    }
+}
@@ -16,6 +16,7 @@
 package org.gradle.internal.resource.local;
 
 import org.gradle.api.Action;
+import org.gradle.internal.hash.HashCode;
 
 import java.io.File;
 
@@ -30,6 +31,13 @@
      */
     LocallyAvailableResource move(K key, File source) throws FileStoreException;
 
+    /**
+     * Moves the given file into the store, using the given SHA-1 checksum of its content rather than reading the file again to calculate it.
+     */
+    default LocallyAvailableResource move(K key, File source, HashCode sha1) throws FileStoreException {
+        return move(key, source);
+    }
+
     /**
      * Adds an entry to the store, using the given action to produce the file.
      *
@@ -35,7 +35,7 @@ public <T> T withContent(ExternalResourceName location, boolean revalidate, Exte
         }
         try {
             try {
-                try (InputStream inputStream = response.openStream()) {
+                try (InputStream inputStream = openStream(response)) {
                     return action.execute(inputStream, response.getMetaData());
                 }
             } finally {
@@ -46,6 +46,13 @@ public <T> T withContent(ExternalResourceName location, boolean revalidate, Exte
         }
     }
 
+    /**
+     * Opens the content of the given response. Subclasses can override this to fetch the content in a different way.
+     */
+    protected InputStream openStream(ExternalResourceReadResponse response) throws IOException {
+        return response.openStream();
+    }
+
     @Nullable
     protected abstract ExternalResourceReadResponse openResource(ExternalResourceName location, boolean revalidate) throws ResourceException;
 }
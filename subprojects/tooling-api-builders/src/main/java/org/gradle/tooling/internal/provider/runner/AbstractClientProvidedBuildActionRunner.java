@@ -66,6 +66,8 @@ protected interface ClientAction {
         SerializedPayload getResult();
 
         boolean isRunTasks();
+
+        boolean isStreamValues();
     }
 
     private static class ActionResults {
@@ -124,7 +126,7 @@ private SerializedPayload runAction(BuildTreeModelController controller, @Nullab
             if (action == null || actionFailure != null) {
                 return null;
             }
-            DefaultBuildController internalBuildController = buildControllerFactory.controllerFor(controller);
+            DefaultBuildController internalBuildController = buildControllerFactory.controllerFor(controller, clientAction.isStreamValues());
             try {
                 Object result;
                 if (action instanceof InternalBuildActionVersion2<?>) {
@@ -17,25 +17,40 @@
 package org.gradle.tooling.internal.provider.runner;
 
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.initialization.BuildEventConsumer;
 import org.gradle.internal.build.BuildStateRegistry;
 import org.gradle.internal.buildtree.BuildTreeModelController;
 import org.gradle.internal.service.scopes.Scopes;
 import org.gradle.internal.service.scopes.ServiceScope;
 import org.gradle.internal.work.WorkerThreadRegistry;
+import org.gradle.tooling.internal.provider.serialization.PayloadSerializer;
 
 @ServiceScope(Scopes.BuildTree.class)
 public class BuildControllerFactory {
     private final WorkerThreadRegistry workerThreadRegistry;
     private final BuildCancellationToken buildCancellationToken;
     private final BuildStateRegistry buildStateRegistry;
+    private final PayloadSerializer payloadSerializer;
+    private final BuildEventConsumer buildEventConsumer;
 
-    public BuildControllerFactory(WorkerThreadRegistry workerThreadRegistry, BuildCancellationToken buildCancellationToken, BuildStateRegistry buildStateRegistry) {
+    public BuildControllerFactory(
+        WorkerThreadRegistry workerThreadRegistry,
+        BuildCancellationToken buildCancellationToken,
+        BuildStateRegistry buildStateRegistry,
+        PayloadSerializer payloadSerializer,
+        BuildEventConsumer buildEventConsumer
+    ) {
         this.workerThreadRegistry = workerThreadRegistry;
         this.buildCancellationToken = buildCancellationToken;
         this.buildStateRegistry = buildStateRegistry;
+        this.payloadSerializer = payloadSerializer;
+        this.buildEventConsumer = buildEventConsumer;
     }
 
-    public DefaultBuildController controllerFor(BuildTreeModelController controller) {
-        return new DefaultBuildController(controller, workerThreadRegistry, buildCancellationToken, buildStateRegistry);
+    /**
+     * @param streamValues whether the client listens to the values streamed by the action.
+     */
+    public DefaultBuildController controllerFor(BuildTreeModelController controller, boolean streamValues) {
+        return new DefaultBuildController(controller, workerThreadRegistry, buildCancellationToken, buildStateRegistry, payloadSerializer, buildEventConsumer, streamValues);
     }
 }
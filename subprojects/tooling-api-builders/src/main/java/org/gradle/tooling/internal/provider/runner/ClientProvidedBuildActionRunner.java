@@ -45,15 +45,15 @@ public Result run(BuildAction action, BuildTreeLifecycleController buildControll
 
         Object clientAction = payloadSerializer.deserialize(clientProvidedBuildAction.getAction());
 
-        return runClientAction(new ClientActionImpl(clientAction, action), buildController);
+        return runClientAction(new ClientActionImpl(clientAction, clientProvidedBuildAction), buildController);
     }
 
     private static class ClientActionImpl implements ClientAction {
         private final Object clientAction;
-        private final BuildAction action;
+        private final ClientProvidedBuildAction action;
         private SerializedPayload result;
 
-        public ClientActionImpl(Object clientAction, BuildAction action) {
+        public ClientActionImpl(Object clientAction, ClientProvidedBuildAction action) {
             this.clientAction = clientAction;
             this.action = action;
         }
@@ -83,5 +83,10 @@ public SerializedPayload getResult() {
         public boolean isRunTasks() {
             return action.isRunTasks();
         }
+
+        @Override
+        public boolean isStreamValues() {
+            return action.isStreamValues();
+        }
     }
 }
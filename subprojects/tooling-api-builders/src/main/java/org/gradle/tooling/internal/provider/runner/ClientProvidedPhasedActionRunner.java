@@ -50,14 +50,14 @@ public Result run(BuildAction action, BuildTreeLifecycleController buildControll
         ClientProvidedPhasedAction clientProvidedPhasedAction = (ClientProvidedPhasedAction) action;
         InternalPhasedAction phasedAction = (InternalPhasedAction) payloadSerializer.deserialize(clientProvidedPhasedAction.getPhasedAction());
 
-        return runClientAction(new ClientActionImpl(phasedAction, action), buildController);
+        return runClientAction(new ClientActionImpl(phasedAction, clientProvidedPhasedAction), buildController);
     }
 
     private class ClientActionImpl implements ClientAction {
         private final InternalPhasedAction phasedAction;
-        private final BuildAction action;
+        private final ClientProvidedPhasedAction action;
 
-        public ClientActionImpl(InternalPhasedAction phasedAction, BuildAction action) {
+        public ClientActionImpl(InternalPhasedAction phasedAction, ClientProvidedPhasedAction action) {
             this.phasedAction = phasedAction;
             this.action = action;
         }
@@ -88,5 +88,10 @@ public SerializedPayload getResult() {
         public boolean isRunTasks() {
             return action.isRunTasks();
         }
+
+        @Override
+        public boolean isStreamValues() {
+            return action.isStreamValues();
+        }
     }
 }
@@ -19,6 +19,7 @@
 import org.gradle.api.BuildCancelledException;
 import org.gradle.api.internal.project.ProjectState;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.initialization.BuildEventConsumer;
 import org.gradle.internal.Try;
 import org.gradle.internal.build.BuildState;
 import org.gradle.internal.build.BuildStateRegistry;
@@ -36,9 +37,13 @@
 import org.gradle.tooling.internal.protocol.BuildResult;
 import org.gradle.tooling.internal.protocol.InternalActionAwareBuildController;
 import org.gradle.tooling.internal.protocol.InternalBuildControllerVersion2;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueRelay;
 import org.gradle.tooling.internal.protocol.InternalUnsupportedModelException;
 import org.gradle.tooling.internal.protocol.ModelIdentifier;
+import org.gradle.tooling.internal.provider.StreamedValue;
 import org.gradle.tooling.internal.provider.connection.ProviderBuildResult;
+import org.gradle.tooling.internal.provider.serialization.PayloadSerializer;
+import org.gradle.tooling.internal.provider.serialization.SerializedPayload;
 import org.gradle.tooling.provider.model.UnknownModelException;
 import org.gradle.tooling.provider.model.internal.ToolingModelScope;
 import org.gradle.util.Path;
@@ -51,22 +56,31 @@
 import java.util.function.Supplier;
 
 @SuppressWarnings("deprecation")
-class DefaultBuildController implements org.gradle.tooling.internal.protocol.InternalBuildController, InternalBuildControllerVersion2, InternalActionAwareBuildController {
+class DefaultBuildController implements org.gradle.tooling.internal.protocol.InternalBuildController, InternalBuildControllerVersion2, InternalActionAwareBuildController, InternalStreamedValueRelay {
     private final WorkerThreadRegistry workerThreadRegistry;
     private final BuildTreeModelController controller;
     private final BuildCancellationToken cancellationToken;
     private final BuildStateRegistry buildStateRegistry;
+    private final PayloadSerializer payloadSerializer;
+    private final BuildEventConsumer buildEventConsumer;
+    private final boolean streamValues;
 
     public DefaultBuildController(
         BuildTreeModelController controller,
         WorkerThreadRegistry workerThreadRegistry,
         BuildCancellationToken cancellationToken,
-        BuildStateRegistry buildStateRegistry
+        BuildStateRegistry buildStateRegistry,
+        PayloadSerializer payloadSerializer,
+        BuildEventConsumer buildEventConsumer,
+        boolean streamValues
     ) {
         this.workerThreadRegistry = workerThreadRegistry;
         this.controller = controller;
         this.cancellationToken = cancellationToken;
         this.buildStateRegistry = buildStateRegistry;
+        this.payloadSerializer = payloadSerializer;
+        this.buildEventConsumer = buildEventConsumer;
+        this.streamValues = streamValues;
     }
 
     /**
@@ -144,6 +158,20 @@ public <T> List<T> run(List<Supplier<T>> actions) {
         return results;
     }
 
+    /**
+     * This is used by consumers 8.0 and later
+     */
+    @Override
+    public void dispatch(Object value) {
+        if (!streamValues) {
+            // The client does not listen to the values
+            return;
+        }
+        // Serialize on the calling thread, so that project models can be streamed in parallel and released as soon as they are sent
+        SerializedPayload serializedValue = payloadSerializer.serialize(value);
+        buildEventConsumer.dispatch(new StreamedValue(serializedValue));
+    }
+
     private Function<Class<?>, Object> parameterFactory(Object parameter)
         throws InternalUnsupportedModelException {
         return expectedParameterType -> {
@@ -43,7 +43,7 @@ class ClientProvidedBuildActionRunnerTest extends Specification {
         getGradle() >> this.gradle
     }
     def modelController = Stub(BuildTreeModelController)
-    def clientProvidedBuildAction = new ClientProvidedBuildAction(startParameter, action, false /* isRunTasks */, clientSubscriptions)
+    def clientProvidedBuildAction = new ClientProvidedBuildAction(startParameter, action, false /* isRunTasks */, false /* isStreamValues */, clientSubscriptions)
     def runner = new ClientProvidedBuildActionRunner(Stub(BuildControllerFactory), payloadSerializer)
 
     def "can run action and returns result when completed"() {
@@ -109,7 +109,7 @@ class ClientProvidedBuildActionRunnerTest extends Specification {
 
     def "can run tasks before run action"() {
         given:
-        def clientProvidedBuildActionRunTasks = new ClientProvidedBuildAction(startParameter, action, true /* isRunTasks */, clientSubscriptions)
+        def clientProvidedBuildActionRunTasks = new ClientProvidedBuildAction(startParameter, action, true /* isRunTasks */, false /* isStreamValues */, clientSubscriptions)
 
         when:
         runner.run(clientProvidedBuildActionRunTasks, buildController)
@@ -37,7 +37,7 @@ class ClientProvidedPhasedActionRunnerTest extends Specification {
     def startParameter = Stub(StartParameterInternal)
     def serializedAction = Stub(SerializedPayload)
     def clientSubscriptions = Stub(BuildEventSubscriptions)
-    def clientProvidedPhasedAction = new ClientProvidedPhasedAction(startParameter, serializedAction, true, clientSubscriptions)
+    def clientProvidedPhasedAction = new ClientProvidedPhasedAction(startParameter, serializedAction, true, false, clientSubscriptions)
 
     def projectsLoadedAction = Mock(InternalBuildActionVersion2)
     def buildFinishedAction = Mock(InternalBuildActionVersion2)
@@ -152,7 +152,7 @@ class ClientProvidedPhasedActionRunnerTest extends Specification {
 
     def "run tasks if defined"() {
         when:
-        runner.run(new ClientProvidedPhasedAction(startParameter, serializedAction, true, clientSubscriptions), buildController)
+        runner.run(new ClientProvidedPhasedAction(startParameter, serializedAction, true, false, clientSubscriptions), buildController)
 
         then:
         1 * buildController.fromBuildModel(true, _) >> { Boolean b, BuildTreeModelAction modelAction ->
@@ -19,6 +19,7 @@ package org.gradle.tooling.internal.provider.runner
 import org.gradle.api.BuildCancelledException
 import org.gradle.api.internal.project.ProjectState
 import org.gradle.initialization.BuildCancellationToken
+import org.gradle.initialization.BuildEventConsumer
 import org.gradle.internal.build.BuildProjectRegistry
 import org.gradle.internal.build.BuildState
 import org.gradle.internal.build.BuildStateRegistry
@@ -29,6 +30,9 @@ import org.gradle.tooling.internal.gradle.GradleBuildIdentity
 import org.gradle.tooling.internal.gradle.GradleProjectIdentity
 import org.gradle.tooling.internal.protocol.InternalUnsupportedModelException
 import org.gradle.tooling.internal.protocol.ModelIdentifier
+import org.gradle.tooling.internal.provider.StreamedValue
+import org.gradle.tooling.internal.provider.serialization.PayloadSerializer
+import org.gradle.tooling.internal.provider.serialization.SerializedPayload
 import org.gradle.tooling.provider.model.UnknownModelException
 import org.gradle.tooling.provider.model.internal.ToolingModelScope
 import org.gradle.util.Path
@@ -47,7 +51,9 @@ class DefaultBuildControllerTest extends Specification {
     def buildStateRegistry = Mock(BuildStateRegistry)
     def modelController = Mock(BuildTreeModelController)
     def workerThreadRegistry = Mock(WorkerThreadRegistry)
-    def controller = new DefaultBuildController(modelController, workerThreadRegistry, cancellationToken, buildStateRegistry)
+    def payloadSerializer = Mock(PayloadSerializer)
+    def buildEventConsumer = Mock(BuildEventConsumer)
+    def controller = new DefaultBuildController(modelController, workerThreadRegistry, cancellationToken, buildStateRegistry, payloadSerializer, buildEventConsumer, true)
 
     def "cannot get build model from unmanaged thread"() {
         given:
@@ -269,6 +275,35 @@ class DefaultBuildControllerTest extends Specification {
         e.message == "A build controller cannot be used from a thread that is not managed by Gradle."
     }
 
+    def "serializes and dispatches streamed values to the client"() {
+        def payload1 = new SerializedPayload(null, [])
+        def payload2 = new SerializedPayload(null, [])
+
+        when:
+        controller.dispatch("one")
+        controller.dispatch("two")
+
+        then:
+        1 * payloadSerializer.serialize("one") >> payload1
+        1 * buildEventConsumer.dispatch({ it instanceof StreamedValue && it.value.is(payload1) })
+
+        then:
+        1 * payloadSerializer.serialize("two") >> payload2
+        1 * buildEventConsumer.dispatch({ it instanceof StreamedValue && it.value.is(payload2) })
+        0 * _
+    }
+
+    def "discards streamed values when the client does not listen to them"() {
+        def controller = new DefaultBuildController(modelController, workerThreadRegistry, cancellationToken, buildStateRegistry, payloadSerializer, buildEventConsumer, false)
+
+        when:
+        controller.dispatch("one")
+
+        then:
+        0 * payloadSerializer._
+        0 * buildEventConsumer._
+    }
+
     interface CustomParameter {
         String getValue()
 
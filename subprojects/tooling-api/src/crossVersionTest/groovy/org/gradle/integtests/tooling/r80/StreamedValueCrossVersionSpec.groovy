@@ -0,0 +1,139 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.tooling.r80
+
+import org.gradle.integtests.tooling.fixture.TargetGradleVersion
+import org.gradle.integtests.tooling.fixture.ToolingApiSpecification
+import org.gradle.integtests.tooling.fixture.ToolingApiVersion
+import org.gradle.tooling.BuildActionFailureException
+import org.gradle.tooling.IntermediateResultHandler
+import org.gradle.tooling.StreamedValueListener
+import org.gradle.tooling.UnsupportedVersionException
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+@ToolingApiVersion(">=8.0")
+class StreamedValueCrossVersionSpec extends ToolingApiSpecification {
+    def events = new CopyOnWriteArrayList<Object>()
+
+    def setup() {
+        settingsFile << """
+            rootProject.name = 'root'
+            include 'a', 'b'
+        """
+    }
+
+    @TargetGradleVersion(">=8.0")
+    def "receives values sent by the build action before the result"() {
+        when:
+        def result = withConnection { connection ->
+            def action = connection.action(new ActionSendsValues("action"))
+            action.setStreamedValueListener(listener())
+            action.run()
+        }
+        events << result
+
+        then:
+        events == ["action 1", "action 2", "action result"]
+    }
+
+    @TargetGradleVersion(">=8.0")
+    def "receives values sent by nested actions before the result"() {
+        when:
+        def result = withConnection { connection ->
+            def action = connection.action(new ActionSendsValuesFromNestedActions())
+            action.setStreamedValueListener(listener())
+            action.addArguments("--parallel")
+            action.run()
+        }
+        events << "result"
+
+        then:
+        result == [':', ':a', ':b']
+        events.size() == 4
+        events.take(3).sort() == [':', ':a', ':b']
+        events.last() == "result"
+    }
+
+    @TargetGradleVersion(">=8.0")
+    def "receives values sent by phased actions before the result of each phase"() {
+        when:
+        withConnection { connection ->
+            def action = connection.action()
+                .projectsLoaded(new ActionSendsValues("projects loaded"), { events << it } as IntermediateResultHandler)
+                .buildFinished(new ActionSendsValues("build finished"), { events << it } as IntermediateResultHandler)
+                .build()
+            action.setStreamedValueListener(listener())
+            action.run()
+        }
+
+        then:
+        events == [
+            "projects loaded 1",
+            "projects loaded 2",
+            "projects loaded result",
+            "build finished 1",
+            "build finished 2",
+            "build finished result"
+        ]
+    }
+
+    @TargetGradleVersion(">=8.0")
+    def "discards values without serializing them when no listener is registered"() {
+        when:
+        def result = withConnection { connection ->
+            connection.action(new ActionSendsUnserializableValue()).run()
+        }
+
+        then:
+        result == "result"
+    }
+
+    @TargetGradleVersion(">=8.0")
+    def "fails when a value cannot be serialized for the registered listener"() {
+        when:
+        withConnection { connection ->
+            def action = connection.action(new ActionSendsUnserializableValue())
+            action.setStreamedValueListener(listener())
+            action.run()
+        }
+
+        then:
+        thrown(BuildActionFailureException)
+        events.empty
+    }
+
+    @TargetGradleVersion(">=3.0 <8.0")
+    def "cannot send values to a Gradle version that does not support streaming values"() {
+        when:
+        withConnection { connection ->
+            def action = connection.action(new ActionSendsValues("action"))
+            action.setStreamedValueListener(listener())
+            action.run()
+        }
+
+        then:
+        def e = thrown(BuildActionFailureException)
+        e.cause instanceof UnsupportedVersionException
+        e.cause.message == "The version of Gradle you are using does not support streaming values from a build action."
+        events.empty
+    }
+
+    private StreamedValueListener listener() {
+        return { events << it } as StreamedValueListener
+    }
+}
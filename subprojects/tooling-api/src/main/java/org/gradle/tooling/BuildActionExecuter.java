@@ -16,6 +16,8 @@
 
 package org.gradle.tooling;
 
+import org.gradle.api.Incubating;
+
 /**
  * Used to execute a {@link BuildAction} in the build process.
  *
@@ -97,6 +99,19 @@ interface Builder {
      */
     BuildActionExecuter<T> forTasks(Iterable<String> tasks);
 
+    /**
+     * Specifies a listener that receives the values sent by the build action using {@link BuildController#send(Object)}.
+     *
+     * <p>The values are delivered while the build action is running, so a client can start processing them before the result of the action is available.
+     * Only a single listener is supported; a later call replaces the listener registered by an earlier call.</p>
+     *
+     * @param listener The listener.
+     * @return this
+     * @since 8.0
+     */
+    @Incubating
+    BuildActionExecuter<T> setStreamedValueListener(StreamedValueListener listener);
+
     /**
      * Runs the action, blocking until its result is available.
      *
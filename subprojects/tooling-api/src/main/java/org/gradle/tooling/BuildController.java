@@ -212,4 +212,21 @@ public interface BuildController {
      */
     @Incubating
     boolean getCanQueryProjectModelInParallel(Class<?> modelType);
+
+    /**
+     * Streams an object to the client, without waiting for the build action to complete. The object is serialized and delivered to the
+     * {@link StreamedValueListener} registered using {@link BuildActionExecuter#setStreamedValueListener(StreamedValueListener)}, while the action continues to run.
+     *
+     * <p>This allows an action to send the models for each project as soon as they are built, for example from actions run using {@link #run(Collection)},
+     * rather than holding the models for the whole build in memory and delivering them in a single result.</p>
+     *
+     * <p>This method may be called concurrently from multiple threads. Values sent from the same thread are received in the same order.
+     * When no listener is registered for the operation, the values are discarded without being serialized.</p>
+     *
+     * @param value The value to send.
+     * @throws UnsupportedVersionException When the target Gradle version does not support streaming values.
+     * @since 8.0
+     */
+    @Incubating
+    void send(Object value) throws UnsupportedVersionException;
 }
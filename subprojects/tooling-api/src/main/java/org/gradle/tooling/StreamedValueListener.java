@@ -0,0 +1,38 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling;
+
+import org.gradle.api.Incubating;
+
+/**
+ * A handler for values sent by a {@link BuildAction} using {@link BuildController#send(Object)}.
+ *
+ * @since 8.0
+ */
+@Incubating
+public interface StreamedValueListener {
+    /**
+     * Handles a value sent by the build action. Values are received in the order that they are sent by each thread of the build action,
+     * and are always received before the result of the build action.
+     *
+     * <p>This method is called from a thread owned by the tooling API. The next value is not delivered until this method returns.</p>
+     *
+     * @param value The value, deserialized in the client process.
+     */
+    void onNext(Object value);
+}
@@ -21,6 +21,7 @@
 import org.gradle.tooling.internal.consumer.versioning.ModelMapping;
 import org.gradle.tooling.internal.protocol.InternalActionAwareBuildController;
 import org.gradle.tooling.internal.protocol.InternalBuildControllerVersion2;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueRelay;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -41,6 +42,15 @@ public boolean getCanQueryProjectModelInParallel(Class<?> modelType) {
         return controller.getCanQueryProjectModelInParallel(modelType);
     }
 
+    @Override
+    public void send(Object value) {
+        if (controller instanceof InternalStreamedValueRelay) {
+            ((InternalStreamedValueRelay) controller).dispatch(value);
+        } else {
+            super.send(value);
+        }
+    }
+
     @Override
     public <T> List<T> run(Collection<? extends BuildAction<? extends T>> buildActions) {
         List<Supplier<T>> wrappers = new ArrayList<Supplier<T>>(buildActions.size());
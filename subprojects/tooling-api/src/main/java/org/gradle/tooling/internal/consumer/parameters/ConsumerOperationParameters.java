@@ -20,6 +20,7 @@
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.tooling.CancellationToken;
+import org.gradle.tooling.StreamedValueListener;
 import org.gradle.tooling.events.OperationType;
 import org.gradle.tooling.events.ProgressListener;
 import org.gradle.tooling.internal.adapter.ProtocolToModelAdapter;
@@ -28,10 +29,12 @@
 import org.gradle.tooling.internal.gradle.TaskListingLaunchable;
 import org.gradle.tooling.internal.protocol.BuildParameters;
 import org.gradle.tooling.internal.protocol.InternalLaunchable;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueListener;
 import org.gradle.tooling.internal.protocol.ProgressListenerVersion1;
 import org.gradle.tooling.model.Launchable;
 import org.gradle.tooling.model.Task;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -72,6 +75,7 @@ public static class Builder {
         private List<InternalLaunchable> launchables;
         private ClassPath injectedPluginClasspath = ClassPath.EMPTY;
         private Map<String, String> systemProperties;
+        private StreamedValueListener streamedValueListener;
 
         private Builder() {
         }
@@ -188,6 +192,11 @@ public Builder setSystemProperties(Map<String, String> systemProperties) {
             return this;
         }
 
+        public Builder setStreamedValueListener(StreamedValueListener streamedValueListener) {
+            this.streamedValueListener = streamedValueListener;
+            return this;
+        }
+
         public void addProgressListener(org.gradle.tooling.ProgressListener listener) {
             legacyProgressListeners.add(listener);
         }
@@ -214,7 +223,7 @@ public ConsumerOperationParameters build() {
             }
 
             return new ConsumerOperationParameters(entryPoint, parameters, stdout, stderr, colorOutput, stdin, javaHome, jvmArguments, envVariables, arguments, tasks, launchables, injectedPluginClasspath,
-                legacyProgressListeners, progressListeners, cancellationToken, systemProperties);
+                legacyProgressListeners, progressListeners, cancellationToken, systemProperties, streamedValueListener);
         }
 
         public void copyFrom(ConsumerOperationParameters operationParameters) {
@@ -233,6 +242,7 @@ public void copyFrom(ConsumerOperationParameters operationParameters) {
             javaHome = operationParameters.javaHome;
             injectedPluginClasspath = operationParameters.injectedPluginClasspath;
             systemProperties = operationParameters.systemProperties;
+            streamedValueListener = operationParameters.streamedValueListener;
         }
     }
 
@@ -260,11 +270,12 @@ public void copyFrom(ConsumerOperationParameters operationParameters) {
     private final Map<OperationType, List<ProgressListener>> progressListeners;
 
     private final Map<String, String> systemProperties;
+    private final StreamedValueListener streamedValueListener;
 
     private ConsumerOperationParameters(String entryPointName, ConnectionParameters parameters, OutputStream stdout, OutputStream stderr, Boolean colorOutput, InputStream stdin,
                                         File javaHome, List<String> jvmArguments,  Map<String, String> envVariables, List<String> arguments, List<String> tasks, List<InternalLaunchable> launchables, ClassPath injectedPluginClasspath,
                                         List<org.gradle.tooling.ProgressListener> legacyProgressListeners, Map<OperationType, List<ProgressListener>> progressListeners, CancellationToken cancellationToken,
-                                        Map<String, String> systemProperties) {
+                                        Map<String, String> systemProperties, @Nullable StreamedValueListener streamedValueListener) {
         this.entryPointName = entryPointName;
         this.parameters = parameters;
         this.stdout = stdout;
@@ -282,6 +293,7 @@ private ConsumerOperationParameters(String entryPointName, ConnectionParameters
         this.legacyProgressListeners = legacyProgressListeners;
         this.progressListeners = progressListeners;
         this.systemProperties = systemProperties;
+        this.streamedValueListener = streamedValueListener;
 
         // create the listener adapters right when the ConsumerOperationParameters are instantiated but no earlier,
         // this ensures that when multiple requests are issued that are built from the same builder, such requests do not share any state kept in the listener adapters
@@ -460,4 +472,12 @@ public BuildCancellationToken getCancellationToken() {
         return systemProperties;
     }
 
+    /**
+     * @since 8.0
+     */
+    @Nullable
+    public InternalStreamedValueListener getStreamedValueListener() {
+        return streamedValueListener == null ? null : new StreamedValueListenerAdapter(streamedValueListener);
+    }
+
 }
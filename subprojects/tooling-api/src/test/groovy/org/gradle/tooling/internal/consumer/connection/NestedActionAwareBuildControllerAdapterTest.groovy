@@ -0,0 +1,61 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.consumer.connection
+
+import org.gradle.tooling.UnsupportedVersionException
+import org.gradle.tooling.internal.adapter.ProtocolToModelAdapter
+import org.gradle.tooling.internal.consumer.versioning.ModelMapping
+import org.gradle.tooling.internal.protocol.InternalActionAwareBuildController
+import org.gradle.tooling.internal.protocol.InternalBuildControllerVersion2
+import org.gradle.tooling.internal.protocol.InternalStreamedValueRelay
+import spock.lang.Specification
+
+class NestedActionAwareBuildControllerAdapterTest extends Specification {
+    def adapter = Stub(ProtocolToModelAdapter)
+    def mapping = Stub(ModelMapping)
+
+    def "relays streamed values to the provider"() {
+        def delegate = Mock(StreamingBuildController)
+        def controller = new NestedActionAwareBuildControllerAdapter(delegate, adapter, mapping, new File("root"))
+
+        when:
+        controller.send("value")
+
+        then:
+        1 * delegate.dispatch("value")
+        0 * delegate._
+    }
+
+    def "fails to stream values when provider does not support it"() {
+        def delegate = Mock(ActionAwareBuildController)
+        def controller = new NestedActionAwareBuildControllerAdapter(delegate, adapter, mapping, new File("root"))
+
+        when:
+        controller.send("value")
+
+        then:
+        UnsupportedVersionException e = thrown()
+        e.message == "The version of Gradle you are using does not support streaming values from a build action."
+    }
+
+    interface ActionAwareBuildController extends InternalBuildControllerVersion2, InternalActionAwareBuildController {
+    }
+
+    interface StreamingBuildController extends ActionAwareBuildController, InternalStreamedValueRelay {
+    }
+}
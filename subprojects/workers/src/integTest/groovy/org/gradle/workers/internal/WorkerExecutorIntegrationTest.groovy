@@ -409,6 +409,50 @@ class WorkerExecutorIntegrationTest extends AbstractWorkerExecutorIntegrationTes
         isolationMode << ISOLATION_MODES
     }
 
+    def "work items with the same parameters share isolated parameters in #isolationMode"() {
+        given:
+        buildFile << """
+            interface TextParameters extends WorkParameters {
+                Property<String> getText()
+            }
+
+            abstract class PrintText implements WorkAction<TextParameters> {
+                void execute() {
+                    println("text = " + parameters.text.get())
+                }
+            }
+
+            abstract class SubmitWork extends DefaultTask {
+                @javax.inject.Inject
+                abstract WorkerExecutor getWorkerExecutor()
+
+                @TaskAction
+                void submit() {
+                    def queue = workerExecutor."\${$isolationMode}"()
+                    3.times {
+                        queue.submit(PrintText) { it.text = "same" }
+                    }
+                    queue.submit(PrintText) { it.text = "different" }
+                }
+            }
+
+            task submitWork(type: SubmitWork)
+        """
+
+        when:
+        succeeds("submitWork")
+
+        then:
+        def operations = buildOperations.all(ExecuteWorkItemBuildOperationType)
+        operations.size() == 4
+        operations.count { it.details.parametersReused } == 2
+        output.count("text = same") == 3
+        outputContains("text = different")
+
+        where:
+        isolationMode << ISOLATION_MODES
+    }
+
     def "can use a parameter that references classes in other packages in #isolationMode"() {
         fixture.withWorkActionClassInBuildSrc()
         withParameterClassReferencingClassInAnotherPackage()
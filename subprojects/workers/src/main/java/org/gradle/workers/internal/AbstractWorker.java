@@ -51,7 +51,7 @@ public DefaultWorkResult call(BuildOperationContext context) {
             public BuildOperationDescriptor.Builder description() {
                 return BuildOperationDescriptor.displayName(spec.getDisplayName())
                     .parent(parentBuildOperation)
-                    .details(new Details(spec.getActionImplementationClassName(), spec.getDisplayName()));
+                    .details(new Details(spec.getActionImplementationClassName(), spec.getDisplayName(), spec.isParametersReused()));
             }
         });
     }
@@ -64,10 +64,12 @@ static class Details implements ExecuteWorkItemBuildOperationType.Details {
 
         private final String className;
         private final String displayName;
+        private final boolean parametersReused;
 
-        public Details(String className, String displayName) {
+        public Details(String className, String displayName, boolean parametersReused) {
             this.className = className;
             this.displayName = displayName;
+            this.parametersReused = parametersReused;
         }
 
         @Override
@@ -80,6 +82,11 @@ public String getDisplayName() {
             return displayName;
         }
 
+        @Override
+        public boolean isParametersReused() {
+            return parametersReused;
+        }
+
     }
 
     static class Result implements ExecuteWorkItemBuildOperationType.Result {
@@ -16,8 +16,13 @@
 
 package org.gradle.workers.internal;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.gradle.internal.Cast;
 import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.isolation.Isolatable;
 import org.gradle.internal.isolation.IsolatableFactory;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
@@ -31,6 +36,9 @@
 public class DefaultActionExecutionSpecFactory implements ActionExecutionSpecFactory {
     private final IsolatableFactory isolatableFactory;
     private final IsolatableSerializerRegistry serializerRegistry;
+    // Work items submitted with the same parameters share their isolated parameters, so these are kept in memory and serialized once
+    private final Cache<IsolatedParametersKey, Isolatable<?>> isolatedParameters = CacheBuilder.newBuilder().weakValues().build();
+    private final Cache<Isolatable<?>, byte[]> serializedParameters = CacheBuilder.newBuilder().weakKeys().build();
 
     public DefaultActionExecutionSpecFactory(IsolatableFactory isolatableFactory, IsolatableSerializerRegistry serializerRegistry) {
         this.isolatableFactory = isolatableFactory;
@@ -39,13 +47,36 @@ public DefaultActionExecutionSpecFactory(IsolatableFactory isolatableFactory, Is
 
     @Override
     public <T extends WorkParameters> TransportableActionExecutionSpec newTransportableSpec(IsolatedParametersActionExecutionSpec<T> spec) {
-        return new TransportableActionExecutionSpec(spec.getImplementationClass().getName(), serialize(spec.getIsolatedParams()), spec.getClassLoaderStructure(), spec.getBaseDir(), spec.isInternalServicesRequired());
+        return new TransportableActionExecutionSpec(spec.getImplementationClass().getName(), serializedParametersOf(spec.getIsolatedParams()), spec.getClassLoaderStructure(), spec.getBaseDir(), spec.isInternalServicesRequired());
     }
 
     @Override
     public <T extends WorkParameters> IsolatedParametersActionExecutionSpec<T> newIsolatedSpec(String displayName, Class<? extends WorkAction<T>> implementationClass, T params, WorkerRequirement workerRequirement, boolean usesInternalServices) {
         ClassLoaderStructure classLoaderStructure = workerRequirement instanceof IsolatedClassLoaderWorkerRequirement ? ((IsolatedClassLoaderWorkerRequirement) workerRequirement).getClassLoaderStructure() : null;
-        return new IsolatedParametersActionExecutionSpec<T>(implementationClass, displayName, implementationClass.getName(), isolatableFactory.isolate(params), classLoaderStructure, workerRequirement.getWorkerDirectory(), usesInternalServices);
+        Isolatable<T> isolatedParams = isolatableFactory.isolate(params);
+        Isolatable<T> sharedParams = params == null ? isolatedParams : shared(params.getClass(), isolatedParams);
+        return new IsolatedParametersActionExecutionSpec<T>(implementationClass, displayName, implementationClass.getName(), sharedParams, classLoaderStructure, workerRequirement.getWorkerDirectory(), usesInternalServices, sharedParams != isolatedParams);
+    }
+
+    /**
+     * Returns the isolated parameters of an earlier work item with the same parameters, if there is one.
+     */
+    private <T> Isolatable<T> shared(Class<?> parametersType, Isolatable<T> isolatedParams) {
+        Hasher hasher = Hashing.newHasher();
+        isolatedParams.appendToHasher(hasher);
+        // The hash of the isolated parameters does not capture their type
+        IsolatedParametersKey key = new IsolatedParametersKey(parametersType, hasher.hash());
+        Isolatable<?> existing = isolatedParameters.asMap().putIfAbsent(key, isolatedParams);
+        return existing == null ? isolatedParams : Cast.uncheckedCast(existing);
+    }
+
+    private byte[] serializedParametersOf(Isolatable<?> isolatable) {
+        byte[] serialized = serializedParameters.getIfPresent(isolatable);
+        if (serialized == null) {
+            serialized = serialize(isolatable);
+            serializedParameters.put(isolatable, serialized);
+        }
+        return serialized;
     }
 
     @Override
@@ -89,4 +120,31 @@ private Isolatable<?> deserialize(byte[] bytes) {
             throw new WorkSerializationException("Could not deserialize unit of work.", e);
         }
     }
+
+    private static class IsolatedParametersKey {
+        private final Class<?> parametersType;
+        private final HashCode hash;
+
+        IsolatedParametersKey(Class<?> parametersType, HashCode hash) {
+            this.parametersType = parametersType;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            IsolatedParametersKey that = (IsolatedParametersKey) o;
+            return parametersType.equals(that.parametersType) && hash.equals(that.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * parametersType.hashCode() + hash.hashCode();
+        }
+    }
 }
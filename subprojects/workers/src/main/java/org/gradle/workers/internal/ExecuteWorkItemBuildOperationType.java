@@ -33,6 +33,13 @@ interface Details {
          * Returns the display name of the work item.
          */
         String getDisplayName();
+
+        /**
+         * Returns whether the work item reuses the isolated parameters of an earlier work item with the same parameters.
+         *
+         * @since 8.0
+         */
+        boolean isParametersReused();
     }
 
     interface Result {
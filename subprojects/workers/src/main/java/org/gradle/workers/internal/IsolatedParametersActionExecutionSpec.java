@@ -29,9 +29,10 @@
     private final ClassLoaderStructure classLoaderStructure;
     private final File baseDir;
     private final boolean usesInternalServices;
+    private final boolean parametersReused;
     private final String displayName;
 
-    public IsolatedParametersActionExecutionSpec(Class<? extends WorkAction<T>> implementationClass, String displayName, String actionImplementationClassName, Isolatable<T> isolatedParams, ClassLoaderStructure classLoaderStructure, File baseDir, boolean usesInternalServices) {
+    public IsolatedParametersActionExecutionSpec(Class<? extends WorkAction<T>> implementationClass, String displayName, String actionImplementationClassName, Isolatable<T> isolatedParams, ClassLoaderStructure classLoaderStructure, File baseDir, boolean usesInternalServices, boolean parametersReused) {
         this.implementationClass = implementationClass;
         this.displayName = displayName;
         this.actionImplementationClassName = actionImplementationClassName;
@@ -39,6 +40,7 @@ public IsolatedParametersActionExecutionSpec(Class<? extends WorkAction<T>> impl
         this.classLoaderStructure = classLoaderStructure;
         this.baseDir = baseDir;
         this.usesInternalServices = usesInternalServices;
+        this.parametersReused = parametersReused;
     }
 
     public String getDisplayName() {
@@ -74,4 +76,11 @@ public boolean isInternalServicesRequired() {
     public Isolatable<T> getIsolatedParams() {
         return isolatedParams;
     }
+
+    /**
+     * Whether the isolated parameters are shared with an earlier work item with the same parameters.
+     */
+    public boolean isParametersReused() {
+        return parametersReused;
+    }
 }